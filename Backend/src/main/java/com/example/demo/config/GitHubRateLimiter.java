@@ -0,0 +1,279 @@
+package com.example.demo.config;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Schedules GitHub API calls against each token's rate limit. Every response's X-RateLimit headers
+ * update that token's budget, and calls draw from a token bucket: while plenty of budget is left the
+ * bucket refills at app.github.rate-limit.max-per-second, and once it runs low the refill is slowed
+ * so the remainder lasts until the reset. The last few calls of the window are kept for interactive
+ * callers.
+ *
+ * Calls made on a web request thread (dashboard reads) are interactive and go ahead of waiting
+ * pipeline calls. A 429, or a 403 that is a primary or secondary rate limit, is retried after
+ * Retry-After, the reset time, or an exponential backoff with full jitter.
+ */
+public class GitHubRateLimiter implements ClientHttpRequestInterceptor {
+
+    private final String apiHost;
+    private final double maxPerSecond;
+    private final double burst;
+    private final double lowBudgetFraction;
+    private final int interactiveReserve;
+    private final int maxRetries;
+    private final long baseBackoffMillis;
+    private final long maxBackoffMillis;
+
+    private final Map<String, TokenBudget> budgets = new ConcurrentHashMap<>();
+    private final AtomicLong throttledMillis = new AtomicLong();
+    private final AtomicLong retries = new AtomicLong();
+
+    public GitHubRateLimiter(String apiHost, double maxPerSecond, int burst, double lowBudgetFraction,
+                             int interactiveReserve, int maxRetries, long baseBackoffMillis, long maxBackoffMillis) {
+        this.apiHost = apiHost;
+        this.maxPerSecond = maxPerSecond;
+        this.burst = burst;
+        this.lowBudgetFraction = lowBudgetFraction;
+        this.interactiveReserve = interactiveReserve;
+        this.maxRetries = maxRetries;
+        this.baseBackoffMillis = baseBackoffMillis;
+        this.maxBackoffMillis = maxBackoffMillis;
+    }
+
+    // Sends a request once; called again for every retry
+    @FunctionalInterface
+    public interface Attempt {
+        ClientHttpResponse send() throws IOException;
+    }
+
+    @Override
+    public ClientHttpResponse intercept(HttpRequest request, byte[] body, ClientHttpRequestExecution execution) throws IOException {
+        // A second execute() sends the buffered request again
+        return execute(request, () -> execution.execute(request, body));
+    }
+
+    /**
+     * Schedules and retries a request sent outside the intercepted RestTemplate, such as one whose
+     * body is too large to buffer and is streamed instead. Each attempt writes the body afresh.
+     */
+    public ClientHttpResponse execute(HttpRequest request, Attempt send) throws IOException {
+        if (!apiHost.equalsIgnoreCase(request.getURI().getHost())) {
+            return send.send();
+        }
+        // GraphQL has a budget of its own, reported in the same headers
+        String resource = request.getURI().getPath().endsWith("/graphql") ? ":graphql" : "";
+        TokenBudget budget = budgets.computeIfAbsent(tokenKey(request.getHeaders().getFirst(HttpHeaders.AUTHORIZATION)) + resource,
+            key -> new TokenBudget());
+        boolean interactive = RequestContextHolder.getRequestAttributes() != null;
+
+        for (int attempt = 0; ; attempt++) {
+            long waited = budget.acquire(interactive);
+            throttledMillis.addAndGet(waited);
+
+            ClientHttpResponse response = send.send();
+            budget.update(response.getHeaders());
+
+            long delay = retryDelay(response, attempt);
+            if (delay < 0 || attempt >= maxRetries) {
+                return response;
+            }
+            response.close();
+            retries.incrementAndGet();
+            System.err.println("⏳ GitHub rate limit hit (" + response.getStatusCode().value() + "), retrying "
+                + request.getMethod() + " " + request.getURI().getPath() + " in " + delay + "ms");
+            budget.pauseFor(delay);
+        }
+    }
+
+    // Per token (by hash) and resource: remaining, limit, seconds to reset, queued calls; plus totals
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        Map<String, Object> tokens = new HashMap<>();
+        budgets.forEach((key, budget) -> tokens.put(key.substring(0, 8) + key.substring(64), budget.toMap()));
+        stats.put("tokens", tokens);
+        stats.put("throttledMillis", throttledMillis.get());
+        stats.put("retries", retries.get());
+        return stats;
+    }
+
+    // Milliseconds to wait before retrying, or -1 when the response is not a rate limit
+    private long retryDelay(ClientHttpResponse response, int attempt) throws IOException {
+        int status = response.getStatusCode().value();
+        HttpHeaders headers = response.getHeaders();
+        String retryAfter = headers.getFirst("Retry-After");
+        boolean exhausted = "0".equals(headers.getFirst("X-RateLimit-Remaining"));
+        if (status != HttpStatus.TOO_MANY_REQUESTS.value() && !(status == HttpStatus.FORBIDDEN.value() && (retryAfter != null || exhausted))) {
+            return -1;
+        }
+        if (retryAfter != null && retryAfter.matches("\\d+")) {
+            return Long.parseLong(retryAfter) * 1000 + ThreadLocalRandom.current().nextLong(1000);
+        }
+        String reset = headers.getFirst("X-RateLimit-Reset");
+        if (exhausted && reset != null && reset.matches("\\d+")) {
+            return Math.max(0, Long.parseLong(reset) * 1000 - System.currentTimeMillis()) + ThreadLocalRandom.current().nextLong(1000);
+        }
+        // Full jitter, so callers throttled together do not come back together
+        long ceiling = Math.min(maxBackoffMillis, baseBackoffMillis << Math.min(attempt, 20));
+        return ThreadLocalRandom.current().nextLong(ceiling + 1);
+    }
+
+    private static String tokenKey(String authorization) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(String.valueOf(authorization).getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    // A lock rather than a monitor: waiting in Object.wait would pin a virtual thread to its carrier
+    private class TokenBudget {
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Condition changed = lock.newCondition();
+        private double tokens = burst;
+        private long lastRefillNanos = System.nanoTime();
+        // From the last response; -1 until GitHub has told us
+        private long remaining = -1;
+        private long limit = -1;
+        private long resetEpochMillis;
+        private long pausedUntilMillis;
+        private int waitingInteractive;
+        private int waitingBackground;
+
+        // Blocks until the call may go; returns how long that took
+        long acquire(boolean interactive) throws IOException {
+            long start = System.currentTimeMillis();
+            lock.lock();
+            if (interactive) {
+                waitingInteractive++;
+            } else {
+                waitingBackground++;
+            }
+            try {
+                while (true) {
+                    long now = System.currentTimeMillis();
+                    refill();
+                    long waitMillis = Math.max(0, pausedUntilMillis - now);
+                    boolean inReserve = remaining >= 0 && remaining <= interactiveReserve && now < resetEpochMillis;
+                    if (waitMillis == 0 && inReserve && (!interactive || remaining == 0)) {
+                        // Out of budget for this caller until the window resets
+                        waitMillis = resetEpochMillis - now;
+                    }
+                    boolean yieldToInteractive = !interactive && waitingInteractive > 0;
+                    // The bucket is paced for background calls; the reserve is spent by interactive calls directly
+                    if (waitMillis == 0 && !yieldToInteractive && (tokens >= 1 || inReserve)) {
+                        tokens = Math.max(0, tokens - 1);
+                        if (remaining > 0) {
+                            remaining--;
+                        }
+                        return System.currentTimeMillis() - start;
+                    }
+                    if (waitMillis == 0) {
+                        double rate = refillRate();
+                        waitMillis = tokens >= 1 ? 50 : Math.max(1, (long) Math.ceil((1 - tokens) * 1000 / rate));
+                    }
+                    changed.await(Math.min(waitMillis, 1000), TimeUnit.MILLISECONDS);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted waiting for GitHub rate limit");
+            } finally {
+                if (interactive) {
+                    waitingInteractive--;
+                } else {
+                    waitingBackground--;
+                }
+                changed.signalAll();
+                lock.unlock();
+            }
+        }
+
+        void update(HttpHeaders headers) {
+            String remainingHeader = headers.getFirst("X-RateLimit-Remaining");
+            String limitHeader = headers.getFirst("X-RateLimit-Limit");
+            String resetHeader = headers.getFirst("X-RateLimit-Reset");
+            if (remainingHeader == null || resetHeader == null) {
+                return;
+            }
+            lock.lock();
+            try {
+                long reset = Long.parseLong(resetHeader) * 1000;
+                // Responses can arrive out of order; within one window the lowest count is the latest
+                if (reset != resetEpochMillis || remaining < 0 || Long.parseLong(remainingHeader) < remaining) {
+                    remaining = Long.parseLong(remainingHeader);
+                }
+                resetEpochMillis = reset;
+                if (limitHeader != null) {
+                    limit = Long.parseLong(limitHeader);
+                }
+            } catch (NumberFormatException e) {
+                // Leave the budget as it was
+            } finally {
+                changed.signalAll();
+                lock.unlock();
+            }
+        }
+
+        void pauseFor(long millis) {
+            lock.lock();
+            try {
+                pausedUntilMillis = Math.max(pausedUntilMillis, System.currentTimeMillis() + millis);
+                changed.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        // Full speed while budget is plentiful; otherwise spread what is left over the time to reset
+        private double refillRate() {
+            long now = System.currentTimeMillis();
+            if (remaining < 0 || limit <= 0 || now >= resetEpochMillis || remaining > limit * lowBudgetFraction) {
+                return maxPerSecond;
+            }
+            double secondsToReset = Math.max(1, (resetEpochMillis - now) / 1000.0);
+            return Math.max(0.01, Math.min(maxPerSecond, (remaining - interactiveReserve) / secondsToReset));
+        }
+
+        private void refill() {
+            long now = System.nanoTime();
+            tokens = Math.min(burst, tokens + (now - lastRefillNanos) / 1e9 * refillRate());
+            lastRefillNanos = now;
+        }
+
+        Map<String, Object> toMap() {
+            lock.lock();
+            try {
+                Map<String, Object> map = new HashMap<>();
+                map.put("remaining", remaining);
+                map.put("limit", limit);
+                map.put("resetInSeconds", Math.max(0, (resetEpochMillis - System.currentTimeMillis()) / 1000));
+                map.put("waitingInteractive", waitingInteractive);
+                map.put("waitingBackground", waitingBackground);
+                return map;
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package com.example.demo.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
+import org.springframework.web.client.RestTemplate;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+
+/**
+ * The one HTTP client used for GitHub, GitHub LFS and Gemini calls. The JDK client keeps connections
+ * alive between requests and speaks HTTP/2 to hosts that offer it, so the many small API calls of a
+ * job share a few TLS connections instead of handshaking for every request.
+ */
+@Configuration
+public class HttpClientConfig {
+
+    @Value("${app.http.connect-timeout-ms:5000}")
+    private long connectTimeoutMs;
+
+    // Gemini can take a while to answer; GitHub normally replies in well under a second
+    @Value("${app.http.read-timeout-seconds:120}")
+    private long readTimeoutSeconds;
+
+    // How long an idle connection is kept for reuse
+    @Value("${app.http.keep-alive-seconds:300}")
+    private long keepAliveSeconds;
+
+    @Value("${app.threads.virtual:false}")
+    private boolean virtualThreads;
+
+    @Value("${app.http.max-requests-per-host:16}")
+    private int maxRequestsPerHost;
+
+    @Value("${github.api.base-url:https://api.github.com}")
+    private String githubApiBase;
+
+    @Value("${app.github.rate-limit.max-per-second:20}")
+    private double githubMaxPerSecond;
+
+    @Value("${app.github.rate-limit.burst:40}")
+    private int githubBurst;
+
+    // Below this share of the hourly limit, calls are paced to last until the reset
+    @Value("${app.github.rate-limit.low-budget-fraction:0.2}")
+    private double githubLowBudgetFraction;
+
+    // Calls per window only interactive (dashboard) requests may use
+    @Value("${app.github.rate-limit.interactive-reserve:100}")
+    private int githubInteractiveReserve;
+
+    @Value("${app.github.rate-limit.max-retries:4}")
+    private int githubMaxRetries;
+
+    @Value("${app.github.rate-limit.backoff-base-ms:1000}")
+    private long githubBackoffBaseMs;
+
+    @Value("${app.github.rate-limit.backoff-max-ms:60000}")
+    private long githubBackoffMaxMs;
+
+    @Bean
+    public HttpClient httpClient() {
+        // Read once when the client's connection pool is first created; an explicit -D setting wins
+        if (System.getProperty("jdk.httpclient.keepalive.timeout") == null) {
+            System.setProperty("jdk.httpclient.keepalive.timeout", String.valueOf(keepAliveSeconds));
+        }
+        HttpClient.Builder builder = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_2)
+            .connectTimeout(Duration.ofMillis(connectTimeoutMs))
+            .followRedirects(HttpClient.Redirect.NORMAL);
+        if (virtualThreads) {
+            // The client's own work (response handling, body subscribers) then runs on virtual threads too
+            builder.executor(Executors.newVirtualThreadPerTaskExecutor());
+        }
+        return builder.build();
+    }
+
+    @Bean
+    public HttpHostLimiter httpHostLimiter() {
+        return new HttpHostLimiter(maxRequestsPerHost);
+    }
+
+    @Bean
+    public GitHubRateLimiter gitHubRateLimiter() {
+        return new GitHubRateLimiter(URI.create(githubApiBase).getHost(), githubMaxPerSecond, githubBurst,
+            githubLowBudgetFraction, githubInteractiveReserve, githubMaxRetries, githubBackoffBaseMs, githubBackoffMaxMs);
+    }
+
+    @Bean
+    @Primary
+    public RestTemplate restTemplate(HttpClient httpClient, HttpHostLimiter httpHostLimiter, GitHubRateLimiter gitHubRateLimiter) {
+        RestTemplate restTemplate = createRestTemplate(httpClient, httpHostLimiter, Duration.ofSeconds(readTimeoutSeconds));
+        // Buffers request bodies so rate-limited calls can be resent; the transfer template stays streaming
+        restTemplate.getInterceptors().add(gitHubRateLimiter);
+        return restTemplate;
+    }
+
+    /**
+     * Same client and connections, but without the read timeout: the JDK client counts the time spent
+     * sending the request body against it, which a multi-gigabyte LFS upload would exceed.
+     */
+    @Bean
+    public RestTemplate transferRestTemplate(HttpClient httpClient, HttpHostLimiter httpHostLimiter) {
+        return createRestTemplate(httpClient, httpHostLimiter, null);
+    }
+
+    private RestTemplate createRestTemplate(HttpClient httpClient, HttpHostLimiter httpHostLimiter, Duration readTimeout) {
+        // The JDK request factory also supports PATCH, which the Git Data ref updates need
+        JdkClientHttpRequestFactory requestFactory = new JdkClientHttpRequestFactory(httpClient);
+        if (readTimeout != null) {
+            requestFactory.setReadTimeout(readTimeout);
+        }
+        return new RestTemplate(httpHostLimiter.wrap(requestFactory));
+    }
+}
@@ -0,0 +1,147 @@
+package com.example.demo.config;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.StreamingHttpOutputMessage;
+import org.springframework.http.client.ClientHttpRequest;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.ClientHttpResponse;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.net.URI;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Caps the requests in flight to each host and keeps per-host counters. The JDK client has no
+ * per-host connection limit of its own: over HTTP/1.1 every concurrent request opens another
+ * connection, and over HTTP/2 every one is another stream on the shared connection. Requests over
+ * the cap wait here, and that wait is reported separately from the time spent on the wire.
+ *
+ * This wraps the request factory rather than being a RestTemplate interceptor, because interceptors
+ * make RestTemplate buffer every request body in memory, LFS uploads included.
+ */
+public class HttpHostLimiter {
+
+    private final int maxRequestsPerHost;
+    private final Map<String, HostStats> statsByHost = new ConcurrentHashMap<>();
+
+    public HttpHostLimiter(int maxRequestsPerHost) {
+        this.maxRequestsPerHost = maxRequestsPerHost;
+    }
+
+    // Factories wrapped by the same limiter share its limits and counters
+    public ClientHttpRequestFactory wrap(ClientHttpRequestFactory delegate) {
+        return (uri, method) -> new LimitedRequest(delegate.createRequest(uri, method));
+    }
+
+    // Per host: requests, 4xx/5xx responses, I/O failures, in flight now and at peak, total wait and request time
+    public Map<String, Map<String, Long>> getStats() {
+        Map<String, Map<String, Long>> stats = new HashMap<>();
+        statsByHost.forEach((host, hostStats) -> stats.put(host, hostStats.toMap()));
+        return stats;
+    }
+
+    private ClientHttpResponse execute(ClientHttpRequest request) throws IOException {
+        String host = request.getURI().getHost();
+        HostStats stats = statsByHost.computeIfAbsent(host == null ? "" : host, key -> new HostStats(maxRequestsPerHost));
+
+        long queuedAt = System.nanoTime();
+        try {
+            stats.permits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted waiting for a connection to " + host);
+        }
+        long startedAt = System.nanoTime();
+        stats.waitNanos.addAndGet(startedAt - queuedAt);
+        stats.peakInFlight.accumulateAndGet(stats.inFlight.incrementAndGet(), Math::max);
+        try {
+            // Streaming bodies are written here, so a long upload holds its slot for as long as it runs
+            ClientHttpResponse response = request.execute();
+            if (response.getStatusCode().isError()) {
+                stats.errorResponses.incrementAndGet();
+            }
+            return response;
+        } catch (IOException | RuntimeException e) {
+            stats.failures.incrementAndGet();
+            throw e;
+        } finally {
+            // The response body may still be streaming, but the request no longer competes for a connection
+            stats.inFlight.decrementAndGet();
+            stats.permits.release();
+            stats.requests.incrementAndGet();
+            stats.totalNanos.addAndGet(System.nanoTime() - startedAt);
+        }
+    }
+
+    private class LimitedRequest implements ClientHttpRequest, StreamingHttpOutputMessage {
+        private final ClientHttpRequest delegate;
+
+        LimitedRequest(ClientHttpRequest delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public ClientHttpResponse execute() throws IOException {
+            return HttpHostLimiter.this.execute(delegate);
+        }
+
+        @Override
+        public void setBody(Body body) {
+            if (delegate instanceof StreamingHttpOutputMessage streaming) {
+                streaming.setBody(body);
+                return;
+            }
+            try {
+                body.writeTo(delegate.getBody());
+            } catch (IOException e) {
+                throw new IllegalStateException("Failed to write request body", e);
+            }
+        }
+
+        @Override
+        public OutputStream getBody() throws IOException { return delegate.getBody(); }
+        @Override
+        public HttpMethod getMethod() { return delegate.getMethod(); }
+        @Override
+        public URI getURI() { return delegate.getURI(); }
+        @Override
+        public Map<String, Object> getAttributes() { return delegate.getAttributes(); }
+        @Override
+        public HttpHeaders getHeaders() { return delegate.getHeaders(); }
+    }
+
+    private static class HostStats {
+        private final Semaphore permits;
+        private final AtomicLong requests = new AtomicLong();
+        private final AtomicLong errorResponses = new AtomicLong();
+        private final AtomicLong failures = new AtomicLong();
+        private final AtomicInteger inFlight = new AtomicInteger();
+        private final AtomicInteger peakInFlight = new AtomicInteger();
+        private final AtomicLong waitNanos = new AtomicLong();
+        private final AtomicLong totalNanos = new AtomicLong();
+
+        HostStats(int maxRequests) {
+            this.permits = new Semaphore(maxRequests, true);
+        }
+
+        Map<String, Long> toMap() {
+            Map<String, Long> map = new HashMap<>();
+            map.put("requests", requests.get());
+            map.put("errorResponses", errorResponses.get());
+            map.put("failures", failures.get());
+            map.put("inFlight", (long) inFlight.get());
+            map.put("peakInFlight", (long) peakInFlight.get());
+            map.put("waitMillis", waitNanos.get() / 1_000_000);
+            map.put("totalMillis", totalNanos.get() / 1_000_000);
+            return map;
+        }
+    }
+}
@@ -5,6 +5,7 @@ import java.util.Map;
 import java.util.Optional;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.oauth2.core.user.OAuth2User;
@@ -12,10 +13,12 @@ import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import com.example.demo.entity.User;
 import com.example.demo.repository.UserRepository;
 import com.example.demo.service.GitHubService;
+import com.fasterxml.jackson.databind.ObjectMapper;
 
 @RestController
 @RequestMapping("/api/dashboard")
@@ -28,6 +31,8 @@ public class DashboardController {
     @Autowired
     private GitHubService gitHubService;
 
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
     @GetMapping("/profile")
     public ResponseEntity<?> getUserProfile(@AuthenticationPrincipal OAuth2User principal) {
         if (principal == null) {
@@ -75,6 +80,31 @@ public class DashboardController {
         return ResponseEntity.status(404).body(Map.of("error", "User not found"));
     }
 
+    // All repositories as NDJSON, one per line, streamed page by page as GitHub answers
+    @GetMapping("/repositories/stream")
+    public ResponseEntity<?> streamUserRepositories(@AuthenticationPrincipal OAuth2User principal) {
+        if (principal == null) {
+            return ResponseEntity.status(401).body(Map.of("error", "Not authenticated"));
+        }
+
+        String githubId = String.valueOf(principal.getAttributes().get("id"));
+        Optional<User> userOpt = userRepository.findByGithubId(githubId);
+
+        if (userOpt.isPresent()) {
+            try {
+                GitHubService.RepositoryPages pages = gitHubService.listUserRepositories(userOpt.get().getAccessToken());
+                StreamingResponseBody body = out -> pages.writeNdjson(out, objectMapper);
+                return ResponseEntity.ok()
+                    .contentType(MediaType.parseMediaType("application/x-ndjson"))
+                    .body(body);
+            } catch (Exception e) {
+                return ResponseEntity.status(500).body(Map.of("error", "Failed to fetch repositories: " + e.getMessage()));
+            }
+        }
+
+        return ResponseEntity.status(404).body(Map.of("error", "User not found"));
+    }
+
     @GetMapping("/stats")
     public ResponseEntity<?> getUserStats(@AuthenticationPrincipal OAuth2User principal) {
         if (principal == null) {
@@ -0,0 +1,127 @@
+package com.example.demo.controller;
+
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.security.oauth2.core.user.OAuth2User;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import com.example.demo.entity.UploadedProject;
+import com.example.demo.service.ConflictResolutionService;
+import com.example.demo.service.ProjectUploadService;
+import com.example.demo.service.ScanFindingStore;
+
+@RestController
+@RequestMapping("/api/reports")
+@CrossOrigin(origins = "http://localhost:3001", allowCredentials = "true")
+public class ReportController {
+
+    @Autowired
+    private ProjectUploadService projectUploadService;
+
+    @Autowired
+    private ConflictResolutionService conflictResolutionService;
+
+    @Autowired
+    private ScanFindingStore scanFindingStore;
+
+    // Pass the returned nextCursor back to fetch the following page
+    @GetMapping("/{fileId}/findings")
+    public ResponseEntity<?> getFindings(
+            @PathVariable String fileId,
+            @RequestParam(defaultValue = "0") long cursor,
+            @RequestParam(defaultValue = "100") int limit,
+            @RequestParam(required = false) String source,
+            @AuthenticationPrincipal OAuth2User principal) {
+
+        try {
+            if (principal == null) {
+                return ResponseEntity.status(401).body(Map.of("error", "Authentication required"));
+            }
+
+            String userId = principal.getAttribute("id").toString();
+            if (projectUploadService.getProjectByFileId(fileId, userId) == null) {
+                return ResponseEntity.notFound().build();
+            }
+
+            return ResponseEntity.ok(scanFindingStore.readPage(fileId, cursor, limit, source));
+
+        } catch (Exception e) {
+            return ResponseEntity.status(500).body(Map.of("error", "Failed to read findings: " + e.getMessage()));
+        }
+    }
+
+    @GetMapping("/{fileId}/findings/export")
+    public ResponseEntity<?> exportFindings(
+            @PathVariable String fileId,
+            @RequestParam(defaultValue = "ndjson") String format,
+            @AuthenticationPrincipal OAuth2User principal) {
+
+        if (principal == null) {
+            return ResponseEntity.status(401).body(Map.of("error", "Authentication required"));
+        }
+
+        String userId = principal.getAttribute("id").toString();
+        if (projectUploadService.getProjectByFileId(fileId, userId) == null) {
+            return ResponseEntity.notFound().build();
+        }
+
+        StreamingResponseBody body;
+        MediaType contentType;
+        String extension;
+        if ("sarif".equalsIgnoreCase(format)) {
+            body = out -> scanFindingStore.exportSarif(fileId, out);
+            contentType = MediaType.APPLICATION_JSON;
+            extension = "sarif";
+        } else if ("ndjson".equalsIgnoreCase(format)) {
+            body = out -> scanFindingStore.exportNdjson(fileId, out);
+            contentType = MediaType.parseMediaType("application/x-ndjson");
+            extension = "ndjson";
+        } else {
+            return ResponseEntity.badRequest().body(Map.of("error", "Unsupported format. Use ndjson or sarif"));
+        }
+
+        return ResponseEntity.ok()
+            .contentType(contentType)
+            .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + fileId + "-findings." + extension + "\"")
+            .body(body);
+    }
+
+    // Runs conflict detection; the conflicts themselves are read through the findings endpoints
+    @PostMapping("/{fileId}/conflicts")
+    public ResponseEntity<?> detectConflicts(
+            @PathVariable String fileId,
+            @AuthenticationPrincipal OAuth2User principal) {
+
+        try {
+            if (principal == null) {
+                return ResponseEntity.status(401).body(Map.of("error", "Authentication required"));
+            }
+
+            String userId = principal.getAttribute("id").toString();
+            UploadedProject project = projectUploadService.getProjectByFileId(fileId, userId);
+            if (project == null) {
+                return ResponseEntity.notFound().build();
+            }
+            if (project.getExtractedPath() == null) {
+                return ResponseEntity.badRequest().body(Map.of("error", "Project has not been extracted yet"));
+            }
+
+            return ResponseEntity.ok(conflictResolutionService.detectConflicts(project.getExtractedPath(), fileId));
+
+        } catch (Exception e) {
+            return ResponseEntity.status(500).body(Map.of("error", "Conflict detection failed: " + e.getMessage()));
+        }
+    }
+}
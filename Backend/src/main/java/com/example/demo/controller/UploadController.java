@@ -1,8 +1,10 @@
 package com.example.demo.controller;
 
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.RejectedExecutionException;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
@@ -20,6 +22,8 @@ import org.springframework.web.multipart.MultipartFile;
 
 import com.example.demo.entity.UploadedProject;
 import com.example.demo.entity.UploadedProject.ProjectStatus;
+import com.example.demo.service.GitHubIntegrationService;
+import com.example.demo.service.ProcessingJobQueue;
 import com.example.demo.service.ProjectUploadService;
 import com.example.demo.service.SecurityScanService;
 
@@ -34,6 +38,9 @@ public class UploadController {
     @Autowired
     private SecurityScanService securityScanService;
 
+    @Autowired
+    private ProcessingJobQueue processingJobQueue;
+
     @PostMapping("/project")
     public ResponseEntity<?> uploadProject(
             @RequestParam("file") MultipartFile file,
@@ -50,6 +57,11 @@ public class UploadController {
                 return ResponseEntity.badRequest().body(Map.of("error", "File is empty"));
             }
 
+            // Refuse before storing the file when the job could not be taken on anyway
+            if (!processingJobQueue.isAcceptingJobs()) {
+                return pipelineBusy();
+            }
+
             // Check file size (5GB limit)
             long maxSize = 5L * 1024 * 1024 * 1024; // 5GB in bytes
             if (file.getSize() > maxSize) {
@@ -141,6 +153,7 @@ public class UploadController {
     @PostMapping("/analyze/{fileId}")
     public ResponseEntity<?> startAnalysis(
             @PathVariable String fileId,
+            @RequestParam(required = false) String pushBackend,
             @AuthenticationPrincipal OAuth2User principal) {
         
         try {
@@ -150,8 +163,20 @@ public class UploadController {
 
             String userId = principal.getAttribute("id").toString();
             
-            // Start asynchronous analysis
-            projectUploadService.startProjectAnalysis(fileId, userId);
+            if (pushBackend != null) {
+                try {
+                    GitHubIntegrationService.PushBackend.fromString(pushBackend);
+                } catch (IllegalArgumentException e) {
+                    return ResponseEntity.badRequest().body(Map.of("error", "Unknown push backend. Use cli or api"));
+                }
+            }
+
+            // Queue the analysis; a worker node picks it up
+            try {
+                processingJobQueue.enqueue(fileId, userId, pushBackend);
+            } catch (RejectedExecutionException e) {
+                return pipelineBusy();
+            }
 
             Map<String, Object> response = new HashMap<>();
             response.put("success", true);
@@ -167,6 +192,23 @@ public class UploadController {
 
 
 
+    // Threads, queue depth and throughput of each pipeline stage, and the job queue behind them
+    @GetMapping("/pipeline")
+    public ResponseEntity<?> getPipelineStats(@AuthenticationPrincipal OAuth2User principal) {
+        if (principal == null) {
+            return ResponseEntity.status(401).body(Map.of("error", "Authentication required"));
+        }
+        Map<String, Object> stats = new LinkedHashMap<>(projectUploadService.getPipelineStats());
+        stats.put("jobQueue", processingJobQueue.getStats());
+        return ResponseEntity.ok(stats);
+    }
+
+    private ResponseEntity<?> pipelineBusy() {
+        return ResponseEntity.status(503)
+            .header("Retry-After", "30")
+            .body(Map.of("success", false, "error", "Too many projects are being processed right now. Please try again shortly."));
+    }
+
     @GetMapping("/analysis/{fileId}")
     public ResponseEntity<?> getAnalysisResults(
             @PathVariable String fileId,
@@ -0,0 +1,80 @@
+package com.example.demo.controller;
+
+import java.nio.charset.StandardCharsets;
+import java.security.InvalidKeyException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Map;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.example.demo.service.MergeabilityWatcher;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+@RestController
+@RequestMapping("/api/webhooks")
+public class WebhookController {
+
+    // Shared with the GitHub webhook configuration; without it every delivery is refused
+    @Value("${github.webhook.secret:}")
+    private String webhookSecret;
+
+    @Autowired
+    private MergeabilityWatcher mergeabilityWatcher;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @PostMapping("/github")
+    public ResponseEntity<?> receiveGitHubEvent(
+            @RequestHeader(value = "X-GitHub-Event", required = false) String event,
+            @RequestHeader(value = "X-Hub-Signature-256", required = false) String signature,
+            @RequestBody byte[] payload) {
+
+        if (webhookSecret.isBlank()) {
+            return ResponseEntity.status(503).body(Map.of("error", "Webhook secret not configured"));
+        }
+        if (signature == null || !isValidSignature(payload, signature)) {
+            return ResponseEntity.status(401).body(Map.of("error", "Invalid signature"));
+        }
+
+        try {
+            if ("pull_request".equals(event)) {
+                JsonNode body = objectMapper.readTree(payload);
+                JsonNode pullRequest = body.path("pull_request");
+                JsonNode mergeable = pullRequest.path("mergeable");
+                mergeabilityWatcher.onPullRequestEvent(
+                    body.path("repository").path("full_name").asText(),
+                    pullRequest.path("number").asInt(),
+                    mergeable.isBoolean() ? mergeable.asBoolean() : null);
+            }
+            // Other events (ping included) are acknowledged and ignored
+            return ResponseEntity.ok(Map.of("received", event == null ? "" : event));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Invalid payload: " + e.getMessage()));
+        }
+    }
+
+    // "sha256=" + hex HMAC of the raw body, compared in constant time
+    private boolean isValidSignature(byte[] payload, String signature) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(webhookSecret.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+            String expected = "sha256=" + HexFormat.of().formatHex(mac.doFinal(payload));
+            return MessageDigest.isEqual(expected.getBytes(StandardCharsets.UTF_8), signature.getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException | InvalidKeyException e) {
+            throw new IllegalStateException("HmacSHA256 not available", e);
+        }
+    }
+}
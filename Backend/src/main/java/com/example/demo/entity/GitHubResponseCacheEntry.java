@@ -0,0 +1,35 @@
+package com.example.demo.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+import java.time.LocalDateTime;
+
+// Persisted tier of the GitHub response cache; lets a restart revalidate instead of refetching
+@Entity
+@Table(name = "github_response_cache")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class GitHubResponseCacheEntry {
+
+    // sha256 of the access token and URL; tokens are never stored
+    @Id
+    @Column(name = "cache_key", length = 64)
+    private String cacheKey;
+
+    @Column(nullable = false)
+    private String etag;
+
+    @Column(columnDefinition = "TEXT", nullable = false)
+    private String body;
+
+    // Pagination links of the response, if any
+    @Column(name = "link_header", length = 2048)
+    private String link;
+
+    @Column(name = "validated_at")
+    private LocalDateTime validatedAt;
+}
@@ -0,0 +1,81 @@
+package com.example.demo.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+// One analysis job in the shared queue; a worker node owns it while its lease is current
+@Entity
+@Table(name = "processing_jobs", indexes = {
+    @Index(name = "idx_processing_jobs_claim", columnList = "status, available_at"),
+    @Index(name = "idx_processing_jobs_lease", columnList = "status, lease_expires_at")
+})
+@Data
+@NoArgsConstructor
+public class ProcessingJob {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "file_id", unique = true, nullable = false)
+    private String fileId;
+
+    @Column(name = "user_id", nullable = false)
+    private String userId;
+
+    // cli or api; null for the configured default
+    @Column(name = "push_backend")
+    private String pushBackend;
+
+    @Column(name = "status", nullable = false, length = 16)
+    @Enumerated(EnumType.STRING)
+    private JobStatus status;
+
+    // Claims so far, including re-claims after a node stopped renewing its lease
+    @Column(name = "attempts", nullable = false)
+    private int attempts;
+
+    @Column(name = "lease_owner")
+    private String leaseOwner;
+
+    @Column(name = "lease_expires_at")
+    private LocalDateTime leaseExpiresAt;
+
+    @Column(name = "heartbeat_at")
+    private LocalDateTime heartbeatAt;
+
+    // Not claimed before this
+    @Column(name = "available_at", nullable = false)
+    private LocalDateTime availableAt;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "started_at")
+    private LocalDateTime startedAt;
+
+    @Column(name = "finished_at")
+    private LocalDateTime finishedAt;
+
+    @Column(name = "last_error", columnDefinition = "TEXT")
+    private String lastError;
+
+    public ProcessingJob(String fileId, String userId, String pushBackend) {
+        this.fileId = fileId;
+        this.userId = userId;
+        this.pushBackend = pushBackend;
+        this.status = JobStatus.QUEUED;
+        this.createdAt = LocalDateTime.now();
+        this.availableAt = this.createdAt;
+    }
+
+    public enum JobStatus {
+        QUEUED,
+        RUNNING,
+        COMPLETED,
+        FAILED
+    }
+}
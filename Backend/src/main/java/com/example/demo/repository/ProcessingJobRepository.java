@@ -0,0 +1,55 @@
+package com.example.demo.repository;
+
+import com.example.demo.entity.ProcessingJob;
+import com.example.demo.entity.ProcessingJob.JobStatus;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface ProcessingJobRepository extends JpaRepository<ProcessingJob, Long> {
+
+    Optional<ProcessingJob> findByFileId(String fileId);
+
+    long countByStatus(JobStatus status);
+
+    // Queued jobs that are due, and running jobs whose owner stopped renewing the lease; rows another node has locked are skipped
+    @Query(value = "SELECT * FROM processing_jobs " +
+        "WHERE (status = 'QUEUED' AND available_at <= :now) OR (status = 'RUNNING' AND lease_expires_at < :now) " +
+        "ORDER BY created_at LIMIT :limit FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<ProcessingJob> lockClaimable(@Param("now") LocalDateTime now, @Param("limit") int limit);
+
+    // 0 when the lease has already been lost to another node
+    @Modifying
+    @Query("UPDATE ProcessingJob j SET j.leaseExpiresAt = :leaseExpiresAt, j.heartbeatAt = :now " +
+        "WHERE j.id = :id AND j.leaseOwner = :owner AND j.status = com.example.demo.entity.ProcessingJob.JobStatus.RUNNING")
+    int renewLease(@Param("id") Long id, @Param("owner") String owner,
+                   @Param("leaseExpiresAt") LocalDateTime leaseExpiresAt, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("UPDATE ProcessingJob j SET j.status = :status, j.finishedAt = :now, j.lastError = :error, " +
+        "j.leaseOwner = null, j.leaseExpiresAt = null " +
+        "WHERE j.id = :id AND j.leaseOwner = :owner AND j.status = com.example.demo.entity.ProcessingJob.JobStatus.RUNNING")
+    int finish(@Param("id") Long id, @Param("owner") String owner, @Param("status") JobStatus status,
+               @Param("error") String error, @Param("now") LocalDateTime now);
+
+    // Hands a claimed job back without counting the attempt
+    @Modifying
+    @Query("UPDATE ProcessingJob j SET j.status = com.example.demo.entity.ProcessingJob.JobStatus.QUEUED, " +
+        "j.attempts = j.attempts - 1, j.leaseOwner = null, j.leaseExpiresAt = null " +
+        "WHERE j.id = :id AND j.leaseOwner = :owner AND j.status = com.example.demo.entity.ProcessingJob.JobStatus.RUNNING")
+    int release(@Param("id") Long id, @Param("owner") String owner);
+
+    // On shutdown, so other nodes can take the node's jobs without waiting for the leases to expire
+    @Modifying
+    @Query("UPDATE ProcessingJob j SET j.status = com.example.demo.entity.ProcessingJob.JobStatus.QUEUED, " +
+        "j.leaseOwner = null, j.leaseExpiresAt = null " +
+        "WHERE j.leaseOwner = :owner AND j.status = com.example.demo.entity.ProcessingJob.JobStatus.RUNNING")
+    int releaseAll(@Param("owner") String owner);
+}
@@ -0,0 +1,228 @@
+package com.example.demo.service;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.nio.file.attribute.PosixFilePermission;
+import java.security.MessageDigest;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * Extracts ZIP and TAR uploads in-process. Every file is hashed as a git blob while it is written,
+ * and the blob id and text/binary kind go straight into the project's file index, so later stages
+ * never re-read a file just to hash or classify it. When an object store is given, the compressed
+ * loose object is written in the same pass and committing the branches does not read the file at all.
+ * Entries the given ignore rules match are still extracted for the analysis, but never hashed or
+ * stored, since no branch will push them.
+ */
+@Service
+public class ArchiveExtractor {
+
+    // Write git objects while extracting; otherwise only the ids are recorded
+    @Value("${app.extraction.write-objects:true}")
+    private boolean writeObjects;
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    public boolean supports(String filename) {
+        String name = filename.toLowerCase();
+        return name.endsWith(".zip") || name.endsWith(".tar") || name.endsWith(".tar.gz") || name.endsWith(".tgz");
+    }
+
+    /**
+     * Extracts {@code archive} under {@code targetRoot}. Entries that would land outside the target,
+     * links and special files are skipped. {@code objectsGitDir} and {@code ignoreRules} may be null.
+     */
+    public ExtractionStats extract(Path archive, String filename, Path targetRoot, ProjectFileIndex index, Path objectsGitDir,
+                                   String ignoreRules) throws IOException {
+        Path root = targetRoot.toAbsolutePath().normalize();
+        Files.createDirectories(root);
+        GitObjectWriter objectWriter = writeObjects && objectsGitDir != null ? GitObjectWriter.openObjectStore(objectsGitDir) : null;
+        ExtractionStats stats = new ExtractionStats();
+        // The project's .gitignore files may come later in the archive, so only the given rules apply
+        IgnoreMatcher ignoreMatcher = ignoreRules != null ? new IgnoreMatcher(root, ignoreRules, false) : null;
+
+        String name = filename.toLowerCase();
+        if (name.endsWith(".zip")) {
+            extractZip(archive, root, index, objectWriter, ignoreMatcher, stats);
+        } else if (name.endsWith(".tar")) {
+            try (InputStream in = new BufferedInputStream(Files.newInputStream(archive), BUFFER_SIZE)) {
+                extractTar(in, root, index, objectWriter, ignoreMatcher, stats);
+            }
+        } else if (name.endsWith(".tar.gz") || name.endsWith(".tgz")) {
+            try (InputStream in = new GZIPInputStream(Files.newInputStream(archive), BUFFER_SIZE)) {
+                extractTar(new BufferedInputStream(in, BUFFER_SIZE), root, index, objectWriter, ignoreMatcher, stats);
+            }
+        } else {
+            throw new IOException("Unsupported archive format: " + filename);
+        }
+
+        if (objectWriter != null) {
+            stats.objectsWritten = objectWriter.getObjectsWritten();
+        }
+        return stats;
+    }
+
+    private void extractZip(Path archive, Path root, ProjectFileIndex index, GitObjectWriter objectWriter,
+                            IgnoreMatcher ignoreMatcher, ExtractionStats stats) throws IOException {
+        // zipfs exposes the unix permissions stored by most zip tools, which keeps executable bits
+        try (FileSystem zip = FileSystems.newFileSystem(archive, Map.of("enablePosixFileAttributes", "true"))) {
+            Path zipRoot = zip.getPath("/");
+            List<Path> entries;
+            try (Stream<Path> paths = Files.walk(zipRoot)) {
+                entries = paths.filter(Files::isRegularFile).collect(Collectors.toList());
+            }
+
+            for (Path entry : entries) {
+                boolean executable = false;
+                try {
+                    Set<PosixFilePermission> permissions = Files.getPosixFilePermissions(entry);
+                    executable = permissions.contains(PosixFilePermission.OWNER_EXECUTE);
+                } catch (UnsupportedOperationException e) {
+                    // Entry written without unix attributes
+                }
+                try (InputStream in = Files.newInputStream(entry)) {
+                    writeEntry(in, Files.size(entry), zipRoot.relativize(entry).toString(), root,
+                        Files.getLastModifiedTime(entry), executable, index, objectWriter, ignoreMatcher, stats);
+                }
+            }
+        }
+    }
+
+    private void extractTar(InputStream in, Path root, ProjectFileIndex index, GitObjectWriter objectWriter,
+                            IgnoreMatcher ignoreMatcher, ExtractionStats stats) throws IOException {
+        TarArchiveReader reader = new TarArchiveReader(in);
+        TarArchiveReader.TarEntry entry;
+        while ((entry = reader.next()) != null) {
+            if (entry.isDirectory()) {
+                Path directory = resolveInside(root, entry.getName());
+                if (directory != null) {
+                    Files.createDirectories(directory);
+                }
+            } else if (entry.isFile()) {
+                writeEntry(reader.getEntryStream(), entry.getSize(), entry.getName(), root,
+                    FileTime.fromMillis(entry.getModifiedSeconds() * 1000),
+                    (entry.getMode() & 0100) != 0, index, objectWriter, ignoreMatcher, stats);
+            } else {
+                // Links could point outside the project; devices and fifos have no place in a repository
+                System.out.println("⏭️ Skipping non-regular archive entry: " + entry.getName());
+                stats.skippedEntries++;
+            }
+        }
+    }
+
+    private void writeEntry(InputStream in, long size, String entryName, Path root, FileTime modified, boolean executable,
+                            ProjectFileIndex index, GitObjectWriter objectWriter, IgnoreMatcher ignoreMatcher,
+                            ExtractionStats stats) throws IOException {
+        Path target = resolveInside(root, entryName);
+        if (target == null) {
+            System.err.println("⚠️ Skipping archive entry outside the project: " + entryName);
+            stats.skippedEntries++;
+            return;
+        }
+        Files.createDirectories(target.getParent());
+
+        boolean ignored = ignoreMatcher != null && ignoreMatcher.isIgnored(root.relativize(target).toString());
+        MessageDigest digest = objectWriter == null && !ignored ? GitBlobHasher.newBlobDigest(size) : null;
+        GitObjectWriter.BlobOutput blob = objectWriter != null && !ignored ? objectWriter.openBlob(size) : null;
+        byte[] sample = new byte[FileTypeClassifier.SAMPLE_SIZE];
+        int sampleLength = 0;
+        long written = 0;
+        try (OutputStream out = Files.newOutputStream(target)) {
+            byte[] buffer = new byte[BUFFER_SIZE];
+            int read;
+            while ((read = in.read(buffer)) > 0) {
+                out.write(buffer, 0, read);
+                written += read;
+                if (blob != null) {
+                    blob.write(buffer, 0, read);
+                } else if (digest != null) {
+                    digest.update(buffer, 0, read);
+                }
+                if (sampleLength < sample.length) {
+                    int count = Math.min(read, sample.length - sampleLength);
+                    System.arraycopy(buffer, 0, sample, sampleLength, count);
+                    sampleLength += count;
+                }
+            }
+        } catch (IOException e) {
+            if (blob != null) {
+                blob.abort();
+            }
+            throw new IOException("Failed to extract " + entryName + ": " + e.getMessage(), e);
+        }
+        if (written != size) {
+            if (blob != null) {
+                blob.abort();
+            }
+            throw new IOException("Corrupt archive entry " + entryName + ": expected " + size + " bytes, got " + written);
+        }
+        // Ignored entries get no id; should a project .gitignore re-include one, the index hashes it on demand
+        byte[] blobId = blob != null ? blob.finish() : digest != null ? digest.digest() : null;
+
+        if (executable) {
+            target.toFile().setExecutable(true, false);
+        }
+        Files.setLastModifiedTime(target, modified);
+        // After the timestamp, or the index would consider the entry stale straight away
+        if (index != null) {
+            index.recordExtractedFile(target, blobId, sample, sampleLength);
+        }
+
+        stats.files++;
+        stats.bytes += size;
+        if (ignored) {
+            stats.ignoredFiles++;
+            stats.ignoredBytes += size;
+        }
+    }
+
+    private Path resolveInside(Path root, String entryName) {
+        String relativePath = entryName.replace('\\', '/');
+        while (relativePath.startsWith("/")) {
+            relativePath = relativePath.substring(1);
+        }
+        if (relativePath.isEmpty()) {
+            return null;
+        }
+        Path target = root.resolve(relativePath).normalize();
+        return target.startsWith(root) && !target.equals(root) ? target : null;
+    }
+
+    public static class ExtractionStats {
+        private int files;
+        private long bytes;
+        private int skippedEntries;
+        private int objectsWritten;
+        private int ignoredFiles;
+        private long ignoredBytes;
+
+        public int getFiles() { return files; }
+        public long getBytes() { return bytes; }
+        public int getSkippedEntries() { return skippedEntries; }
+        public int getObjectsWritten() { return objectsWritten; }
+        // Extracted but neither hashed nor stored
+        public int getIgnoredFiles() { return ignoredFiles; }
+        public long getIgnoredBytes() { return ignoredBytes; }
+
+        @Override
+        public String toString() {
+            return files + " files, " + bytes + " bytes, " + skippedEntries + " entries skipped, " +
+                objectsWritten + " git objects written, " + ignoredFiles + " ignored files (" + ignoredBytes + " bytes) not hashed";
+        }
+    }
+}
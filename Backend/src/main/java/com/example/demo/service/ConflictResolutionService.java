@@ -1,5 +1,6 @@
 package com.example.demo.service;
 
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import java.io.IOException;
@@ -7,19 +8,35 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.*;
+import java.util.function.Consumer;
 import java.util.stream.Stream;
 
 @Service
 public class ConflictResolutionService {
 
+    private static final String CONFLICTS_SOURCE = "conflicts";
+
+    @Autowired
+    private FileIndexService fileIndexService;
+
+    @Autowired
+    private KnownFileAllowlist knownFileAllowlist;
+
+    @Autowired
+    private ScanFindingStore scanFindingStore;
+
     public Map<String, Object> detectAndResolveConflicts(String extractedPath) throws IOException {
         Map<String, Object> result = new HashMap<>();
         
         // Detect various types of conflicts
-        List<DuplicateFile> duplicateFiles = detectDuplicateFiles(extractedPath);
-        List<String> largeFiles = detectLargeFiles(extractedPath);
-        List<String> secretFiles = detectFilesWithSecrets(extractedPath);
-        List<String> conflictingNames = detectConflictingNames(extractedPath);
+        List<DuplicateFile> duplicateFiles = new ArrayList<>();
+        List<String> largeFiles = new ArrayList<>();
+        List<String> secretFiles = new ArrayList<>();
+        List<String> conflictingNames = new ArrayList<>();
+        detectDuplicateFiles(extractedPath, duplicateFiles::add);
+        detectLargeFiles(extractedPath, largeFiles::add);
+        detectFilesWithSecrets(extractedPath, secretFiles::add);
+        detectConflictingNames(extractedPath, conflictingNames::add);
         
         // Generate resolution suggestions
         Map<String, Object> resolutions = generateResolutions(duplicateFiles, largeFiles, secretFiles, conflictingNames);
@@ -34,10 +51,57 @@ public class ConflictResolutionService {
         return result;
     }
 
-    private List<DuplicateFile> detectDuplicateFiles(String extractedPath) throws IOException {
+    /**
+     * Same detection as {@link #detectAndResolveConflicts(String)}, but each conflict and its
+     * suggested resolution is appended to the job's findings store as soon as it is found, replacing
+     * the conflicts of any earlier run. Only the per-type counts are returned; the findings
+     * themselves are read back page by page.
+     */
+    public Map<String, Object> detectConflicts(String extractedPath, String jobId) throws IOException {
+        Map<String, Object> result = new HashMap<>();
+        int[] counts = new int[4];
+
+        try (ScanFindingStore.JobWriter writer = scanFindingStore.openReplacingWriter(jobId, CONFLICTS_SOURCE)) {
+            detectDuplicateFiles(extractedPath, duplicate -> {
+                counts[0]++;
+                writer.append(conflictFinding("DUPLICATE_FILE", duplicate.paths.get(0),
+                    "Duplicate file " + duplicate.fileName + " (" + duplicate.conflictType + ") in " + duplicate.paths.size() + " locations",
+                    resolveDuplicate(duplicate)));
+            });
+            detectLargeFiles(extractedPath, largeFile -> {
+                counts[1]++;
+                writer.append(conflictFinding("LARGE_FILE", largeFile.substring(0, largeFile.lastIndexOf(" (")),
+                    "Large file: " + largeFile, resolveLargeFile(largeFile)));
+            });
+            detectFilesWithSecrets(extractedPath, secretFile -> {
+                counts[2]++;
+                writer.append(conflictFinding("SECRET_FILE", secretFile,
+                    "Potential secrets in: " + secretFile, resolveSecretFile(secretFile)));
+            });
+            detectConflictingNames(extractedPath, conflict -> {
+                counts[3]++;
+                writer.append(conflictFinding("CASE_CONFLICT", null, conflict, resolveConflictingName(conflict)));
+            });
+        }
+
+        result.put("duplicateFiles", counts[0]);
+        result.put("largeFiles", counts[1]);
+        result.put("secretFiles", counts[2]);
+        result.put("conflictingNames", counts[3]);
+        result.put("hasConflicts", counts[0] + counts[1] + counts[2] + counts[3] > 0);
+
+        return result;
+    }
+
+    private ScanFindingStore.ScanFinding conflictFinding(String type, String path, String message, Map<String, Object> resolution) {
+        ScanFindingStore.ScanFinding finding = new ScanFindingStore.ScanFinding(CONFLICTS_SOURCE, "warning", type, path, message);
+        resolution.forEach(finding::withDetail);
+        return finding;
+    }
+
+    private void detectDuplicateFiles(String extractedPath, Consumer<DuplicateFile> duplicates) throws IOException {
         Map<String, List<String>> filesByName = new HashMap<>();
         Map<String, String> fileHashes = new HashMap<>();
-        List<DuplicateFile> duplicates = new ArrayList<>();
         
         Path rootPath = Paths.get(extractedPath);
         
@@ -84,15 +148,12 @@ public class ConflictResolutionService {
                 duplicate.sameContent = uniqueHashes.size() <= 1;
                 duplicate.conflictType = duplicate.sameContent ? "IDENTICAL_CONTENT" : "DIFFERENT_CONTENT";
                 
-                duplicates.add(duplicate);
+                duplicates.accept(duplicate);
             }
         }
-        
-        return duplicates;
     }
 
-    private List<String> detectLargeFiles(String extractedPath) throws IOException {
-        List<String> largeFiles = new ArrayList<>();
+    private void detectLargeFiles(String extractedPath, Consumer<String> largeFiles) throws IOException {
         Path rootPath = Paths.get(extractedPath);
         long maxSize = 100 * 1024 * 1024; // 100MB threshold
         
@@ -102,20 +163,18 @@ public class ConflictResolutionService {
                      try {
                          if (Files.size(path) > maxSize) {
                              String relativePath = rootPath.relativize(path).toString();
-                             largeFiles.add(relativePath + " (" + formatFileSize(Files.size(path)) + ")");
+                             largeFiles.accept(relativePath + " (" + formatFileSize(Files.size(path)) + ")");
                          }
                      } catch (IOException e) {
                          // Skip files that can't be read
                      }
                  });
         }
-        
-        return largeFiles;
     }
 
-    private List<String> detectFilesWithSecrets(String extractedPath) throws IOException {
-        List<String> secretFiles = new ArrayList<>();
+    private void detectFilesWithSecrets(String extractedPath, Consumer<String> secretFiles) throws IOException {
         Path rootPath = Paths.get(extractedPath);
+        ProjectFileIndex index = fileIndexService.getIndex(extractedPath);
         
         // Patterns for detecting secrets
         List<String> secretPatterns = Arrays.asList(
@@ -129,14 +188,15 @@ public class ConflictResolutionService {
         
         try (Stream<Path> paths = Files.walk(rootPath)) {
             paths.filter(Files::isRegularFile)
-                 .filter(path -> isTextFile(path.getFileName().toString()))
+                 .filter(index::isTextFile)
+                 .filter(path -> !isKnownFile(index, path))
                  .forEach(path -> {
                      try {
                          String content = Files.readString(path);
                          for (String pattern : secretPatterns) {
                              if (content.matches(".*" + pattern + ".*")) {
                                  String relativePath = rootPath.relativize(path).toString();
-                                 secretFiles.add(relativePath);
+                                 secretFiles.accept(relativePath);
                                  break;
                              }
                          }
@@ -145,12 +205,9 @@ public class ConflictResolutionService {
                      }
                  });
         }
-        
-        return secretFiles;
     }
 
-    private List<String> detectConflictingNames(String extractedPath) throws IOException {
-        List<String> conflicts = new ArrayList<>();
+    private void detectConflictingNames(String extractedPath, Consumer<String> conflicts) throws IOException {
         Path rootPath = Paths.get(extractedPath);
         Map<String, List<String>> nameGroups = new HashMap<>();
         
@@ -173,12 +230,10 @@ public class ConflictResolutionService {
                 }
                 
                 if (actualNames.size() > 1) {
-                    conflicts.add("Case conflict: " + String.join(", ", actualNames));
+                    conflicts.accept("Case conflict: " + String.join(", ", actualNames));
                 }
             }
         }
-        
-        return conflicts;
     }
 
     private Map<String, Object> generateResolutions(List<DuplicateFile> duplicateFiles, List<String> largeFiles, 
@@ -188,60 +243,75 @@ public class ConflictResolutionService {
         // Duplicate file resolutions
         List<Map<String, Object>> duplicateResolutions = new ArrayList<>();
         for (DuplicateFile duplicate : duplicateFiles) {
-            Map<String, Object> resolution = new HashMap<>();
-            resolution.put("file", duplicate.fileName);
-            resolution.put("paths", duplicate.paths);
-            
-            if (duplicate.sameContent) {
-                resolution.put("action", "KEEP_ONE");
-                resolution.put("suggestion", "Keep the file in the most appropriate location and remove others");
-                resolution.put("recommended", selectBestPath(duplicate.paths));
-            } else {
-                resolution.put("action", "RENAME");
-                resolution.put("suggestion", "Rename files to reflect their different purposes");
-                resolution.put("recommendations", generateRenamedPaths(duplicate.paths));
-            }
-            
-            duplicateResolutions.add(resolution);
+            duplicateResolutions.add(resolveDuplicate(duplicate));
         }
         resolutions.put("duplicateFiles", duplicateResolutions);
         
         // Large file resolutions
         List<Map<String, Object>> largeFileResolutions = new ArrayList<>();
         for (String largeFile : largeFiles) {
-            Map<String, Object> resolution = new HashMap<>();
-            resolution.put("file", largeFile);
-            resolution.put("action", "GITIGNORE");
-            resolution.put("suggestion", "Add to .gitignore or consider using Git LFS");
-            largeFileResolutions.add(resolution);
+            largeFileResolutions.add(resolveLargeFile(largeFile));
         }
         resolutions.put("largeFiles", largeFileResolutions);
         
         // Secret file resolutions
         List<Map<String, Object>> secretResolutions = new ArrayList<>();
         for (String secretFile : secretFiles) {
-            Map<String, Object> resolution = new HashMap<>();
-            resolution.put("file", secretFile);
-            resolution.put("action", "REMOVE_SECRETS");
-            resolution.put("suggestion", "Remove sensitive data and use environment variables");
-            secretResolutions.add(resolution);
+            secretResolutions.add(resolveSecretFile(secretFile));
         }
         resolutions.put("secretFiles", secretResolutions);
         
         // Conflicting name resolutions
         List<Map<String, Object>> nameResolutions = new ArrayList<>();
         for (String conflict : conflictingNames) {
-            Map<String, Object> resolution = new HashMap<>();
-            resolution.put("conflict", conflict);
-            resolution.put("action", "STANDARDIZE_CASE");
-            resolution.put("suggestion", "Standardize filename casing to avoid conflicts on case-sensitive systems");
-            nameResolutions.add(resolution);
+            nameResolutions.add(resolveConflictingName(conflict));
         }
         resolutions.put("conflictingNames", nameResolutions);
         
         return resolutions;
     }
 
+    private Map<String, Object> resolveDuplicate(DuplicateFile duplicate) {
+        Map<String, Object> resolution = new HashMap<>();
+        resolution.put("file", duplicate.fileName);
+        resolution.put("paths", duplicate.paths);
+
+        if (duplicate.sameContent) {
+            resolution.put("action", "KEEP_ONE");
+            resolution.put("suggestion", "Keep the file in the most appropriate location and remove others");
+            resolution.put("recommended", selectBestPath(duplicate.paths));
+        } else {
+            resolution.put("action", "RENAME");
+            resolution.put("suggestion", "Rename files to reflect their different purposes");
+            resolution.put("recommendations", generateRenamedPaths(duplicate.paths));
+        }
+        return resolution;
+    }
+
+    private Map<String, Object> resolveLargeFile(String largeFile) {
+        Map<String, Object> resolution = new HashMap<>();
+        resolution.put("file", largeFile);
+        resolution.put("action", "GITIGNORE");
+        resolution.put("suggestion", "Add to .gitignore or consider using Git LFS");
+        return resolution;
+    }
+
+    private Map<String, Object> resolveSecretFile(String secretFile) {
+        Map<String, Object> resolution = new HashMap<>();
+        resolution.put("file", secretFile);
+        resolution.put("action", "REMOVE_SECRETS");
+        resolution.put("suggestion", "Remove sensitive data and use environment variables");
+        return resolution;
+    }
+
+    private Map<String, Object> resolveConflictingName(String conflict) {
+        Map<String, Object> resolution = new HashMap<>();
+        resolution.put("conflict", conflict);
+        resolution.put("action", "STANDARDIZE_CASE");
+        resolution.put("suggestion", "Standardize filename casing to avoid conflicts on case-sensitive systems");
+        return resolution;
+    }
+
     private String selectBestPath(List<String> paths) {
         // Prefer paths that are in standard locations
         for (String path : paths) {
@@ -271,18 +341,15 @@ public class ConflictResolutionService {
         return renamed;
     }
 
-    private boolean isTextFile(String fileName) {
-        String lowerFileName = fileName.toLowerCase();
-        return lowerFileName.endsWith(".txt") || lowerFileName.endsWith(".md") ||
-               lowerFileName.endsWith(".json") || lowerFileName.endsWith(".xml") ||
-               lowerFileName.endsWith(".yaml") || lowerFileName.endsWith(".yml") ||
-               lowerFileName.endsWith(".properties") || lowerFileName.endsWith(".conf") ||
-               lowerFileName.endsWith(".js") || lowerFileName.endsWith(".ts") ||
-               lowerFileName.endsWith(".py") || lowerFileName.endsWith(".java") ||
-               lowerFileName.endsWith(".cpp") || lowerFileName.endsWith(".c") ||
-               lowerFileName.endsWith(".h") || lowerFileName.endsWith(".cs") ||
-               lowerFileName.endsWith(".php") || lowerFileName.endsWith(".rb") ||
-               lowerFileName.endsWith(".go") || lowerFileName.endsWith(".rs");
+    private boolean isKnownFile(ProjectFileIndex index, Path path) {
+        if (!knownFileAllowlist.isEnabled()) {
+            return false;
+        }
+        try {
+            return knownFileAllowlist.contains(index.getBlobId(path));
+        } catch (IOException e) {
+            return false;
+        }
     }
 
     private String formatFileSize(long bytes) {
@@ -0,0 +1,163 @@
+package com.example.demo.service;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Flags high-entropy tokens (random-looking API keys, tokens, passwords) that the keyword regexes miss,
+ * e.g. values inside JSON blobs. Works directly on raw bytes: tokens are runs of base64/hex-alphabet
+ * characters, and a fixed-size window slides over each run while a byte histogram and the running
+ * sum of c*log2(c) are updated incrementally. Nothing is allocated per byte or per token.
+ *
+ * Not thread-safe: each scan worker owns one instance and reuses it for every chunk.
+ */
+public class EntropySecretDetector {
+
+    public static final int MIN_TOKEN_LENGTH = 20;
+    // Longer runs are almost always embedded data (data URIs, base64 images), not credentials
+    public static final int MAX_TOKEN_LENGTH = 256;
+    public static final int WINDOW = 32;
+
+    // Fraction of the maximum possible entropy for the window a token must reach
+    public static final double BASE64_THRESHOLD = 0.85;
+    public static final double HEX_THRESHOLD = 0.80;
+
+    private static final int LOWER = 1;
+    private static final int UPPER = 2;
+    private static final int DIGIT = 4;
+    private static final int SYMBOL = 8;
+    private static final int HEX = 16;
+
+    private static final byte[] CHAR_CLASS = new byte[256];
+    // X_LOG_X[c] = c * log2(c) (one past WINDOW: a byte is counted before the oldest one leaves), so the entropy of a window is log2(W) - sum(X_LOG_X[count]) / W
+    private static final double[] X_LOG_X = new double[WINDOW + 2];
+
+    static {
+        for (int c = 'a'; c <= 'z'; c++) CHAR_CLASS[c] = LOWER;
+        for (int c = 'A'; c <= 'Z'; c++) CHAR_CLASS[c] = UPPER;
+        for (int c = '0'; c <= '9'; c++) CHAR_CLASS[c] = DIGIT | HEX;
+        for (int c = 'a'; c <= 'f'; c++) CHAR_CLASS[c] |= HEX;
+        for (int c = 'A'; c <= 'F'; c++) CHAR_CLASS[c] |= HEX;
+        CHAR_CLASS['+'] = SYMBOL;
+        CHAR_CLASS['/'] = SYMBOL;
+        CHAR_CLASS['='] = SYMBOL;
+        CHAR_CLASS['_'] = SYMBOL;
+        CHAR_CLASS['-'] = SYMBOL;
+
+        for (int c = 1; c <= WINDOW + 1; c++) {
+            X_LOG_X[c] = c * (Math.log(c) / Math.log(2));
+        }
+    }
+
+    private final int[] histogram = new int[256];
+
+    public static long fingerprint() {
+        long fingerprint = MIN_TOKEN_LENGTH;
+        fingerprint = fingerprint * 31 + MAX_TOKEN_LENGTH;
+        fingerprint = fingerprint * 31 + WINDOW;
+        fingerprint = fingerprint * 31 + Double.hashCode(BASE64_THRESHOLD);
+        fingerprint = fingerprint * 31 + Double.hashCode(HEX_THRESHOLD);
+        return fingerprint;
+    }
+
+    public boolean containsHighEntropyToken(ByteBuffer buffer, int from, int to) {
+        int runStart = -1;
+        int runClasses = 0;
+
+        for (int i = from; i < to; i++) {
+            int charClass = CHAR_CLASS[buffer.get(i) & 0xFF];
+            if (charClass != 0) {
+                if (runStart < 0) {
+                    runStart = i;
+                    runClasses = 0;
+                }
+                runClasses |= charClass;
+                continue;
+            }
+
+            if (runStart >= 0) {
+                if (isCandidate(i - runStart, runClasses) && hasHighEntropyWindow(buffer, runStart, i, runClasses)) {
+                    return true;
+                }
+                runStart = -1;
+            }
+        }
+
+        return runStart >= 0 && isCandidate(to - runStart, runClasses) &&
+               hasHighEntropyWindow(buffer, runStart, to, runClasses);
+    }
+
+    private boolean isCandidate(int length, int classes) {
+        if (length < MIN_TOKEN_LENGTH || length > MAX_TOKEN_LENGTH) {
+            return false;
+        }
+        // Credentials mix letters and digits; this drops long identifiers and words
+        return (classes & DIGIT) != 0 && (classes & (LOWER | UPPER)) != 0;
+    }
+
+    private boolean hasHighEntropyWindow(ByteBuffer buffer, int start, int end, int classes) {
+        int window = Math.min(WINDOW, end - start);
+        boolean hexOnly = (CHAR_CLASS[buffer.get(start) & 0xFF] & HEX) != 0;
+        int transitions = 0;
+        int previousKind = kind(buffer.get(start));
+        for (int i = start + 1; i < end; i++) {
+            int charClass = CHAR_CLASS[buffer.get(i) & 0xFF];
+            hexOnly &= (charClass & HEX) != 0;
+            int currentKind = charClass & (LOWER | UPPER | DIGIT | SYMBOL);
+            if (currentKind != previousKind) {
+                transitions++;
+            }
+            previousKind = currentKind;
+        }
+
+        if (!hexOnly) {
+            // Single-case alphanumerics that are not hex are mostly identifiers and slugs
+            if ((classes & (LOWER | UPPER)) != (LOWER | UPPER)) {
+                return false;
+            }
+            // Random base64 switches between upper, lower, digit and symbol about two times in three;
+            // camelCase identifiers such as OAuth2UserService only switch at word boundaries
+            if (transitions * 2 < end - start - 1) {
+                return false;
+            }
+        }
+
+        double maxEntropy = Math.log(window) / Math.log(2);
+        double threshold = hexOnly
+            ? HEX_THRESHOLD * Math.min(maxEntropy, 4.0)
+            : BASE64_THRESHOLD * Math.min(maxEntropy, 6.0);
+        // entropy >= threshold  <=>  sum(c*log2 c) <= W * (log2 W - threshold)
+        double maxSum = window * (maxEntropy - threshold);
+
+        double sum = 0;
+        for (int i = start; i < end; i++) {
+            int added = buffer.get(i) & 0xFF;
+            int count = histogram[added]++;
+            sum += X_LOG_X[count + 1] - X_LOG_X[count];
+
+            if (i - start >= window) {
+                int removed = buffer.get(i - window) & 0xFF;
+                int removedCount = histogram[removed]--;
+                sum += X_LOG_X[removedCount - 1] - X_LOG_X[removedCount];
+            }
+
+            if (i - start >= window - 1 && sum <= maxSum) {
+                clearHistogram(buffer, Math.max(start, i + 1 - window), i + 1);
+                return true;
+            }
+        }
+
+        clearHistogram(buffer, Math.max(start, end - window), end);
+        return false;
+    }
+
+    private int kind(byte value) {
+        return CHAR_CLASS[value & 0xFF] & (LOWER | UPPER | DIGIT | SYMBOL);
+    }
+
+    // Only the bytes still inside the window have non-zero counts
+    private void clearHistogram(ByteBuffer buffer, int start, int end) {
+        for (int i = start; i < end; i++) {
+            histogram[buffer.get(i) & 0xFF] = 0;
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com.example.demo.service;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+@Service
+public class FileIndexService {
+
+    @Autowired
+    private FileTypeClassifier fileTypeClassifier;
+
+    // One index per extracted project, shared by every stage that looks at the same files
+    private final Map<Path, ProjectFileIndex> indexes = new ConcurrentHashMap<>();
+
+    public ProjectFileIndex getIndex(String rootPath) {
+        Path root = Paths.get(rootPath).toAbsolutePath().normalize();
+        return indexes.computeIfAbsent(root, path -> new ProjectFileIndex(path, fileTypeClassifier));
+    }
+
+    public void evict(String rootPath) {
+        if (rootPath != null) {
+            indexes.remove(Paths.get(rootPath).toAbsolutePath().normalize());
+        }
+    }
+}
@@ -0,0 +1,205 @@
+package com.example.demo.service;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileStore;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * Builds directory trees out of files that already exist on disk (branch directories, push working
+ * trees) without copying their data. Files are hard-linked where possible, reflinked with
+ * {@code cp --reflink=always} when the target is on a different filesystem that supports
+ * copy-on-write clones, and only byte-copied as a last resort.
+ *
+ * Hard-linked files share their inode with the extracted upload, so anything that rewrites a
+ * materialized file must call {@link #prepareForWrite(Path)} first.
+ */
+@Service
+public class FileMaterializer {
+
+    @Autowired
+    private ProcessRunner processRunner;
+
+    public enum Mode {
+        AUTO,
+        HARDLINK,
+        REFLINK,
+        COPY
+    }
+
+    // auto, hardlink, reflink or copy; auto tries them in that order
+    @Value("${app.branches.materialize-mode:auto}")
+    private String materializeMode;
+
+    // Number of paths handed to a single cp invocation
+    private static final int REFLINK_BATCH_SIZE = 500;
+
+    // What worked last time between two filesystems, so failing strategies are only tried once
+    private final Map<String, Mode> strategyByFileStores = new ConcurrentHashMap<>();
+
+    /**
+     * Materializes {@code relativePaths} from {@code sourceRoot} under {@code targetRoot}. Paths
+     * that do not exist or escape the source root are skipped; the returned stats list the paths
+     * that were created.
+     */
+    public MaterializeStats materialize(Path sourceRoot, Path targetRoot, Collection<String> relativePaths) throws IOException {
+        MaterializeStats stats = new MaterializeStats();
+        Path normalizedSource = sourceRoot.toAbsolutePath().normalize();
+        Files.createDirectories(targetRoot);
+
+        List<String> pending = new ArrayList<>();
+        for (String relativePath : relativePaths) {
+            Path source = normalizedSource.resolve(relativePath).normalize();
+            if (!source.startsWith(normalizedSource) || !Files.isRegularFile(source)) {
+                continue;
+            }
+            pending.add(normalizedSource.relativize(source).toString());
+        }
+        if (pending.isEmpty()) {
+            return stats;
+        }
+
+        Mode configured = Mode.valueOf(materializeMode.trim().toUpperCase());
+        String storeKey = fileStoreKey(normalizedSource, targetRoot);
+        Mode mode = configured == Mode.AUTO ? strategyByFileStores.getOrDefault(storeKey, Mode.HARDLINK) : configured;
+
+        if (mode == Mode.HARDLINK) {
+            pending = hardLinkAll(normalizedSource, targetRoot, pending, stats);
+            if (!pending.isEmpty() && configured == Mode.AUTO) {
+                mode = Mode.REFLINK;
+            }
+        }
+        if (mode == Mode.REFLINK && !pending.isEmpty()) {
+            pending = reflinkAll(normalizedSource, targetRoot, pending, stats);
+            if (!pending.isEmpty() && configured == Mode.AUTO) {
+                mode = Mode.COPY;
+            }
+        }
+        for (String relativePath : pending) {
+            Path target = targetRoot.resolve(relativePath);
+            createParentDirectories(target);
+            Files.copy(normalizedSource.resolve(relativePath), target, StandardCopyOption.REPLACE_EXISTING);
+            stats.recordCopied(relativePath, Files.size(target));
+        }
+
+        if (configured == Mode.AUTO) {
+            strategyByFileStores.put(storeKey, mode);
+        }
+        return stats;
+    }
+
+    // Replaces a possibly shared file with a fresh inode so writing to it cannot change the upload
+    public void prepareForWrite(Path file) throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    // Returns the paths that could not be linked
+    private List<String> hardLinkAll(Path sourceRoot, Path targetRoot, List<String> relativePaths, MaterializeStats stats) throws IOException {
+        for (int i = 0; i < relativePaths.size(); i++) {
+            String relativePath = relativePaths.get(i);
+            Path target = targetRoot.resolve(relativePath);
+            createParentDirectories(target);
+            try {
+                Files.deleteIfExists(target);
+                Files.createLink(target, sourceRoot.resolve(relativePath));
+                stats.recordLinked(relativePath);
+            } catch (IOException | UnsupportedOperationException e) {
+                // Cross-device or unsupported filesystem: every other file will fail the same way
+                return new ArrayList<>(relativePaths.subList(i, relativePaths.size()));
+            }
+        }
+        return new ArrayList<>();
+    }
+
+    private List<String> reflinkAll(Path sourceRoot, Path targetRoot, List<String> relativePaths, MaterializeStats stats) throws IOException {
+        File targetDir = targetRoot.toAbsolutePath().toFile();
+        for (int start = 0; start < relativePaths.size(); start += REFLINK_BATCH_SIZE) {
+            List<String> batch = relativePaths.subList(start, Math.min(start + REFLINK_BATCH_SIZE, relativePaths.size()));
+
+            List<String> command = new ArrayList<>(List.of("cp", "--reflink=always", "--parents", "-f", "-t", targetDir.getPath(), "--"));
+            command.addAll(batch);
+
+            boolean cloned;
+            try {
+                cloned = processRunner.run(command, sourceRoot).isSuccess();
+            } catch (IOException e) {
+                if (Thread.currentThread().isInterrupted()) {
+                    throw e;
+                }
+                cloned = false;
+            }
+
+            if (!cloned) {
+                // No reflink support here (or no GNU cp); the caller copies whatever is left,
+                // replacing any files cp managed to clone before it failed
+                return new ArrayList<>(relativePaths.subList(start, relativePaths.size()));
+            }
+            batch.forEach(stats::recordReflinked);
+        }
+        return new ArrayList<>();
+    }
+
+    private void createParentDirectories(Path target) throws IOException {
+        Path parent = target.getParent();
+        if (parent != null && !Files.isDirectory(parent)) {
+            Files.createDirectories(parent);
+        }
+    }
+
+    private String fileStoreKey(Path sourceRoot, Path targetRoot) {
+        try {
+            FileStore source = Files.getFileStore(sourceRoot);
+            FileStore target = Files.getFileStore(targetRoot);
+            return source.name() + ":" + source.type() + "->" + target.name() + ":" + target.type();
+        } catch (IOException e) {
+            return sourceRoot + "->" + targetRoot;
+        }
+    }
+
+    public static class MaterializeStats {
+        private final List<String> files = new ArrayList<>();
+        private int linkedFiles;
+        private int reflinkedFiles;
+        private int copiedFiles;
+        private long copiedBytes;
+
+        void recordLinked(String relativePath) {
+            files.add(relativePath);
+            linkedFiles++;
+        }
+
+        void recordReflinked(String relativePath) {
+            files.add(relativePath);
+            reflinkedFiles++;
+        }
+
+        void recordCopied(String relativePath, long bytes) {
+            files.add(relativePath);
+            copiedFiles++;
+            copiedBytes += bytes;
+        }
+
+        public List<String> getFiles() { return files; }
+        public int getLinkedFiles() { return linkedFiles; }
+        public int getReflinkedFiles() { return reflinkedFiles; }
+        public int getCopiedFiles() { return copiedFiles; }
+        public long getCopiedBytes() { return copiedBytes; }
+
+        @Override
+        public String toString() {
+            return files.size() + " files (" + linkedFiles + " hard-linked, " + reflinkedFiles + " reflinked, " +
+                copiedFiles + " copied, " + copiedBytes + " bytes copied)";
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package com.example.demo.service;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+
+import org.springframework.stereotype.Service;
+
+@Service
+public class FileTypeClassifier {
+
+    // Same sample size git uses to decide whether a blob is binary
+    public static final int SAMPLE_SIZE = 8000;
+
+    public enum FileKind {
+        TEXT,
+        BINARY
+    }
+
+    // Well-known binary signatures, matched at the start of the file
+    private static final List<byte[]> MAGIC_NUMBERS = Arrays.asList(
+        new byte[] {(byte) 0x89, 'P', 'N', 'G'},                 // PNG
+        new byte[] {(byte) 0xFF, (byte) 0xD8, (byte) 0xFF},       // JPEG
+        "GIF8".getBytes(StandardCharsets.US_ASCII),                // GIF
+        "%PDF".getBytes(StandardCharsets.US_ASCII),                // PDF
+        new byte[] {'P', 'K', 3, 4},                               // ZIP, JAR, DOCX, APK
+        new byte[] {'P', 'K', 5, 6},                               // empty ZIP
+        new byte[] {0x1F, (byte) 0x8B},                            // GZIP
+        new byte[] {'B', 'Z', 'h'},                                // BZIP2
+        new byte[] {(byte) 0xFD, '7', 'z', 'X', 'Z', 0},           // XZ
+        new byte[] {'7', 'z', (byte) 0xBC, (byte) 0xAF},           // 7z
+        "Rar!".getBytes(StandardCharsets.US_ASCII),                // RAR
+        new byte[] {0x7F, 'E', 'L', 'F'},                          // ELF
+        new byte[] {'M', 'Z'},                                     // PE / DOS executables
+        new byte[] {(byte) 0xCA, (byte) 0xFE, (byte) 0xBA, (byte) 0xBE}, // Java class, Mach-O fat
+        new byte[] {(byte) 0xFE, (byte) 0xED, (byte) 0xFA, (byte) 0xCE}, // Mach-O 32
+        new byte[] {(byte) 0xFE, (byte) 0xED, (byte) 0xFA, (byte) 0xCF}, // Mach-O 64
+        new byte[] {(byte) 0xCE, (byte) 0xFA, (byte) 0xED, (byte) 0xFE}, // Mach-O 32, little endian
+        new byte[] {(byte) 0xCF, (byte) 0xFA, (byte) 0xED, (byte) 0xFE}, // Mach-O 64, little endian
+        new byte[] {0, 'a', 's', 'm'},                             // WebAssembly
+        "SQLite format 3".getBytes(StandardCharsets.US_ASCII),     // SQLite
+        "wOFF".getBytes(StandardCharsets.US_ASCII),                // WOFF
+        "wOF2".getBytes(StandardCharsets.US_ASCII),                // WOFF2
+        "OTTO".getBytes(StandardCharsets.US_ASCII),                // OpenType
+        new byte[] {0, 1, 0, 0, 0},                                // TrueType
+        new byte[] {0, 0, 1, 0},                                   // ICO
+        "OggS".getBytes(StandardCharsets.US_ASCII),                // OGG
+        "ID3".getBytes(StandardCharsets.US_ASCII),                 // MP3
+        "RIFF".getBytes(StandardCharsets.US_ASCII),                // WAV, AVI, WEBP
+        "fLaC".getBytes(StandardCharsets.US_ASCII)                 // FLAC
+    );
+
+    private static final byte[] ISO_MEDIA_BOX = "ftyp".getBytes(StandardCharsets.US_ASCII);
+
+    public FileKind classify(Path file) throws IOException {
+        ByteBuffer sample = ByteBuffer.allocate(SAMPLE_SIZE);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            while (sample.hasRemaining()) {
+                if (channel.read(sample) < 0) {
+                    break;
+                }
+            }
+        }
+        return classify(sample.array(), sample.position());
+    }
+
+    public FileKind classify(byte[] sample, int length) {
+        if (length == 0) {
+            return FileKind.TEXT;
+        }
+
+        if (hasUtf16Bom(sample, length)) {
+            return FileKind.TEXT;
+        }
+
+        for (byte[] magic : MAGIC_NUMBERS) {
+            if (startsWith(sample, length, magic, 0)) {
+                return FileKind.BINARY;
+            }
+        }
+        // MP4, MOV, HEIC: the box type sits after a 4 byte size field
+        if (startsWith(sample, length, ISO_MEDIA_BOX, 4)) {
+            return FileKind.BINARY;
+        }
+
+        // Count NULs, control characters and bytes that cannot be part of valid UTF-8
+        int suspicious = 0;
+        int i = 0;
+        while (i < length) {
+            int b = sample[i] & 0xFF;
+            if (b == 0) {
+                return FileKind.BINARY;
+            }
+
+            if (b < 0x80) {
+                if (b < 0x20 && b != '\t' && b != '\n' && b != '\r' && b != '\f' && b != '\b' && b != 0x1B) {
+                    suspicious++;
+                }
+                i++;
+                continue;
+            }
+
+            int continuation = utf8ContinuationLength(b);
+            if (continuation < 0) {
+                suspicious++;
+                i++;
+                continue;
+            }
+
+            int end = i + 1 + continuation;
+            if (end > length) {
+                // Sequence cut off by the end of the sample
+                break;
+            }
+            boolean valid = true;
+            for (int j = i + 1; j < end; j++) {
+                if ((sample[j] & 0xC0) != 0x80) {
+                    valid = false;
+                    break;
+                }
+            }
+            if (valid) {
+                i = end;
+            } else {
+                suspicious++;
+                i++;
+            }
+        }
+
+        // Allow a little noise so Latin-1 files and odd control characters still count as text
+        return suspicious * 10 > length ? FileKind.BINARY : FileKind.TEXT;
+    }
+
+    private int utf8ContinuationLength(int leadByte) {
+        if (leadByte >= 0xC2 && leadByte <= 0xDF) return 1;
+        if (leadByte >= 0xE0 && leadByte <= 0xEF) return 2;
+        if (leadByte >= 0xF0 && leadByte <= 0xF4) return 3;
+        return -1;
+    }
+
+    private boolean hasUtf16Bom(byte[] sample, int length) {
+        return length >= 2 &&
+               ((sample[0] == (byte) 0xFF && sample[1] == (byte) 0xFE) ||
+                (sample[0] == (byte) 0xFE && sample[1] == (byte) 0xFF));
+    }
+
+    private boolean startsWith(byte[] sample, int length, byte[] prefix, int offset) {
+        if (length < offset + prefix.length) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length; i++) {
+            if (sample[offset + i] != prefix[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
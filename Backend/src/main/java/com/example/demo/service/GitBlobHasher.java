@@ -0,0 +1,62 @@
+package com.example.demo.service;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+// Computes git blob ids: SHA-1 over "blob <length>\0" followed by the file content
+public final class GitBlobHasher {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private GitBlobHasher() {
+    }
+
+    public static MessageDigest newBlobDigest(long length) {
+        MessageDigest digest = newSha1();
+        digest.update(("blob " + length + "\0").getBytes(StandardCharsets.US_ASCII));
+        return digest;
+    }
+
+    public static byte[] hashFile(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long length = channel.size();
+            MessageDigest digest = newBlobDigest(length);
+            ByteBuffer buffer = ByteBuffer.allocate((int) Math.min(BUFFER_SIZE, Math.max(length, 1)));
+            while (channel.read(buffer) >= 0) {
+                buffer.flip();
+                digest.update(buffer);
+                buffer.clear();
+            }
+            return digest.digest();
+        }
+    }
+
+    public static byte[] hashBytes(byte[] content) {
+        MessageDigest digest = newBlobDigest(content.length);
+        digest.update(content);
+        return digest.digest();
+    }
+
+    public static String toHex(byte[] id) {
+        return HexFormat.of().formatHex(id);
+    }
+
+    public static byte[] fromHex(String hex) {
+        return HexFormat.of().parseHex(hex);
+    }
+
+    public static MessageDigest newSha1() {
+        try {
+            return MessageDigest.getInstance("SHA-1");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-1 not available", e);
+        }
+    }
+}
@@ -5,21 +5,39 @@ import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.Scanner;
+import java.util.Set;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 @Service
 public class GitBranchService {
 
+    @Autowired
+    private FileMaterializer fileMaterializer;
+
+    @Autowired
+    private FileIndexService fileIndexService;
+
+    // Commit files at or above the threshold as Git LFS pointers; the objects are uploaded before the push
+    @Value("${app.github.lfs.enabled:false}")
+    private boolean lfsEnabled;
+
+    @Value("${app.github.lfs.threshold-mb:100}")
+    private long lfsThresholdMb;
+
+    private static final String COMMIT_IDENTITY = "GitGenei AI <gitgenei@ai.com>";
+
     public Map<String, Object> createBranchStructure(String extractedPath, Map<String, Object> analysisResults) throws IOException {
         Map<String, Object> result = new HashMap<>();
         
@@ -38,31 +56,54 @@ public class GitBranchService {
             (Map<String, List<String>>) organizationPlan.get("branchFiles") : new HashMap<>();
         
         // Create branch directories
-        String branchesPath = extractedPath + "_branches";
+        String branchesPath = branchesPathFor(extractedPath);
         Path branchesDir = Paths.get(branchesPath);
         if (!Files.exists(branchesDir)) {
             Files.createDirectories(branchesDir);
         }
         
         Map<String, BranchInfo> createdBranches = new HashMap<>();
+        // Every upload file some branch ignored, with its size
+        Map<String, Long> ignored = new HashMap<>();
         
         for (String branchName : suggestedBranches) {
-            BranchInfo branchInfo = createBranch(branchesDir, branchName, extractedPath, branchFiles.get(branchName));
+            BranchInfo branchInfo = createBranch(branchesDir, branchName, extractedPath, branchFiles.get(branchName), ignored);
             createdBranches.put(branchName, branchInfo);
         }
         
-        // Create git repository structure
-        initializeGitRepository(branchesDir.toString());
+        // Commit every branch into one object database; content shared between branches is stored once
+        GitObjectWriter objectWriter = GitObjectWriter.init(branchesDir.resolve(".git"),
+            createdBranches.containsKey("main") ? "main" : suggestedBranches.get(0));
+        ProjectFileIndex index = fileIndexService.getIndex(extractedPath);
+        Map<String, LfsObject> lfsObjects = new HashMap<>();
+        for (BranchInfo branchInfo : createdBranches.values()) {
+            commitBranch(objectWriter, branchInfo, index, lfsObjects);
+        }
+        System.out.println("🗃️ Git objects: " + objectWriter.getObjectsWritten() + " written, " +
+            objectWriter.getObjectsReused() + " reused");
         
         result.put("branchesPath", branchesPath);
         result.put("createdBranches", createdBranches);
         result.put("totalBranches", createdBranches.size());
+        // Counted once per file, and only for files no branch pushes
+        result.put("ignoredBytes", ignored.entrySet().stream()
+            .filter(entry -> createdBranches.values().stream().noneMatch(branch -> branch.isFromSource(entry.getKey())))
+            .mapToLong(Map.Entry::getValue)
+            .sum());
+        // Keyed by oid, so a file shared between branches is uploaded once
+        result.put("lfsObjects", lfsObjects);
         result.put("status", "success");
         
         return result;
     }
 
-    private BranchInfo createBranch(Path branchesDir, String branchName, String sourcePath, List<String> branchFiles) throws IOException {
+    // Branch directories and their shared .git live next to the extracted upload
+    public static String branchesPathFor(String extractedPath) {
+        return extractedPath + "_branches";
+    }
+
+    private BranchInfo createBranch(Path branchesDir, String branchName, String sourcePath, List<String> branchFiles,
+                                    Map<String, Long> ignored) throws IOException {
         Path branchPath = branchesDir.resolve(branchName);
         if (!Files.exists(branchPath)) {
             Files.createDirectories(branchPath);
@@ -70,16 +111,27 @@ public class GitBranchService {
         
         BranchInfo branchInfo = new BranchInfo(branchName, branchPath.toString());
         
+        // Ignored content (generated rules plus the project's own .gitignore files) is never linked,
+        // hashed or pushed
+        IgnoreMatcher ignoreMatcher = new IgnoreMatcher(Paths.get(sourcePath), generateGitignore(branchName));
+        IgnoreMatcher.Selection selection = null;
         if (branchFiles != null && !branchFiles.isEmpty()) {
-            // Copy specific files to this branch
-            for (String filePath : branchFiles) {
-                copyFileToBranch(sourcePath, branchPath.toString(), filePath, branchInfo);
-            }
-        } else {
-            // For main branch or if no specific files, copy everything
-            if ("main".equals(branchName)) {
-                copyAllFilesToBranch(sourcePath, branchPath.toString(), branchInfo);
+            selection = ignoreMatcher.select(branchFiles);
+        } else if ("main".equals(branchName)) {
+            // For main branch or if no specific files, take everything
+            selection = ignoreMatcher.listFiles();
+        }
+
+        if (selection != null) {
+            branchInfo.setIgnored(selection.getIgnoredFiles(), selection.getIgnoredBytes());
+            ignored.putAll(selection.getIgnored());
+            if (selection.getIgnoredFiles() > 0) {
+                System.out.println("🙈 Branch " + branchName + ": skipped " + selection.getIgnoredFiles() +
+                    " ignored files (" + selection.getIgnoredBytes() + " bytes)");
             }
+            FileMaterializer.MaterializeStats stats = fileMaterializer.materialize(Paths.get(sourcePath), branchPath, selection.getFiles());
+            stats.getFiles().forEach(branchInfo::addSourceFile);
+            System.out.println("🌿 Branch " + branchName + ": " + stats);
         }
         
         // Create branch-specific files
@@ -88,52 +140,12 @@ public class GitBranchService {
         return branchInfo;
     }
 
-    private void copyFileToBranch(String sourcePath, String branchPath, String filePath, BranchInfo branchInfo) throws IOException {
-        Path sourceFile = Paths.get(sourcePath, filePath);
-        Path targetFile = Paths.get(branchPath, filePath);
-        
-        if (Files.exists(sourceFile)) {
-            // Create parent directories if they don't exist
-            Path parentDir = targetFile.getParent();
-            if (parentDir != null && !Files.exists(parentDir)) {
-                Files.createDirectories(parentDir);
-            }
-            
-            Files.copy(sourceFile, targetFile, StandardCopyOption.REPLACE_EXISTING);
-            branchInfo.addFile(filePath);
-        }
-    }
-
-    private void copyAllFilesToBranch(String sourcePath, String branchPath, BranchInfo branchInfo) throws IOException {
-        Path sourceDir = Paths.get(sourcePath);
-        Path targetDir = Paths.get(branchPath);
-        
-        try (Stream<Path> paths = Files.walk(sourceDir)) {
-            paths.filter(Files::isRegularFile)
-                 .forEach(sourcePath1 -> {
-                     try {
-                         Path relativePath = sourceDir.relativize(sourcePath1);
-                         Path targetPath = targetDir.resolve(relativePath);
-                         
-                         // Create parent directories
-                         Path parentDir = targetPath.getParent();
-                         if (parentDir != null && !Files.exists(parentDir)) {
-                             Files.createDirectories(parentDir);
-                         }
-                         
-                         Files.copy(sourcePath1, targetPath, StandardCopyOption.REPLACE_EXISTING);
-                         branchInfo.addFile(relativePath.toString());
-                     } catch (IOException e) {
-                         System.err.println("Failed to copy file: " + sourcePath1 + " - " + e.getMessage());
-                     }
-                 });
-        }
-    }
-
     private void createBranchSpecificFiles(Path branchPath, String branchName, BranchInfo branchInfo) throws IOException {
         // Create branch-specific README
         String readmeContent = generateBranchReadme(branchName, branchInfo);
         Path readmePath = branchPath.resolve("README.md");
+        // The branch may hold a link to the project's own README; never write through it
+        fileMaterializer.prepareForWrite(readmePath);
         Files.writeString(readmePath, readmeContent);
         branchInfo.addFile("README.md");
         
@@ -203,7 +215,8 @@ public class GitBranchService {
         return readme.toString();
     }
 
-    private String generateGitignore(String branchName) {
+    // The rules in every branch's generated .gitignore, which the project's own .gitignore files may still override
+    public String commonIgnoreRules() {
         StringBuilder gitignore = new StringBuilder();
         
         // Common ignores
@@ -232,6 +245,12 @@ public class GitBranchService {
         gitignore.append(".DS_Store\n");
         gitignore.append("Thumbs.db\n\n");
         
+        return gitignore.toString();
+    }
+
+    private String generateGitignore(String branchName) {
+        StringBuilder gitignore = new StringBuilder(commonIgnoreRules());
+        
         // Branch-specific ignores
         if ("frontend".equals(branchName)) {
             gitignore.append("# Frontend specific\n");
@@ -268,44 +287,100 @@ public class GitBranchService {
         configContent.append("CREATED_BY=Auto-organized\n");
         
         Path configPath = branchPath.resolve(".branch-config");
+        fileMaterializer.prepareForWrite(configPath);
         Files.writeString(configPath, configContent.toString());
         branchInfo.addFile(".branch-config");
     }
 
-    private void initializeGitRepository(String branchesPath) throws IOException {
-        // Initialize git repository in the branches directory
-        ProcessBuilder pb = new ProcessBuilder("git", "init");
-        pb.directory(new File(branchesPath));
-        
-        try {
-            Process process = pb.start();
-            int exitCode = process.waitFor();
-            if (exitCode == 0) {
-                System.out.println("Git repository initialized successfully");
+    // Hashes the branch directory into blobs and trees and points refs/heads/<branch> at a new commit
+    private void commitBranch(GitObjectWriter objectWriter, BranchInfo branchInfo, ProjectFileIndex index,
+                              Map<String, LfsObject> lfsObjects) throws IOException {
+        Path branchPath = Paths.get(branchInfo.getPath());
+        List<Path> files;
+        try (Stream<Path> paths = Files.walk(branchPath)) {
+            files = paths.filter(Files::isRegularFile).collect(Collectors.toList());
+        }
+
+        GitObjectWriter.TreeBuilder tree = new GitObjectWriter.TreeBuilder();
+        long lfsThreshold = lfsThresholdMb * 1024 * 1024;
+        for (Path file : files) {
+            String relativePath = branchPath.relativize(file).toString().replace(File.separatorChar, '/');
+            if (lfsEnabled && Files.size(file) >= lfsThreshold && !".gitattributes".equals(relativePath)) {
+                LfsObject lfsObject = LfsObject.fromFile(file);
+                lfsObjects.putIfAbsent(lfsObject.getOid(), lfsObject);
+                branchInfo.addLfsFile(relativePath);
+                tree.add(relativePath, GitObjectWriter.FILE_MODE, objectWriter.writeBlob(lfsObject.pointer()));
+                continue;
+            }
+            // Files taken unchanged from the upload already have a blob id in the index
+            byte[] knownId = index != null && branchInfo.isFromSource(relativePath)
+                ? index.getBlobId(index.getRootPath().resolve(relativePath))
+                : null;
+            byte[] blobId = objectWriter.writeBlob(file, knownId);
+            tree.add(relativePath, Files.isExecutable(file) ? GitObjectWriter.EXECUTABLE_MODE : GitObjectWriter.FILE_MODE, blobId);
+        }
+
+        if (!branchInfo.getLfsFiles().isEmpty()) {
+            Path attributes = writeLfsAttributes(branchPath, branchInfo.getLfsFiles());
+            branchInfo.addFile(".gitattributes");
+            tree.add(".gitattributes", GitObjectWriter.FILE_MODE, objectWriter.writeBlob(attributes, null));
+            System.out.println("📦 Branch " + branchInfo.getName() + ": " + branchInfo.getLfsFiles().size() + " files stored in Git LFS");
+        }
+
+        String commitMessage = "Add " + branchInfo.getName() + " components - Generated by GitGenei AI";
+        byte[] commitId = objectWriter.writeCommit(tree.write(objectWriter), List.of(), COMMIT_IDENTITY, commitMessage);
+        objectWriter.updateRef("refs/heads/" + branchInfo.getName(), commitId);
+        branchInfo.setCommitId(GitBlobHasher.toHex(commitId));
+    }
+
+    // Appends LFS tracking lines to the branch's .gitattributes so clones smudge the pointers back
+    private Path writeLfsAttributes(Path branchPath, List<String> lfsFiles) throws IOException {
+        Path attributes = branchPath.resolve(".gitattributes");
+        StringBuilder content = new StringBuilder();
+        if (Files.isRegularFile(attributes)) {
+            content.append(Files.readString(attributes));
+            if (content.length() > 0 && content.charAt(content.length() - 1) != '\n') {
+                content.append('\n');
+            }
+        }
+        for (String lfsFile : lfsFiles) {
+            content.append('/').append(attributePattern(lfsFile)).append(" filter=lfs diff=lfs merge=lfs -text\n");
+        }
+        // Possibly a link to the project's own .gitattributes
+        fileMaterializer.prepareForWrite(attributes);
+        Files.writeString(attributes, content.toString());
+        return attributes;
+    }
+
+    // Matches exactly one path: glob characters are escaped and spaces, which would end the pattern,
+    // become [[:space:]] as git-lfs track writes them
+    private static String attributePattern(String path) {
+        StringBuilder pattern = new StringBuilder();
+        for (char c : path.toCharArray()) {
+            if (c == ' ') {
+                pattern.append("[[:space:]]");
             } else {
-                System.err.println("Failed to initialize git repository");
+                if (c == '\\' || c == '*' || c == '?' || c == '[') {
+                    pattern.append('\\');
+                }
+                pattern.append(c);
             }
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-            throw new IOException("Git initialization interrupted", e);
         }
+        return pattern.toString();
     }
 
     public Map<String, Object> createGitCommits(String branchesPath, Map<String, BranchInfo> branches) throws IOException {
         Map<String, Object> result = new HashMap<>();
         List<String> createdCommits = new ArrayList<>();
+        GitObjectWriter objectWriter = GitObjectWriter.init(Paths.get(branchesPath, ".git"), "main");
         
         for (Map.Entry<String, BranchInfo> entry : branches.entrySet()) {
             String branchName = entry.getKey();
             BranchInfo branchInfo = entry.getValue();
             
             try {
-                // Create and checkout branch
-                createGitBranch(branchesPath, branchName);
-                
-                // Add files and commit
-                String commitHash = commitBranchFiles(branchesPath, branchName, branchInfo);
-                createdCommits.add(branchName + ":" + commitHash);
+                commitBranch(objectWriter, branchInfo, null, new HashMap<>());
+                createdCommits.add(branchName + ":" + branchInfo.getCommitId().substring(0, 8));
                 
             } catch (Exception e) {
                 System.err.println("Failed to create commit for branch " + branchName + ": " + e.getMessage());
@@ -319,53 +394,18 @@ public class GitBranchService {
         return result;
     }
 
-    private void createGitBranch(String repoPath, String branchName) throws IOException, InterruptedException {
-        ProcessBuilder pb = new ProcessBuilder("git", "checkout", "-b", branchName);
-        pb.directory(new File(repoPath));
-        
-        Process process = pb.start();
-        int exitCode = process.waitFor();
-        if (exitCode != 0) {
-            throw new IOException("Failed to create git branch: " + branchName);
-        }
-    }
-
-    private String commitBranchFiles(String repoPath, String branchName, BranchInfo branchInfo) throws IOException, InterruptedException {
-        // Add all files
-        ProcessBuilder addPb = new ProcessBuilder("git", "add", ".");
-        addPb.directory(new File(repoPath));
-        Process addProcess = addPb.start();
-        addProcess.waitFor();
-        
-        // Commit files
-        String commitMessage = "Add " + branchName + " components";
-        ProcessBuilder commitPb = new ProcessBuilder("git", "commit", "-m", commitMessage);
-        commitPb.directory(new File(repoPath));
-        Process commitProcess = commitPb.start();
-        int exitCode = commitProcess.waitFor();
-        
-        if (exitCode == 0) {
-            // Get commit hash
-            ProcessBuilder hashPb = new ProcessBuilder("git", "rev-parse", "HEAD");
-            hashPb.directory(new File(repoPath));
-            Process hashProcess = hashPb.start();
-            
-            try (Scanner scanner = new Scanner(hashProcess.getInputStream())) {
-                if (scanner.hasNextLine()) {
-                    return scanner.nextLine().substring(0, 8); // Short hash
-                }
-            }
-        }
-        
-        return "unknown";
-    }
-
     // Helper class to track branch information
     public static class BranchInfo {
         private String name;
         private String path;
         private List<String> files;
         private int fileCount;
+        private String commitId;
+        private int ignoredFiles;
+        private long ignoredBytes;
+        private final List<String> lfsFiles = new ArrayList<>();
+        // Paths linked unchanged from the extracted upload
+        private final Set<String> sourceFiles = new HashSet<>();
 
         public BranchInfo(String name, String path) {
             this.name = name;
@@ -377,6 +417,29 @@ public class GitBranchService {
         public void addFile(String filePath) {
             files.add(filePath);
             fileCount++;
+            // Generated files replace whatever was taken from the upload under that path
+            sourceFiles.remove(filePath);
+        }
+
+        public void addSourceFile(String filePath) {
+            files.add(filePath);
+            fileCount++;
+            sourceFiles.add(filePath.replace(File.separatorChar, '/'));
+        }
+
+        public boolean isFromSource(String filePath) {
+            return sourceFiles.contains(filePath);
+        }
+
+        public void setCommitId(String commitId) { this.commitId = commitId; }
+
+        public void addLfsFile(String filePath) {
+            lfsFiles.add(filePath);
+        }
+
+        public void setIgnored(int ignoredFiles, long ignoredBytes) {
+            this.ignoredFiles = ignoredFiles;
+            this.ignoredBytes = ignoredBytes;
         }
 
         // Getters
@@ -384,5 +447,9 @@ public class GitBranchService {
         public String getPath() { return path; }
         public List<String> getFiles() { return files; }
         public int getFileCount() { return fileCount; }
+        public String getCommitId() { return commitId; }
+        public int getIgnoredFiles() { return ignoredFiles; }
+        public long getIgnoredBytes() { return ignoredBytes; }
+        public List<String> getLfsFiles() { return lfsFiles; }
     }
 }
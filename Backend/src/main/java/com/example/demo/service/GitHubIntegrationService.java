@@ -1,41 +1,159 @@
 package com.example.demo.service;
 
-import java.io.File;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Base64;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.Scanner;
-
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.FileSystemResource;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.StreamingHttpOutputMessage;
+import org.springframework.http.client.ClientHttpRequest;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.ClientHttpResponse;
 import org.springframework.stereotype.Service;
+import org.springframework.util.StreamUtils;
+import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.RestTemplate;
 
+import com.example.demo.config.GitHubRateLimiter;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
 @Service
 public class GitHubIntegrationService {
 
     @Value("${github.personal-access-token}")
     private String githubToken;
 
-    private final RestTemplate restTemplate = new RestTemplate();
+    // Points at a fake GitHub server in tests
+    @Value("${github.api.base-url:https://api.github.com}")
+    private String githubApiBase;
+
+    // Git LFS lives on the web host, not the API host; a local stand-in server can be used in tests
+    @Value("${github.lfs.base-url:https://github.com}")
+    private String githubLfsBase;
+
+    @Value("${github.graphql.url:${github.api.base-url:https://api.github.com}/graphql}")
+    private String githubGraphqlUrl;
+
+    // "graphql" checks names and creates the repository in two round trips; "rest" keeps the per-call REST path
+    @Value("${app.github.setup-api:graphql}")
+    private String setupApi;
+
+    @Autowired
+    private ProcessRunner processRunner;
+
+    @Autowired
+    private MergeabilityWatcher mergeabilityWatcher;
+
+    @Autowired
+    private GitHubRateLimiter gitHubRateLimiter;
+
+    // A push of a large project can legitimately take a while; a stalled one must not hold a pipeline thread forever
+    @Value("${app.process.push-timeout-seconds:1800}")
+    private long pushTimeoutSeconds;
+
+    // Concurrent blob uploads for the Git Data API push backend, shared by all jobs
+    @Value("${app.github.data-api.upload-threads:8}")
+    private int uploadThreads;
+
+    // Bigger blobs are streamed from the object file instead of being built up in memory
+    @Value("${app.github.data-api.stream-threshold-bytes:1048576}")
+    private long streamThresholdBytes;
+
+    // Memory all buffered blob uploads may hold at once, shared by all jobs
+    @Value("${app.github.data-api.max-buffered-bytes:67108864}")
+    private long maxBufferedBytes;
+
+    // A buffered upload holds the content, its base64 string, the JSON body and RestTemplate's copy of that body
+    private static final int BUFFERED_BLOB_COPIES = 5;
+    private static final byte[] BLOB_JSON_PREFIX = "{\"encoding\":\"base64\",\"content\":\"".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] BLOB_JSON_SUFFIX = "\"}".getBytes(StandardCharsets.US_ASCII);
+
+    @Autowired
+    private RestTemplate restTemplate;
+
+    // For LFS object uploads and streamed blobs, which may run longer than any read timeout
+    @Autowired
+    @Qualifier("transferRestTemplate")
+    private RestTemplate transferRestTemplate;
     private final ObjectMapper objectMapper = new ObjectMapper();
 
-    private static final String GITHUB_API_BASE = "https://api.github.com";
+    private ThreadPoolExecutor uploadExecutor;
+    private Semaphore bufferedBlobBytes;
+    private int bufferedBlobCapacity;
+
+    public enum PushBackend {
+        // git push from the local repository
+        CLI,
+        // REST Git Data endpoints; needs no git binary
+        GIT_DATA_API;
+
+        public static PushBackend fromString(String value) {
+            String normalized = value.trim().toUpperCase().replace('-', '_');
+            return "API".equals(normalized) ? GIT_DATA_API : valueOf(normalized);
+        }
+    }
+
+    @PostConstruct
+    public void startUploadExecutor() {
+        int threads = Math.max(1, uploadThreads);
+        AtomicInteger threadNumber = new AtomicInteger();
+        uploadExecutor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+            new ArrayBlockingQueue<>(threads * 4),
+            runnable -> {
+                Thread thread = new Thread(runnable, "github-upload-" + threadNumber.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            },
+            // A full queue makes the submitting job upload blobs itself instead of queueing more
+            new ThreadPoolExecutor.CallerRunsPolicy());
+        bufferedBlobCapacity = (int) Math.max(1, Math.min(maxBufferedBytes, Integer.MAX_VALUE));
+        bufferedBlobBytes = new Semaphore(bufferedBlobCapacity);
+    }
+
+    @PreDestroy
+    public void stopUploadExecutor() {
+        uploadExecutor.shutdownNow();
+    }
 
     public Map<String, Object> createGitHubRepository(String repoName, String description, boolean isPrivate, String userLogin) {
         String finalRepoName = repoName;
@@ -59,7 +177,7 @@ public class GitHubIntegrationService {
                 HttpEntity<Map<String, Object>> request = new HttpEntity<>(repoData, headers);
 
                 ResponseEntity<String> response = restTemplate.postForEntity(
-                    GITHUB_API_BASE + "/user/repos",
+                    githubApiBase + "/user/repos",
                     request,
                     String.class
                 );
@@ -107,7 +225,131 @@ public class GitHubIntegrationService {
         return createErrorResult("Failed to create repository after multiple attempts - all names taken");
     }
 
+    /**
+     * Creates the repository under the first free name and applies its topics. Over GraphQL one query
+     * checks every candidate name at once and one mutation creates the repository; the topics follow
+     * in a separate mutation that runs alongside the push instead of ahead of it. When GraphQL fails
+     * before the repository exists, the REST calls are used instead.
+     */
+    public Map<String, Object> setUpGitHubRepository(String repoName, String description, boolean isPrivate,
+                                                     String userLogin, List<String> topics) {
+        if ("graphql".equalsIgnoreCase(setupApi)) {
+            Map<String, Object> result = null;
+            try {
+                result = createRepositoryViaGraphQL(repoName, description, isPrivate);
+            } catch (Exception e) {
+                System.out.println("⚠️ GRAPHQL REPO SETUP FAILED, falling back to REST: " + e.getMessage());
+            }
+            if (result != null) {
+                if (topics != null && !topics.isEmpty()) {
+                    String repositoryId = (String) result.get("repositoryId");
+                    CompletableFuture.runAsync(() -> applyRepositoryMetadata(repositoryId, topics), uploadExecutor);
+                }
+                return result;
+            }
+        }
+
+        Map<String, Object> result = createGitHubRepository(repoName, description, isPrivate, userLogin);
+        if ((Boolean) result.get("success") && topics != null && !topics.isEmpty()) {
+            Map<String, Object> topicsResult = addRepositoryTopics((String) result.get("fullName"), topics);
+            if (!(Boolean) topicsResult.get("success")) {
+                // Topics are cosmetic; the repository is usable without them
+                System.out.println("⚠️ " + topicsResult.get("error"));
+            }
+        }
+        return result;
+    }
+
+    // Same keys as createGitHubRepository, plus the GraphQL node id of the repository
+    private Map<String, Object> createRepositoryViaGraphQL(String repoName, String description, boolean isPrivate) throws IOException {
+        long start = System.currentTimeMillis();
+
+        // The REST path's fallback names, checked together instead of one failed create at a time
+        List<String> candidates = new ArrayList<>();
+        candidates.add(repoName);
+        for (int suffix = 2; suffix <= 4; suffix++) {
+            candidates.add(repoName + "-" + suffix);
+        }
+        candidates.add(repoName + "-" + System.currentTimeMillis() / 1000);
+
+        StringBuilder query = new StringBuilder("query(");
+        StringBuilder fields = new StringBuilder();
+        Map<String, Object> variables = new HashMap<>();
+        for (int i = 0; i < candidates.size(); i++) {
+            query.append(i == 0 ? "" : ", ").append("$c").append(i).append(": String!");
+            fields.append(" c").append(i).append(": repository(name: $c").append(i).append(") { id }");
+            variables.put("c" + i, candidates.get(i));
+        }
+        query.append(") { viewer { login").append(fields).append(" } }");
+
+        // A name that is free comes back as null with a NOT_FOUND error
+        JsonNode viewer = graphql(query.toString(), variables, true).path("viewer");
+        String finalRepoName = null;
+        for (int i = 0; i < candidates.size() && finalRepoName == null; i++) {
+            if (viewer.path("c" + i).isNull() || viewer.path("c" + i).isMissingNode()) {
+                finalRepoName = candidates.get(i);
+            }
+        }
+        if (finalRepoName == null) {
+            throw new IOException("all candidate names are taken");
+        }
+        if (!finalRepoName.equals(repoName)) {
+            System.out.println("🔄 REPO NAME CONFLICT - Using free name: " + finalRepoName);
+        }
+
+        Map<String, Object> input = new HashMap<>();
+        input.put("name", finalRepoName);
+        input.put("description", description);
+        input.put("visibility", isPrivate ? "PRIVATE" : "PUBLIC");
+        input.put("hasIssuesEnabled", true);
+        input.put("hasWikiEnabled", true);
+        JsonNode repository = graphql(
+            "mutation($input: CreateRepositoryInput!) { createRepository(input: $input) {"
+                + " repository { id name nameWithOwner url sshUrl } } }",
+            Map.of("input", input), false).path("createRepository").path("repository");
+        if (!repository.hasNonNull("id")) {
+            throw new IOException("createRepository returned no repository");
+        }
+
+        Map<String, Object> result = new HashMap<>();
+        result.put("success", true);
+        result.put("repoUrl", repository.get("url").asText());
+        result.put("cloneUrl", repository.get("url").asText() + ".git");
+        result.put("sshUrl", repository.get("sshUrl").asText());
+        result.put("repoName", repository.get("name").asText());
+        result.put("fullName", repository.get("nameWithOwner").asText());
+        result.put("repositoryId", repository.get("id").asText());
+
+        System.out.println("✅ GITHUB REPO CREATED (GraphQL, " + (System.currentTimeMillis() - start) + "ms): "
+            + repository.get("url").asText());
+        return result;
+    }
+
+    // One mutation for all metadata; more updates can be added to it as further aliased fields
+    private void applyRepositoryMetadata(String repositoryId, List<String> topics) {
+        try {
+            Map<String, Object> topicsInput = new HashMap<>();
+            topicsInput.put("repositoryId", repositoryId);
+            topicsInput.put("topicNames", topics);
+            JsonNode data = graphql(
+                "mutation($topics: UpdateTopicsInput!) { topics: updateTopics(input: $topics) { invalidTopicNames } }",
+                Map.of("topics", topicsInput), false);
+            JsonNode invalid = data.path("topics").path("invalidTopicNames");
+            if (invalid.isArray() && invalid.size() > 0) {
+                System.out.println("⚠️ GitHub rejected topics: " + invalid);
+            }
+        } catch (Exception e) {
+            System.out.println("⚠️ Error adding repository topics: " + e.getMessage());
+        }
+    }
+
     public Map<String, Object> pushProjectToGitHub(String branchesPath, String repoUrl, Map<String, Object> branchResults) {
+        return pushProjectToGitHub(branchesPath, repoUrl, branchResults, null);
+    }
+
+    // progress, when given, is fed the output of git push --progress
+    public Map<String, Object> pushProjectToGitHub(String branchesPath, String repoUrl, Map<String, Object> branchResults,
+                                                   PushProgressTracker progress) {
         try {
             Map<String, Object> result = new HashMap<>();
             List<String> pushedBranches = new ArrayList<>();
@@ -122,20 +364,23 @@ public class GitHubIntegrationService {
             @SuppressWarnings("unchecked")
             Map<String, Object> createdBranches = (Map<String, Object>) branchResults.get("createdBranches");
             
+            List<String> failedBranches = new ArrayList<>();
+            ProcessRunner.ProcessResult pushResult = null;
             if (createdBranches != null) {
-                for (String branchName : createdBranches.keySet()) {
-                    try {
-                        // Create and push branch without overwriting main directory
-                        String commitHash = createAndPushBranchFromDirectory(branchesPath, branchName, repoUrl);
-                        pushedBranches.add(branchName + ":" + commitHash);
-                        
-                    } catch (Exception e) {
-                        System.err.println("Failed to push branch " + branchName + ": " + e.getMessage());
-                    }
-                }
+                // All branches live in one repository, so a single push sends one deduplicated pack
+                pushResult = pushAllBranchRefs(branchesPath, createdBranches.keySet(), pushedBranches, failedBranches, progress);
+            }
+
+            // A bad token or a rejected ref makes git exit non-zero; the job must not be reported as completed
+            if (pushResult != null && !pushResult.isSuccess()) {
+                return createPushErrorResult("git push failed: " + pushResult.describeFailure(), pushedBranches, failedBranches);
+            }
+            if (pushedBranches.isEmpty()) {
+                return createPushErrorResult("No branches were pushed", pushedBranches, failedBranches);
             }
             
             result.put("success", true);
+            result.put("failedBranches", failedBranches);
             result.put("pushedBranches", pushedBranches);
             result.put("totalBranches", pushedBranches.size());
             result.put("repositoryUrl", repoUrl);
@@ -153,53 +398,32 @@ public class GitHubIntegrationService {
         }
     }
 
-    private void initializeGitRepository(String repoPath) throws IOException, InterruptedException {
+    private void initializeGitRepository(String repoPath) throws IOException {
         // Check if already initialized
         Path gitDir = Paths.get(repoPath, ".git");
         if (Files.exists(gitDir)) {
             return; // Already initialized
         }
 
-        ProcessBuilder pb = new ProcessBuilder("git", "init");
-        pb.directory(new File(repoPath));
-        
-        Process process = pb.start();
-        int exitCode = process.waitFor();
-        if (exitCode != 0) {
-            throw new IOException("Failed to initialize git repository");
+        // The template already holds the commit identity, so no git config calls follow
+        ProcessRunner.ProcessResult result = processRunner.run(
+            List.of("git", "init", "--template=" + processRunner.getGitTemplateDir()), Paths.get(repoPath));
+        if (!result.isSuccess()) {
+            throw new IOException("Failed to initialize git repository (" + result.describeFailure() + ")");
         }
-        
-        // Configure git user (using token for authentication)
-        configureGitUser(repoPath);
-    }
-
-    private void configureGitUser(String repoPath) throws IOException, InterruptedException {
-        // Set git user name and email
-        ProcessBuilder namePb = new ProcessBuilder("git", "config", "user.name", "GitGenei AI");
-        namePb.directory(new File(repoPath));
-        namePb.start().waitFor();
-        
-        ProcessBuilder emailPb = new ProcessBuilder("git", "config", "user.email", "gitgenei@ai.com");
-        emailPb.directory(new File(repoPath));
-        emailPb.start().waitFor();
     }
 
-    private void addGitRemote(String repoPath, String repoUrl) throws IOException, InterruptedException {
+    private void addGitRemote(String repoPath, String repoUrl) throws IOException {
         // Remove existing origin if it exists
-        ProcessBuilder removePb = new ProcessBuilder("git", "remote", "remove", "origin");
-        removePb.directory(new File(repoPath));
-        Process removeProcess = removePb.start();
-        removeProcess.waitFor(); // Don't check exit code as it might not exist
+        // Don't check exit code as it might not exist
+        processRunner.run(List.of("git", "remote", "remove", "origin"), Paths.get(repoPath));
         
         // Add new origin with token authentication
         String authenticatedUrl = repoUrl.replace("https://", "https://" + githubToken + "@");
-        ProcessBuilder addPb = new ProcessBuilder("git", "remote", "add", "origin", authenticatedUrl);
-        addPb.directory(new File(repoPath));
-        
-        Process addProcess = addPb.start();
-        int exitCode = addProcess.waitFor();
-        if (exitCode != 0) {
-            throw new IOException("Failed to add git remote");
+        ProcessRunner.ProcessResult result = processRunner.run(
+            List.of("git", "remote", "add", "origin", authenticatedUrl), Paths.get(repoPath));
+        if (!result.isSuccess()) {
+            throw new IOException("Failed to add git remote (" + result.describeFailure() + ")");
         }
     }
 
@@ -273,144 +497,536 @@ public class GitHubIntegrationService {
             });
     }
 
-    private String createAndPushBranchFromDirectory(String branchesPath, String branchName, String repoUrl) throws IOException, InterruptedException {
-        Path branchPath = Paths.get(branchesPath, branchName);
-        Path mainRepoPath = Paths.get(branchesPath);
+    // Null when no branch had a commit, so nothing was pushed
+    private ProcessRunner.ProcessResult pushAllBranchRefs(String branchesPath, Collection<String> branchNames,
+                                                          List<String> pushedBranches, List<String> failedBranches,
+                                                          PushProgressTracker progress) throws IOException {
+        Map<String, String> commitHashes = new HashMap<>();
+        // --progress keeps the counting/compressing/writing lines coming on stderr even without a terminal
+        List<String> command = new ArrayList<>(List.of("git", "push", "--force", "--porcelain", "--progress", "origin"));
+        for (String branchName : branchNames) {
+            String commitId = readBranchCommit(branchesPath, branchName);
+            if (commitId == null) {
+                System.out.println("❌ Branch has no commit: " + branchName);
+                failedBranches.add(branchName);
+                continue;
+            }
+            commitHashes.put("refs/heads/" + branchName, commitId.substring(0, 8)); // Short hash
+            command.add("refs/heads/" + branchName + ":refs/heads/" + branchName);
+        }
+        if (commitHashes.isEmpty()) {
+            return null;
+        }
 
-        if (!Files.exists(branchPath)) {
-            System.out.println("❌ Branch path does not exist: " + branchPath);
-            return "unknown";
+        System.out.println("📁 Pushing " + commitHashes.size() + " branches in one push");
+        // Porcelain lines on stdout look like "<flag>\t<src>:<dst>\t<summary>"; '!' marks a rejected ref
+        Set<String> pushedRefs = ConcurrentHashMap.newKeySet();
+        ProcessRunner.ProcessResult pushResult = processRunner.run(command, Paths.get(branchesPath),
+            Duration.ofSeconds(pushTimeoutSeconds), (channel, line) -> {
+                String[] fields = line.split("\t");
+                if (channel == ProcessRunner.Channel.STDOUT && fields.length >= 2 && fields[1].contains(":") && !fields[0].startsWith("!")) {
+                    pushedRefs.add(fields[1].substring(fields[1].indexOf(':') + 1));
+                }
+                if (progress != null) {
+                    progress.onLine(channel, line);
+                }
+            });
+        System.out.println("⏱️ git push finished in " + pushResult.getDurationMillis() + "ms");
+
+        for (Map.Entry<String, String> entry : commitHashes.entrySet()) {
+            String branchName = entry.getKey().substring("refs/heads/".length());
+            if (pushedRefs.contains(entry.getKey())) {
+                System.out.println("✅ Successfully pushed branch: " + branchName);
+                pushedBranches.add(branchName + ":" + entry.getValue());
+            } else {
+                System.err.println("❌ Failed to push branch: " + branchName + " (" + pushResult.describeFailure() + ")");
+                failedBranches.add(branchName);
+            }
         }
+        return pushResult;
+    }
 
-        System.out.println("📁 Processing branch: " + branchName);
+    private String readBranchCommit(String branchesPath, String branchName) throws IOException {
+        Path ref = Paths.get(branchesPath, ".git", "refs", "heads", branchName);
+        return Files.exists(ref) ? Files.readString(ref).trim() : null;
+    }
 
-        // Create a temporary working directory for this branch
-        Path tempWorkDir = Files.createTempDirectory("gitgenei_" + branchName);
-        
+    /**
+     * Alternative to {@link #pushProjectToGitHub} that needs no git binary. The commits built
+     * locally by GitBranchService are recreated through the REST Git Data endpoints: blobs are
+     * uploaded concurrently, then trees bottom-up, then commits and finally the branch refs.
+     * Blobs and trees the repository already has are not uploaded again.
+     */
+    public Map<String, Object> pushProjectViaGitDataApi(String repoFullName, String repoUrl, String branchesPath,
+                                                       Map<String, Object> branchResults) {
+        return pushProjectViaGitDataApi(repoFullName, repoUrl, branchesPath, branchResults, null);
+    }
+
+    public Map<String, Object> pushProjectViaGitDataApi(String repoFullName, String repoUrl, String branchesPath,
+                                                       Map<String, Object> branchResults, PushProgressTracker progress) {
         try {
-            // Copy branch files to temporary directory
-            copyDirectoryRecursively(branchPath, tempWorkDir);
-            
-            // Initialize git in temporary directory
-            ProcessBuilder initPb = new ProcessBuilder("git", "init");
-            initPb.directory(tempWorkDir.toFile());
-            initPb.start().waitFor();
-            
-            // Configure git user
-            ProcessBuilder namePb = new ProcessBuilder("git", "config", "user.name", "GitGenei AI");
-            namePb.directory(tempWorkDir.toFile());
-            namePb.start().waitFor();
-            
-            ProcessBuilder emailPb = new ProcessBuilder("git", "config", "user.email", "gitgenei@ai.com");
-            emailPb.directory(tempWorkDir.toFile());
-            emailPb.start().waitFor();
-            
-            // Add remote origin
-            ProcessBuilder remotePb = new ProcessBuilder("git", "remote", "add", "origin", repoUrl);
-            remotePb.directory(tempWorkDir.toFile());
-            remotePb.start().waitFor();
-            
-            // Add all files
-            ProcessBuilder addPb = new ProcessBuilder("git", "add", ".");
-            addPb.directory(tempWorkDir.toFile());
-            addPb.start().waitFor();
-            
-            // Commit files
-            String commitMessage = "Add " + branchName + " components - Generated by GitGenei AI";
-            ProcessBuilder commitPb = new ProcessBuilder("git", "commit", "-m", commitMessage);
-            commitPb.directory(tempWorkDir.toFile());
-            Process commitProcess = commitPb.start();
-            int commitExitCode = commitProcess.waitFor();
-            
-            String commitHash = "unknown";
-            if (commitExitCode == 0) {
-                // Get commit hash
-                ProcessBuilder hashPb = new ProcessBuilder("git", "rev-parse", "HEAD");
-                hashPb.directory(tempWorkDir.toFile());
-                Process hashProcess = hashPb.start();
-                
-                try (Scanner scanner = new Scanner(hashProcess.getInputStream())) {
-                    if (scanner.hasNextLine()) {
-                        commitHash = scanner.nextLine().substring(0, 8); // Short hash
+            String repoApi = githubApiBase + "/repos/" + repoFullName;
+            GitObjectReader reader = new GitObjectReader(Paths.get(branchesPath, ".git"));
+            List<String> pushedBranches = new ArrayList<>();
+            List<String> failedBranches = new ArrayList<>();
+
+            @SuppressWarnings("unchecked")
+            Map<String, Object> createdBranches = (Map<String, Object>) branchResults.get("createdBranches");
+            Map<String, byte[]> branchCommits = new LinkedHashMap<>();
+            if (createdBranches != null) {
+                for (String branchName : createdBranches.keySet()) {
+                    String commitId = readBranchCommit(branchesPath, branchName);
+                    if (commitId == null) {
+                        System.out.println("❌ Branch has no commit: " + branchName);
+                        failedBranches.add(branchName);
+                    } else {
+                        branchCommits.put(branchName, GitBlobHasher.fromHex(commitId));
                     }
                 }
-                
-                // Push to GitHub with force to ensure it gets pushed
-                ProcessBuilder pushPb = new ProcessBuilder("git", "push", "-u", "origin", branchName, "--force");
-                pushPb.directory(tempWorkDir.toFile());
-                Process pushProcess = pushPb.start();
-                int pushExitCode = pushProcess.waitFor();
+            }
+
+            // Git Data endpoints answer 409 on an empty repository; a README commit initialises it
+            Set<String> remoteObjects = fetchRemoteObjectIds(repoApi);
+            if (remoteObjects == null) {
+                Map<String, Object> readme = createRepositoryReadme(repoFullName, "# " + repoFullName + "\n");
+                if (!(Boolean) readme.get("success")) {
+                    return createErrorResult("Could not initialise empty repository: " + readme.get("error"));
+                }
+                remoteObjects = new HashSet<>();
+            }
+
+            // Every tree is listed after its subtrees, so creating them in order satisfies dependencies
+            Set<String> blobIds = new LinkedHashSet<>();
+            Map<String, byte[]> trees = new LinkedHashMap<>();
+            for (byte[] commitId : branchCommits.values()) {
+                collectTree(reader, reader.readCommit(commitId).getTreeId(), blobIds, trees);
+            }
 
-                if (pushExitCode == 0) {
+            List<String> missingBlobs = new ArrayList<>();
+            for (String blobId : blobIds) {
+                if (!remoteObjects.contains(blobId)) {
+                    missingBlobs.add(blobId);
+                }
+            }
+            System.out.println("⬆️ GIT DATA API: uploading " + missingBlobs.size() + " of " + blobIds.size() + " blobs");
+            uploadBlobs(repoApi, reader, missingBlobs, progress);
+
+            Map<String, String> remoteTreeIds = new HashMap<>();
+            for (Map.Entry<String, byte[]> tree : trees.entrySet()) {
+                String treeId = tree.getKey();
+                remoteTreeIds.put(treeId, remoteObjects.contains(treeId) ? treeId : createRemoteTree(repoApi, reader, tree.getValue(), remoteTreeIds));
+                if (progress != null) {
+                    progress.update("Creating trees", remoteTreeIds.size(), trees.size(), -1);
+                }
+            }
+
+            for (Map.Entry<String, byte[]> branch : branchCommits.entrySet()) {
+                String branchName = branch.getKey();
+                if (progress != null) {
+                    progress.update("Updating branches", pushedBranches.size() + failedBranches.size(), branchCommits.size(), -1);
+                }
+                try {
+                    GitObjectReader.CommitInfo commit = reader.readCommit(branch.getValue());
+                    String commitSha = createRemoteCommit(repoApi, commit, remoteTreeIds.get(GitBlobHasher.toHex(commit.getTreeId())));
+                    updateRemoteBranch(repoApi, branchName, commitSha);
+                    pushedBranches.add(branchName + ":" + commitSha.substring(0, 8));
                     System.out.println("✅ Successfully pushed branch: " + branchName);
-                } else {
-                    System.err.println("❌ Failed to push branch: " + branchName);
-                    // Don't throw exception, continue with other branches
+                } catch (Exception e) {
+                    System.err.println("❌ Failed to push branch: " + branchName + " - " + e.getMessage());
+                    failedBranches.add(branchName);
                 }
             }
-            
-            return commitHash;
-            
-        } finally {
-            // Clean up temporary directory
-            deleteDirectoryRecursively(tempWorkDir);
+
+            if (pushedBranches.isEmpty()) {
+                return createPushErrorResult("No branch ref was updated", pushedBranches, failedBranches);
+            }
+
+            Map<String, Object> result = new HashMap<>();
+            result.put("success", true);
+            result.put("pushedBranches", pushedBranches);
+            result.put("failedBranches", failedBranches);
+            result.put("totalBranches", pushedBranches.size());
+            result.put("repositoryUrl", repoUrl);
+            result.put("branches", pushedBranches);
+            result.put("uploadedBlobs", missingBlobs.size());
+            result.put("skippedBlobs", blobIds.size() - missingBlobs.size());
+            result.put("message", "🎉 PROCESS COMPLETED SUCCESSFULLY!");
+            result.put("details", String.format("📊 Repository: %s\n🌿 Branches: %d\n📁 Files: Successfully pushed",
+                repoUrl, pushedBranches.size()));
+            return result;
+
+        } catch (Exception e) {
+            return createErrorResult("Error pushing to GitHub via Git Data API: " + e.getMessage());
         }
     }
 
-    private void copyDirectoryRecursively(Path source, Path target) throws IOException {
-        Files.walk(source).forEach(sourcePath -> {
+    // Blob and tree ids reachable from the repository's branches, or null when the repository is empty
+    private Set<String> fetchRemoteObjectIds(String repoApi) {
+        JsonNode refs;
+        try {
+            refs = getJson(repoApi + "/git/matching-refs/heads/");
+        } catch (HttpClientErrorException.Conflict e) {
+            return null;
+        }
+        if (refs == null || !refs.isArray() || refs.isEmpty()) {
+            return null;
+        }
+
+        Set<String> objectIds = new HashSet<>();
+        for (JsonNode ref : refs) {
             try {
-                Path targetPath = target.resolve(source.relativize(sourcePath));
-                if (Files.isDirectory(sourcePath)) {
-                    Files.createDirectories(targetPath);
-                } else {
-                    Files.createDirectories(targetPath.getParent());
-                    Files.copy(sourcePath, targetPath, StandardCopyOption.REPLACE_EXISTING);
+                JsonNode commit = getJson(repoApi + "/git/commits/" + ref.path("object").path("sha").asText());
+                String treeSha = commit.path("tree").path("sha").asText();
+                objectIds.add(treeSha);
+                // A truncated listing only means fewer uploads are skipped
+                for (JsonNode entry : getJson(repoApi + "/git/trees/" + treeSha + "?recursive=1").path("tree")) {
+                    objectIds.add(entry.path("sha").asText());
+                }
+            } catch (Exception e) {
+                System.err.println("Could not list remote objects for " + ref.path("ref").asText() + ": " + e.getMessage());
+            }
+        }
+        return objectIds;
+    }
+
+    private void collectTree(GitObjectReader reader, byte[] treeId, Set<String> blobIds, Map<String, byte[]> trees) throws IOException {
+        String hex = GitBlobHasher.toHex(treeId);
+        if (trees.containsKey(hex)) {
+            return;
+        }
+        for (GitObjectReader.TreeItem item : reader.readTree(treeId)) {
+            if (item.isTree()) {
+                collectTree(reader, item.getId(), blobIds, trees);
+            } else {
+                blobIds.add(GitBlobHasher.toHex(item.getId()));
+            }
+        }
+        trees.put(hex, treeId);
+    }
+
+    /**
+     * Small blobs are sent as ordinary JSON requests, holding at most max-buffered-bytes between them;
+     * a blob over the stream threshold has its base64 body written straight from the object file.
+     */
+    private void uploadBlobs(String repoApi, GitObjectReader reader, List<String> blobIds, PushProgressTracker progress) throws IOException {
+        List<Future<?>> uploads = new ArrayList<>();
+        AtomicInteger uploadedBlobs = new AtomicInteger();
+        AtomicLong uploadedBytes = new AtomicLong();
+        try {
+            for (String blobId : blobIds) {
+                byte[] id = GitBlobHasher.fromHex(blobId);
+                long size = reader.size(id);
+                boolean streamed = size > streamThresholdBytes;
+                // A blob bigger than the whole allowance still goes, on its own
+                int permits = streamed ? 0 : (int) Math.min(size * BUFFERED_BLOB_COPIES, bufferedBlobCapacity);
+                bufferedBlobBytes.acquire(permits);
+                try {
+                    uploads.add(uploadExecutor.submit(() -> {
+                        try {
+                            String sha = streamed
+                                ? postBlobStreaming(repoApi + "/git/blobs", reader, id, size)
+                                : postBlob(repoApi + "/git/blobs", reader.read(id).getContent());
+                            if (!blobId.equals(sha)) {
+                                throw new IOException("Blob " + blobId + " was stored as " + sha);
+                            }
+                        } finally {
+                            bufferedBlobBytes.release(permits);
+                        }
+                        if (progress != null) {
+                            long bytes = uploadedBytes.addAndGet(size);
+                            progress.update("Uploading blobs", uploadedBlobs.incrementAndGet(), blobIds.size(), bytes);
+                        }
+                        return null;
+                    }));
+                } catch (RuntimeException e) {
+                    bufferedBlobBytes.release(permits);
+                    throw e;
                 }
-            } catch (IOException e) {
-                System.err.println("Failed to copy: " + sourcePath + " - " + e.getMessage());
             }
-        });
+        } catch (InterruptedException e) {
+            uploads.forEach(upload -> upload.cancel(true));
+            Thread.currentThread().interrupt();
+            throw new IOException("Blob upload interrupted", e);
+        } catch (IOException | RuntimeException e) {
+            uploads.forEach(upload -> upload.cancel(true));
+            throw e;
+        }
+
+        awaitUploads(uploads, "Blob");
+    }
+
+    private String postBlob(String url, byte[] content) throws IOException {
+        Map<String, Object> blob = new HashMap<>();
+        blob.put("content", Base64.getEncoder().encodeToString(content));
+        blob.put("encoding", "base64");
+        return postJson(url, blob).path("sha").asText();
+    }
+
+    // Through the non-buffering transfer factory, still scheduled by the rate limiter; a retry re-reads the object
+    private String postBlobStreaming(String url, GitObjectReader reader, byte[] id, long size) throws IOException {
+        URI uri = URI.create(url);
+        HttpHeaders headers = createGitHubHeaders();
+        headers.setContentLength(BLOB_JSON_PREFIX.length + 4 * ((size + 2) / 3) + BLOB_JSON_SUFFIX.length);
+        ClientHttpRequestFactory requests = transferRestTemplate.getRequestFactory();
+        ClientHttpRequest described = requests.createRequest(uri, HttpMethod.POST);
+        described.getHeaders().putAll(headers);
+
+        try (ClientHttpResponse response = gitHubRateLimiter.execute(described, () -> {
+            ClientHttpRequest request = requests.createRequest(uri, HttpMethod.POST);
+            request.getHeaders().putAll(headers);
+            if (request instanceof StreamingHttpOutputMessage streaming) {
+                streaming.setBody(out -> writeBlobJson(reader, id, out));
+            } else {
+                writeBlobJson(reader, id, request.getBody());
+            }
+            return request.execute();
+        })) {
+            if (response.getStatusCode().isError()) {
+                String body = new String(response.getBody().readNBytes(512), StandardCharsets.UTF_8);
+                throw new IOException("Blob upload failed with " + response.getStatusCode().value() + ": " + body);
+            }
+            return objectMapper.readTree(response.getBody()).path("sha").asText();
+        }
+    }
+
+    private void writeBlobJson(GitObjectReader reader, byte[] id, OutputStream out) throws IOException {
+        try (GitObjectReader.ObjectStream blob = reader.open(id)) {
+            out.write(BLOB_JSON_PREFIX);
+            // Closing the encoder writes the padding; the request stream itself stays open
+            try (OutputStream base64 = Base64.getEncoder().wrap(StreamUtils.nonClosing(out))) {
+                blob.getContent().transferTo(base64);
+            }
+            out.write(BLOB_JSON_SUFFIX);
+        }
+    }
+
+    private void awaitUploads(List<Future<?>> uploads, String kind) throws IOException {
+        try {
+            for (Future<?> upload : uploads) {
+                upload.get();
+            }
+        } catch (ExecutionException e) {
+            uploads.forEach(upload -> upload.cancel(true));
+            throw new IOException(kind + " upload failed: " + e.getCause().getMessage(), e.getCause());
+        } catch (InterruptedException e) {
+            uploads.forEach(upload -> upload.cancel(true));
+            Thread.currentThread().interrupt();
+            throw new IOException(kind + " upload interrupted", e);
+        }
+    }
+
+    // Objects per batch request; the LFS API rejects larger batches
+    private static final int LFS_BATCH_SIZE = 100;
+
+    /**
+     * Uploads the objects behind the LFS pointers committed by GitBranchService through the Git LFS
+     * batch API. Must run before the branches are pushed. Objects the server already has come back
+     * without an upload action and are skipped; the rest are sent in parallel on the upload pool.
+     */
+    public Map<String, Object> uploadLfsObjects(String repoFullName, Collection<LfsObject> lfsObjects) {
+        return uploadLfsObjects(repoFullName, lfsObjects, null);
     }
 
-    private String createAndPushBranch(String repoPath, String branchName) throws IOException, InterruptedException {
+    public Map<String, Object> uploadLfsObjects(String repoFullName, Collection<LfsObject> lfsObjects, PushProgressTracker progress) {
+        try {
+            String batchUrl = githubLfsBase + "/" + repoFullName + ".git/info/lfs/objects/batch";
+            Map<String, LfsObject> byOid = new HashMap<>();
+            lfsObjects.forEach(lfsObject -> byOid.put(lfsObject.getOid(), lfsObject));
+            List<LfsObject> pending = new ArrayList<>(byOid.values());
+
+            int uploaded = 0;
+            List<Future<?>> uploads = new ArrayList<>();
+            AtomicInteger uploadedObjects = new AtomicInteger();
+            AtomicLong uploadedBytes = new AtomicLong();
+            for (int start = 0; start < pending.size(); start += LFS_BATCH_SIZE) {
+                List<Map<String, Object>> objects = new ArrayList<>();
+                for (LfsObject lfsObject : pending.subList(start, Math.min(start + LFS_BATCH_SIZE, pending.size()))) {
+                    objects.add(Map.of("oid", lfsObject.getOid(), "size", lfsObject.getSize()));
+                }
+                Map<String, Object> batch = new HashMap<>();
+                batch.put("operation", "upload");
+                batch.put("transfers", List.of("basic"));
+                batch.put("objects", objects);
+
+                HttpEntity<Object> request = new HttpEntity<>(batch, createLfsHeaders());
+                JsonNode response = objectMapper.readTree(restTemplate.exchange(batchUrl, HttpMethod.POST, request, String.class).getBody());
+                for (JsonNode object : response.path("objects")) {
+                    if (object.has("error")) {
+                        throw new IOException("LFS object " + object.path("oid").asText() + " rejected: " +
+                            object.path("error").path("message").asText());
+                    }
+                    JsonNode upload = object.path("actions").path("upload");
+                    if (upload.isMissingNode()) {
+                        continue;
+                    }
+                    LfsObject lfsObject = byOid.get(object.path("oid").asText());
+                    JsonNode verify = object.path("actions").path("verify");
+                    uploads.add(uploadExecutor.submit(() -> {
+                        uploadLfsObject(lfsObject, upload, verify);
+                        if (progress != null) {
+                            long bytes = uploadedBytes.addAndGet(lfsObject.getSize());
+                            // The total is only known once every batch has been answered; the ETA firms up then
+                            progress.update("Uploading LFS objects", uploadedObjects.incrementAndGet(), pending.size(), bytes);
+                        }
+                        return null;
+                    }));
+                    uploaded++;
+                }
+            }
+            awaitUploads(uploads, "LFS object");
+            System.out.println("📦 GIT LFS: uploaded " + uploaded + " of " + pending.size() + " objects");
+
+            Map<String, Object> result = new HashMap<>();
+            result.put("success", true);
+            result.put("uploadedObjects", uploaded);
+            result.put("skippedObjects", pending.size() - uploaded);
+            return result;
+
+        } catch (Exception e) {
+            return createErrorResult("Error uploading Git LFS objects: " + e.getMessage());
+        }
+    }
+
+    private void uploadLfsObject(LfsObject lfsObject, JsonNode upload, JsonNode verify) throws IOException {
+        // Actions carry their own auth headers; the file is streamed, never loaded whole
+        HttpHeaders headers = actionHeaders(upload);
+        headers.setContentType(MediaType.APPLICATION_OCTET_STREAM);
+        headers.setContentLength(lfsObject.getSize());
+        transferRestTemplate.exchange(upload.path("href").asText(), HttpMethod.PUT,
+            new HttpEntity<>(new FileSystemResource(lfsObject.getFile()), headers), String.class);
+
+        if (!verify.isMissingNode()) {
+            HttpHeaders verifyHeaders = actionHeaders(verify);
+            verifyHeaders.setContentType(MediaType.parseMediaType("application/vnd.git-lfs+json"));
+            restTemplate.exchange(verify.path("href").asText(), HttpMethod.POST,
+                new HttpEntity<>(Map.of("oid", lfsObject.getOid(), "size", lfsObject.getSize()), verifyHeaders), String.class);
+        }
+    }
+
+    private HttpHeaders actionHeaders(JsonNode action) {
+        HttpHeaders headers = new HttpHeaders();
+        action.path("header").properties().forEach(header -> headers.set(header.getKey(), header.getValue().asText()));
+        return headers;
+    }
+
+    private HttpHeaders createLfsHeaders() {
+        HttpHeaders headers = new HttpHeaders();
+        MediaType lfsJson = MediaType.parseMediaType("application/vnd.git-lfs+json");
+        headers.setContentType(lfsJson);
+        headers.setAccept(List.of(lfsJson));
+        // The LFS endpoint takes the token as basic auth, like git over HTTPS
+        headers.setBasicAuth("x-access-token", githubToken);
+        headers.set("User-Agent", "GitGenei-AI");
+        return headers;
+    }
+
+    private String createRemoteTree(String repoApi, GitObjectReader reader, byte[] treeId, Map<String, String> remoteTreeIds) throws IOException {
+        List<Map<String, Object>> entries = new ArrayList<>();
+        for (GitObjectReader.TreeItem item : reader.readTree(treeId)) {
+            String itemId = GitBlobHasher.toHex(item.getId());
+            Map<String, Object> entry = new HashMap<>();
+            entry.put("path", item.getName());
+            entry.put("mode", item.isTree() ? "040000" : item.getMode());
+            entry.put("type", item.isTree() ? "tree" : "blob");
+            entry.put("sha", item.isTree() ? remoteTreeIds.get(itemId) : itemId);
+            entries.add(entry);
+        }
+        return postJson(repoApi + "/git/trees", Map.of("tree", entries)).path("sha").asText();
+    }
+
+    private String createRemoteCommit(String repoApi, GitObjectReader.CommitInfo commit, String treeSha) throws IOException {
+        // author is "Name <email> <epoch seconds> <zone>"
+        String author = commit.getAuthor();
+        int emailStart = author.indexOf('<');
+        int emailEnd = author.indexOf('>');
+        long epochSeconds = Long.parseLong(author.substring(emailEnd + 2).split(" ")[0]);
+
+        Map<String, Object> identity = new HashMap<>();
+        identity.put("name", author.substring(0, emailStart).trim());
+        identity.put("email", author.substring(emailStart + 1, emailEnd));
+        identity.put("date", Instant.ofEpochSecond(epochSeconds).toString());
+
+        Map<String, Object> commitData = new HashMap<>();
+        commitData.put("message", commit.getMessage());
+        commitData.put("tree", treeSha);
+        commitData.put("parents", new ArrayList<>());
+        commitData.put("author", identity);
+        commitData.put("committer", identity);
+        return postJson(repoApi + "/git/commits", commitData).path("sha").asText();
+    }
+
+    private void updateRemoteBranch(String repoApi, String branchName, String commitSha) throws IOException {
+        Map<String, Object> update = new HashMap<>();
+        update.put("sha", commitSha);
+        update.put("force", true);
+        try {
+            exchangeJson(repoApi + "/git/refs/heads/" + branchName, HttpMethod.PATCH, update);
+        } catch (HttpClientErrorException.UnprocessableEntity | HttpClientErrorException.NotFound e) {
+            // The branch does not exist yet
+            Map<String, Object> ref = new HashMap<>();
+            ref.put("ref", "refs/heads/" + branchName);
+            ref.put("sha", commitSha);
+            postJson(repoApi + "/git/refs", ref);
+        }
+    }
+
+    private JsonNode getJson(String url) {
+        HttpEntity<String> request = new HttpEntity<>(createGitHubHeaders());
+        try {
+            return objectMapper.readTree(restTemplate.exchange(url, HttpMethod.GET, request, String.class).getBody());
+        } catch (IOException e) {
+            throw new IllegalStateException("Invalid JSON from " + url, e);
+        }
+    }
+
+    private JsonNode postJson(String url, Object body) throws IOException {
+        return exchangeJson(url, HttpMethod.POST, body);
+    }
+
+    private JsonNode exchangeJson(String url, HttpMethod method, Object body) throws IOException {
+        HttpEntity<Object> request = new HttpEntity<>(body, createGitHubHeaders());
+        return objectMapper.readTree(restTemplate.exchange(url, method, request, String.class).getBody());
+    }
+
+    // The "data" of a GraphQL response; GraphQL reports failures in "errors", usually with a 200
+    private JsonNode graphql(String query, Map<String, Object> variables, boolean allowNotFound) throws IOException {
+        Map<String, Object> body = new HashMap<>();
+        body.put("query", query);
+        body.put("variables", variables);
+        JsonNode response = postJson(githubGraphqlUrl, body);
+        for (JsonNode error : response.path("errors")) {
+            if (!(allowNotFound && "NOT_FOUND".equals(error.path("type").asText()))) {
+                throw new IOException("GraphQL error: " + error.path("message").asText());
+            }
+        }
+        return response.path("data");
+    }
+
+    private String createAndPushBranch(String repoPath, String branchName) throws IOException {
+        Path repo = Paths.get(repoPath);
         // Checkout to branch (create if doesn't exist)
-        ProcessBuilder checkoutPb = new ProcessBuilder("git", "checkout", "-B", branchName);
-        checkoutPb.directory(new File(repoPath));
-        checkoutPb.start().waitFor();
+        processRunner.run(List.of("git", "checkout", "-B", branchName), repo);
         
         // Add all files
-        ProcessBuilder addPb = new ProcessBuilder("git", "add", ".");
-        addPb.directory(new File(repoPath));
-        addPb.start().waitFor();
+        processRunner.run(List.of("git", "add", "."), repo);
         
         // Commit files
         String commitMessage = "Add " + branchName + " components - Generated by GitGenei AI";
-        ProcessBuilder commitPb = new ProcessBuilder("git", "commit", "-m", commitMessage);
-        commitPb.directory(new File(repoPath));
-        Process commitProcess = commitPb.start();
-        int commitExitCode = commitProcess.waitFor();
+        ProcessRunner.ProcessResult commitResult = processRunner.run(List.of("git", "commit", "-m", commitMessage), repo);
         
         String commitHash = "unknown";
-        if (commitExitCode == 0) {
+        if (commitResult.isSuccess()) {
             // Get commit hash
-            ProcessBuilder hashPb = new ProcessBuilder("git", "rev-parse", "HEAD");
-            hashPb.directory(new File(repoPath));
-            Process hashProcess = hashPb.start();
-            
-            try (Scanner scanner = new Scanner(hashProcess.getInputStream())) {
-                if (scanner.hasNextLine()) {
-                    commitHash = scanner.nextLine().substring(0, 8); // Short hash
-                }
+            ProcessRunner.ProcessResult hashResult = processRunner.run(List.of("git", "rev-parse", "HEAD"), repo);
+            if (hashResult.isSuccess() && hashResult.getOutput().strip().length() >= 8) {
+                commitHash = hashResult.getOutput().strip().substring(0, 8); // Short hash
             }
             
             // Push to GitHub with force to ensure it gets pushed
-            ProcessBuilder pushPb = new ProcessBuilder("git", "push", "-u", "origin", branchName, "--force");
-            pushPb.directory(new File(repoPath));
-            Process pushProcess = pushPb.start();
-            int pushExitCode = pushProcess.waitFor();
+            ProcessRunner.ProcessResult pushResult = processRunner.run(List.of("git", "push", "-u", "origin", branchName, "--force"),
+                repo, Duration.ofSeconds(pushTimeoutSeconds));
 
-            if (pushExitCode == 0) {
+            if (pushResult.isSuccess()) {
                 System.out.println("✅ Successfully pushed branch: " + branchName);
             } else {
                 System.err.println("❌ Failed to push branch: " + branchName);
@@ -434,7 +1050,7 @@ public class GitHubIntegrationService {
             HttpEntity<Map<String, Object>> request = new HttpEntity<>(prData, headers);
             
             ResponseEntity<String> response = restTemplate.postForEntity(
-                GITHUB_API_BASE + "/repos/" + repoFullName + "/pulls", 
+                githubApiBase + "/repos/" + repoFullName + "/pulls", 
                 request, 
                 String.class
             );
@@ -469,7 +1085,7 @@ public class GitHubIntegrationService {
             HttpEntity<Map<String, Object>> request = new HttpEntity<>(mergeData, headers);
 
             ResponseEntity<String> response = restTemplate.exchange(
-                GITHUB_API_BASE + "/repos/" + repoFullName + "/pulls/" + pullNumber + "/merge",
+                githubApiBase + "/repos/" + repoFullName + "/pulls/" + pullNumber + "/merge",
                 HttpMethod.PUT,
                 request,
                 String.class
@@ -494,56 +1110,55 @@ public class GitHubIntegrationService {
         }
     }
 
-    public Map<String, Object> createAndMergePullRequest(String repoFullName, String sourceBranch, String targetBranch, String title, String description) {
+    /**
+     * Opens a pull request and merges it as soon as GitHub has worked out that it can be merged.
+     * No thread waits in the meantime: MergeabilityWatcher polls with backoff, or a pull_request
+     * webhook completes the wait early. The future always completes with a result map.
+     */
+    public CompletableFuture<Map<String, Object>> createAndMergePullRequest(String repoFullName, String sourceBranch, String targetBranch, String title, String description) {
         // First create the pull request
         Map<String, Object> prResult = createPullRequest(repoFullName, sourceBranch, targetBranch, title, description);
 
         if (!(Boolean) prResult.get("success")) {
-            return prResult; // Return error if PR creation failed
+            return CompletableFuture.completedFuture(prResult); // Return error if PR creation failed
         }
 
-        try {
-            // Extract PR number from the result
-            String prUrl = (String) prResult.get("prUrl");
-            int pullNumber = Integer.parseInt(prUrl.substring(prUrl.lastIndexOf("/") + 1));
-
-            // Wait a moment for GitHub to process the PR
-            Thread.sleep(2000);
-
-            // Auto-merge the pull request
-            Map<String, Object> mergeResult = mergePullRequest(repoFullName, pullNumber,
-                "Merge " + sourceBranch + " into " + targetBranch,
-                "Auto-merge organized project components");
-
-            if ((Boolean) mergeResult.get("success")) {
+        String prUrl = (String) prResult.get("prUrl");
+        int pullNumber = Integer.parseInt(prUrl.substring(prUrl.lastIndexOf("/") + 1));
+
+        // The merge is a blocking PUT, so it runs on the upload pool rather than whichever thread completed the wait
+        return mergeabilityWatcher.awaitMergeable(repoFullName, pullNumber, () -> fetchMergeable(repoFullName, pullNumber))
+            .thenApplyAsync(mergeable -> mergeable
+                ? mergePullRequest(repoFullName, pullNumber,
+                    "Merge " + sourceBranch + " into " + targetBranch,
+                    "Auto-merge organized project components")
+                : createErrorResult("Pull request is not mergeable"), uploadExecutor)
+            .exceptionally(e -> createErrorResult("Auto-merge failed: " + (e.getCause() != null ? e.getCause().getMessage() : e.getMessage())))
+            .thenApply(mergeResult -> {
                 Map<String, Object> result = new HashMap<>();
                 result.put("success", true);
                 result.put("prCreated", true);
-                result.put("prMerged", true);
-                result.put("prUrl", prResult.get("prUrl"));
-                result.put("mergeCommit", mergeResult.get("sha"));
-                return result;
-            } else {
-                // PR created but merge failed
-                Map<String, Object> result = new HashMap<>();
-                result.put("success", true);
-                result.put("prCreated", true);
-                result.put("prMerged", false);
-                result.put("prUrl", prResult.get("prUrl"));
-                result.put("mergeError", mergeResult.get("error"));
+                result.put("prUrl", prUrl);
+                if ((Boolean) mergeResult.get("success")) {
+                    result.put("prMerged", true);
+                    result.put("mergeCommit", mergeResult.get("sha"));
+                } else {
+                    // PR created but merge failed
+                    result.put("prMerged", false);
+                    result.put("mergeError", mergeResult.get("error"));
+                }
                 return result;
-            }
+            });
+    }
 
-        } catch (Exception e) {
-            // PR created but auto-merge failed
-            Map<String, Object> result = new HashMap<>();
-            result.put("success", true);
-            result.put("prCreated", true);
-            result.put("prMerged", false);
-            result.put("prUrl", prResult.get("prUrl"));
-            result.put("mergeError", "Auto-merge failed: " + e.getMessage());
-            return result;
+    // null while GitHub is still computing mergeability in the background
+    private Boolean fetchMergeable(String repoFullName, int pullNumber) {
+        JsonNode pullRequest = getJson(githubApiBase + "/repos/" + repoFullName + "/pulls/" + pullNumber);
+        if (pullRequest == null) {
+            throw new IllegalStateException("Pull request " + repoFullName + "#" + pullNumber + " not found");
         }
+        JsonNode mergeable = pullRequest.path("mergeable");
+        return mergeable.isBoolean() ? mergeable.asBoolean() : null;
     }
 
     public Map<String, Object> addRepositoryTopics(String repoFullName, List<String> topics) {
@@ -557,7 +1172,7 @@ public class GitHubIntegrationService {
             HttpEntity<Map<String, Object>> request = new HttpEntity<>(topicsData, headers);
             
             ResponseEntity<String> response = restTemplate.exchange(
-                GITHUB_API_BASE + "/repos/" + repoFullName + "/topics",
+                githubApiBase + "/repos/" + repoFullName + "/topics",
                 HttpMethod.PUT,
                 request,
                 String.class
@@ -591,7 +1206,7 @@ public class GitHubIntegrationService {
             HttpEntity<Map<String, Object>> request = new HttpEntity<>(fileData, headers);
             
             ResponseEntity<String> response = restTemplate.exchange(
-                GITHUB_API_BASE + "/repos/" + repoFullName + "/contents/README.md",
+                githubApiBase + "/repos/" + repoFullName + "/contents/README.md",
                 HttpMethod.PUT,
                 request,
                 String.class
@@ -627,13 +1242,21 @@ public class GitHubIntegrationService {
         return result;
     }
 
+    // Keeps the per-branch outcome next to the error, for the job's status page
+    private Map<String, Object> createPushErrorResult(String errorMessage, List<String> pushedBranches, List<String> failedBranches) {
+        Map<String, Object> result = createErrorResult(errorMessage);
+        result.put("pushedBranches", pushedBranches);
+        result.put("failedBranches", failedBranches);
+        return result;
+    }
+
     public boolean isGitHubTokenValid() {
         try {
             HttpHeaders headers = createGitHubHeaders();
             HttpEntity<String> request = new HttpEntity<>(headers);
             
             ResponseEntity<String> response = restTemplate.exchange(
-                GITHUB_API_BASE + "/user",
+                githubApiBase + "/user",
                 HttpMethod.GET,
                 request,
                 String.class
@@ -651,7 +1274,7 @@ public class GitHubIntegrationService {
             HttpEntity<String> request = new HttpEntity<>(headers);
             
             ResponseEntity<String> response = restTemplate.exchange(
-                GITHUB_API_BASE + "/user",
+                githubApiBase + "/user",
                 HttpMethod.GET,
                 request,
                 String.class
@@ -0,0 +1,261 @@
+package com.example.demo.service;
+
+import com.example.demo.entity.GitHubResponseCacheEntry;
+import com.example.demo.repository.GitHubResponseCacheEntryRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Per-user cache for GitHub read APIs. A response younger than the fresh window is served without
+ * contacting GitHub; an older one is revalidated with If-None-Match, and the 304 that usually comes
+ * back does not count against the rate limit. The in-memory tier is an LRU bounded by entry count;
+ * entries can also be written through to the database so a restart revalidates instead of refetching.
+ *
+ * Entries are keyed by a hash of the access token and URL, so one user never sees another's data.
+ */
+@Service
+public class GitHubResponseCache {
+
+    // Served without any request to GitHub
+    @Value("${app.github.cache.fresh-seconds:60}")
+    private long freshSeconds;
+
+    // Entries not validated for this long are dropped rather than revalidated
+    @Value("${app.github.cache.ttl-minutes:1440}")
+    private long ttlMinutes;
+
+    @Value("${app.github.cache.max-entries:2000}")
+    private int maxEntries;
+
+    @Value("${app.github.cache.persist:false}")
+    private boolean persist;
+
+    @Autowired
+    private RestTemplate restTemplate;
+
+    @Autowired
+    private GitHubResponseCacheEntryRepository cacheEntryRepository;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final AtomicLong freshHits = new AtomicLong();
+    private final AtomicLong revalidated = new AtomicLong();
+    private final AtomicLong fetched = new AtomicLong();
+    private final AtomicLong staleServed = new AtomicLong();
+
+    // Access-ordered, so the eldest entry is the least recently used one
+    private final Map<String, CachedResponse> entries = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, CachedResponse> eldest) {
+            return size() > maxEntries;
+        }
+    };
+
+    /**
+     * GETs {@code url} with {@code headers} (which carry the user's token) and returns the parsed
+     * JSON body, from the cache when GitHub confirms it is unchanged. When GitHub is unreachable or
+     * failing, a cached body is served stale; other errors (a revoked token) propagate.
+     */
+    public Object getJson(String url, String accessToken, HttpHeaders headers) throws IOException {
+        return getPage(url, accessToken, headers).getBody();
+    }
+
+    // As getJson, keeping the Link header that points at the other pages
+    public Page getPage(String url, String accessToken, HttpHeaders headers) throws IOException {
+        String key = cacheKey(accessToken, url);
+        long now = System.currentTimeMillis();
+        CachedResponse cached = lookup(key, now);
+        if (cached != null && now - cached.validatedAt < freshSeconds * 1000) {
+            freshHits.incrementAndGet();
+            return cached.toPage();
+        }
+
+        HttpHeaders requestHeaders = new HttpHeaders();
+        requestHeaders.putAll(headers);
+        if (cached != null) {
+            requestHeaders.setIfNoneMatch(cached.etag);
+        }
+
+        ResponseEntity<String> response;
+        try {
+            response = restTemplate.exchange(url, HttpMethod.GET, new HttpEntity<>(requestHeaders), String.class);
+        } catch (HttpServerErrorException | ResourceAccessException e) {
+            if (cached == null) {
+                throw e;
+            }
+            staleServed.incrementAndGet();
+            System.err.println("⚠️ GitHub unavailable, serving cached response: " + e.getMessage());
+            return cached.toPage();
+        }
+
+        if (response.getStatusCode() == HttpStatus.NOT_MODIFIED && cached != null) {
+            revalidated.incrementAndGet();
+            CachedResponse revalidatedResponse = new CachedResponse(cached.etag, cached.body, cached.link, now);
+            store(key, revalidatedResponse, false);
+            return revalidatedResponse.toPage();
+        }
+
+        fetched.incrementAndGet();
+        String body = response.getBody();
+        String etag = response.getHeaders().getETag();
+        CachedResponse fetchedResponse = new CachedResponse(etag, body, response.getHeaders().getFirst(HttpHeaders.LINK), now);
+        if (etag != null && body != null) {
+            store(key, fetchedResponse, true);
+        }
+        return fetchedResponse.toPage();
+    }
+
+    /**
+     * A result assembled from several responses (all pages of a listing), kept in memory only for
+     * the fresh window. Its parts stay cached individually, so a stale one is rebuilt mostly from 304s.
+     */
+    public Object getFreshAssembled(String name, String accessToken) throws IOException {
+        String key = cacheKey(accessToken, "assembled:" + name);
+        long now = System.currentTimeMillis();
+        CachedResponse cached;
+        synchronized (entries) {
+            cached = entries.get(key);
+        }
+        if (cached == null || now - cached.validatedAt >= freshSeconds * 1000) {
+            return null;
+        }
+        freshHits.incrementAndGet();
+        return parse(cached.body);
+    }
+
+    public void putAssembled(String name, String accessToken, Object value) throws IOException {
+        String key = cacheKey(accessToken, "assembled:" + name);
+        store(key, new CachedResponse(null, objectMapper.writeValueAsString(value), null, System.currentTimeMillis()), false);
+    }
+
+    // freshHits are served locally, revalidated cost a 304, fetched a full response
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        synchronized (entries) {
+            stats.put("entries", entries.size());
+        }
+        stats.put("freshHits", freshHits.get());
+        stats.put("revalidated", revalidated.get());
+        stats.put("fetched", fetched.get());
+        stats.put("staleServed", staleServed.get());
+        return stats;
+    }
+
+    private CachedResponse lookup(String key, long now) {
+        CachedResponse cached;
+        synchronized (entries) {
+            cached = entries.get(key);
+        }
+        if (cached == null && persist) {
+            cached = loadPersisted(key);
+        }
+        if (cached != null && now - cached.validatedAt > ttlMinutes * 60_000) {
+            synchronized (entries) {
+                entries.remove(key);
+            }
+            return null;
+        }
+        if (cached != null) {
+            synchronized (entries) {
+                entries.putIfAbsent(key, cached);
+            }
+        }
+        return cached;
+    }
+
+    // Only new bodies are written through; a 304 just moves validatedAt in memory
+    private void store(String key, CachedResponse response, boolean changed) {
+        synchronized (entries) {
+            entries.put(key, response);
+        }
+        if (persist && changed) {
+            try {
+                cacheEntryRepository.save(new GitHubResponseCacheEntry(key, response.etag, response.body, response.link,
+                    LocalDateTime.ofInstant(Instant.ofEpochMilli(response.validatedAt), ZoneId.systemDefault())));
+            } catch (RuntimeException e) {
+                System.err.println("Failed to persist GitHub cache entry: " + e.getMessage());
+            }
+        }
+    }
+
+    private CachedResponse loadPersisted(String key) {
+        try {
+            return cacheEntryRepository.findById(key)
+                .map(entry -> new CachedResponse(entry.getEtag(), entry.getBody(), entry.getLink(),
+                    entry.getValidatedAt() == null ? 0 : entry.getValidatedAt().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli()))
+                .orElse(null);
+        } catch (RuntimeException e) {
+            System.err.println("Failed to read GitHub cache entry: " + e.getMessage());
+            return null;
+        }
+    }
+
+    // Parsed per call, so callers never share (and modify) one cached object
+    private Object parse(String body) throws IOException {
+        return objectMapper.readValue(body, Object.class);
+    }
+
+    private static String cacheKey(String accessToken, String url) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest((accessToken + "\n" + url).getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    public static class Page {
+        private final Object body;
+        private final String link;
+
+        Page(Object body, String link) {
+            this.body = body;
+            this.link = link;
+        }
+
+        public Object getBody() { return body; }
+        // The raw Link header, or null on the last (or only) page
+        public String getLink() { return link; }
+    }
+
+    private class CachedResponse {
+        private final String etag;
+        private final String body;
+        private final String link;
+        private final long validatedAt;
+
+        CachedResponse(String etag, String body, String link, long validatedAt) {
+            this.etag = etag;
+            this.body = body;
+            this.link = link;
+            this.validatedAt = validatedAt;
+        }
+
+        Page toPage() throws IOException {
+            return new Page(body == null ? null : parse(body), link);
+        }
+    }
+}
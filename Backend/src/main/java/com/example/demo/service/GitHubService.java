@@ -1,12 +1,32 @@
 package com.example.demo.service;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
-import org.springframework.http.HttpMethod;
-import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestTemplate;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 @Service
 public class GitHubService {
@@ -14,62 +34,242 @@ public class GitHubService {
     @Value("${github.personal-access-token}")
     private String personalAccessToken;
 
-    private final RestTemplate restTemplate = new RestTemplate();
+    @Value("${github.api.base-url:https://api.github.com}")
+    private String githubApiBase;
+
+    // Parallel page fetches for repository listings, shared by all users
+    @Value("${app.github.pagination.threads:6}")
+    private int paginationThreads;
+
+    // 100 repositories a page; listings longer than this are cut off
+    @Value("${app.github.pagination.max-pages:100}")
+    private int maxRepositoryPages;
+
+    private static final int REPOSITORIES_PER_PAGE = 100;
+
+    // rel="last" in a Link header, which names the final page
+    private static final Pattern LAST_PAGE_LINK = Pattern.compile("<([^>]*[?&]page=(\\d+)[^>]*)>;\\s*rel=\"last\"");
+
+    // tarball: the repository is downloaded once and contents are served from the local copy; api: one call per path
+    @Value("${app.github.contents-source:tarball}")
+    private String contentsSource;
+
+    // Dashboard reads go through the ETag cache; most page loads never reach GitHub
+    @Autowired
+    private GitHubResponseCache gitHubResponseCache;
+
+    @Autowired
+    private RepositorySnapshotStore repositorySnapshotStore;
+
+    private ThreadPoolExecutor paginationExecutor;
+
+    @PostConstruct
+    public void startPaginationExecutor() {
+        int threads = Math.max(1, paginationThreads);
+        AtomicInteger threadNumber = new AtomicInteger();
+        paginationExecutor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+            new ArrayBlockingQueue<>(threads * 16),
+            runnable -> {
+                Thread thread = new Thread(runnable, "github-pages-" + threadNumber.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            },
+            // A full queue makes the caller fetch the page itself
+            new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    @PreDestroy
+    public void stopPaginationExecutor() {
+        paginationExecutor.shutdownNow();
+    }
 
+    // Every repository of the user, all pages merged
     public Object getUserRepositories(String accessToken) {
-        String url = "https://api.github.com/user/repos?sort=updated&per_page=50";
-        
-        HttpHeaders headers = new HttpHeaders();
-        headers.set("Authorization", "Bearer " + accessToken);
-        headers.set("Accept", "application/vnd.github.v3+json");
-        
-        HttpEntity<String> entity = new HttpEntity<>(headers);
-        
         try {
-            ResponseEntity<Object> response = restTemplate.exchange(
-                url, HttpMethod.GET, entity, Object.class
-            );
-            return response.getBody();
+            return listUserRepositories(accessToken).all();
         } catch (Exception e) {
             throw new RuntimeException("Failed to fetch repositories from GitHub", e);
         }
     }
 
+    /**
+     * Starts fetching all of the user's repositories. The first page's Link header gives the page
+     * count, and the remaining pages are then fetched in parallel. The returned pages can be consumed
+     * in order as they arrive. A listing fetched within the cache's fresh window is returned whole.
+     *
+     * Call this on the request thread, so the page fetches keep the interactive rate-limit priority.
+     */
+    public RepositoryPages listUserRepositories(String accessToken) throws IOException {
+        String url = githubApiBase + "/user/repos?sort=updated&per_page=" + REPOSITORIES_PER_PAGE;
+        Object cached = gitHubResponseCache.getFreshAssembled(url, accessToken);
+        if (cached instanceof List<?> repositories) {
+            return new RepositoryPages(CompletableFuture.completedFuture(
+                List.of(CompletableFuture.completedFuture(repositories))));
+        }
+
+        RequestAttributes requestAttributes = RequestContextHolder.getRequestAttributes();
+        CompletableFuture<List<CompletableFuture<List<?>>>> pages = fetchPage(url, accessToken, requestAttributes)
+            .thenApply(firstPage -> {
+                List<CompletableFuture<List<?>>> pageFutures = new ArrayList<>();
+                pageFutures.add(CompletableFuture.completedFuture(asList(firstPage.getBody())));
+                int lastPage = Math.min(lastPage(firstPage.getLink()), maxRepositoryPages);
+                for (int page = 2; page <= lastPage; page++) {
+                    pageFutures.add(fetchPage(url + "&page=" + page, accessToken, requestAttributes)
+                        .thenApply(nextPage -> asList(nextPage.getBody())));
+                }
+                return pageFutures;
+            });
+
+        RepositoryPages repositoryPages = new RepositoryPages(pages);
+        // The merged listing is cached once every page is in
+        pages.thenCompose(pageFutures -> CompletableFuture.allOf(pageFutures.toArray(new CompletableFuture<?>[0])))
+            .thenRun(() -> {
+                try {
+                    gitHubResponseCache.putAssembled(url, accessToken, repositoryPages.all());
+                } catch (IOException e) {
+                    System.err.println("Failed to cache repository listing: " + e.getMessage());
+                }
+            });
+        return repositoryPages;
+    }
+
     public Object getUserProfile(String accessToken) {
-        String url = "https://api.github.com/user";
+        String url = githubApiBase + "/user";
         
         HttpHeaders headers = new HttpHeaders();
         headers.set("Authorization", "Bearer " + accessToken);
         headers.set("Accept", "application/vnd.github.v3+json");
         
-        HttpEntity<String> entity = new HttpEntity<>(headers);
-        
         try {
-            ResponseEntity<Object> response = restTemplate.exchange(
-                url, HttpMethod.GET, entity, Object.class
-            );
-            return response.getBody();
+            return gitHubResponseCache.getJson(url, accessToken, headers);
         } catch (Exception e) {
             throw new RuntimeException("Failed to fetch user profile from GitHub", e);
         }
     }
 
     public Object getRepositoryContents(String owner, String repo, String path, String accessToken) {
-        String url = String.format("https://api.github.com/repos/%s/%s/contents/%s", owner, repo, path);
+        if ("tarball".equalsIgnoreCase(contentsSource)) {
+            try {
+                return getSnapshotContents(owner, repo, path, accessToken);
+            } catch (Exception e) {
+                throw new RuntimeException("Failed to fetch repository contents from GitHub", e);
+            }
+        }
+
+        String url = String.format("%s/repos/%s/%s/contents/%s", githubApiBase, owner, repo, path);
         
         HttpHeaders headers = new HttpHeaders();
         headers.set("Authorization", "Bearer " + accessToken);
         headers.set("Accept", "application/vnd.github.v3+json");
         
-        HttpEntity<String> entity = new HttpEntity<>(headers);
-        
         try {
-            ResponseEntity<Object> response = restTemplate.exchange(
-                url, HttpMethod.GET, entity, Object.class
-            );
-            return response.getBody();
+            return gitHubResponseCache.getJson(url, accessToken, headers);
         } catch (Exception e) {
             throw new RuntimeException("Failed to fetch repository contents from GitHub", e);
         }
     }
+
+    // Same shapes as the contents API: a listing for a directory, base64 content for a file
+    private Object getSnapshotContents(String owner, String repo, String path, String accessToken) throws IOException {
+        RepositorySnapshotStore.Snapshot snapshot = repositorySnapshotStore.getSnapshot(
+            String.format("%s/repos/%s/%s/tarball", githubApiBase, owner, repo), accessToken);
+        if (snapshot.isDirectory(path)) {
+            return snapshot.list(path);
+        }
+        String filePath = path.replaceAll("^/+|/+$", "");
+        byte[] content = snapshot.read(filePath);
+        Map<String, Object> file = new HashMap<>();
+        file.put("name", filePath.substring(filePath.lastIndexOf('/') + 1));
+        file.put("path", filePath);
+        file.put("type", "file");
+        file.put("size", content.length);
+        file.put("encoding", "base64");
+        file.put("content", Base64.getEncoder().encodeToString(content));
+        return file;
+    }
+
+    private CompletableFuture<GitHubResponseCache.Page> fetchPage(String url, String accessToken, RequestAttributes requestAttributes) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set("Authorization", "Bearer " + accessToken);
+        headers.set("Accept", "application/vnd.github.v3+json");
+        return CompletableFuture.supplyAsync(() -> {
+            // Carries the caller's request over, which the rate limiter reads as interactive
+            boolean onOtherThread = RequestContextHolder.getRequestAttributes() != requestAttributes;
+            if (onOtherThread) {
+                RequestContextHolder.setRequestAttributes(requestAttributes);
+            }
+            try {
+                return gitHubResponseCache.getPage(url, accessToken, headers);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            } finally {
+                if (onOtherThread) {
+                    RequestContextHolder.resetRequestAttributes();
+                }
+            }
+        }, paginationExecutor);
+    }
+
+    private static int lastPage(String link) {
+        if (link == null) {
+            return 1;
+        }
+        Matcher matcher = LAST_PAGE_LINK.matcher(link);
+        return matcher.find() ? Integer.parseInt(matcher.group(2)) : 1;
+    }
+
+    private static List<?> asList(Object body) {
+        return body instanceof List<?> list ? list : List.of();
+    }
+
+    public static class RepositoryPages {
+        private final CompletableFuture<List<CompletableFuture<List<?>>>> pages;
+
+        RepositoryPages(CompletableFuture<List<CompletableFuture<List<?>>>> pages) {
+            this.pages = pages;
+        }
+
+        // Hands each page over in order, as soon as it and the pages before it have arrived
+        public void forEachPage(PageConsumer consumer) throws IOException {
+            for (CompletableFuture<List<?>> page : join(pages)) {
+                consumer.accept(join(page));
+            }
+        }
+
+        public List<Object> all() throws IOException {
+            List<Object> repositories = new ArrayList<>();
+            forEachPage(repositories::addAll);
+            return repositories;
+        }
+
+        // One repository per line, flushed after every page
+        public void writeNdjson(OutputStream out, ObjectMapper objectMapper) throws IOException {
+            forEachPage(page -> {
+                for (Object repository : page) {
+                    out.write(objectMapper.writeValueAsBytes(repository));
+                    out.write('\n');
+                }
+                out.flush();
+            });
+        }
+
+        private static <T> T join(CompletableFuture<T> future) throws IOException {
+            try {
+                return future.join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof UncheckedIOException io) {
+                    throw io.getCause();
+                }
+                if (e.getCause() instanceof RuntimeException runtime) {
+                    throw runtime;
+                }
+                throw e;
+            }
+        }
+    }
+
+    @FunctionalInterface
+    public interface PageConsumer {
+        void accept(List<?> page) throws IOException;
+    }
 }
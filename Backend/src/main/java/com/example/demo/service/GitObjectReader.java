@@ -0,0 +1,192 @@
+package com.example.demo.service;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.InflaterInputStream;
+
+// Reads loose objects from a repository written by GitObjectWriter
+public class GitObjectReader {
+
+    private final Path objectsDir;
+
+    public GitObjectReader(Path gitDir) {
+        this.objectsDir = gitDir.resolve("objects");
+    }
+
+    public GitObject read(byte[] id) throws IOException {
+        String hex = GitBlobHasher.toHex(id);
+        Path path = objectsDir.resolve(hex.substring(0, 2)).resolve(hex.substring(2));
+        byte[] raw;
+        try (InputStream in = new InflaterInputStream(Files.newInputStream(path))) {
+            raw = in.readAllBytes();
+        }
+
+        int space = indexOf(raw, (byte) ' ', 0);
+        int nul = indexOf(raw, (byte) 0, space);
+        if (space < 0 || nul < 0) {
+            throw new IOException("Corrupt object " + hex);
+        }
+        String type = new String(raw, 0, space, StandardCharsets.US_ASCII);
+        return new GitObject(id, type, Arrays.copyOfRange(raw, nul + 1, raw.length));
+    }
+
+    /**
+     * Opens an object for reading without loading it, positioned at the start of its content. The
+     * caller closes it.
+     */
+    public ObjectStream open(byte[] id) throws IOException {
+        String hex = GitBlobHasher.toHex(id);
+        Path path = objectsDir.resolve(hex.substring(0, 2)).resolve(hex.substring(2));
+        InputStream in = new BufferedInputStream(new InflaterInputStream(Files.newInputStream(path)));
+        try {
+            ByteArrayOutputStream header = new ByteArrayOutputStream(32);
+            int b;
+            while ((b = in.read()) > 0 && header.size() < 64) {
+                header.write(b);
+            }
+            String[] typeAndSize = header.toString(StandardCharsets.US_ASCII).split(" ");
+            if (b != 0 || typeAndSize.length != 2 || !typeAndSize[1].matches("\\d+")) {
+                throw new IOException("Corrupt object " + hex);
+            }
+            return new ObjectStream(typeAndSize[0], Long.parseLong(typeAndSize[1]), in);
+        } catch (IOException | RuntimeException e) {
+            in.close();
+            throw e;
+        }
+    }
+
+    // The content size from the object's header
+    public long size(byte[] id) throws IOException {
+        try (ObjectStream object = open(id)) {
+            return object.getSize();
+        }
+    }
+
+    public List<TreeItem> readTree(byte[] id) throws IOException {
+        GitObject tree = read(id);
+        if (!"tree".equals(tree.getType())) {
+            throw new IOException("Not a tree: " + GitBlobHasher.toHex(id));
+        }
+
+        List<TreeItem> items = new ArrayList<>();
+        byte[] content = tree.getContent();
+        int position = 0;
+        while (position < content.length) {
+            int space = indexOf(content, (byte) ' ', position);
+            int nul = indexOf(content, (byte) 0, space);
+            String mode = new String(content, position, space - position, StandardCharsets.US_ASCII);
+            String name = new String(content, space + 1, nul - space - 1, StandardCharsets.UTF_8);
+            byte[] itemId = Arrays.copyOfRange(content, nul + 1, nul + 21);
+            items.add(new TreeItem(mode, name, itemId));
+            position = nul + 21;
+        }
+        return items;
+    }
+
+    public CommitInfo readCommit(byte[] id) throws IOException {
+        GitObject commit = read(id);
+        if (!"commit".equals(commit.getType())) {
+            throw new IOException("Not a commit: " + GitBlobHasher.toHex(id));
+        }
+
+        String text = new String(commit.getContent(), StandardCharsets.UTF_8);
+        int bodyStart = text.indexOf("\n\n");
+        CommitInfo info = new CommitInfo();
+        for (String line : text.substring(0, bodyStart < 0 ? text.length() : bodyStart).split("\n")) {
+            if (line.startsWith("tree ")) {
+                info.treeId = GitBlobHasher.fromHex(line.substring(5));
+            } else if (line.startsWith("parent ")) {
+                info.parentIds.add(GitBlobHasher.fromHex(line.substring(7)));
+            } else if (line.startsWith("author ")) {
+                info.author = line.substring(7);
+            }
+        }
+        info.message = bodyStart < 0 ? "" : text.substring(bodyStart + 2);
+        return info;
+    }
+
+    private static int indexOf(byte[] data, byte value, int from) {
+        for (int i = Math.max(from, 0); i < data.length; i++) {
+            if (data[i] == value) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    public static class GitObject {
+        private final byte[] id;
+        private final String type;
+        private final byte[] content;
+
+        GitObject(byte[] id, String type, byte[] content) {
+            this.id = id;
+            this.type = type;
+            this.content = content;
+        }
+
+        public byte[] getId() { return id; }
+        public String getType() { return type; }
+        public byte[] getContent() { return content; }
+    }
+
+    public static class ObjectStream implements Closeable {
+        private final String type;
+        private final long size;
+        private final InputStream content;
+
+        ObjectStream(String type, long size, InputStream content) {
+            this.type = type;
+            this.size = size;
+            this.content = content;
+        }
+
+        public String getType() { return type; }
+        public long getSize() { return size; }
+        public InputStream getContent() { return content; }
+
+        @Override
+        public void close() throws IOException {
+            content.close();
+        }
+    }
+
+    public static class TreeItem {
+        private final String mode;
+        private final String name;
+        private final byte[] id;
+
+        TreeItem(String mode, String name, byte[] id) {
+            this.mode = mode;
+            this.name = name;
+            this.id = id;
+        }
+
+        public String getMode() { return mode; }
+        public String getName() { return name; }
+        public byte[] getId() { return id; }
+        public boolean isTree() { return GitObjectWriter.TREE_MODE.equals(mode); }
+    }
+
+    public static class CommitInfo {
+        private byte[] treeId;
+        private final List<byte[]> parentIds = new ArrayList<>();
+        // "Name <email> <epoch seconds> <zone>"
+        private String author;
+        private String message;
+
+        public byte[] getTreeId() { return treeId; }
+        public List<byte[]> getParentIds() { return parentIds; }
+        public String getAuthor() { return author; }
+        public String getMessage() { return message; }
+    }
+}
@@ -0,0 +1,294 @@
+package com.example.demo.service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+/**
+ * Writes loose git objects (blobs, trees, commits) and refs directly into a repository's object
+ * database, so branches can be committed without forking git for every step. Objects are content
+ * addressed, so a file shared by several branches is stored once.
+ *
+ * Not thread-safe: one writer is used per job.
+ */
+public class GitObjectWriter {
+
+    public static final String FILE_MODE = "100644";
+    public static final String EXECUTABLE_MODE = "100755";
+    public static final String TREE_MODE = "40000";
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final Path gitDir;
+    private final Path objectsDir;
+    private int objectsWritten;
+    private int objectsReused;
+
+    private GitObjectWriter(Path gitDir) {
+        this.gitDir = gitDir;
+        this.objectsDir = gitDir.resolve("objects");
+    }
+
+    // Creates the repository layout if needed; HEAD points at headBranch in a new repository
+    public static GitObjectWriter init(Path gitDir, String headBranch) throws IOException {
+        Files.createDirectories(gitDir.resolve("objects").resolve("info"));
+        Files.createDirectories(gitDir.resolve("objects").resolve("pack"));
+        Files.createDirectories(gitDir.resolve("refs").resolve("heads"));
+        Files.createDirectories(gitDir.resolve("refs").resolve("tags"));
+
+        Path head = gitDir.resolve("HEAD");
+        if (!Files.exists(head)) {
+            Files.writeString(head, "ref: refs/heads/" + headBranch + "\n");
+        }
+        // Bare: the branch directories next to .git are not a work tree
+        Path config = gitDir.resolve("config");
+        if (!Files.exists(config)) {
+            Files.writeString(config, "[core]\n\trepositoryformatversion = 0\n\tfilemode = true\n\tbare = true\n");
+        }
+        return new GitObjectWriter(gitDir);
+    }
+
+    // Only the object database, for writers that run before the repository itself is set up
+    public static GitObjectWriter openObjectStore(Path gitDir) throws IOException {
+        Files.createDirectories(gitDir.resolve("objects").resolve("info"));
+        Files.createDirectories(gitDir.resolve("objects").resolve("pack"));
+        return new GitObjectWriter(gitDir);
+    }
+
+    public Path getGitDir() { return gitDir; }
+    public int getObjectsWritten() { return objectsWritten; }
+    public int getObjectsReused() { return objectsReused; }
+
+    public boolean hasObject(byte[] id) {
+        return Files.exists(objectPath(id));
+    }
+
+    /**
+     * Stores a file as a blob. When the caller already knows the blob id (from the file index) and
+     * the object exists, the file is not read at all.
+     */
+    public byte[] writeBlob(Path file, byte[] knownId) throws IOException {
+        if (knownId != null && hasObject(knownId)) {
+            objectsReused++;
+            return knownId;
+        }
+
+        long length = Files.size(file);
+        BlobOutput blob = openBlob(length);
+        try (InputStream in = Files.newInputStream(file)) {
+            byte[] buffer = new byte[BUFFER_SIZE];
+            int read;
+            while ((read = in.read(buffer)) > 0) {
+                blob.write(buffer, 0, read);
+            }
+            return blob.finish();
+        } catch (IOException e) {
+            blob.abort();
+            throw new IOException("Failed to store " + file + ": " + e.getMessage(), e);
+        }
+    }
+
+    public byte[] writeBlob(byte[] content) throws IOException {
+        return writeObject("blob", content);
+    }
+
+    /**
+     * Starts a blob whose content is pushed in by the caller, e.g. while an archive entry is being
+     * extracted. Exactly {@code length} bytes must be written before {@link BlobOutput#finish()}.
+     */
+    public BlobOutput openBlob(long length) throws IOException {
+        return new BlobOutput(length);
+    }
+
+    public byte[] writeTree(List<TreeEntry> entries) throws IOException {
+        List<TreeEntry> sorted = new ArrayList<>(entries);
+        sorted.sort(TREE_ORDER);
+
+        ByteArrayOutputStream content = new ByteArrayOutputStream();
+        for (TreeEntry entry : sorted) {
+            content.write((entry.mode + " " + entry.name + "\0").getBytes(StandardCharsets.UTF_8));
+            content.write(entry.id);
+        }
+        return writeObject("tree", content.toByteArray());
+    }
+
+    // identity is "Name <email>"; the commit is dated now, in UTC
+    public byte[] writeCommit(byte[] treeId, List<byte[]> parentIds, String identity, String message) throws IOException {
+        String signature = identity + " " + (System.currentTimeMillis() / 1000) + " +0000";
+        StringBuilder commit = new StringBuilder();
+        commit.append("tree ").append(GitBlobHasher.toHex(treeId)).append('\n');
+        for (byte[] parentId : parentIds) {
+            commit.append("parent ").append(GitBlobHasher.toHex(parentId)).append('\n');
+        }
+        commit.append("author ").append(signature).append('\n');
+        commit.append("committer ").append(signature).append('\n');
+        commit.append('\n').append(message).append('\n');
+        return writeObject("commit", commit.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    public void updateRef(String refName, byte[] id) throws IOException {
+        Path ref = gitDir.resolve(refName).normalize();
+        if (!ref.startsWith(gitDir.resolve("refs"))) {
+            throw new IOException("Invalid ref name: " + refName);
+        }
+        Files.createDirectories(ref.getParent());
+        Path temp = Files.createTempFile(ref.getParent(), "tmp_ref_", null);
+        Files.writeString(temp, GitBlobHasher.toHex(id) + "\n");
+        Files.move(temp, ref, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private byte[] writeObject(String type, byte[] content) throws IOException {
+        byte[] header = (type + " " + content.length + "\0").getBytes(StandardCharsets.US_ASCII);
+        MessageDigest digest = GitBlobHasher.newSha1();
+        digest.update(header);
+        digest.update(content);
+        byte[] id = digest.digest();
+        if (hasObject(id)) {
+            objectsReused++;
+            return id;
+        }
+
+        Path temp = Files.createTempFile(objectsDir, "tmp_obj_", null);
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try {
+            try (OutputStream out = new DeflaterOutputStream(Files.newOutputStream(temp), deflater)) {
+                out.write(header);
+                out.write(content);
+            }
+            return install(temp, id);
+        } finally {
+            deflater.end();
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private byte[] install(Path temp, byte[] id) throws IOException {
+        Path target = objectPath(id);
+        if (Files.exists(target)) {
+            objectsReused++;
+            return id;
+        }
+        Files.createDirectories(target.getParent());
+        try {
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+            objectsWritten++;
+        } catch (FileAlreadyExistsException e) {
+            objectsReused++;
+        }
+        return id;
+    }
+
+    private Path objectPath(byte[] id) {
+        String hex = GitBlobHasher.toHex(id);
+        return objectsDir.resolve(hex.substring(0, 2)).resolve(hex.substring(2));
+    }
+
+    public class BlobOutput {
+        private final long length;
+        private final MessageDigest digest;
+        private final Path temp;
+        private final Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        private final OutputStream out;
+        private long written;
+
+        private BlobOutput(long length) throws IOException {
+            this.length = length;
+            this.digest = GitBlobHasher.newBlobDigest(length);
+            this.temp = Files.createTempFile(objectsDir, "tmp_obj_", null);
+            this.out = new DeflaterOutputStream(Files.newOutputStream(temp), deflater, BUFFER_SIZE);
+            out.write(("blob " + length + "\0").getBytes(StandardCharsets.US_ASCII));
+        }
+
+        public void write(byte[] buffer, int offset, int count) throws IOException {
+            digest.update(buffer, offset, count);
+            out.write(buffer, offset, count);
+            written += count;
+        }
+
+        // Returns the blob id once the object is in the database
+        public byte[] finish() throws IOException {
+            try {
+                out.close();
+                if (written != length) {
+                    throw new IOException("Blob length mismatch: expected " + length + " bytes, got " + written);
+                }
+                return install(temp, digest.digest());
+            } finally {
+                deflater.end();
+                Files.deleteIfExists(temp);
+            }
+        }
+
+        public void abort() {
+            try {
+                out.close();
+            } catch (IOException e) {
+                // Discarding anyway
+            }
+            deflater.end();
+            try {
+                Files.deleteIfExists(temp);
+            } catch (IOException e) {
+                System.err.println("Failed to remove temporary object " + temp + ": " + e.getMessage());
+            }
+        }
+    }
+
+    // Git sorts tree entries by name, comparing directories as if their name ended with '/'
+    private static final Comparator<TreeEntry> TREE_ORDER = (a, b) -> Arrays.compareUnsigned(a.sortKey(), b.sortKey());
+
+    public static class TreeEntry {
+        private final String mode;
+        private final String name;
+        private final byte[] id;
+
+        public TreeEntry(String mode, String name, byte[] id) {
+            this.mode = mode;
+            this.name = name;
+            this.id = id;
+        }
+
+        private byte[] sortKey() {
+            return (TREE_MODE.equals(mode) ? name + "/" : name).getBytes(StandardCharsets.UTF_8);
+        }
+    }
+
+    // Collects files by '/'-separated path and writes the nested trees bottom-up
+    public static class TreeBuilder {
+        private final Map<String, TreeBuilder> directories = new TreeMap<>();
+        private final Map<String, TreeEntry> files = new TreeMap<>();
+
+        public void add(String path, String mode, byte[] blobId) {
+            int slash = path.indexOf('/');
+            if (slash < 0) {
+                files.put(path, new TreeEntry(mode, path, blobId));
+            } else {
+                directories.computeIfAbsent(path.substring(0, slash), name -> new TreeBuilder())
+                           .add(path.substring(slash + 1), mode, blobId);
+            }
+        }
+
+        public byte[] write(GitObjectWriter writer) throws IOException {
+            List<TreeEntry> entries = new ArrayList<>(files.values());
+            for (Map.Entry<String, TreeBuilder> directory : directories.entrySet()) {
+                entries.add(new TreeEntry(TREE_MODE, directory.getKey(), directory.getValue().write(writer)));
+            }
+            return writer.writeTree(entries);
+        }
+    }
+}
@@ -0,0 +1,359 @@
+package com.example.demo.service;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Compiled .gitignore rules for an extracted project. A base rule set (the generated .gitignore) is
+ * combined with every .gitignore in the project, which are read lazily as their directories are
+ * reached. As in git, a nested file only applies below its own directory and overrides its parents,
+ * the last matching rule wins, and nothing inside an ignored directory can be re-included.
+ *
+ * Paths are relative to the project root with '/' separators. Not thread-safe.
+ */
+public class IgnoreMatcher {
+
+    // Anything bigger is not a real ignore file
+    private static final long MAX_IGNORE_FILE_SIZE = 1024 * 1024;
+
+    private final Path root;
+    private final List<Rule> baseRules;
+    private final boolean readIgnoreFiles;
+    private final Map<String, List<Rule>> rulesByDirectory = new HashMap<>();
+    private final Map<String, Boolean> directoryDecisions = new HashMap<>();
+
+    public IgnoreMatcher(Path root, String baseRules) {
+        this(root, baseRules, true);
+    }
+
+    // Without the project's .gitignore files, for when they may not be on disk yet
+    public IgnoreMatcher(Path root, String baseRules, boolean readIgnoreFiles) {
+        this.root = root.toAbsolutePath().normalize();
+        this.baseRules = parse("", baseRules);
+        this.readIgnoreFiles = readIgnoreFiles;
+    }
+
+    public boolean isIgnored(String relativePath) {
+        String path = relativePath.replace(File.separatorChar, '/');
+        int slash = path.lastIndexOf('/');
+        if (slash > 0 && isDirectoryIgnored(path.substring(0, slash))) {
+            return true;
+        }
+        return matches(path, false);
+    }
+
+    // Keeps the paths that are not ignored, totalling what was left out
+    public Selection select(Collection<String> relativePaths) {
+        Selection selection = new Selection();
+        for (String relativePath : relativePaths) {
+            if (isIgnored(relativePath)) {
+                selection.recordIgnored(relativePath.replace(File.separatorChar, '/'), sizeOf(root.resolve(relativePath)));
+            } else {
+                selection.files.add(relativePath);
+            }
+        }
+        return selection;
+    }
+
+    // Every regular file in the project that is not ignored; ignored directories are never descended into
+    public Selection listFiles() throws IOException {
+        Selection selection = new Selection();
+        Files.walkFileTree(root, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+                if (!dir.equals(root) && isDirectoryIgnored(relativize(dir))) {
+                    countIgnoredTree(dir, selection);
+                    return FileVisitResult.SKIP_SUBTREE;
+                }
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                if (attrs.isRegularFile()) {
+                    String relativePath = relativize(file);
+                    if (matches(relativePath, false)) {
+                        selection.recordIgnored(relativePath, attrs.size());
+                    } else {
+                        selection.files.add(root.relativize(file).toString());
+                    }
+                }
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFileFailed(Path file, IOException e) {
+                System.err.println("Failed to read " + file + ": " + e.getMessage());
+                return FileVisitResult.CONTINUE;
+            }
+        });
+        return selection;
+    }
+
+    private boolean isDirectoryIgnored(String directory) {
+        Boolean decision = directoryDecisions.get(directory);
+        if (decision == null) {
+            int slash = directory.lastIndexOf('/');
+            decision = (slash > 0 && isDirectoryIgnored(directory.substring(0, slash))) || matches(directory, true);
+            directoryDecisions.put(directory, decision);
+        }
+        return decision;
+    }
+
+    // Base rules first, then .gitignore files from the root down to the path's parent
+    private boolean matches(String path, boolean isDirectory) {
+        boolean ignored = apply(baseRules, path, isDirectory, false);
+        ignored = apply(rulesFor(""), path, isDirectory, ignored);
+        int slash = path.indexOf('/');
+        while (slash > 0) {
+            ignored = apply(rulesFor(path.substring(0, slash)), path, isDirectory, ignored);
+            slash = path.indexOf('/', slash + 1);
+        }
+        return ignored;
+    }
+
+    private static boolean apply(List<Rule> rules, String path, boolean isDirectory, boolean ignored) {
+        for (Rule rule : rules) {
+            if (rule.matches(path, isDirectory)) {
+                ignored = !rule.negated;
+            }
+        }
+        return ignored;
+    }
+
+    private List<Rule> rulesFor(String directory) {
+        return rulesByDirectory.computeIfAbsent(directory, dir -> {
+            if (!readIgnoreFiles) {
+                return List.of();
+            }
+            Path ignoreFile = (dir.isEmpty() ? root : root.resolve(dir)).resolve(".gitignore");
+            try {
+                if (Files.isRegularFile(ignoreFile) && Files.size(ignoreFile) <= MAX_IGNORE_FILE_SIZE) {
+                    return parse(dir, new String(Files.readAllBytes(ignoreFile), StandardCharsets.UTF_8));
+                }
+            } catch (IOException e) {
+                System.err.println("Failed to read " + ignoreFile + ": " + e.getMessage());
+            }
+            return List.of();
+        });
+    }
+
+    private void countIgnoredTree(Path dir, Selection selection) throws IOException {
+        Files.walkFileTree(dir, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                if (attrs.isRegularFile()) {
+                    selection.recordIgnored(relativize(file), attrs.size());
+                }
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFileFailed(Path file, IOException e) {
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    private String relativize(Path path) {
+        return root.relativize(path).toString().replace(File.separatorChar, '/');
+    }
+
+    private long sizeOf(Path file) {
+        try {
+            return Files.size(file);
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    static List<Rule> parse(String baseDirectory, String content) {
+        List<Rule> rules = new ArrayList<>();
+        for (String line : content.split("\r?\n")) {
+            Rule rule = Rule.compile(baseDirectory, line);
+            if (rule != null) {
+                rules.add(rule);
+            }
+        }
+        return rules;
+    }
+
+    static class Rule {
+        private final String baseDirectory;
+        private final Pattern pattern;
+        private final boolean negated;
+        private final boolean directoryOnly;
+
+        private Rule(String baseDirectory, Pattern pattern, boolean negated, boolean directoryOnly) {
+            this.baseDirectory = baseDirectory;
+            this.pattern = pattern;
+            this.negated = negated;
+            this.directoryOnly = directoryOnly;
+        }
+
+        static Rule compile(String baseDirectory, String line) {
+            String glob = line;
+            // Trailing spaces are ignored unless escaped
+            while (glob.endsWith(" ") && !glob.endsWith("\\ ")) {
+                glob = glob.substring(0, glob.length() - 1);
+            }
+            if (glob.isEmpty() || glob.startsWith("#")) {
+                return null;
+            }
+
+            boolean negated = false;
+            if (glob.startsWith("!")) {
+                negated = true;
+                glob = glob.substring(1);
+            } else if (glob.startsWith("\\!") || glob.startsWith("\\#")) {
+                glob = glob.substring(1);
+            }
+
+            boolean directoryOnly = false;
+            while (glob.endsWith("/")) {
+                directoryOnly = true;
+                glob = glob.substring(0, glob.length() - 1);
+            }
+            if (glob.isEmpty()) {
+                return null;
+            }
+
+            // A slash anywhere but the end ties the pattern to the .gitignore's directory
+            boolean anchored = glob.contains("/");
+            if (glob.startsWith("/")) {
+                glob = glob.substring(1);
+            }
+            String regex = (anchored ? "" : "(?:.*/)?") + globToRegex(glob);
+            return new Rule(baseDirectory, Pattern.compile(regex), negated, directoryOnly);
+        }
+
+        boolean matches(String path, boolean isDirectory) {
+            if (directoryOnly && !isDirectory) {
+                return false;
+            }
+            String relativePath = path;
+            if (!baseDirectory.isEmpty()) {
+                if (!path.startsWith(baseDirectory + "/")) {
+                    return false;
+                }
+                relativePath = path.substring(baseDirectory.length() + 1);
+            }
+            return pattern.matcher(relativePath).matches();
+        }
+
+        private static String globToRegex(String glob) {
+            StringBuilder regex = new StringBuilder();
+            int i = 0;
+            while (i < glob.length()) {
+                char c = glob.charAt(i);
+                if (c == '*') {
+                    boolean doubleStar = i + 1 < glob.length() && glob.charAt(i + 1) == '*';
+                    boolean segmentStart = i == 0 || glob.charAt(i - 1) == '/';
+                    if (doubleStar && segmentStart && i + 2 < glob.length() && glob.charAt(i + 2) == '/') {
+                        // "**/" matches zero or more directories
+                        regex.append("(?:.*/)?");
+                        i += 3;
+                    } else if (doubleStar && segmentStart && i + 2 == glob.length()) {
+                        // Trailing "/**" matches everything inside
+                        regex.append(".*");
+                        i += 2;
+                    } else {
+                        regex.append("[^/]*");
+                        i += doubleStar ? 2 : 1;
+                    }
+                } else if (c == '?') {
+                    regex.append("[^/]");
+                    i++;
+                } else if (c == '[') {
+                    int end = classEnd(glob, i);
+                    if (end < 0) {
+                        regex.append("\\[");
+                        i++;
+                    } else {
+                        regex.append(charClass(glob.substring(i + 1, end)));
+                        i = end + 1;
+                    }
+                } else if (c == '\\' && i + 1 < glob.length()) {
+                    appendLiteral(regex, glob.charAt(i + 1));
+                    i += 2;
+                } else {
+                    appendLiteral(regex, c);
+                    i++;
+                }
+            }
+            return regex.toString();
+        }
+
+        private static int classEnd(String glob, int start) {
+            int i = start + 1;
+            if (i < glob.length() && (glob.charAt(i) == '!' || glob.charAt(i) == '^')) {
+                i++;
+            }
+            // A ']' right after the opening bracket is part of the class
+            if (i < glob.length() && glob.charAt(i) == ']') {
+                i++;
+            }
+            return glob.indexOf(']', i);
+        }
+
+        private static String charClass(String body) {
+            StringBuilder regex = new StringBuilder("[");
+            int i = 0;
+            boolean negated = !body.isEmpty() && (body.charAt(0) == '!' || body.charAt(0) == '^');
+            if (negated) {
+                regex.append('^');
+                i++;
+            }
+            for (; i < body.length(); i++) {
+                char c = body.charAt(i);
+                if (c == '\\' || c == '[' || c == ']' || c == '&' || c == '^') {
+                    regex.append('\\');
+                }
+                regex.append(c);
+            }
+            // Like every other glob character, a negated class never matches the separator
+            if (negated) {
+                regex.append('/');
+            }
+            return regex.append(']').toString();
+        }
+
+        private static void appendLiteral(StringBuilder regex, char c) {
+            if (!Character.isLetterOrDigit(c)) {
+                regex.append('\\');
+            }
+            regex.append(c);
+        }
+    }
+
+    public static class Selection {
+        private final List<String> files = new ArrayList<>();
+        // Ignored path ('/' separators) to its size
+        private final Map<String, Long> ignored = new LinkedHashMap<>();
+        private long ignoredBytes;
+
+        void recordIgnored(String relativePath, long bytes) {
+            if (ignored.put(relativePath, bytes) == null) {
+                ignoredBytes += bytes;
+            }
+        }
+
+        public List<String> getFiles() { return files; }
+        public Map<String, Long> getIgnored() { return ignored; }
+        public int getIgnoredFiles() { return ignored.size(); }
+        public long getIgnoredBytes() { return ignoredBytes; }
+    }
+}
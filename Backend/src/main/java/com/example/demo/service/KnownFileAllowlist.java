@@ -0,0 +1,396 @@
+package com.example.demo.service;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * Digests of files that have been scanned clean often enough to be considered well-known (vendored
+ * libraries, build wrappers). The index file holds a Bloom filter followed by the sorted digests and
+ * is memory-mapped, so a lookup is a few bit tests and, on a Bloom hit, a binary search.
+ */
+@Service
+public class KnownFileAllowlist {
+
+    @Value("${app.security.allowlist.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.security.allowlist.dir:${app.upload.dir:uploads}/allowlist}")
+    private String allowlistDir;
+
+    // Number of separate scans a digest must come out clean in before it is allowlisted
+    @Value("${app.security.allowlist.min-occurrences:3}")
+    private int minOccurrences;
+
+    // Candidate digests recorded before the index is rebuilt automatically
+    @Value("${app.security.allowlist.rebuild-threshold:50000}")
+    private int rebuildThreshold;
+
+    private static final int DIGEST_LENGTH = 20;
+    private static final int MAGIC = 0x474B4631; // "GKF1"
+    // magic, rules fingerprint, entry count, bloom words, bloom hash count
+    private static final int HEADER_SIZE = 4 + 8 + 4 + 4 + 4;
+    private static final int BLOOM_BITS_PER_ENTRY = 10;
+    private static final int BLOOM_HASHES = 7;
+    private static final int CANDIDATES_MAGIC = 0x474B4331; // "GKC1"
+    // magic, rules fingerprint; the digests follow
+    private static final int CANDIDATES_HEADER_SIZE = 4 + 8;
+
+    private static final String INDEX_FILE = "known-files.idx";
+    private static final String CANDIDATES_FILE = "known-files.candidates";
+    private static final String SEED_FILE = "known-files.seed";
+
+    private volatile Table table = Table.EMPTY;
+    private volatile long rulesFingerprint;
+    private final Object writeLock = new Object();
+
+    private final AtomicLong lookups = new AtomicLong();
+    private final AtomicLong bloomRejections = new AtomicLong();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong falsePositives = new AtomicLong();
+
+    /**
+     * Loads the index built for the given scanner rules. An index or candidates file recorded under
+     * different rules is discarded, because a file clean under the old rules proves nothing. Each file
+     * carries its own fingerprint, so stale candidates go even when there is no index yet.
+     */
+    public void open(long rulesFingerprint) {
+        this.rulesFingerprint = rulesFingerprint;
+        if (!enabled) {
+            return;
+        }
+
+        try {
+            Path candidatesPath = Paths.get(allowlistDir, CANDIDATES_FILE);
+            if (Files.exists(candidatesPath) && !candidatesMatch(candidatesPath, rulesFingerprint)) {
+                System.out.println("📋 KNOWN-FILE CANDIDATES recorded under other scanner rules - discarding");
+                Files.delete(candidatesPath);
+            }
+
+            Path indexPath = Paths.get(allowlistDir, INDEX_FILE);
+            if (!Files.exists(indexPath)) {
+                return;
+            }
+
+            Table loaded = Table.map(indexPath);
+            if (loaded.fingerprint != rulesFingerprint) {
+                System.out.println("📋 KNOWN-FILE ALLOWLIST built for other scanner rules - discarding");
+                Files.deleteIfExists(indexPath);
+                return;
+            }
+            table = loaded;
+            System.out.println("📋 KNOWN-FILE ALLOWLIST loaded: " + loaded.count + " digests");
+        } catch (IOException e) {
+            System.err.println("Failed to load known-file allowlist: " + e.getMessage());
+        }
+    }
+
+    // False for a file from before candidates carried a fingerprint, too
+    private static boolean candidatesMatch(Path candidatesPath, long rulesFingerprint) throws IOException {
+        try (FileChannel channel = FileChannel.open(candidatesPath, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(CANDIDATES_HEADER_SIZE);
+            while (header.hasRemaining()) {
+                if (channel.read(header) < 0) {
+                    return false;
+                }
+            }
+            return header.getInt(0) == CANDIDATES_MAGIC && header.getLong(4) == rulesFingerprint;
+        }
+    }
+
+    private ByteBuffer candidatesHeader() {
+        ByteBuffer header = ByteBuffer.allocate(CANDIDATES_HEADER_SIZE);
+        header.putInt(CANDIDATES_MAGIC);
+        header.putLong(rulesFingerprint);
+        return header.flip();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public boolean contains(byte[] digest) {
+        if (!enabled) {
+            return false;
+        }
+        lookups.incrementAndGet();
+
+        Table current = table;
+        if (current.count == 0 || !current.mightContain(digest)) {
+            bloomRejections.incrementAndGet();
+            return false;
+        }
+        if (current.binarySearch(digest)) {
+            hits.incrementAndGet();
+            return true;
+        }
+        falsePositives.incrementAndGet();
+        return false;
+    }
+
+    /**
+     * Records the distinct digests of files that came out of one scan without findings. Once enough
+     * candidates have piled up the index is rebuilt from them.
+     */
+    public void recordCleanFiles(Collection<byte[]> digests) {
+        if (!enabled || digests.isEmpty()) {
+            return;
+        }
+
+        try {
+            long candidateCount;
+            synchronized (writeLock) {
+                Path dir = Paths.get(allowlistDir);
+                Files.createDirectories(dir);
+                ByteBuffer buffer = ByteBuffer.allocate(digests.size() * DIGEST_LENGTH);
+                for (byte[] digest : digests) {
+                    buffer.put(digest);
+                }
+                buffer.flip();
+                try (FileChannel channel = FileChannel.open(dir.resolve(CANDIDATES_FILE),
+                        StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+                    if (channel.size() == 0) {
+                        ByteBuffer header = candidatesHeader();
+                        while (header.hasRemaining()) {
+                            channel.write(header);
+                        }
+                    }
+                    while (buffer.hasRemaining()) {
+                        channel.write(buffer);
+                    }
+                    candidateCount = (channel.size() - CANDIDATES_HEADER_SIZE) / DIGEST_LENGTH;
+                }
+            }
+
+            if (candidateCount >= rebuildThreshold) {
+                rebuild();
+            }
+        } catch (IOException e) {
+            System.err.println("Failed to record known-file candidates: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Promotes candidates seen in at least {@code minOccurrences} scans, plus any hex digests listed in
+     * the seed file, into a fresh index. Candidates below the threshold are kept for the next rebuild.
+     */
+    public Map<String, Object> rebuild() throws IOException {
+        synchronized (writeLock) {
+            Path dir = Paths.get(allowlistDir);
+            Files.createDirectories(dir);
+            Path candidatesPath = dir.resolve(CANDIDATES_FILE);
+
+            Map<ByteBuffer, Integer> counts = new HashMap<>();
+            if (Files.exists(candidatesPath)) {
+                byte[] candidates = Files.readAllBytes(candidatesPath);
+                for (int offset = CANDIDATES_HEADER_SIZE; offset + DIGEST_LENGTH <= candidates.length; offset += DIGEST_LENGTH) {
+                    ByteBuffer key = ByteBuffer.wrap(Arrays.copyOfRange(candidates, offset, offset + DIGEST_LENGTH));
+                    counts.merge(key, 1, Integer::sum);
+                }
+            }
+
+            List<byte[]> known = new ArrayList<>(table.digests());
+            List<byte[]> pending = new ArrayList<>();
+            int promoted = 0;
+            for (Map.Entry<ByteBuffer, Integer> entry : counts.entrySet()) {
+                byte[] digest = entry.getKey().array();
+                if (entry.getValue() >= minOccurrences) {
+                    known.add(digest);
+                    promoted++;
+                } else {
+                    for (int i = 0; i < entry.getValue(); i++) {
+                        pending.add(digest);
+                    }
+                }
+            }
+
+            Path seedPath = dir.resolve(SEED_FILE);
+            if (Files.exists(seedPath)) {
+                for (String line : Files.readAllLines(seedPath)) {
+                    String hex = line.trim();
+                    if (hex.length() == DIGEST_LENGTH * 2 && !hex.startsWith("#")) {
+                        known.add(GitBlobHasher.fromHex(hex));
+                    }
+                }
+            }
+
+            known.sort(Arrays::compareUnsigned);
+            List<byte[]> unique = new ArrayList<>(known.size());
+            for (byte[] digest : known) {
+                if (unique.isEmpty() || !Arrays.equals(unique.get(unique.size() - 1), digest)) {
+                    unique.add(digest);
+                }
+            }
+
+            Path indexPath = dir.resolve(INDEX_FILE);
+            Path tempIndex = dir.resolve(INDEX_FILE + ".tmp");
+            Table.write(tempIndex, unique, rulesFingerprint);
+            Files.move(tempIndex, indexPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            table = Table.map(indexPath);
+
+            Path tempCandidates = dir.resolve(CANDIDATES_FILE + ".tmp");
+            ByteBuffer remaining = ByteBuffer.allocate(CANDIDATES_HEADER_SIZE + pending.size() * DIGEST_LENGTH);
+            remaining.put(candidatesHeader());
+            pending.forEach(remaining::put);
+            Files.write(tempCandidates, remaining.array());
+            Files.move(tempCandidates, candidatesPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+            System.out.println("📋 KNOWN-FILE ALLOWLIST rebuilt: " + unique.size() + " digests (" + promoted + " new)");
+
+            Map<String, Object> result = new HashMap<>();
+            result.put("totalDigests", unique.size());
+            result.put("promoted", promoted);
+            result.put("pendingCandidates", pending.size());
+            return result;
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        long lookupCount = lookups.get();
+        long hitCount = hits.get();
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("knownDigests", table.count);
+        stats.put("lookups", lookupCount);
+        stats.put("hits", hitCount);
+        stats.put("bloomRejections", bloomRejections.get());
+        stats.put("bloomFalsePositives", falsePositives.get());
+        stats.put("hitRate", lookupCount == 0 ? 0.0 : (double) hitCount / lookupCount);
+        return stats;
+    }
+
+    // Immutable view of one index file
+    private static class Table {
+        static final Table EMPTY = new Table(null, 0L, 0, 0, 0);
+
+        private final MappedByteBuffer buffer;
+        private final long fingerprint;
+        private final int count;
+        private final int bloomWords;
+        private final int hashCount;
+
+        private Table(MappedByteBuffer buffer, long fingerprint, int count, int bloomWords, int hashCount) {
+            this.buffer = buffer;
+            this.fingerprint = fingerprint;
+            this.count = count;
+            this.bloomWords = bloomWords;
+            this.hashCount = hashCount;
+        }
+
+        static Table map(Path path) throws IOException {
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+                if (buffer.capacity() < HEADER_SIZE || buffer.getInt(0) != MAGIC) {
+                    throw new IOException("Not a known-file index: " + path);
+                }
+                long fingerprint = buffer.getLong(4);
+                int count = buffer.getInt(12);
+                int bloomWords = buffer.getInt(16);
+                int hashCount = buffer.getInt(20);
+                long expected = HEADER_SIZE + (long) bloomWords * 8 + (long) count * DIGEST_LENGTH;
+                if (buffer.capacity() != expected) {
+                    throw new IOException("Truncated known-file index: " + path);
+                }
+                return new Table(buffer, fingerprint, count, bloomWords, hashCount);
+            }
+        }
+
+        static void write(Path path, List<byte[]> sortedDigests, long fingerprint) throws IOException {
+            int bloomWords = Math.max(1, (sortedDigests.size() * BLOOM_BITS_PER_ENTRY + 63) / 64);
+            long[] bloom = new long[bloomWords];
+            long bloomBits = (long) bloomWords * 64;
+            for (byte[] digest : sortedDigests) {
+                long h1 = ByteBuffer.wrap(digest, 0, 8).getLong();
+                long h2 = ByteBuffer.wrap(digest, 8, 8).getLong();
+                for (int i = 0; i < BLOOM_HASHES; i++) {
+                    long bit = Math.floorMod(h1 + i * h2, bloomBits);
+                    bloom[(int) (bit >>> 6)] |= 1L << (bit & 63);
+                }
+            }
+
+            ByteBuffer out = ByteBuffer.allocate(HEADER_SIZE + bloomWords * 8 + sortedDigests.size() * DIGEST_LENGTH);
+            out.putInt(MAGIC);
+            out.putLong(fingerprint);
+            out.putInt(sortedDigests.size());
+            out.putInt(bloomWords);
+            out.putInt(BLOOM_HASHES);
+            for (long word : bloom) {
+                out.putLong(word);
+            }
+            for (byte[] digest : sortedDigests) {
+                out.put(digest);
+            }
+            Files.write(path, out.array());
+        }
+
+        boolean mightContain(byte[] digest) {
+            // Digests are uniformly distributed already, so their own bytes serve as the two base hashes
+            long h1 = ByteBuffer.wrap(digest, 0, 8).getLong();
+            long h2 = ByteBuffer.wrap(digest, 8, 8).getLong();
+            long bloomBits = (long) bloomWords * 64;
+            for (int i = 0; i < hashCount; i++) {
+                long bit = Math.floorMod(h1 + i * h2, bloomBits);
+                long word = buffer.getLong(HEADER_SIZE + (int) (bit >>> 6) * 8);
+                if ((word & (1L << (bit & 63))) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        boolean binarySearch(byte[] digest) {
+            int digestsStart = HEADER_SIZE + bloomWords * 8;
+            int low = 0;
+            int high = count - 1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                int cmp = compareAt(digestsStart + mid * DIGEST_LENGTH, digest);
+                if (cmp < 0) {
+                    low = mid + 1;
+                } else if (cmp > 0) {
+                    high = mid - 1;
+                } else {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private int compareAt(int offset, byte[] digest) {
+            for (int i = 0; i < DIGEST_LENGTH; i++) {
+                int cmp = Integer.compare(buffer.get(offset + i) & 0xFF, digest[i] & 0xFF);
+                if (cmp != 0) {
+                    return cmp;
+                }
+            }
+            return 0;
+        }
+
+        List<byte[]> digests() {
+            List<byte[]> digests = new ArrayList<>(count);
+            int digestsStart = HEADER_SIZE + bloomWords * 8;
+            for (int i = 0; i < count; i++) {
+                byte[] digest = new byte[DIGEST_LENGTH];
+                buffer.get(digestsStart + i * DIGEST_LENGTH, digest);
+                digests.add(digest);
+            }
+            return digests;
+        }
+    }
+}
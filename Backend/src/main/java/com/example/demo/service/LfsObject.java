@@ -0,0 +1,56 @@
+package com.example.demo.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+// A file stored through Git LFS: the repository only holds a small pointer naming its sha256
+public class LfsObject {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final String oid;
+    private final long size;
+    private final Path file;
+
+    public LfsObject(String oid, long size, Path file) {
+        this.oid = oid;
+        this.size = size;
+        this.file = file;
+    }
+
+    public static LfsObject fromFile(Path file) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+        long size = 0;
+        try (InputStream in = Files.newInputStream(file)) {
+            byte[] buffer = new byte[BUFFER_SIZE];
+            int read;
+            while ((read = in.read(buffer)) > 0) {
+                digest.update(buffer, 0, read);
+                size += read;
+            }
+        }
+        return new LfsObject(HexFormat.of().formatHex(digest.digest()), size, file);
+    }
+
+    // The blob committed in place of the file, as git-lfs writes it
+    public byte[] pointer() {
+        return ("version https://git-lfs.github.com/spec/v1\n" +
+                "oid sha256:" + oid + "\n" +
+                "size " + size + "\n").getBytes(StandardCharsets.UTF_8);
+    }
+
+    public String getOid() { return oid; }
+    public long getSize() { return size; }
+    public Path getFile() { return file; }
+}
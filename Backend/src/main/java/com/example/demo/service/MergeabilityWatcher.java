@@ -0,0 +1,204 @@
+package com.example.demo.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Waits for GitHub to compute whether a pull request can be merged, without holding a thread while
+ * it does. The {@code mergeable} flag is polled on a scheduler with exponential backoff and jitter,
+ * and a {@code pull_request} webhook for the same pull request short-cuts the wait: a known value
+ * completes it at once, an unknown one triggers an immediate poll. The scheduler only keeps time; the
+ * check itself, and whatever the caller chains onto the result, runs on a separate I/O pool.
+ */
+@Service
+public class MergeabilityWatcher {
+
+    @Value("${app.github.merge.first-poll-ms:500}")
+    private long firstPollMillis;
+
+    @Value("${app.github.merge.max-poll-interval-ms:16000}")
+    private long maxPollIntervalMillis;
+
+    @Value("${app.github.merge.timeout-seconds:300}")
+    private long timeoutSeconds;
+
+    @Value("${app.github.merge.io-threads:4}")
+    private int ioThreads;
+
+    private ScheduledThreadPoolExecutor scheduler;
+    // Runs the blocking GitHub calls, so a slow response never delays another pull request's poll
+    private ThreadPoolExecutor ioExecutor;
+    private final Map<String, PendingCheck> pending = new ConcurrentHashMap<>();
+
+    // Returns null while GitHub is still computing
+    @FunctionalInterface
+    public interface MergeableCheck {
+        Boolean check() throws IOException;
+    }
+
+    @PostConstruct
+    public void start() {
+        AtomicInteger threadNumber = new AtomicInteger();
+        scheduler = new ScheduledThreadPoolExecutor(2, runnable -> {
+            Thread thread = new Thread(runnable, "merge-watch-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.setRemoveOnCancelPolicy(true);
+
+        int threads = Math.max(1, ioThreads);
+        AtomicInteger ioThreadNumber = new AtomicInteger();
+        ioExecutor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), runnable -> {
+            Thread thread = new Thread(runnable, "merge-io-" + ioThreadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        ioExecutor.allowCoreThreadTimeOut(true);
+    }
+
+    @PreDestroy
+    public void stop() {
+        scheduler.shutdownNow();
+        ioExecutor.shutdownNow();
+    }
+
+    /**
+     * Completes with the pull request's mergeable flag once GitHub knows it, or exceptionally on
+     * timeout or when the check fails. Dependent stages run on the I/O pool and may block.
+     */
+    public CompletableFuture<Boolean> awaitMergeable(String repoFullName, int pullNumber, MergeableCheck check) {
+        String key = key(repoFullName, pullNumber);
+        PendingCheck added = new PendingCheck(key, check, System.currentTimeMillis() + timeoutSeconds * 1000);
+        PendingCheck existing = pending.putIfAbsent(key, added);
+        if (existing != null) {
+            return existing.result;
+        }
+        added.schedule(firstPollMillis);
+        return added.result;
+    }
+
+    // From the webhook receiver; mergeable is null when the payload does not know yet
+    public void onPullRequestEvent(String repoFullName, int pullNumber, Boolean mergeable) {
+        PendingCheck check = pending.get(key(repoFullName, pullNumber));
+        if (check == null) {
+            return;
+        }
+        if (mergeable != null) {
+            check.complete(mergeable);
+        } else {
+            check.schedule(0);
+        }
+    }
+
+    private static String key(String repoFullName, int pullNumber) {
+        return repoFullName.toLowerCase() + "#" + pullNumber;
+    }
+
+    private class PendingCheck {
+        private final String key;
+        private final MergeableCheck check;
+        private final long deadline;
+        private final CompletableFuture<Boolean> result = new CompletableFuture<>();
+        private int attempts;
+        private ScheduledFuture<?> nextPoll;
+        private boolean checking;
+
+        PendingCheck(String key, MergeableCheck check, long deadline) {
+            this.key = key;
+            this.check = check;
+            this.deadline = deadline;
+        }
+
+        // Replaces any poll already scheduled
+        synchronized void schedule(long delayMillis) {
+            if (result.isDone()) {
+                return;
+            }
+            if (nextPoll != null) {
+                nextPoll.cancel(false);
+            }
+            nextPoll = scheduler.schedule(this::poll, delayMillis, TimeUnit.MILLISECONDS);
+        }
+
+        // On the scheduler: hands the check to the I/O pool; a poll due while one is in flight is dropped
+        private void poll() {
+            synchronized (this) {
+                if (result.isDone() || checking) {
+                    return;
+                }
+                checking = true;
+            }
+            CompletableFuture.supplyAsync(() -> {
+                try {
+                    return check.check();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }, ioExecutor).whenComplete(this::checked);
+        }
+
+        // On the I/O pool, with the answer to one check
+        private void checked(Boolean mergeable, Throwable error) {
+            synchronized (this) {
+                checking = false;
+            }
+            if (error != null) {
+                Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+                fail(cause instanceof UncheckedIOException ? cause.getCause() : cause);
+                return;
+            }
+            if (mergeable != null) {
+                complete(mergeable);
+                return;
+            }
+            long now = System.currentTimeMillis();
+            if (now >= deadline) {
+                fail(new TimeoutException("GitHub did not compute mergeability of " + key + " within " + timeoutSeconds + "s"));
+                return;
+            }
+            // Exponential, with jitter so pull requests opened together are not polled together
+            long ceiling = Math.min(maxPollIntervalMillis, firstPollMillis << Math.min(++attempts, 20));
+            long delay = ceiling / 2 + ThreadLocalRandom.current().nextLong(ceiling / 2 + 1);
+            schedule(Math.min(delay, deadline - now));
+        }
+
+        // Completed on the I/O pool, so neither a webhook request nor the scheduler runs the merge itself
+        void complete(boolean mergeable) {
+            if (pending.remove(key, this)) {
+                cancelPoll();
+                ioExecutor.execute(() -> result.complete(mergeable));
+            }
+        }
+
+        void fail(Throwable error) {
+            if (pending.remove(key, this)) {
+                cancelPoll();
+                ioExecutor.execute(() -> result.completeExceptionally(error));
+            }
+        }
+
+        private synchronized void cancelPoll() {
+            if (nextPoll != null) {
+                nextPoll.cancel(false);
+            }
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package com.example.demo.service;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * One stage of the upload pipeline: a fixed number of threads and a bounded number of waiting jobs.
+ * A job handed on from the previous stage waits for room, so a saturated stage holds up the stages
+ * before it; a new job is admitted only if the first stage has room, and refused otherwise.
+ *
+ * A virtual stage has no threads of its own. Each job runs on its own virtual thread and calls
+ * {@link #run} for this step, which only limits how many jobs are in the step at once.
+ */
+public class PipelineStage {
+
+    private final String name;
+    private final int threads;
+    private final int queueCapacity;
+    // Running plus queued (only running, for a virtual stage); bounds the stage independently of the executor's queue
+    private final Semaphore slots;
+    // Null for a virtual stage
+    private final ThreadPoolExecutor executor;
+
+    private final AtomicLong completed = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong waitNanos = new AtomicLong();
+    private final AtomicLong busyNanos = new AtomicLong();
+
+    public PipelineStage(String name, int threads, int queueCapacity) {
+        this(name, threads, queueCapacity, false);
+    }
+
+    // A virtual stage lets at most {@code threads} jobs run the step at once and ignores queueCapacity
+    public PipelineStage(String name, int threads, int queueCapacity, boolean virtual) {
+        this.name = name;
+        this.threads = Math.max(1, threads);
+        this.queueCapacity = virtual ? 0 : Math.max(1, queueCapacity);
+        this.slots = new Semaphore(this.threads + this.queueCapacity, true);
+        if (virtual) {
+            this.executor = null;
+            return;
+        }
+        AtomicInteger threadNumber = new AtomicInteger();
+        // Sized for every slot, as a finished task frees its slot just before its worker polls the queue again
+        this.executor = new ThreadPoolExecutor(this.threads, this.threads, 60, TimeUnit.SECONDS,
+            new ArrayBlockingQueue<>(this.threads + this.queueCapacity),
+            runnable -> {
+                Thread thread = new Thread(runnable, "pipeline-" + name + "-" + threadNumber.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+    }
+
+    // Waits for a slot; used to hand a job on from the previous stage
+    public void submit(Runnable task) throws InterruptedException {
+        long start = System.nanoTime();
+        slots.acquire();
+        waitNanos.addAndGet(System.nanoTime() - start);
+        execute(task);
+    }
+
+    // False, without waiting, when the stage is full; used to admit new jobs
+    public boolean tryAdmit(Runnable task) {
+        if (!slots.tryAcquire()) {
+            rejected.incrementAndGet();
+            return false;
+        }
+        execute(task);
+        return true;
+    }
+
+    public boolean hasRoom() {
+        return slots.availablePermits() > 0;
+    }
+
+    @FunctionalInterface
+    public interface Step {
+        void run() throws Exception;
+    }
+
+    // Virtual stages: runs the step on the calling thread once fewer than threads jobs are in it
+    public void run(Step step) throws Exception {
+        long queuedAt = System.nanoTime();
+        slots.acquire();
+        long start = System.nanoTime();
+        waitNanos.addAndGet(start - queuedAt);
+        try {
+            step.run();
+        } finally {
+            busyNanos.addAndGet(System.nanoTime() - start);
+            completed.incrementAndGet();
+            slots.release();
+        }
+    }
+
+    public void shutdown() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    // threads, running, queued, completed, rejected admissions, total time waited for a slot and spent working
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("threads", threads);
+        stats.put("queueCapacity", queueCapacity);
+        stats.put("virtual", executor == null);
+        stats.put("running", executor == null ? threads - slots.availablePermits() : executor.getActiveCount());
+        stats.put("queued", executor == null ? slots.getQueueLength() : executor.getQueue().size());
+        stats.put("completed", completed.get());
+        stats.put("rejected", rejected.get());
+        stats.put("waitMillis", waitNanos.get() / 1_000_000);
+        stats.put("busyMillis", busyNanos.get() / 1_000_000);
+        return stats;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    private void execute(Runnable task) {
+        try {
+            executor.execute(() -> {
+                long start = System.nanoTime();
+                try {
+                    task.run();
+                } finally {
+                    busyNanos.addAndGet(System.nanoTime() - start);
+                    completed.incrementAndGet();
+                    slots.release();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // Only after shutdown
+            slots.release();
+            throw e;
+        }
+    }
+}
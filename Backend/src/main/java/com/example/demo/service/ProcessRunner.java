@@ -0,0 +1,333 @@
+package com.example.demo.service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Runs external commands (git, unrar, cp) for every service. stdout and stderr are drained on pooled
+ * threads while the command runs, so a chatty process can never fill its pipe and stall; each run
+ * has a timeout after which the whole process tree is killed; exit codes and durations are logged
+ * and totalled per executable.
+ */
+@Service
+public class ProcessRunner {
+
+    @Value("${app.process.default-timeout-seconds:300}")
+    private long defaultTimeoutSeconds;
+
+    // Where the git repository template is kept; created on startup
+    @Value("${app.git.template-dir:${java.io.tmpdir}/gitgenei-git-template}")
+    private String gitTemplateDir;
+
+    // Drain output on virtual threads instead of pooled platform threads
+    @Value("${app.threads.virtual:false}")
+    private boolean virtualThreads;
+
+    // Bytes of output kept per stream for error messages; everything else is only streamed to listeners
+    private static final int MAX_CAPTURED_OUTPUT = 64 * 1024;
+
+    private static final String GIT_USER_NAME = "GitGenei AI";
+    private static final String GIT_USER_EMAIL = "gitgenei@ai.com";
+
+    private ExecutorService drainExecutor;
+    private final Map<String, CommandStats> statsByCommand = new ConcurrentHashMap<>();
+
+    public enum Channel {
+        STDOUT,
+        STDERR
+    }
+
+    // Called from the drain threads, one line at a time; '\r' ends a line as well, for progress output
+    @FunctionalInterface
+    public interface OutputListener {
+        void onLine(Channel channel, String line);
+    }
+
+    @PostConstruct
+    public void start() throws IOException {
+        if (virtualThreads) {
+            drainExecutor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("process-drain-", 1).factory());
+            createGitTemplate();
+            return;
+        }
+        AtomicInteger threadNumber = new AtomicInteger();
+        // Two threads per running process; the number of processes is bounded by the pipeline threads
+        drainExecutor = new ThreadPoolExecutor(0, Integer.MAX_VALUE, 60, TimeUnit.SECONDS,
+            new SynchronousQueue<>(),
+            runnable -> {
+                Thread thread = new Thread(runnable, "process-drain-" + threadNumber.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        createGitTemplate();
+    }
+
+    @PreDestroy
+    public void stop() {
+        drainExecutor.shutdownNow();
+    }
+
+    public Duration getDefaultTimeout() {
+        return Duration.ofSeconds(defaultTimeoutSeconds);
+    }
+
+    /**
+     * Repositories created with {@code git init --template=<this>} already carry the commit identity,
+     * so no {@code git config} calls are needed afterwards.
+     */
+    public Path getGitTemplateDir() {
+        return Paths.get(gitTemplateDir);
+    }
+
+    public ProcessResult run(List<String> command, Path workingDir) throws IOException {
+        return run(command, workingDir, getDefaultTimeout(), null);
+    }
+
+    public ProcessResult run(List<String> command, Path workingDir, Duration timeout) throws IOException {
+        return run(command, workingDir, timeout, null);
+    }
+
+    /**
+     * Runs {@code command} and waits for it. A timed-out process is killed together with its
+     * descendants and reported with {@link ProcessResult#isTimedOut()}. Failing to start, or being
+     * interrupted while waiting (which also kills the process), is an IOException.
+     */
+    public ProcessResult run(List<String> command, Path workingDir, Duration timeout, OutputListener listener) throws IOException {
+        ProcessBuilder pb = new ProcessBuilder(command);
+        if (workingDir != null) {
+            pb.directory(workingDir.toFile());
+        }
+        // Never sit waiting for credentials on a terminal nobody is watching
+        pb.environment().put("GIT_TERMINAL_PROMPT", "0");
+
+        long startTime = System.nanoTime();
+        Process process = pb.start();
+        // Nothing is ever written to a command's stdin
+        process.getOutputStream().close();
+
+        Future<byte[]> stdout = drainExecutor.submit(() -> drain(process.getInputStream(), Channel.STDOUT, listener));
+        Future<byte[]> stderr = drainExecutor.submit(() -> drain(process.getErrorStream(), Channel.STDERR, listener));
+
+        boolean timedOut = false;
+        try {
+            if (!awaitExit(process, timeout.toMillis())) {
+                timedOut = true;
+                killTree(process);
+                awaitExit(process, 5000);
+            }
+        } catch (InterruptedException e) {
+            killTree(process);
+            Thread.currentThread().interrupt();
+            throw new IOException(describe(command) + " interrupted", e);
+        }
+
+        String output = collect(stdout);
+        String errorOutput = collect(stderr);
+        long durationMillis = (System.nanoTime() - startTime) / 1_000_000;
+        int exitCode = timedOut ? -1 : process.exitValue();
+
+        ProcessResult result = new ProcessResult(exitCode, timedOut, durationMillis, output, errorOutput);
+        record(command, result);
+        if (timedOut) {
+            System.err.println("⏱️ " + describe(command) + " timed out after " + timeout.toSeconds() + "s and was killed");
+        } else if (exitCode != 0) {
+            System.err.println("⚠️ " + describe(command) + " exited with " + exitCode + " after " + durationMillis + "ms");
+        }
+        return result;
+    }
+
+    // Parks on onExit() instead of Process.waitFor, whose monitor wait would pin a virtual thread's carrier
+    private static boolean awaitExit(Process process, long timeoutMillis) throws InterruptedException {
+        try {
+            process.onExit().get(timeoutMillis, TimeUnit.MILLISECONDS);
+            return true;
+        } catch (TimeoutException e) {
+            return false;
+        } catch (ExecutionException e) {
+            return !process.isAlive();
+        }
+    }
+
+    // Per executable: runs, failures (non-zero or timed out), timeouts and total milliseconds
+    public Map<String, Map<String, Long>> getStats() {
+        Map<String, Map<String, Long>> stats = new HashMap<>();
+        statsByCommand.forEach((name, commandStats) -> stats.put(name, commandStats.toMap()));
+        return stats;
+    }
+
+    private byte[] drain(InputStream in, Channel channel, OutputListener listener) throws IOException {
+        ByteArrayOutputStream captured = new ByteArrayOutputStream();
+        ByteArrayOutputStream line = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        try (InputStream stream = in) {
+            int read;
+            while ((read = stream.read(buffer)) > 0) {
+                captured.write(buffer, 0, read);
+                if (captured.size() > 2 * MAX_CAPTURED_OUTPUT) {
+                    // Keep the tail: that is where errors are reported
+                    byte[] tail = captured.toByteArray();
+                    captured.reset();
+                    captured.write(tail, tail.length - MAX_CAPTURED_OUTPUT, MAX_CAPTURED_OUTPUT);
+                }
+                if (listener == null) {
+                    continue;
+                }
+                for (int i = 0; i < read; i++) {
+                    byte b = buffer[i];
+                    if (b == '\n' || b == '\r') {
+                        if (line.size() > 0) {
+                            notify(listener, channel, line.toString(StandardCharsets.UTF_8));
+                            line.reset();
+                        }
+                    } else if (line.size() < MAX_CAPTURED_OUTPUT) {
+                        line.write(b);
+                    }
+                }
+            }
+        }
+        if (listener != null && line.size() > 0) {
+            notify(listener, channel, line.toString(StandardCharsets.UTF_8));
+        }
+        byte[] output = captured.toByteArray();
+        return output.length <= MAX_CAPTURED_OUTPUT ? output
+            : Arrays.copyOfRange(output, output.length - MAX_CAPTURED_OUTPUT, output.length);
+    }
+
+    private void notify(OutputListener listener, Channel channel, String line) {
+        try {
+            listener.onLine(channel, line);
+        } catch (RuntimeException e) {
+            // A broken listener must not stop the draining, or the process would block
+            System.err.println("Process output listener failed: " + e.getMessage());
+        }
+    }
+
+    private String collect(Future<byte[]> output) {
+        try {
+            // The streams close when the process (and anything holding its pipes) exits
+            return new String(output.get(10, TimeUnit.SECONDS), StandardCharsets.UTF_8);
+        } catch (TimeoutException e) {
+            output.cancel(true);
+            return "";
+        } catch (ExecutionException e) {
+            return "";
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return "";
+        }
+    }
+
+    private void killTree(Process process) {
+        process.descendants().forEach(ProcessHandle::destroyForcibly);
+        process.destroyForcibly();
+    }
+
+    private void record(List<String> command, ProcessResult result) {
+        statsByCommand.computeIfAbsent(describe(command), key -> new CommandStats()).record(result);
+    }
+
+    // "git push" and "git init" are worth telling apart; other arguments are left out as they may hold tokens
+    private String describe(List<String> command) {
+        String name = Paths.get(command.get(0)).getFileName().toString();
+        return "git".equals(name) && command.size() > 1 ? "git " + command.get(1) : name;
+    }
+
+    private void createGitTemplate() throws IOException {
+        Path templateDir = getGitTemplateDir();
+        Files.createDirectories(templateDir);
+        // Copied into every new repository as its initial .git/config; no sample hooks are copied
+        Files.writeString(templateDir.resolve("config"),
+            "[user]\n\tname = " + GIT_USER_NAME + "\n\temail = " + GIT_USER_EMAIL + "\n");
+    }
+
+    public static class ProcessResult {
+        private final int exitCode;
+        private final boolean timedOut;
+        private final long durationMillis;
+        private final String output;
+        private final String errorOutput;
+
+        ProcessResult(int exitCode, boolean timedOut, long durationMillis, String output, String errorOutput) {
+            this.exitCode = exitCode;
+            this.timedOut = timedOut;
+            this.durationMillis = durationMillis;
+            this.output = output;
+            this.errorOutput = errorOutput;
+        }
+
+        public boolean isSuccess() { return exitCode == 0 && !timedOut; }
+        public int getExitCode() { return exitCode; }
+        public boolean isTimedOut() { return timedOut; }
+        public long getDurationMillis() { return durationMillis; }
+        // The last 64KB of each stream
+        public String getOutput() { return output; }
+        public String getErrorOutput() { return errorOutput; }
+
+        // Short reason for error messages
+        public String describeFailure() {
+            if (timedOut) {
+                return "timed out after " + durationMillis + "ms";
+            }
+            String detail = errorOutput.isBlank() ? output : errorOutput;
+            detail = detail.strip();
+            if (detail.length() > 500) {
+                detail = detail.substring(detail.length() - 500);
+            }
+            return "exit code " + exitCode + (detail.isEmpty() ? "" : ": " + detail);
+        }
+    }
+
+    private static class CommandStats {
+        private final AtomicLong runs = new AtomicLong();
+        private final AtomicLong failures = new AtomicLong();
+        private final AtomicLong timeouts = new AtomicLong();
+        private final AtomicLong totalMillis = new AtomicLong();
+
+        void record(ProcessResult result) {
+            runs.incrementAndGet();
+            if (!result.isSuccess()) {
+                failures.incrementAndGet();
+            }
+            if (result.isTimedOut()) {
+                timeouts.incrementAndGet();
+            }
+            totalMillis.addAndGet(result.getDurationMillis());
+        }
+
+        Map<String, Long> toMap() {
+            Map<String, Long> map = new HashMap<>();
+            map.put("runs", runs.get());
+            map.put("failures", failures.get());
+            map.put("timeouts", timeouts.get());
+            map.put("totalMillis", totalMillis.get());
+            return map;
+        }
+    }
+}
@@ -0,0 +1,359 @@
+package com.example.demo.service;
+
+import com.example.demo.entity.ProcessingJob;
+import com.example.demo.entity.ProcessingJob.JobStatus;
+import com.example.demo.entity.UploadedProject;
+import com.example.demo.entity.UploadedProject.ProjectStatus;
+import com.example.demo.repository.ProcessingJobRepository;
+import com.example.demo.repository.UploadedProjectRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+import java.lang.management.ManagementFactory;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Analysis jobs kept in the processing_jobs table, so they survive a restart and any number of nodes
+ * can work the same queue. A worker claims due jobs with SELECT ... FOR UPDATE SKIP LOCKED, which
+ * lets nodes poll concurrently without handing the same job to two of them, and takes a lease that
+ * it renews on a heartbeat while the job runs in the local pipeline.
+ *
+ * A node that dies stops renewing; once the lease expires the job is due again and the next poll on
+ * any node re-claims it. Each claim counts as an attempt, and a job that has used up its attempts is
+ * failed rather than left in ANALYZING. A node that stalled past its lease stops its copy of the job
+ * when the next heartbeat finds the lease gone, and never publishes without renewing the lease first.
+ */
+@Service
+public class ProcessingJobQueue {
+
+    // Off: jobs go straight to this node's pipeline and are lost on restart
+    @Value("${app.jobs.durable:true}")
+    private boolean durable;
+
+    // False on nodes that only accept uploads
+    @Value("${app.jobs.worker-enabled:true}")
+    private boolean workerEnabled;
+
+    @Value("${app.jobs.node-id:}")
+    private String configuredNodeId;
+
+    @Value("${app.jobs.lease-seconds:120}")
+    private long leaseSeconds;
+
+    @Value("${app.jobs.max-attempts:3}")
+    private int maxAttempts;
+
+    @Value("${app.jobs.claim-batch:8}")
+    private int claimBatch;
+
+    // Jobs this node runs at once; the pipeline's own limits still apply
+    @Value("${app.jobs.max-local-jobs:16}")
+    private int maxLocalJobs;
+
+    // Uploads are refused while this many jobs are waiting
+    @Value("${app.jobs.max-queued:1000}")
+    private long maxQueued;
+
+    @Autowired
+    private ProcessingJobRepository processingJobRepository;
+
+    @Autowired
+    private UploadedProjectRepository uploadedProjectRepository;
+
+    @Autowired
+    private ProjectUploadService projectUploadService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private String nodeId;
+    // The jobs this node holds a lease on, by job id
+    private final Map<Long, LocalJob> localJobs = new ConcurrentHashMap<>();
+    private volatile boolean stopping;
+
+    @PostConstruct
+    public void start() {
+        nodeId = configuredNodeId != null && !configuredNodeId.isBlank()
+            ? configuredNodeId
+            : ManagementFactory.getRuntimeMXBean().getName() + "-" + UUID.randomUUID().toString().substring(0, 8);
+        if (durable) {
+            System.out.println("🗄️ JOB QUEUE: durable, node " + nodeId + (workerEnabled ? "" : " (not a worker)"));
+        }
+    }
+
+    // Hands this node's jobs back to the queue so other nodes need not wait for the leases to expire
+    @PreDestroy
+    public void stop() {
+        stopping = true;
+        if (!durable || localJobs.isEmpty()) {
+            return;
+        }
+        try {
+            Integer released = transactionTemplate.execute(status -> processingJobRepository.releaseAll(nodeId));
+            System.out.println("🗄️ JOB QUEUE: released " + released + " jobs on shutdown");
+        } catch (RuntimeException e) {
+            System.err.println("Failed to release jobs on shutdown, they will be re-claimed when their leases expire: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Queues the analysis of an uploaded project. Without the durable queue the job goes straight to
+     * this node's pipeline, which throws RejectedExecutionException when full. Starting a project
+     * that is already queued or running does nothing; a finished one is queued again.
+     */
+    public void enqueue(String fileId, String userId, String pushBackend) {
+        if (!durable) {
+            projectUploadService.startProjectAnalysis(fileId, userId, pushBackend);
+            return;
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                ProcessingJob job = processingJobRepository.findByFileId(fileId).orElse(null);
+                if (job == null) {
+                    processingJobRepository.save(new ProcessingJob(fileId, userId, pushBackend));
+                } else if (job.getStatus() == JobStatus.COMPLETED || job.getStatus() == JobStatus.FAILED) {
+                    job.setUserId(userId);
+                    job.setPushBackend(pushBackend);
+                    job.setStatus(JobStatus.QUEUED);
+                    job.setAttempts(0);
+                    job.setAvailableAt(LocalDateTime.now());
+                    job.setStartedAt(null);
+                    job.setFinishedAt(null);
+                    job.setLastError(null);
+                }
+            });
+        } catch (DataIntegrityViolationException e) {
+            // Another request inserted the job between the lookup and the insert (file_id is unique), so it is queued already
+            if (processingJobRepository.findByFileId(fileId).isEmpty()) {
+                throw e;
+            }
+        }
+        System.out.println("🗄️ JOB QUEUE: queued fileId " + fileId);
+    }
+
+    // False while an upload would only add to a backlog that is already too long
+    public boolean isAcceptingJobs() {
+        if (!durable) {
+            return projectUploadService.isAcceptingJobs();
+        }
+        return processingJobRepository.countByStatus(JobStatus.QUEUED) < maxQueued;
+    }
+
+    // Claims as many due jobs as this node has room for and starts them
+    @Scheduled(initialDelayString = "${app.jobs.poll-interval-ms:2000}", fixedDelayString = "${app.jobs.poll-interval-ms:2000}")
+    public void poll() {
+        if (!durable || !workerEnabled || stopping) {
+            return;
+        }
+        try {
+            while (!stopping && projectUploadService.isAcceptingJobs()) {
+                int room = Math.min(claimBatch, maxLocalJobs - localJobs.size());
+                if (room <= 0) {
+                    return;
+                }
+                List<ProcessingJob> claimed = claim(room);
+                for (int i = 0; i < claimed.size(); i++) {
+                    if (!run(claimed.get(i))) {
+                        // The pipeline filled up between the check and the claim; the rest go back too, not as attempts
+                        claimed.subList(i + 1, claimed.size()).forEach(this::release);
+                        return;
+                    }
+                }
+                if (claimed.size() < room) {
+                    return;
+                }
+            }
+        } catch (RuntimeException e) {
+            System.err.println("Job queue poll failed: " + e.getMessage());
+        }
+    }
+
+    // Renews the lease on every job this node is still running, and stops any whose lease is gone
+    @Scheduled(fixedDelayString = "${app.jobs.heartbeat-interval-ms:30000}")
+    public void heartbeat() {
+        if (!durable || localJobs.isEmpty()) {
+            return;
+        }
+        for (Long id : localJobs.keySet()) {
+            try {
+                if (!renewLease(id)) {
+                    // Expired while this node was stalled and another node has it now
+                    LocalJob local = localJobs.remove(id);
+                    if (local != null) {
+                        System.err.println("Lost the lease on job " + id + " (fileId " + local.fileId + "), stopping it");
+                        local.stop();
+                    }
+                }
+            } catch (RuntimeException e) {
+                System.err.println("Failed to renew the lease on job " + id + ": " + e.getMessage());
+            }
+        }
+    }
+
+    // Queue depth and this node's share of it
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("durable", durable);
+        if (durable) {
+            stats.put("nodeId", nodeId);
+            stats.put("worker", workerEnabled);
+            stats.put("queued", processingJobRepository.countByStatus(JobStatus.QUEUED));
+            stats.put("running", processingJobRepository.countByStatus(JobStatus.RUNNING));
+            stats.put("runningHere", localJobs.size());
+        }
+        return stats;
+    }
+
+    // Locks up to limit due jobs, skipping any another node has locked, and leases them to this node
+    private List<ProcessingJob> claim(int limit) {
+        List<ProcessingJob> claimed = transactionTemplate.execute(status -> {
+            LocalDateTime now = LocalDateTime.now();
+            List<ProcessingJob> jobs = processingJobRepository.lockClaimable(now, limit);
+            for (ProcessingJob job : jobs) {
+                if (job.getStatus() == JobStatus.RUNNING) {
+                    System.out.println("🗄️ JOB QUEUE: re-claiming job " + job.getId() + " from " + job.getLeaseOwner() + ", lease expired");
+                }
+                if (job.getAttempts() >= maxAttempts) {
+                    giveUp(job, now);
+                    continue;
+                }
+                job.setStatus(JobStatus.RUNNING);
+                job.setAttempts(job.getAttempts() + 1);
+                job.setLeaseOwner(nodeId);
+                job.setLeaseExpiresAt(now.plusSeconds(leaseSeconds));
+                job.setHeartbeatAt(now);
+                job.setStartedAt(now);
+            }
+            return jobs.stream().filter(job -> job.getStatus() == JobStatus.RUNNING).toList();
+        });
+        return claimed == null ? List.of() : claimed;
+    }
+
+    private void giveUp(ProcessingJob job, LocalDateTime now) {
+        String error = "Processing was interrupted " + job.getAttempts() + " times";
+        job.setStatus(JobStatus.FAILED);
+        job.setLeaseOwner(null);
+        job.setLeaseExpiresAt(null);
+        job.setFinishedAt(now);
+        job.setLastError(error);
+        uploadedProjectRepository.findByFileId(job.getFileId()).ifPresent(project -> {
+            project.setStatus(ProjectStatus.FAILED);
+            project.setErrorMessage(error);
+        });
+        System.err.println("Giving up on job " + job.getId() + " (fileId " + job.getFileId() + "): " + error);
+    }
+
+    // False when the pipeline refused the job, which goes back to the queue
+    private boolean run(ProcessingJob job) {
+        LocalJob local = new LocalJob(job.getFileId());
+        localJobs.put(job.getId(), local);
+        try {
+            local.done = projectUploadService.startProjectAnalysis(job.getFileId(), job.getUserId(), job.getPushBackend(),
+                () -> mayPublish(job));
+            local.done.whenComplete((result, error) -> finish(job, error));
+            if (!localJobs.containsKey(job.getId())) {
+                // The heartbeat lost the lease before the future was set
+                local.stop();
+            }
+            return true;
+        } catch (RejectedExecutionException e) {
+            localJobs.remove(job.getId());
+            release(job);
+            return false;
+        }
+    }
+
+    // 0 rows when the lease has been lost to another node
+    private boolean renewLease(Long id) {
+        LocalDateTime now = LocalDateTime.now();
+        Integer renewed = transactionTemplate.execute(status ->
+            processingJobRepository.renewLease(id, nodeId, now.plusSeconds(leaseSeconds), now));
+        return renewed != null && renewed > 0;
+    }
+
+    // Asked by the pipeline before it publishes; renewing also gives the push a full lease
+    private boolean mayPublish(ProcessingJob job) {
+        try {
+            if (localJobs.containsKey(job.getId()) && renewLease(job.getId())) {
+                return true;
+            }
+            System.err.println("Not publishing job " + job.getId() + " (fileId " + job.getFileId() + "): the lease is gone");
+        } catch (RuntimeException e) {
+            // Unconfirmed counts as lost; the lease runs out and the job is re-claimed
+            System.err.println("Not publishing job " + job.getId() + ", failed to renew its lease: " + e.getMessage());
+        }
+        return false;
+    }
+
+    private void release(ProcessingJob job) {
+        transactionTemplate.execute(status -> processingJobRepository.release(job.getId(), nodeId));
+    }
+
+    // The pipeline has recorded the outcome on the project; the job mirrors it
+    private void finish(ProcessingJob job, Throwable error) {
+        if (localJobs.remove(job.getId()) == null) {
+            return;
+        }
+        if (error instanceof CancellationException) {
+            // Stopped before publishing because the lease could not be renewed; whoever holds it next runs the job
+            return;
+        }
+        String message = error != null ? error.getMessage() : null;
+        JobStatus outcome = JobStatus.FAILED;
+        if (error == null) {
+            UploadedProject project = uploadedProjectRepository.findByFileId(job.getFileId()).orElse(null);
+            if (project != null && project.getStatus() == ProjectStatus.COMPLETED) {
+                outcome = JobStatus.COMPLETED;
+            } else if (project != null) {
+                message = project.getErrorMessage();
+            }
+        }
+        JobStatus status = outcome;
+        String lastError = message;
+        try {
+            Integer recorded = transactionTemplate.execute(tx ->
+                processingJobRepository.finish(job.getId(), nodeId, status, lastError, LocalDateTime.now()));
+            if (recorded != null && recorded > 0) {
+                System.out.println("🗄️ JOB QUEUE: job " + job.getId() + " " + status);
+            } else {
+                System.err.println("Lost the lease on job " + job.getId() + " before it finished; its outcome was not recorded");
+            }
+        } catch (RuntimeException e) {
+            // The lease runs out and another node re-runs the job
+            System.err.println("Failed to record the outcome of job " + job.getId() + ": " + e.getMessage());
+        }
+    }
+
+    private static class LocalJob {
+        private final String fileId;
+        // Set once the pipeline has accepted the job
+        private volatile CompletableFuture<Void> done;
+
+        LocalJob(String fileId) {
+            this.fileId = fileId;
+        }
+
+        // The pipeline stops the job before its next step and leaves the project to the new owner
+        void stop() {
+            CompletableFuture<Void> future = done;
+            if (future != null) {
+                future.cancel(false);
+            }
+        }
+    }
+}
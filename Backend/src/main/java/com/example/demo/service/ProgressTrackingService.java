@@ -233,7 +233,15 @@ public class ProgressTrackingService {
     }
 
     public void updateGitHubProgress(String fileId, String userId, int percentage, String action, String repoUrl) {
+        updateGitHubProgress(fileId, userId, percentage, action, repoUrl, null);
+    }
+
+    // details carries push phase, object counts, bytesPerSecond and etaSeconds when known
+    public void updateGitHubProgress(String fileId, String userId, int percentage, String action, String repoUrl, Map<String, Object> details) {
         Map<String, Object> data = new HashMap<>();
+        if (details != null) {
+            data.putAll(details);
+        }
         data.put("action", action);
         data.put("repoUrl", repoUrl);
         
@@ -0,0 +1,110 @@
+package com.example.demo.service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.example.demo.service.FileTypeClassifier.FileKind;
+
+// Per-project cache of facts learned about extracted files, keyed by path relative to the project root
+public class ProjectFileIndex {
+
+    private final Path rootPath;
+    private final FileTypeClassifier classifier;
+    private final Map<String, FileEntry> entries = new ConcurrentHashMap<>();
+
+    public ProjectFileIndex(Path rootPath, FileTypeClassifier classifier) {
+        this.rootPath = rootPath;
+        this.classifier = classifier;
+    }
+
+    public Path getRootPath() {
+        return rootPath;
+    }
+
+    public FileEntry getEntry(Path file) throws IOException {
+        String relativePath = relativize(file);
+        BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+        long size = attributes.size();
+        long lastModified = attributes.lastModifiedTime().toMillis();
+
+        FileEntry entry = entries.get(relativePath);
+        if (entry == null || entry.size != size || entry.lastModified != lastModified) {
+            // New or changed on disk since it was indexed - start over
+            entry = new FileEntry(relativePath, size, lastModified);
+            entries.put(relativePath, entry);
+        }
+        return entry;
+    }
+
+    public FileKind getFileKind(Path file) throws IOException {
+        FileEntry entry = getEntry(file);
+        FileKind kind = entry.kind;
+        if (kind == null) {
+            kind = classifier.classify(file);
+            entry.kind = kind;
+        }
+        return kind;
+    }
+
+    // Git blob id of the file content, hashed on first use and reused by every later stage
+    public byte[] getBlobId(Path file) throws IOException {
+        FileEntry entry = getEntry(file);
+        byte[] blobId = entry.blobId;
+        if (blobId == null) {
+            blobId = GitBlobHasher.hashFile(file);
+            entry.blobId = blobId;
+        }
+        return blobId;
+    }
+
+    /**
+     * Records what the extractor learned while writing a file, so neither the kind nor the blob id
+     * has to be computed from disk later. Call after the file is closed and its timestamps are set.
+     */
+    public void recordExtractedFile(Path file, byte[] blobId, byte[] sample, int sampleLength) throws IOException {
+        FileEntry entry = getEntry(file);
+        entry.blobId = blobId;
+        entry.kind = classifier.classify(sample, sampleLength);
+    }
+
+    public boolean isTextFile(Path file) {
+        try {
+            return getFileKind(file) == FileKind.TEXT;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public String relativize(Path file) {
+        Path absolute = file.toAbsolutePath().normalize();
+        return absolute.startsWith(rootPath) ? rootPath.relativize(absolute).toString() : absolute.toString();
+    }
+
+    public static class FileEntry {
+        private final String relativePath;
+        private final long size;
+        private final long lastModified;
+        private volatile FileKind kind;
+        private volatile byte[] blobId;
+
+        FileEntry(String relativePath, long size, long lastModified) {
+            this.relativePath = relativePath;
+            this.size = size;
+            this.lastModified = lastModified;
+        }
+
+        public String getRelativePath() { return relativePath; }
+        public long getSize() { return size; }
+        public long getLastModified() { return lastModified; }
+        public FileKind getKind() { return kind; }
+        public byte[] getBlobId() { return blobId; }
+    }
+}
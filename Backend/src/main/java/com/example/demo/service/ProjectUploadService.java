@@ -1,19 +1,31 @@
 package com.example.demo.service;
 
+import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.function.BooleanSupplier;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
@@ -22,9 +34,26 @@ import com.example.demo.entity.UploadedProject.ProjectStatus;
 import com.example.demo.repository.UploadedProjectRepository;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
 @Service
 public class ProjectUploadService {
 
+    // System files and folders removed from ZIP uploads; each matches whole path segments
+    private static final String[] SYSTEM_PATTERNS = {
+        "__MACOSX",
+        ".DS_Store",
+        "Thumbs.db",
+        "desktop.ini",
+        ".git",
+        ".svn",
+        ".hg",
+        "node_modules/.cache",
+        ".vscode/settings.json",
+        ".idea"
+    };
+
     @Autowired
     private UploadedProjectRepository uploadedProjectRepository;
 
@@ -43,11 +72,74 @@ public class ProjectUploadService {
     @Autowired
     private ProgressTrackingService progressTrackingService;
 
+    @Autowired
+    private FileIndexService fileIndexService;
+
+    @Autowired
+    private ScanFindingStore scanFindingStore;
+
+    @Autowired
+    private ArchiveExtractor archiveExtractor;
+
+    @Autowired
+    private ProcessRunner processRunner;
+
+    @Value("${app.process.extract-timeout-seconds:600}")
+    private long extractTimeoutSeconds;
+
     @Value("${app.upload.dir:uploads}")
     private String uploadDir;
 
+    // cli (git push) or api (Git Data API); a job can override it when analysis is started
+    @Value("${app.github.push-backend:cli}")
+    private String defaultPushBackend;
+
+    // Minimum gap between push progress updates; git reports many times a second
+    @Value("${app.progress.push-interval-ms:500}")
+    private long pushProgressIntervalMs;
+
+    // Each stage's threads and how many jobs may wait for them; analyze defaults to one thread per core
+    @Value("${app.pipeline.extract.threads:2}")
+    private int extractThreads;
+
+    @Value("${app.pipeline.extract.queue:8}")
+    private int extractQueue;
+
+    @Value("${app.pipeline.analyze.threads:0}")
+    private int analyzeThreads;
+
+    @Value("${app.pipeline.analyze.queue:4}")
+    private int analyzeQueue;
+
+    @Value("${app.pipeline.build.threads:2}")
+    private int buildThreads;
+
+    @Value("${app.pipeline.build.queue:4}")
+    private int buildQueue;
+
+    @Value("${app.pipeline.publish.threads:4}")
+    private int publishThreads;
+
+    @Value("${app.pipeline.publish.queue:4}")
+    private int publishQueue;
+
+    // Each job on its own virtual thread, the stages' thread counts becoming limits on concurrent steps
+    @Value("${app.threads.virtual:false}")
+    private boolean virtualThreads;
+
+    // Virtual threads only: jobs in flight at once, and concurrent publish steps (bounded further per host)
+    @Value("${app.pipeline.virtual.max-jobs:256}")
+    private int maxVirtualJobs;
+
+    @Value("${app.pipeline.virtual.publish-concurrency:64}")
+    private int virtualPublishConcurrency;
+
     private final ObjectMapper objectMapper = new ObjectMapper();
 
+    private List<PipelineStep> pipelineSteps;
+    private Semaphore virtualJobSlots;
+    private ExecutorService virtualJobExecutor;
+
     public UploadedProject saveUploadedFile(MultipartFile file, String fileId, String userId) throws IOException {
         // Create upload directory if it doesn't exist
         Path uploadPath = Paths.get(uploadDir);
@@ -84,161 +176,352 @@ public class ProjectUploadService {
         return project.orElse(null);
     }
 
-    @Async
     public CompletableFuture<Void> startProjectAnalysis(String fileId, String userId) {
-        System.out.println("🚀 STARTING ASYNC ANALYSIS for fileId: " + fileId + ", userId: " + userId);
+        return startProjectAnalysis(fileId, userId, null);
+    }
+
+    public CompletableFuture<Void> startProjectAnalysis(String fileId, String userId, String pushBackend) {
+        return startProjectAnalysis(fileId, userId, pushBackend, () -> true);
+    }
+
+    /**
+     * Queues the job on the pipeline's first stage and returns a future that completes once the job
+     * has finished or failed. Throws RejectedExecutionException when the pipeline is full.
+     *
+     * Cancelling the future stops the job before its next step, leaving the project as it is for
+     * whoever runs the job instead. mayPublish is asked just before the publish step, and false
+     * stops the job there in the same way.
+     */
+    public CompletableFuture<Void> startProjectAnalysis(String fileId, String userId, String pushBackend, BooleanSupplier mayPublish) {
+        GitHubIntegrationService.PushBackend backend = GitHubIntegrationService.PushBackend.fromString(
+            pushBackend != null && !pushBackend.isBlank() ? pushBackend : defaultPushBackend);
+        AnalysisJob job = new AnalysisJob(fileId, userId, backend, mayPublish);
+        if (virtualThreads) {
+            if (!virtualJobSlots.tryAcquire()) {
+                throw new RejectedExecutionException("Pipeline is at capacity, try again shortly");
+            }
+            virtualJobExecutor.execute(() -> {
+                try {
+                    runJob(job);
+                } finally {
+                    virtualJobSlots.release();
+                }
+            });
+        } else if (!pipelineSteps.get(0).stage.tryAdmit(() -> runStep(job, 0))) {
+            throw new RejectedExecutionException("Pipeline is at capacity, try again shortly");
+        }
+        System.out.println("🚀 QUEUED ANALYSIS for fileId: " + fileId + ", userId: " + userId);
+        return job.done;
+    }
+
+    // False while the pipeline would refuse another job
+    public boolean isAcceptingJobs() {
+        return virtualThreads ? virtualJobSlots.availablePermits() > 0 : pipelineSteps.get(0).stage.hasRoom();
+    }
+
+    // Per stage, in pipeline order
+    public Map<String, Object> getPipelineStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        if (virtualThreads) {
+            stats.put("jobs", Map.of("maxJobs", maxVirtualJobs, "inFlight", maxVirtualJobs - virtualJobSlots.availablePermits()));
+        }
+        for (PipelineStep step : pipelineSteps) {
+            stats.put(step.stage.getName(), step.stage.getStats());
+        }
+        return stats;
+    }
+
+    @PostConstruct
+    public void startPipeline() {
+        int processors = Runtime.getRuntime().availableProcessors();
+        boolean virtual = virtualThreads;
+        pipelineSteps = List.of(
+            new PipelineStep(new PipelineStage("extract", extractThreads, extractQueue, virtual), this::extractStep),
+            new PipelineStep(new PipelineStage("analyze", analyzeThreads > 0 ? analyzeThreads : processors, analyzeQueue, virtual), this::analyzeStep),
+            new PipelineStep(new PipelineStage("build", buildThreads, buildQueue, virtual), this::buildStep),
+            new PipelineStep(new PipelineStage("publish", virtual ? virtualPublishConcurrency : publishThreads, publishQueue, virtual), this::publishStep));
+        if (virtual) {
+            virtualJobSlots = new Semaphore(Math.max(1, maxVirtualJobs));
+            virtualJobExecutor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("pipeline-job-", 1).factory());
+        }
+    }
+
+    @PreDestroy
+    public void stopPipeline() {
+        pipelineSteps.forEach(step -> step.stage.shutdown());
+        if (virtualJobExecutor != null) {
+            virtualJobExecutor.shutdownNow();
+        }
+    }
+
+    // Virtual threads: the whole job on this thread, each step within its stage's limit
+    private void runJob(AnalysisJob job) {
         try {
-            UploadedProject project = getProjectByFileId(fileId, userId);
-            if (project == null) {
-                System.out.println("❌ PROJECT NOT FOUND for fileId: " + fileId);
-                throw new RuntimeException("Project not found");
+            for (PipelineStep step : pipelineSteps) {
+                if (isAbandoned(job, step)) {
+                    return;
+                }
+                step.stage.run(() -> step.work.run(job));
+            }
+            job.done.complete(null);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            failJob(job, e);
+        } catch (Exception e) {
+            failJob(job, e);
+        }
+    }
+
+    // Runs one step of the job, then hands it to the next stage
+    private void runStep(AnalysisJob job, int index) {
+        try {
+            if (isAbandoned(job, pipelineSteps.get(index))) {
+                return;
             }
+            pipelineSteps.get(index).work.run(job);
+            if (index + 1 < pipelineSteps.size()) {
+                // Waits while the next stage is full, which keeps this stage's thread and so slows intake
+                pipelineSteps.get(index + 1).stage.submit(() -> runStep(job, index + 1));
+            } else {
+                job.done.complete(null);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            failJob(job, e);
+        } catch (Exception e) {
+            failJob(job, e);
+        }
+    }
+
+    // True when the job has been taken away from this node, which then leaves it be
+    private boolean isAbandoned(AnalysisJob job, PipelineStep step) {
+        boolean publishing = step == pipelineSteps.get(pipelineSteps.size() - 1);
+        if (!job.done.isCancelled() && (!publishing || job.mayPublish.getAsBoolean())) {
+            return false;
+        }
+        System.out.println("⏹️ STOPPED fileId " + job.fileId + " before " + step.stage.getName() + ": the job is no longer this node's");
+        job.done.cancel(false);
+        fileIndexService.evict(job.extractedPath);
+        return true;
+    }
+
+    // Step 1: extraction (disk I/O)
+    private void extractStep(AnalysisJob job) throws Exception {
+        String fileId = job.fileId;
+        String userId = job.userId;
+        System.out.println("🚀 STARTING ANALYSIS for fileId: " + fileId + ", userId: " + userId);
+        UploadedProject project = getProjectByFileId(fileId, userId);
+        if (project == null) {
+            System.out.println("❌ PROJECT NOT FOUND for fileId: " + fileId);
+            throw new RuntimeException("Project not found");
+        }
+        job.project = project;
 
-            System.out.println("✅ PROJECT FOUND: " + project.getFilename());
-            // Start progress tracking
-            progressTrackingService.startProgressSession(fileId, userId);
-
-            // Update status to analyzing
-            project.setStatus(ProjectStatus.ANALYZING);
-            project.setAnalysisStartTime(LocalDateTime.now());
-            project.setAnalysisProgress(0);
-            uploadedProjectRepository.save(project);
-
-            // Step 1: Extract files
-            System.out.println("📁 STEP 1: Starting file extraction...");
-            updateProgress(project, ProjectStatus.EXTRACTING, 10, "Extracting project files...");
-            progressTrackingService.updateExtractionProgress(fileId, userId, 10, "Starting extraction...");
-            String extractedPath = extractProjectFiles(project);
-            project.setExtractedPath(extractedPath);
-            System.out.println("✅ EXTRACTION COMPLETED: " + extractedPath);
-
-            // Step 2: Security scan (DISABLED FOR MVP)
-            System.out.println("🔒 STEP 2: Security scan SKIPPED for MVP - proceeding to analysis...");
-            updateProgress(project, ProjectStatus.SECURITY_SCANNING, 25, "Security scan skipped for MVP...");
-            progressTrackingService.updateProgress(fileId, userId, "SECURITY_SCANNING", 25, "Security scan skipped - proceeding...", null);
-            project.setSecurityScanPassed(true); // Always pass for MVP
-            System.out.println("🔒 SECURITY SCAN: SKIPPED ✅");
-
-            // Step 3: AI Analysis
-            System.out.println("🤖 STEP 3: Starting AI analysis...");
-            updateProgress(project, ProjectStatus.ANALYZING, 50, "Analyzing project structure with AI...");
-            Map<String, Object> analysisData = new HashMap<>();
-            progressTrackingService.updateAnalysisProgress(fileId, userId, 50, "Starting AI analysis", analysisData);
-            Map<String, Object> analysisResults = projectAnalysisService.analyzeProject(extractedPath);
-            project.setAnalysisResults(objectMapper.writeValueAsString(analysisResults));
-            System.out.println("✅ AI ANALYSIS COMPLETED: " + analysisResults.keySet());
-
-            // Update progress with analysis results
-            analysisData.put("languages", analysisResults.get("languages"));
-            analysisData.put("frameworks", analysisResults.get("frameworks"));
-            progressTrackingService.updateAnalysisProgress(fileId, userId, 65, "AI analysis completed", analysisData);
-
-            // Step 4: Organize and create branches
-            System.out.println("🌿 STEP 4: Organizing project and creating branches...");
-            updateProgress(project, ProjectStatus.ORGANIZING, 75, "Organizing project structure...");
-            Map<String, Object> organizationResults = projectAnalysisService.organizeProject(extractedPath, analysisResults);
-
-            // Create branch structure
-            Map<String, Object> branchResults = gitBranchService.createBranchStructure(extractedPath, analysisResults);
-            project.setBranchesCreated(objectMapper.writeValueAsString(branchResults.get("createdBranches")));
-            System.out.println("✅ BRANCHES CREATED: " + branchResults.get("createdBranches"));
-
-            // Step 5: Create GitHub repository and push
-            System.out.println("🐙 STEP 5: Creating GitHub repository...");
-            updateProgress(project, ProjectStatus.CREATING_REPO, 90, "Creating GitHub repository...");
-            String repoName = generateSmartRepoName(project.getFilename(), analysisResults);
-            System.out.println("📝 SMART REPO NAME: " + repoName);
-            Map<String, Object> repoResult = gitHubIntegrationService.createGitHubRepository(
-                repoName,
-                "Auto-generated repository by GitGenei AI",
-                false, // public by default
-                userId
-            );
-            System.out.println("🐙 REPO CREATION RESULT: " + repoResult);
-
-            if ((Boolean) repoResult.get("success")) {
-                project.setGithubRepoUrl((String) repoResult.get("repoUrl"));
-                System.out.println("✅ GITHUB REPO CREATED: " + repoResult.get("repoUrl"));
-
-                // Push branches to GitHub
-                System.out.println("⬆️ STEP 6: Pushing branches to GitHub...");
-                updateProgress(project, ProjectStatus.PUSHING_TO_GITHUB, 95, "Pushing branches to GitHub...");
-                String branchesPath = (String) branchResults.get("branchesPath");
-                System.out.println("📁 BRANCHES PATH: " + branchesPath);
-                Map<String, Object> pushResult = gitHubIntegrationService.pushProjectToGitHub(
+        System.out.println("✅ PROJECT FOUND: " + project.getFilename());
+        // Start progress tracking
+        progressTrackingService.startProgressSession(fileId, userId);
+
+        // Update status to analyzing
+        project.setStatus(ProjectStatus.ANALYZING);
+        project.setAnalysisStartTime(LocalDateTime.now());
+        project.setAnalysisProgress(0);
+        uploadedProjectRepository.save(project);
+
+        System.out.println("📁 STEP 1: Starting file extraction...");
+        updateProgress(project, ProjectStatus.EXTRACTING, 10, "Extracting project files...");
+        progressTrackingService.updateExtractionProgress(fileId, userId, 10, "Starting extraction...");
+        job.extractedPath = extractProjectFiles(project);
+        project.setExtractedPath(job.extractedPath);
+        System.out.println("✅ EXTRACTION COMPLETED: " + job.extractedPath);
+    }
+
+    // Steps 2 and 3: security scan and analysis (CPU, plus the Gemini call)
+    private void analyzeStep(AnalysisJob job) throws Exception {
+        String fileId = job.fileId;
+        String userId = job.userId;
+        UploadedProject project = job.project;
+
+        System.out.println("🔒 STEP 2: Running deep security scan...");
+        updateProgress(project, ProjectStatus.SECURITY_SCANNING, 25, "Scanning project files for security issues...");
+        progressTrackingService.updateProgress(fileId, userId, "SECURITY_SCANNING", 25, "Running security scan...", null);
+        boolean scanPassed = securityScanService.performDeepScan(job.extractedPath, fileId);
+        project.setSecurityScanPassed(scanPassed);
+        if (!scanPassed) {
+            System.out.println("❌ SECURITY SCAN FAILED");
+            throw new RuntimeException("Project failed security scan");
+        }
+        System.out.println("🔒 SECURITY SCAN: PASSED ✅");
+
+        System.out.println("🤖 STEP 3: Starting AI analysis...");
+        updateProgress(project, ProjectStatus.ANALYZING, 50, "Analyzing project structure with AI...");
+        Map<String, Object> analysisData = new HashMap<>();
+        progressTrackingService.updateAnalysisProgress(fileId, userId, 50, "Starting AI analysis", analysisData);
+        job.analysisResults = projectAnalysisService.analyzeProject(job.extractedPath);
+        project.setAnalysisResults(objectMapper.writeValueAsString(job.analysisResults));
+        System.out.println("✅ AI ANALYSIS COMPLETED: " + job.analysisResults.keySet());
+
+        // Update progress with analysis results
+        analysisData.put("languages", job.analysisResults.get("languages"));
+        analysisData.put("frameworks", job.analysisResults.get("frameworks"));
+        progressTrackingService.updateAnalysisProgress(fileId, userId, 65, "AI analysis completed", analysisData);
+    }
+
+    // Step 4: organising and building the branches (disk I/O and git)
+    private void buildStep(AnalysisJob job) throws Exception {
+        UploadedProject project = job.project;
+        System.out.println("🌿 STEP 4: Organizing project and creating branches...");
+        updateProgress(project, ProjectStatus.ORGANIZING, 75, "Organizing project structure...");
+        projectAnalysisService.organizeProject(job.extractedPath, job.analysisResults);
+
+        // Create branch structure
+        job.branchResults = gitBranchService.createBranchStructure(job.extractedPath, job.analysisResults);
+        project.setBranchesCreated(objectMapper.writeValueAsString(job.branchResults.get("createdBranches")));
+        System.out.println("✅ BRANCHES CREATED: " + job.branchResults.get("createdBranches"));
+    }
+
+    // Steps 5 to 7: repository, LFS upload and push (network)
+    private void publishStep(AnalysisJob job) throws Exception {
+        String fileId = job.fileId;
+        String userId = job.userId;
+        UploadedProject project = job.project;
+        Map<String, Object> analysisResults = job.analysisResults;
+        Map<String, Object> branchResults = job.branchResults;
+
+        System.out.println("🐙 STEP 5: Creating GitHub repository...");
+        updateProgress(project, ProjectStatus.CREATING_REPO, 90, "Creating GitHub repository...");
+        String repoName = generateSmartRepoName(project.getFilename(), analysisResults);
+        System.out.println("📝 SMART REPO NAME: " + repoName);
+        Map<String, Object> repoResult = gitHubIntegrationService.setUpGitHubRepository(
+            repoName,
+            "Auto-generated repository by GitGenei AI",
+            false, // public by default
+            userId,
+            generateRepositoryTopics(analysisResults)
+        );
+        System.out.println("🐙 REPO CREATION RESULT: " + repoResult);
+
+        if ((Boolean) repoResult.get("success")) {
+            project.setGithubRepoUrl((String) repoResult.get("repoUrl"));
+            System.out.println("✅ GITHUB REPO CREATED: " + repoResult.get("repoUrl"));
+
+            // Push branches to GitHub
+            System.out.println("⬆️ STEP 6: Pushing branches to GitHub...");
+            updateProgress(project, ProjectStatus.PUSHING_TO_GITHUB, 95, "Pushing branches to GitHub...");
+            String branchesPath = (String) branchResults.get("branchesPath");
+            System.out.println("📁 BRANCHES PATH: " + branchesPath);
+
+            String repoUrl = (String) repoResult.get("repoUrl");
+            PushProgressTracker.Sink pushSink = (percentage, action, details) ->
+                progressTrackingService.updateGitHubProgress(fileId, userId, percentage, action, repoUrl, details);
+
+            // LFS objects have to be on the server before the pointers that name them are pushed
+            @SuppressWarnings("unchecked")
+            Map<String, LfsObject> lfsObjects = (Map<String, LfsObject>) branchResults.get("lfsObjects");
+            if (lfsObjects != null && !lfsObjects.isEmpty()) {
+                Map<String, Object> lfsResult = gitHubIntegrationService.uploadLfsObjects(
+                    (String) repoResult.get("fullName"), lfsObjects.values(),
+                    new PushProgressTracker(95, 96, pushProgressIntervalMs, pushSink));
+                if (!(Boolean) lfsResult.get("success")) {
+                    throw new RuntimeException("Failed to upload Git LFS objects: " + lfsResult.get("error"));
+                }
+            }
+            PushProgressTracker pushProgress = new PushProgressTracker(96, 99, pushProgressIntervalMs, pushSink);
+            Map<String, Object> pushResult = job.backend == GitHubIntegrationService.PushBackend.GIT_DATA_API
+                ? gitHubIntegrationService.pushProjectViaGitDataApi(
+                    (String) repoResult.get("fullName"),
+                    (String) repoResult.get("cloneUrl"),
+                    branchesPath,
+                    branchResults,
+                    pushProgress)
+                : gitHubIntegrationService.pushProjectToGitHub(
                     branchesPath,
                     (String) repoResult.get("cloneUrl"),
-                    branchResults
+                    branchResults,
+                    pushProgress
                 );
-                System.out.println("⬆️ PUSH RESULT: " + pushResult);
+            System.out.println("⬆️ PUSH RESULT: " + pushResult);
 
-                if (!(Boolean) pushResult.get("success")) {
-                    System.out.println("❌ PUSH FAILED: " + pushResult.get("error"));
-                    throw new RuntimeException("Failed to push to GitHub: " + pushResult.get("error"));
-                }
-                System.out.println("✅ PUSH SUCCESSFUL!");
-            } else {
-                System.out.println("❌ REPO CREATION FAILED: " + repoResult.get("error"));
-                throw new RuntimeException("Failed to create GitHub repository: " + repoResult.get("error"));
+            if (!(Boolean) pushResult.get("success")) {
+                System.out.println("❌ PUSH FAILED: " + pushResult.get("error"));
+                throw new RuntimeException("Failed to push to GitHub: " + pushResult.get("error"));
             }
+            System.out.println("✅ PUSH SUCCESSFUL!");
+        } else {
+            System.out.println("❌ REPO CREATION FAILED: " + repoResult.get("error"));
+            throw new RuntimeException("Failed to create GitHub repository: " + repoResult.get("error"));
+        }
 
-            // Complete
-            System.out.println("🎉 STEP 7: Completing process...");
-            project.setStatus(ProjectStatus.COMPLETED);
-            project.setAnalysisProgress(100);
-            project.setAnalysisEndTime(LocalDateTime.now());
-            uploadedProjectRepository.save(project);
-
-            // Complete progress tracking with comprehensive data
-            Map<String, Object> finalData = new HashMap<>();
-            finalData.put("repoUrl", repoResult.get("repoUrl"));
-            finalData.put("repositoryUrl", repoResult.get("repoUrl")); // Add this for frontend compatibility
-            finalData.put("repoName", repoName);
-            finalData.put("cloneUrl", repoResult.get("cloneUrl"));
-            finalData.put("sshUrl", repoResult.get("sshUrl"));
-            finalData.put("fullName", repoResult.get("fullName"));
-            finalData.put("branchesCreated", branchResults.get("createdBranches"));
-            finalData.put("totalBranches", branchResults.get("totalBranches"));
-            finalData.put("branches", branchResults.get("createdBranches")); // Add branches array for frontend
-            finalData.put("pushedBranches", branchResults.get("totalBranches")); // Use branch count instead
-            finalData.put("totalFiles", analysisResults.get("totalFiles"));
-            finalData.put("projectName", project.getFilename());
-            finalData.put("languages", analysisResults.get("languages"));
-            finalData.put("frameworks", analysisResults.get("frameworks"));
-            finalData.put("analysisResults", analysisResults);
-
-            // Add success message for frontend
-            finalData.put("message", "🎉 PROCESS COMPLETED SUCCESSFULLY!");
-            finalData.put("details", String.format("📊 Repository: %s\n🌿 Branches: %d\n📁 Files: Successfully pushed",
-                repoResult.get("repoUrl"), branchResults.get("totalBranches")));
-
-            // Set the repository URL in the project
-            project.setGithubRepoUrl((String) repoResult.get("repoUrl"));
-            uploadedProjectRepository.save(project);
+        // Complete
+        System.out.println("🎉 STEP 7: Completing process...");
+        project.setStatus(ProjectStatus.COMPLETED);
+        project.setAnalysisProgress(100);
+        project.setAnalysisEndTime(LocalDateTime.now());
+        uploadedProjectRepository.save(project);
 
-            progressTrackingService.completeProgress(fileId, userId, finalData);
-            System.out.println("🎉 PROCESS COMPLETED SUCCESSFULLY!");
-            System.out.println("📊 Repository: " + repoResult.get("repoUrl"));
-            System.out.println("🌿 Branches: " + branchResults.get("totalBranches"));
-            System.out.println("📁 Files: " + analysisResults.get("totalFiles"));
+        // Complete progress tracking with comprehensive data
+        Map<String, Object> finalData = new HashMap<>();
+        finalData.put("repoUrl", repoResult.get("repoUrl"));
+        finalData.put("repositoryUrl", repoResult.get("repoUrl")); // Add this for frontend compatibility
+        finalData.put("repoName", repoName);
+        finalData.put("cloneUrl", repoResult.get("cloneUrl"));
+        finalData.put("sshUrl", repoResult.get("sshUrl"));
+        finalData.put("fullName", repoResult.get("fullName"));
+        finalData.put("branchesCreated", branchResults.get("createdBranches"));
+        finalData.put("totalBranches", branchResults.get("totalBranches"));
+        finalData.put("branches", branchResults.get("createdBranches")); // Add branches array for frontend
+        finalData.put("pushedBranches", branchResults.get("totalBranches")); // Use branch count instead
+        finalData.put("totalFiles", analysisResults.get("totalFiles"));
+        finalData.put("ignoredBytes", branchResults.get("ignoredBytes"));
+        finalData.put("projectName", project.getFilename());
+        finalData.put("languages", analysisResults.get("languages"));
+        finalData.put("frameworks", analysisResults.get("frameworks"));
+        finalData.put("analysisResults", analysisResults);
+
+        // Add success message for frontend
+        finalData.put("message", "🎉 PROCESS COMPLETED SUCCESSFULLY!");
+        finalData.put("details", String.format("📊 Repository: %s\n🌿 Branches: %d\n📁 Files: Successfully pushed",
+            repoResult.get("repoUrl"), branchResults.get("totalBranches")));
+
+        // Set the repository URL in the project
+        project.setGithubRepoUrl((String) repoResult.get("repoUrl"));
+        uploadedProjectRepository.save(project);
 
-        } catch (Exception e) {
-            // Handle error
-            System.out.println("❌ ERROR OCCURRED: " + e.getMessage());
-            e.printStackTrace();
-            UploadedProject project = getProjectByFileId(fileId, userId);
+        progressTrackingService.completeProgress(fileId, userId, finalData);
+        fileIndexService.evict(job.extractedPath);
+        System.out.println("🎉 PROCESS COMPLETED SUCCESSFULLY!");
+        System.out.println("📊 Repository: " + repoResult.get("repoUrl"));
+        System.out.println("🌿 Branches: " + branchResults.get("totalBranches"));
+        System.out.println("📁 Files: " + analysisResults.get("totalFiles"));
+    }
+
+    private void failJob(AnalysisJob job, Exception e) {
+        if (job.done.isCancelled()) {
+            // The project belongs to whoever took the job over
+            System.out.println("⏹️ STOPPED fileId " + job.fileId + " after it was taken away: " + e.getMessage());
+            fileIndexService.evict(job.extractedPath);
+            return;
+        }
+        // Handle error
+        System.out.println("❌ ERROR OCCURRED: " + e.getMessage());
+        e.printStackTrace();
+        try {
+            UploadedProject project = getProjectByFileId(job.fileId, job.userId);
             if (project != null) {
                 project.setStatus(ProjectStatus.FAILED);
                 project.setErrorMessage("Analysis failed: " + e.getMessage());
                 project.setAnalysisEndTime(LocalDateTime.now());
                 uploadedProjectRepository.save(project);
+                fileIndexService.evict(project.getExtractedPath());
+                // Extraction may already have written objects there; a retry starts from scratch anyway
+                deleteBranches(project);
             }
 
             // Error progress tracking
-            progressTrackingService.errorProgress(fileId, userId, "Analysis failed: " + e.getMessage(), null);
+            progressTrackingService.errorProgress(job.fileId, job.userId, "Analysis failed: " + e.getMessage(), null);
+        } finally {
+            // The failure is recorded on the project; the future only signals that the job is over
+            job.done.complete(null);
         }
-
-        return CompletableFuture.completedFuture(null);
     }
 
     private void updateProgress(UploadedProject project, ProjectStatus status, int progress, String message) {
@@ -252,8 +535,7 @@ public class ProjectUploadService {
 
     private String extractProjectFiles(UploadedProject project) throws IOException {
         String filePath = project.getFilePath();
-        String extractedDirName = project.getFileId() + "_extracted";
-        Path extractedPath = Paths.get(uploadDir, project.getUserId(), extractedDirName);
+        Path extractedPath = extractedPathFor(project);
         
         if (!Files.exists(extractedPath)) {
             Files.createDirectories(extractedPath);
@@ -261,10 +543,20 @@ public class ProjectUploadService {
 
         // Extract based on file type
         String filename = project.getFilename().toLowerCase();
-        if (filename.endsWith(".zip")) {
-            extractZipFile(filePath, extractedPath.toString());
-        } else if (filename.endsWith(".tar") || filename.endsWith(".tar.gz")) {
-            extractTarFile(filePath, extractedPath.toString());
+        if (archiveExtractor.supports(filename)) {
+            // Blob objects land in the branches repository's object store, ready for the commit step;
+            // content every branch ignores, and system files, get none
+            Path objectsGitDir = Paths.get(GitBranchService.branchesPathFor(extractedPath.toString()), ".git");
+            StringBuilder ignoreRules = new StringBuilder(gitBranchService.commonIgnoreRules());
+            for (String pattern : SYSTEM_PATTERNS) {
+                ignoreRules.append(pattern.contains("/") ? "**/" : "").append(pattern).append('\n');
+            }
+            ArchiveExtractor.ExtractionStats stats = archiveExtractor.extract(Paths.get(filePath), filename, extractedPath,
+                fileIndexService.getIndex(extractedPath.toString()), objectsGitDir, ignoreRules.toString());
+            System.out.println("📦 Extracted " + stats);
+            if (filename.endsWith(".zip")) {
+                cleanupSystemFiles(extractedPath.toString());
+            }
         } else if (filename.endsWith(".rar")) {
             extractRarFile(filePath, extractedPath.toString());
         } else {
@@ -274,52 +566,21 @@ public class ProjectUploadService {
         return extractedPath.toString();
     }
 
-    private void extractZipFile(String zipFilePath, String extractToPath) throws IOException {
-        // Implementation for ZIP extraction with system file filtering
-        ProcessBuilder pb = new ProcessBuilder("unzip", "-q", zipFilePath, "-d", extractToPath);
-        try {
-            Process process = pb.start();
-            int exitCode = process.waitFor();
-            if (exitCode != 0) {
-                throw new IOException("Failed to extract ZIP file");
-            }
-
-            // Clean up system files after extraction
-            cleanupSystemFiles(extractToPath);
-
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-            throw new IOException("ZIP extraction interrupted", e);
-        }
+    private Path extractedPathFor(UploadedProject project) {
+        return Paths.get(uploadDir, project.getUserId(), project.getFileId() + "_extracted");
     }
 
     private void cleanupSystemFiles(String extractedPath) throws IOException {
         Path rootPath = Paths.get(extractedPath);
 
-        // List of system files/folders to remove
-        String[] systemPatterns = {
-            "__MACOSX",
-            ".DS_Store",
-            "Thumbs.db",
-            "desktop.ini",
-            ".git",
-            ".svn",
-            ".hg",
-            "node_modules/.cache",
-            ".vscode/settings.json",
-            ".idea"
-        };
-
         Files.walk(rootPath)
             .filter(path -> {
-                String pathStr = path.toString();
-                String fileName = path.getFileName().toString();
+                // Patterns match whole path segments, so .gitignore, .gitattributes and .github/ are kept
+                String segments = "/" + rootPath.relativize(path).toString().replace(File.separatorChar, '/') + "/";
 
                 // Check if it matches any system pattern
-                for (String pattern : systemPatterns) {
-                    if (pathStr.contains(pattern) || fileName.equals(pattern) ||
-                        fileName.startsWith(".") && (fileName.equals(".DS_Store") ||
-                        fileName.equals(".git") || fileName.equals(".svn"))) {
+                for (String pattern : SYSTEM_PATTERNS) {
+                    if (segments.contains("/" + pattern + "/")) {
                         return true;
                     }
                 }
@@ -344,33 +605,12 @@ public class ProjectUploadService {
             });
     }
 
-    private void extractTarFile(String tarFilePath, String extractToPath) throws IOException {
-        // Implementation for TAR extraction
-        ProcessBuilder pb = new ProcessBuilder("tar", "-xf", tarFilePath, "-C", extractToPath);
-        try {
-            Process process = pb.start();
-            int exitCode = process.waitFor();
-            if (exitCode != 0) {
-                throw new IOException("Failed to extract TAR file");
-            }
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-            throw new IOException("TAR extraction interrupted", e);
-        }
-    }
-
     private void extractRarFile(String rarFilePath, String extractToPath) throws IOException {
         // Implementation for RAR extraction (requires unrar utility)
-        ProcessBuilder pb = new ProcessBuilder("unrar", "x", rarFilePath, extractToPath);
-        try {
-            Process process = pb.start();
-            int exitCode = process.waitFor();
-            if (exitCode != 0) {
-                throw new IOException("Failed to extract RAR file");
-            }
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-            throw new IOException("RAR extraction interrupted", e);
+        ProcessRunner.ProcessResult result = processRunner.run(List.of("unrar", "x", rarFilePath, extractToPath + File.separator),
+            null, Duration.ofSeconds(extractTimeoutSeconds));
+        if (!result.isSuccess()) {
+            throw new IOException("Failed to extract RAR file (" + result.describeFailure() + ")");
         }
     }
 
@@ -397,6 +637,8 @@ public class ProjectUploadService {
             // Delete files from disk
             deleteProjectFiles(project);
 
+            scanFindingStore.delete(fileId);
+
             // Delete from database
             uploadedProjectRepository.deleteByFileIdAndUserId(fileId, userId);
             
@@ -415,11 +657,23 @@ public class ProjectUploadService {
 
             // Delete extracted files
             if (project.getExtractedPath() != null) {
+                fileIndexService.evict(project.getExtractedPath());
                 deleteDirectory(Paths.get(project.getExtractedPath()));
             }
         } catch (IOException e) {
             System.err.println("Failed to delete project files: " + e.getMessage());
         }
+        deleteBranches(project);
+    }
+
+    // Branch directories and their repository; extraction writes objects there before the extracted path is saved
+    private void deleteBranches(UploadedProject project) {
+        String extractedPath = project.getExtractedPath() != null ? project.getExtractedPath() : extractedPathFor(project).toString();
+        try {
+            deleteDirectory(Paths.get(GitBranchService.branchesPathFor(extractedPath)));
+        } catch (IOException e) {
+            System.err.println("Failed to delete branches: " + e.getMessage());
+        }
     }
 
     private void deleteDirectory(Path directory) throws IOException {
@@ -453,6 +707,24 @@ public class ProjectUploadService {
         return cleanName;
     }
 
+    // Detected languages and frameworks, in the form GitHub accepts for topics
+    private List<String> generateRepositoryTopics(Map<String, Object> analysisResults) {
+        Set<String> topics = new LinkedHashSet<>();
+        for (String key : List.of("languages", "frameworks")) {
+            if (analysisResults.get(key) instanceof Collection<?> names) {
+                for (Object name : names) {
+                    String topic = String.valueOf(name).toLowerCase()
+                        .replaceAll("[^a-z0-9]+", "-")
+                        .replaceAll("^-+|-+$", "");
+                    if (!topic.isEmpty() && topic.length() <= 50) {
+                        topics.add(topic);
+                    }
+                }
+            }
+        }
+        return new ArrayList<>(topics).subList(0, Math.min(topics.size(), 20));
+    }
+
     private String extractProjectNameFromPackageJson(String packageJsonPath) {
         // This is a simplified extraction - in a real implementation,
         // you'd parse the JSON file to get the "name" field
@@ -508,4 +780,39 @@ public class ProjectUploadService {
 
         return name;
     }
+
+    @FunctionalInterface
+    private interface StepWork {
+        void run(AnalysisJob job) throws Exception;
+    }
+
+    private static class PipelineStep {
+        private final PipelineStage stage;
+        private final StepWork work;
+
+        PipelineStep(PipelineStage stage, StepWork work) {
+            this.stage = stage;
+            this.work = work;
+        }
+    }
+
+    // What one job's steps hand on to each other
+    private static class AnalysisJob {
+        private final String fileId;
+        private final String userId;
+        private final GitHubIntegrationService.PushBackend backend;
+        private final BooleanSupplier mayPublish;
+        private final CompletableFuture<Void> done = new CompletableFuture<>();
+        private UploadedProject project;
+        private String extractedPath;
+        private Map<String, Object> analysisResults;
+        private Map<String, Object> branchResults;
+
+        AnalysisJob(String fileId, String userId, GitHubIntegrationService.PushBackend backend, BooleanSupplier mayPublish) {
+            this.fileId = fileId;
+            this.userId = userId;
+            this.backend = backend;
+            this.mayPublish = mayPublish;
+        }
+    }
 }
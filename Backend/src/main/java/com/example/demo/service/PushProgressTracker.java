@@ -0,0 +1,148 @@
+package com.example.demo.service;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Turns push progress into rate-limited progress reports with throughput and ETA. It is fed either
+ * the stderr of {@code git push --progress} (as a {@link ProcessRunner.OutputListener}) or phase
+ * updates from the in-process push paths (Git Data API blobs, LFS objects).
+ *
+ * Each known phase owns a slice of the [startPercentage, endPercentage] band, so the reported
+ * percentage moves forward steadily across phases and never goes back. Thread-safe: uploads report
+ * from the upload pool while git output arrives on a drain thread.
+ */
+public class PushProgressTracker implements ProcessRunner.OutputListener {
+
+    @FunctionalInterface
+    public interface Sink {
+        void report(int percentage, String action, Map<String, Object> details);
+    }
+
+    // Share of the band each phase covers, in the order the phases run
+    private static final Map<String, double[]> PHASE_RANGES = Map.of(
+        "Enumerating objects", new double[] {0.00, 0.05},
+        "Counting objects", new double[] {0.05, 0.10},
+        "Compressing objects", new double[] {0.10, 0.30},
+        "Writing objects", new double[] {0.30, 1.00},
+        "Uploading blobs", new double[] {0.00, 0.80},
+        "Creating trees", new double[] {0.80, 0.95},
+        "Updating branches", new double[] {0.95, 1.00});
+
+    // "Writing objects:  40% (4/10), 1.20 MiB | 2.40 MiB/s" or "Enumerating objects: 12, done."
+    private static final Pattern GIT_PROGRESS = Pattern.compile(
+        "^([A-Z][a-z]+(?: [a-z]+)*):\\s+(?:(\\d+)% \\((\\d+)/(\\d+)\\)|(\\d+))" +
+        "(?:, ([\\d.]+) (bytes|KiB|MiB|GiB) \\| ([\\d.]+) (bytes|KiB|MiB|GiB)/s)?");
+
+    private final int startPercentage;
+    private final int endPercentage;
+    private final long minIntervalMillis;
+    private final Sink sink;
+
+    private String phase;
+    private long phaseStartMillis;
+    private long lastReportMillis;
+    private int lastPercentage;
+
+    public PushProgressTracker(int startPercentage, int endPercentage, long minIntervalMillis, Sink sink) {
+        this.startPercentage = startPercentage;
+        this.endPercentage = endPercentage;
+        this.minIntervalMillis = minIntervalMillis;
+        this.sink = sink;
+        this.lastPercentage = startPercentage;
+    }
+
+    @Override
+    public void onLine(ProcessRunner.Channel channel, String line) {
+        // Server-side lines ("remote: Resolving deltas") say nothing about our upload
+        if (channel != ProcessRunner.Channel.STDERR || line.startsWith("remote:")) {
+            return;
+        }
+        Matcher matcher = GIT_PROGRESS.matcher(line.trim());
+        if (!matcher.find()) {
+            return;
+        }
+        String phaseName = matcher.group(1);
+        long current = matcher.group(3) != null ? Long.parseLong(matcher.group(3)) : Long.parseLong(matcher.group(5));
+        long total = matcher.group(4) != null ? Long.parseLong(matcher.group(4)) : 0;
+        long bytes = matcher.group(6) != null ? toBytes(matcher.group(6), matcher.group(7)) : -1;
+        long bytesPerSecond = matcher.group(8) != null ? toBytes(matcher.group(8), matcher.group(9)) : -1;
+        update(phaseName, current, total, bytes, bytesPerSecond);
+    }
+
+    // For in-process pushes; throughput is derived from bytes and the time spent in the phase
+    public void update(String phaseName, long current, long total, long bytes) {
+        update(phaseName, current, total, bytes, -1);
+    }
+
+    public synchronized void update(String phaseName, long current, long total, long bytes, long bytesPerSecond) {
+        long now = System.currentTimeMillis();
+        boolean phaseChanged = !phaseName.equals(phase);
+        if (phaseChanged) {
+            phase = phaseName;
+            phaseStartMillis = now;
+        }
+        boolean phaseDone = total > 0 && current >= total;
+        if (!phaseChanged && !phaseDone && now - lastReportMillis < minIntervalMillis) {
+            return;
+        }
+
+        double fraction = total > 0 ? Math.min(1.0, (double) current / total) : 0;
+        double[] range = PHASE_RANGES.getOrDefault(phaseName, new double[] {0, 1});
+        double overall = range[0] + (range[1] - range[0]) * fraction;
+        int percentage = startPercentage + (int) Math.floor((endPercentage - startPercentage) * overall);
+        // Phases may repeat (one git push per retry, several upload batches); never move backwards
+        percentage = Math.max(percentage, lastPercentage);
+
+        long elapsedMillis = Math.max(1, now - phaseStartMillis);
+        if (bytesPerSecond < 0 && bytes > 0) {
+            bytesPerSecond = bytes * 1000 / elapsedMillis;
+        }
+
+        Map<String, Object> details = new HashMap<>();
+        details.put("phase", phaseName);
+        details.put("current", current);
+        if (total > 0) {
+            details.put("total", total);
+        }
+        if (bytes >= 0) {
+            details.put("bytesTransferred", bytes);
+        }
+        if (bytesPerSecond >= 0) {
+            details.put("bytesPerSecond", bytesPerSecond);
+        }
+        // Linear in objects done so far; good enough to tell "seconds" from "minutes"
+        if (total > 0 && current > 0 && current < total) {
+            details.put("etaSeconds", elapsedMillis * (total - current) / current / 1000);
+        }
+
+        StringBuilder action = new StringBuilder(phaseName).append(": ");
+        action.append(total > 0 ? current + "/" + total : String.valueOf(current));
+        if (bytesPerSecond > 0) {
+            action.append(" at ").append(formatBytes(bytesPerSecond)).append("/s");
+        }
+
+        lastReportMillis = now;
+        lastPercentage = percentage;
+        sink.report(percentage, action.toString(), details);
+    }
+
+    private static long toBytes(String value, String unit) {
+        double amount = Double.parseDouble(value);
+        switch (unit) {
+            case "KiB": return (long) (amount * 1024);
+            case "MiB": return (long) (amount * 1024 * 1024);
+            case "GiB": return (long) (amount * 1024 * 1024 * 1024);
+            default: return (long) amount;
+        }
+    }
+
+    private static String formatBytes(long bytes) {
+        if (bytes < 1024) return bytes + " B";
+        if (bytes < 1024 * 1024) return (bytes / 1024) + " KB";
+        if (bytes < 1024 * 1024 * 1024) return (bytes / (1024 * 1024)) + " MB";
+        return (bytes / (1024 * 1024 * 1024)) + " GB";
+    }
+}
@@ -0,0 +1,363 @@
+package com.example.demo.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.RestTemplate;
+
+import jakarta.annotation.PreDestroy;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Local copies of GitHub repositories for content lookups. A repository's tarball is downloaded in
+ * one streaming request, decompressed to a plain .tar on disk and indexed by the same tar reader the
+ * upload extraction uses, all in a single pass. Nothing is extracted: a lookup reads the file's bytes
+ * straight from its offset in the tar.
+ *
+ * Snapshots are per token (private repositories), expire after a TTL and are evicted least recently
+ * used first; concurrent requests for the same repository share one download.
+ */
+@Service
+public class RepositorySnapshotStore {
+
+    @Value("${app.github.snapshot.dir:${java.io.tmpdir}/gitgenei-snapshots}")
+    private String snapshotDir;
+
+    // After this the default branch may have moved on; the next lookup downloads again
+    @Value("${app.github.snapshot.ttl-minutes:10}")
+    private long ttlMinutes;
+
+    @Value("${app.github.snapshot.max-snapshots:16}")
+    private int maxSnapshots;
+
+    // Tarballs can be large; this template has no read timeout and streams the body
+    @Autowired
+    @Qualifier("transferRestTemplate")
+    private RestTemplate transferRestTemplate;
+
+    private final Map<String, CompletableFuture<Snapshot>> snapshots = new ConcurrentHashMap<>();
+
+    @PreDestroy
+    public void deleteSnapshots() {
+        snapshots.values().forEach(future -> future.thenAccept(Snapshot::delete));
+    }
+
+    /**
+     * The indexed snapshot behind {@code tarballUrl} (a GitHub /tarball/{ref} URL), downloading it
+     * if there is none or it has expired.
+     */
+    public Snapshot getSnapshot(String tarballUrl, String accessToken) throws IOException {
+        String key = snapshotKey(accessToken, tarballUrl);
+        while (true) {
+            CompletableFuture<Snapshot> future = snapshots.get(key);
+            if (future == null) {
+                CompletableFuture<Snapshot> download = new CompletableFuture<>();
+                future = snapshots.putIfAbsent(key, download);
+                if (future == null) {
+                    future = download;
+                    try {
+                        download.complete(download(key, tarballUrl, accessToken));
+                        evictLeastRecentlyUsed();
+                    } catch (IOException | RuntimeException e) {
+                        snapshots.remove(key, download);
+                        download.completeExceptionally(e);
+                    }
+                }
+            }
+
+            Snapshot snapshot = join(future);
+            if (System.currentTimeMillis() - snapshot.fetchedAt > ttlMinutes * 60_000) {
+                if (snapshots.remove(key, future)) {
+                    snapshot.delete();
+                }
+                continue;
+            }
+            snapshot.lastUsed = System.currentTimeMillis();
+            return snapshot;
+        }
+    }
+
+    private Snapshot download(String key, String tarballUrl, String accessToken) throws IOException {
+        Path directory = Paths.get(snapshotDir);
+        Files.createDirectories(directory);
+        Path tarFile = Files.createTempFile(directory, key.substring(0, 16) + "-", ".tar");
+        long start = System.currentTimeMillis();
+        try {
+            Snapshot snapshot = transferRestTemplate.execute(tarballUrl, HttpMethod.GET,
+                request -> {
+                    request.getHeaders().set(HttpHeaders.AUTHORIZATION, "Bearer " + accessToken);
+                    request.getHeaders().set(HttpHeaders.ACCEPT, "application/vnd.github+json");
+                },
+                response -> index(response.getBody(), tarFile));
+            System.out.println("📦 SNAPSHOT: indexed " + snapshot.entries.size() + " entries (" +
+                Files.size(tarFile) / 1024 + " KB) in " + (System.currentTimeMillis() - start) + "ms");
+            return snapshot;
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(tarFile);
+            throw e;
+        }
+    }
+
+    // Decompresses into tarFile while the reader indexes the same bytes
+    private Snapshot index(InputStream body, Path tarFile) throws IOException {
+        Snapshot snapshot = new Snapshot(tarFile);
+        try (OutputStream out = Files.newOutputStream(tarFile);
+             TarArchiveReader reader = new TarArchiveReader(new TeeInputStream(new GZIPInputStream(body, 64 * 1024), out))) {
+            TarArchiveReader.TarEntry entry;
+            while ((entry = reader.next()) != null) {
+                // GitHub puts everything under "<owner>-<repo>-<sha>/"
+                String name = entry.getName();
+                int slash = name.indexOf('/');
+                String path = slash < 0 ? "" : name.substring(slash + 1);
+                while (path.endsWith("/")) {
+                    path = path.substring(0, path.length() - 1);
+                }
+                if (path.isEmpty()) {
+                    continue;
+                }
+                String type = entry.isDirectory() ? "dir" : entry.isSymbolicLink() ? "symlink" : entry.isFile() ? "file" : null;
+                if (type != null) {
+                    snapshot.add(path, new SnapshotEntry(type, entry.getDataOffset(), entry.isFile() ? entry.getSize() : 0));
+                }
+            }
+        }
+        return snapshot;
+    }
+
+    private void evictLeastRecentlyUsed() {
+        while (snapshots.size() > maxSnapshots) {
+            // Downloads still running are not candidates
+            Map.Entry<String, CompletableFuture<Snapshot>> eldest = snapshots.entrySet().stream()
+                .filter(entry -> entry.getValue().isDone() && !entry.getValue().isCompletedExceptionally())
+                .min(Comparator.comparingLong(entry -> entry.getValue().join().lastUsed))
+                .orElse(null);
+            if (eldest == null) {
+                return;
+            }
+            if (snapshots.remove(eldest.getKey(), eldest.getValue())) {
+                eldest.getValue().join().delete();
+            }
+        }
+    }
+
+    private static Snapshot join(CompletableFuture<Snapshot> future) throws IOException {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof IOException io) {
+                throw io;
+            }
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw e;
+        }
+    }
+
+    private static String snapshotKey(String accessToken, String url) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest((accessToken + "\n" + url).getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    // Everything the reader consumes, skipped bytes included, is copied to the output
+    private static class TeeInputStream extends InputStream {
+        private final InputStream in;
+        private final OutputStream out;
+
+        TeeInputStream(InputStream in, OutputStream out) {
+            this.in = in;
+            this.out = out;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = in.read();
+            if (b >= 0) {
+                out.write(b);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int read = in.read(buffer, offset, length);
+            if (read > 0) {
+                out.write(buffer, offset, read);
+            }
+            return read;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            byte[] buffer = new byte[(int) Math.min(n, 64 * 1024)];
+            long skipped = 0;
+            while (skipped < n) {
+                int read = read(buffer, 0, (int) Math.min(buffer.length, n - skipped));
+                if (read < 0) {
+                    break;
+                }
+                skipped += read;
+            }
+            return skipped;
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+
+    private static class SnapshotEntry {
+        private final String type;
+        private final long offset;
+        private final long size;
+
+        SnapshotEntry(String type, long offset, long size) {
+            this.type = type;
+            this.offset = offset;
+            this.size = size;
+        }
+    }
+
+    public static class Snapshot {
+        private final Path tarFile;
+        private final Map<String, SnapshotEntry> entries = new HashMap<>();
+        private final Map<String, TreeSet<String>> children = new HashMap<>();
+        private final long fetchedAt = System.currentTimeMillis();
+        private volatile long lastUsed = fetchedAt;
+
+        Snapshot(Path tarFile) {
+            this.tarFile = tarFile;
+            children.put("", new TreeSet<>());
+        }
+
+        // Parent directories are added as well, as not every tar has entries for them
+        private void add(String path, SnapshotEntry entry) {
+            entries.put(path, entry);
+            if ("dir".equals(entry.type)) {
+                children.computeIfAbsent(path, key -> new TreeSet<>());
+            }
+            String child = path;
+            while (true) {
+                int slash = child.lastIndexOf('/');
+                String parent = slash < 0 ? "" : child.substring(0, slash);
+                // A known parent is already linked to its own parents; the root always is
+                boolean known = children.containsKey(parent);
+                children.computeIfAbsent(parent, key -> new TreeSet<>()).add(child.substring(slash + 1));
+                if (known) {
+                    break;
+                }
+                entries.putIfAbsent(parent, new SnapshotEntry("dir", 0, 0));
+                child = parent;
+            }
+        }
+
+        public boolean exists(String path) {
+            return normalize(path).isEmpty() || entries.containsKey(normalize(path));
+        }
+
+        public boolean isDirectory(String path) {
+            return children.containsKey(normalize(path));
+        }
+
+        // Name, path, type and size of each child, in the shape of the contents API's directory listing
+        public List<Map<String, Object>> list(String path) throws FileNotFoundException {
+            String directory = normalize(path);
+            TreeSet<String> names = children.get(directory);
+            if (names == null) {
+                throw new FileNotFoundException(path);
+            }
+            List<Map<String, Object>> listing = new ArrayList<>();
+            for (String name : names) {
+                String childPath = directory.isEmpty() ? name : directory + "/" + name;
+                SnapshotEntry entry = entries.get(childPath);
+                Map<String, Object> item = new HashMap<>();
+                item.put("name", name);
+                item.put("path", childPath);
+                item.put("type", entry.type);
+                item.put("size", entry.size);
+                listing.add(item);
+            }
+            return listing;
+        }
+
+        public long size(String path) throws FileNotFoundException {
+            return fileEntry(path).size;
+        }
+
+        // Positional reads, so any number of lookups can run at once
+        public byte[] read(String path) throws IOException {
+            SnapshotEntry entry = fileEntry(path);
+            if (entry.size > Integer.MAX_VALUE - 8) {
+                throw new IOException("File too large to read whole: " + path);
+            }
+            ByteBuffer buffer = ByteBuffer.allocate((int) entry.size);
+            try (FileChannel channel = FileChannel.open(tarFile, StandardOpenOption.READ)) {
+                while (buffer.hasRemaining()) {
+                    if (channel.read(buffer, entry.offset + buffer.position()) < 0) {
+                        throw new IOException("Snapshot truncated at " + path);
+                    }
+                }
+            }
+            return buffer.array();
+        }
+
+        private SnapshotEntry fileEntry(String path) throws FileNotFoundException {
+            SnapshotEntry entry = entries.get(normalize(path));
+            if (entry == null || !"file".equals(entry.type)) {
+                throw new FileNotFoundException(path);
+            }
+            return entry;
+        }
+
+        private void delete() {
+            try {
+                Files.deleteIfExists(tarFile);
+            } catch (IOException e) {
+                System.err.println("Failed to delete snapshot " + tarFile + ": " + e.getMessage());
+            }
+        }
+
+        private static String normalize(String path) {
+            String normalized = path == null ? "" : path.trim();
+            while (normalized.startsWith("/")) {
+                normalized = normalized.substring(1);
+            }
+            while (normalized.endsWith("/")) {
+                normalized = normalized.substring(0, normalized.length() - 1);
+            }
+            return normalized;
+        }
+    }
+}
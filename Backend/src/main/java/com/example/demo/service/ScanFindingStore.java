@@ -0,0 +1,304 @@
+package com.example.demo.service;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Append-only NDJSON store of scan and conflict findings, one file per job. Findings are written as
+ * they are produced, so reports never have to be held in memory; a page cursor is simply the byte
+ * offset of the next line.
+ */
+@Service
+public class ScanFindingStore {
+
+    @Value("${app.upload.dir:uploads}")
+    private String uploadDir;
+
+    private static final int FLUSH_EVERY = 64;
+    private static final int MAX_PAGE_SIZE = 1000;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    // Held by a replacing writer from the rewrite until it is closed
+    private final Map<String, ReentrantLock> replaceLocks = new ConcurrentHashMap<>();
+
+    public JobWriter openWriter(String jobId, boolean truncate) throws IOException {
+        Path path = findingsPath(jobId);
+        Files.createDirectories(path.getParent());
+        OutputStream out = truncate
+            ? Files.newOutputStream(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)
+            : Files.newOutputStream(path, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        return new JobWriter(new BufferedOutputStream(out), null);
+    }
+
+    /**
+     * Appends findings that replace the job's earlier findings from the same source, which are
+     * dropped first, so re-running one producer never duplicates its findings. Other sources keep
+     * theirs. A second replacing writer for the job waits until this one is closed.
+     */
+    public JobWriter openReplacingWriter(String jobId, String source) throws IOException {
+        Path path = findingsPath(jobId);
+        Files.createDirectories(path.getParent());
+        ReentrantLock lock = replaceLocks.computeIfAbsent(jobId, id -> new ReentrantLock());
+        lock.lock();
+        try {
+            if (Files.exists(path)) {
+                Path kept = path.resolveSibling(path.getFileName() + ".tmp");
+                try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8);
+                     BufferedWriter writer = Files.newBufferedWriter(kept, StandardCharsets.UTF_8)) {
+                    String line;
+                    while ((line = reader.readLine()) != null) {
+                        if (!line.isEmpty() && !source.equals(objectMapper.readTree(line).path("source").asText(null))) {
+                            writer.write(line);
+                            writer.write('\n');
+                        }
+                    }
+                }
+                Files.move(kept, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            }
+            OutputStream out = Files.newOutputStream(path, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            return new JobWriter(new BufferedOutputStream(out), lock);
+        } catch (IOException | RuntimeException e) {
+            lock.unlock();
+            throw e;
+        }
+    }
+
+    public boolean hasFindings(String jobId) {
+        return Files.exists(findingsPath(jobId));
+    }
+
+    public Map<String, Object> readPage(String jobId, long cursor, int limit, String source) throws IOException {
+        int pageSize = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        List<Map<String, Object>> findings = new ArrayList<>();
+        long position = Math.max(0, cursor);
+        boolean hasMore = false;
+
+        Path path = findingsPath(jobId);
+        if (Files.exists(path)) {
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+                channel.position(position);
+                InputStream in = new java.io.BufferedInputStream(Channels.newInputStream(channel));
+                ByteArrayOutputStream line = new ByteArrayOutputStream(256);
+                int b;
+                while ((b = in.read()) != -1) {
+                    if (b != '\n') {
+                        line.write(b);
+                        continue;
+                    }
+                    if (findings.size() == pageSize) {
+                        hasMore = true;
+                        break;
+                    }
+                    position += line.size() + 1;
+                    @SuppressWarnings("unchecked")
+                    Map<String, Object> finding = objectMapper.readValue(line.toByteArray(), Map.class);
+                    line.reset();
+                    if (source == null || source.equals(finding.get("source"))) {
+                        findings.add(finding);
+                    }
+                }
+                // A trailing line without '\n' is still being written and belongs to a later page
+            }
+        }
+
+        Map<String, Object> page = new HashMap<>();
+        page.put("findings", findings);
+        page.put("nextCursor", position);
+        page.put("hasMore", hasMore);
+        return page;
+    }
+
+    public void exportNdjson(String jobId, OutputStream out) throws IOException {
+        Path path = findingsPath(jobId);
+        if (Files.exists(path)) {
+            Files.copy(path, out);
+        }
+        out.flush();
+    }
+
+    /**
+     * Streams the findings as a SARIF 2.1.0 log, one result at a time, so the export never
+     * materialises the whole report.
+     */
+    public void exportSarif(String jobId, OutputStream out) throws IOException {
+        Path path = findingsPath(jobId);
+        try (JsonGenerator json = objectMapper.getFactory().createGenerator(out, JsonEncoding.UTF8)) {
+            json.writeStartObject();
+            json.writeStringField("$schema", "https://json.schemastore.org/sarif-2.1.0.json");
+            json.writeStringField("version", "2.1.0");
+            json.writeArrayFieldStart("runs");
+            json.writeStartObject();
+            json.writeObjectFieldStart("tool");
+            json.writeObjectFieldStart("driver");
+            json.writeStringField("name", "GitGenei Scanner");
+            json.writeStringField("informationUri", "https://github.com/srimanh/GitGenei");
+            json.writeEndObject();
+            json.writeEndObject();
+            json.writeArrayFieldStart("results");
+
+            if (Files.exists(path)) {
+                try (java.io.BufferedReader reader = Files.newBufferedReader(path)) {
+                    String line;
+                    while ((line = reader.readLine()) != null) {
+                        if (line.isEmpty()) {
+                            continue;
+                        }
+                        ScanFinding finding = objectMapper.readValue(line, ScanFinding.class);
+                        writeSarifResult(json, finding);
+                    }
+                }
+            }
+
+            json.writeEndArray();
+            json.writeEndObject();
+            json.writeEndArray();
+            json.writeEndObject();
+        }
+    }
+
+    private void writeSarifResult(JsonGenerator json, ScanFinding finding) throws IOException {
+        json.writeStartObject();
+        json.writeStringField("ruleId", finding.getType());
+        json.writeStringField("level", "error".equals(finding.getSeverity()) ? "error" : "warning");
+        json.writeObjectFieldStart("message");
+        json.writeStringField("text", finding.getMessage());
+        json.writeEndObject();
+        if (finding.getPath() != null) {
+            json.writeArrayFieldStart("locations");
+            json.writeStartObject();
+            json.writeObjectFieldStart("physicalLocation");
+            json.writeObjectFieldStart("artifactLocation");
+            json.writeStringField("uri", finding.getPath().replace('\\', '/'));
+            json.writeEndObject();
+            json.writeEndObject();
+            json.writeEndObject();
+            json.writeEndArray();
+        }
+        json.writeEndObject();
+    }
+
+    public void delete(String jobId) {
+        try {
+            Files.deleteIfExists(findingsPath(jobId));
+        } catch (IOException e) {
+            System.err.println("Failed to delete findings for " + jobId + ": " + e.getMessage());
+        }
+    }
+
+    private Path findingsPath(String jobId) {
+        if (jobId == null || !jobId.matches("[A-Za-z0-9_-]+")) {
+            throw new IllegalArgumentException("Invalid job id: " + jobId);
+        }
+        return Paths.get(uploadDir, "findings", jobId + ".ndjson");
+    }
+
+    // Appends findings for one job; safe to share between scan workers
+    public class JobWriter implements AutoCloseable {
+        private final OutputStream out;
+        private final ReentrantLock lock;
+        private int unflushed = 0;
+
+        private JobWriter(OutputStream out, ReentrantLock lock) {
+            this.out = out;
+            this.lock = lock;
+        }
+
+        public synchronized void append(ScanFinding finding) {
+            try {
+                out.write(objectMapper.writeValueAsBytes(finding));
+                out.write('\n');
+                if (++unflushed >= FLUSH_EVERY) {
+                    out.flush();
+                    unflushed = 0;
+                }
+            } catch (IOException e) {
+                System.err.println("Failed to persist finding: " + e.getMessage());
+            }
+        }
+
+        @Override
+        public synchronized void close() throws IOException {
+            try {
+                out.close();
+            } finally {
+                if (lock != null && lock.isHeldByCurrentThread()) {
+                    lock.unlock();
+                }
+            }
+        }
+    }
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public static class ScanFinding {
+        private String source;
+        private String severity;
+        private String type;
+        private String path;
+        private String message;
+        private Map<String, Object> details;
+
+        public ScanFinding() {
+        }
+
+        public ScanFinding(String source, String severity, String type, String path, String message) {
+            this.source = source;
+            this.severity = severity;
+            this.type = type;
+            this.path = path;
+            this.message = message;
+        }
+
+        public ScanFinding withDetail(String key, Object value) {
+            if (details == null) {
+                details = new HashMap<>();
+            }
+            details.put(key, value);
+            return this;
+        }
+
+        public String getSource() { return source; }
+        public void setSource(String source) { this.source = source; }
+
+        public String getSeverity() { return severity; }
+        public void setSeverity(String severity) { this.severity = severity; }
+
+        public String getType() { return type; }
+        public void setType(String type) { this.type = type; }
+
+        public String getPath() { return path; }
+        public void setPath(String path) { this.path = path; }
+
+        public String getMessage() { return message; }
+        public void setMessage(String message) { this.message = message; }
+
+        public Map<String, Object> getDetails() { return details; }
+        public void setDetails(Map<String, Object> details) { this.details = details; }
+    }
+}
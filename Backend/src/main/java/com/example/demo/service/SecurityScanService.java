@@ -1,34 +1,97 @@
 package com.example.demo.service;
 
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.regex.Pattern;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
 @Service
 public class SecurityScanService {
 
+    @Autowired
+    private FileIndexService fileIndexService;
+
+    @Autowired
+    private KnownFileAllowlist knownFileAllowlist;
+
+    @Autowired
+    private ScanFindingStore scanFindingStore;
+
     @Value("${app.security.scanner.strict-mode:false}")
     private boolean strictMode;
 
     @Value("${app.security.scanner.allow-dev-files:true}")
     private boolean allowDevFiles;
 
+    @Value("${app.security.scanner.deep-scan-enabled:true}")
+    private boolean deepScanEnabled;
+
+    // Worker threads shared by all scan jobs; 0 means one per available processor
+    @Value("${app.security.scanner.threads:0}")
+    private int scannerThreads;
+
+    @Value("${app.security.scanner.chunk-size:1048576}")
+    private int chunkSize;
+
+    // Files at least this large are memory-mapped chunk by chunk instead of read into the worker buffer
+    @Value("${app.security.scanner.mmap-threshold:8388608}")
+    private long mmapThreshold;
+
+    @Value("${app.security.scanner.time-budget-ms:120000}")
+    private long timeBudgetMs;
+
+    @Value("${app.security.scanner.entropy-enabled:true}")
+    private boolean entropyEnabled;
+
+    // Bytes shared by consecutive chunks; must exceed the longest match any content pattern needs to see
+    private static final int CHUNK_OVERLAP = 4096;
+
+    private ThreadPoolExecutor scanExecutor;
+
     // Dangerous file extensions (excluding legitimate development files)
     private static final Set<String> DANGEROUS_EXTENSIONS = new HashSet<>(Arrays.asList(
         ".exe", ".bat", ".cmd", ".com", ".scr", ".pif", ".vbs",
         ".app", ".deb", ".pkg", ".dmg", ".iso", ".msi", ".dll", ".so", ".dylib"
     ));
 
+    // Build wrappers every Gradle or Maven project ships; let through, content still scanned, while dev files are allowed
+    private static final Set<String> BUILD_WRAPPER_FILES = new HashSet<>(Arrays.asList(
+        "gradlew.bat", "mvnw.cmd"
+    ));
+
+    // Native libraries projects commonly vendor; only a warning while dev files are allowed
+    private static final Set<String> NATIVE_LIBRARY_EXTENSIONS = new HashSet<>(Arrays.asList(
+        ".dll", ".so", ".dylib"
+    ));
+
     // Suspicious file patterns (excluding legitimate development config files)
     private static final List<Pattern> SUSPICIOUS_PATTERNS = Arrays.asList(
         Pattern.compile(".*\\.(sh|bash|zsh|fish)$", Pattern.CASE_INSENSITIVE),
@@ -61,6 +124,12 @@ public class SecurityScanService {
         Pattern.compile("(?i)eval\\s*\\(\\s*['\"].*\\|.*['\"]\\s*\\)")
     );
 
+    // Lockfiles are full of integrity hashes that look exactly like high-entropy secrets
+    private static final Set<String> ENTROPY_EXCLUDED_FILES = new HashSet<>(Arrays.asList(
+        "package-lock.json", "yarn.lock", "pnpm-lock.yaml", "npm-shrinkwrap.json", "composer.lock",
+        "gemfile.lock", "cargo.lock", "poetry.lock", "pipfile.lock", "go.sum", "gradle.lockfile"
+    ));
+
     public boolean performQuickScan(MultipartFile file) {
         try {
             String filename = file.getOriginalFilename();
@@ -93,54 +162,44 @@ public class SecurityScanService {
     }
 
     public boolean performDeepScan(String extractedPath) {
-        // SECURITY SCANNER DISABLED FOR MVP
-        System.out.println("🔍 SECURITY SCAN DISABLED FOR MVP - ALWAYS PASSING");
-        System.out.println("📁 Scanned path: " + extractedPath);
-        return true; // Always pass for MVP
+        return performDeepScan(extractedPath, null);
     }
 
-    private boolean scanFile(Path filePath) {
-        try {
-            String filename = filePath.getFileName().toString();
+    // With a jobId every finding is also appended to that job's findings store as it is produced
+    public boolean performDeepScan(String extractedPath, String jobId) {
+        if (!deepScanEnabled) {
+            System.out.println("🔍 DEEP SECURITY SCAN DISABLED - skipping: " + extractedPath);
+            return true;
+        }
 
-            // Check for dangerous extensions
-            if (hasDangerousExtension(filename)) {
-                System.out.println("Security scan failed: Dangerous file extension detected: " + filename);
-                return false;
-            }
+        long startTime = System.currentTimeMillis();
+        SecurityScanResult result = generateScanReport(extractedPath, jobId);
+        long elapsed = System.currentTimeMillis() - startTime;
 
-            // Check for suspicious patterns in filename
-            if (isSuspiciousFilename(filename)) {
-                System.out.println("Security scan warning: Suspicious filename detected: " + filename);
-                // Don't fail for suspicious filenames, just log
-            }
-
-            // Scan file content for secrets and malicious code
-            if (isTextFile(filename)) {
-                String content = Files.readString(filePath);
-                
-                if (containsSecrets(content, filename)) {
-                    System.out.println("Security scan warning: Potential secrets detected in: " + filename);
-                    // Don't fail for secrets, just log warning
-                }
+        System.out.println("🔍 DEEP SCAN FINISHED in " + elapsed + "ms: " + result.getScannedFiles() + "/" +
+            result.getTotalFiles() + " files, " + result.getAllowlistedFiles() + " known files skipped, " +
+            result.getErrorCount() + " errors, " + result.getWarningCount() + " warnings" +
+            (result.isTimedOut() ? " (time budget exceeded)" : ""));
+        System.out.println("📋 KNOWN-FILE ALLOWLIST: " + knownFileAllowlist.getStats());
 
-                if (containsMaliciousCode(content, filename)) {
-                    if (strictMode) {
-                        System.out.println("Security scan failed: Malicious code detected in: " + filename);
-                        return false;
-                    } else {
-                        System.out.println("Security scan warning: Potential malicious code detected in: " + filename + " (ignored in non-strict mode)");
-                        // Don't fail in non-strict mode, just log warning
-                    }
-                }
+        if (result.getDangerousFiles() > 0) {
+            System.out.println("Security scan failed: " + result.getDangerousFiles() + " files with dangerous extensions");
+            return false;
+        }
+        if (result.getMaliciousFiles() > 0) {
+            if (strictMode) {
+                System.out.println("Security scan failed: Malicious code detected in " + result.getMaliciousFiles() + " files");
+                return false;
             }
-
-            return true;
-
-        } catch (Exception e) {
-            System.out.println("Error scanning file " + filePath + ": " + e.getMessage());
-            return true; // Don't fail scan for read errors
+            System.out.println("Security scan warning: Potential malicious code in " + result.getMaliciousFiles() +
+                " files (ignored in non-strict mode)");
         }
+        if (result.isTimedOut() && strictMode) {
+            System.out.println("Security scan failed: time budget exceeded in strict mode");
+            return false;
+        }
+        // Any error beyond the per-file ones above means the scan itself could not run
+        return result.getErrorCount() == result.getDangerousFiles() + result.getMaliciousFiles();
     }
 
     private boolean hasDangerousExtension(String filename) {
@@ -161,79 +220,40 @@ public class SecurityScanService {
             .anyMatch(pattern -> pattern.matcher(filename).matches());
     }
 
-    private boolean isTextFile(String filename) {
+    private boolean skipSecretScan(String filename) {
+        // Skip checking for secrets in certain file types
         String lowerFilename = filename.toLowerCase();
-        return lowerFilename.endsWith(".txt") ||
-               lowerFilename.endsWith(".md") ||
-               lowerFilename.endsWith(".json") ||
-               lowerFilename.endsWith(".xml") ||
-               lowerFilename.endsWith(".yaml") ||
-               lowerFilename.endsWith(".yml") ||
-               lowerFilename.endsWith(".ini") ||
-               lowerFilename.endsWith(".conf") ||
-               lowerFilename.endsWith(".config") ||
-               lowerFilename.endsWith(".env") ||
-               lowerFilename.endsWith(".properties") ||
-               lowerFilename.endsWith(".js") ||
-               lowerFilename.endsWith(".ts") ||
-               lowerFilename.endsWith(".jsx") ||
-               lowerFilename.endsWith(".tsx") ||
-               lowerFilename.endsWith(".py") ||
-               lowerFilename.endsWith(".java") ||
-               lowerFilename.endsWith(".cpp") ||
-               lowerFilename.endsWith(".c") ||
-               lowerFilename.endsWith(".h") ||
-               lowerFilename.endsWith(".cs") ||
-               lowerFilename.endsWith(".php") ||
-               lowerFilename.endsWith(".rb") ||
-               lowerFilename.endsWith(".go") ||
-               lowerFilename.endsWith(".rs") ||
-               lowerFilename.endsWith(".sh") ||
-               lowerFilename.endsWith(".bash") ||
-               lowerFilename.endsWith(".zsh") ||
-               lowerFilename.endsWith(".fish") ||
-               lowerFilename.endsWith(".ps1") ||
-               lowerFilename.endsWith(".bat") ||
-               lowerFilename.endsWith(".cmd") ||
-               lowerFilename.endsWith(".html") ||
-               lowerFilename.endsWith(".htm") ||
-               lowerFilename.endsWith(".css") ||
-               lowerFilename.endsWith(".scss") ||
-               lowerFilename.endsWith(".sass") ||
-               lowerFilename.endsWith(".less") ||
-               lowerFilename.endsWith(".sql") ||
-               lowerFilename.endsWith(".dockerfile") ||
-               lowerFilename.equals("dockerfile") ||
-               lowerFilename.equals("makefile") ||
-               lowerFilename.equals("readme") ||
-               lowerFilename.equals("license") ||
-               lowerFilename.equals("changelog") ||
-               lowerFilename.equals("authors") ||
-               lowerFilename.equals("contributors");
+        return lowerFilename.endsWith(".md") ||
+               lowerFilename.endsWith(".txt") ||
+               lowerFilename.contains("readme") ||
+               lowerFilename.contains("license");
     }
 
-    private boolean containsSecrets(String content, String filename) {
-        // Skip checking for secrets in certain file types
-        if (filename.toLowerCase().endsWith(".md") || 
-            filename.toLowerCase().endsWith(".txt") ||
-            filename.toLowerCase().contains("readme") ||
-            filename.toLowerCase().contains("license")) {
-            return false;
-        }
-
+    private boolean containsSecrets(CharSequence content) {
         return SECRET_PATTERNS.stream()
             .anyMatch(pattern -> pattern.matcher(content).find());
     }
 
-    private boolean containsMaliciousCode(String content, String filename) {
+    private boolean containsMaliciousCode(CharSequence content) {
         return MALICIOUS_PATTERNS.stream()
             .anyMatch(pattern -> pattern.matcher(content).find());
     }
 
     public SecurityScanResult generateScanReport(String extractedPath) {
+        return generateScanReport(extractedPath, null);
+    }
+
+    public SecurityScanResult generateScanReport(String extractedPath, String jobId) {
         SecurityScanResult result = new SecurityScanResult();
-        
+        ScanFindingStore.JobWriter findingWriter = null;
+
         try {
+            if (jobId != null) {
+                // The scan is the first stage to report, so it starts the job's findings afresh
+                findingWriter = scanFindingStore.openWriter(jobId, true);
+                result.setFindingWriter(findingWriter);
+            }
+
             Path rootPath = Paths.get(extractedPath);
             if (!Files.exists(rootPath)) {
                 result.setPassed(false);
@@ -241,74 +261,387 @@ public class SecurityScanService {
                 return result;
             }
 
+            List<Path> files;
             try (Stream<Path> paths = Files.walk(rootPath)) {
-                paths.filter(Files::isRegularFile)
-                     .forEach(path -> scanFileForReport(path, result));
+                files = paths.filter(Files::isRegularFile).collect(Collectors.toList());
             }
 
-            result.setPassed(result.getErrors().isEmpty());
+            scanFilesInParallel(files, fileIndexService.getIndex(extractedPath), result);
+
+            // Content that came out clean is a candidate for the known-file allowlist
+            knownFileAllowlist.recordCleanFiles(result.getCleanDigests());
+
+            result.setPassed(result.getErrorCount() == 0);
 
         } catch (Exception e) {
             result.setPassed(false);
             result.addError("Scan failed: " + e.getMessage());
+        } finally {
+            if (findingWriter != null) {
+                try {
+                    findingWriter.close();
+                } catch (IOException e) {
+                    System.err.println("Failed to close findings for " + jobId + ": " + e.getMessage());
+                }
+            }
         }
 
         return result;
     }
 
-    private void scanFileForReport(Path filePath, SecurityScanResult result) {
+    private void scanFilesInParallel(List<Path> files, ProjectFileIndex index, SecurityScanResult result) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeBudgetMs);
+        AtomicInteger nextFile = new AtomicInteger();
+        int workers = Math.max(1, Math.min(scannerThreads, files.size()));
+        CountDownLatch done = new CountDownLatch(workers);
+
+        // Each job gets at most `scannerThreads` workers pulling from the same file list, so a
+        // single huge upload cannot monopolise the shared pool
+        for (int i = 0; i < workers; i++) {
+            scanExecutor.execute(() -> {
+                ByteBuffer buffer = ByteBuffer.allocate(chunkSize);
+                EntropySecretDetector entropyDetector = new EntropySecretDetector();
+                try {
+                    int next;
+                    while ((next = nextFile.getAndIncrement()) < files.size()) {
+                        if (System.nanoTime() > deadline) {
+                            result.markTimedOut();
+                            break;
+                        }
+                        scanFileForReport(files.get(next), index, result, buffer, entropyDetector, deadline);
+                    }
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+
+        done.await();
+
+        if (result.isTimedOut()) {
+            int unscanned = files.size() - result.getScannedFiles();
+            result.addWarning("SCAN_TIMEOUT", null, "Scan time budget of " + timeBudgetMs + "ms exceeded - " + unscanned + " files not fully scanned");
+        }
+    }
+
+    private void scanFileForReport(Path filePath, ProjectFileIndex index, SecurityScanResult result,
+                                   ByteBuffer buffer, EntropySecretDetector entropyDetector, long deadline) {
         try {
             String filename = filePath.getFileName().toString();
+            String relativePath = index.relativize(filePath);
             result.incrementTotalFiles();
 
             if (hasDangerousExtension(filename)) {
-                result.addError("Dangerous file extension: " + filename);
-                return;
+                String lowerFilename = filename.toLowerCase();
+                if (allowDevFiles && NATIVE_LIBRARY_EXTENSIONS.stream().anyMatch(lowerFilename::endsWith)) {
+                    result.addWarning("NATIVE_LIBRARY", relativePath, "Vendored native library: " + filename);
+                } else if (!allowDevFiles || !BUILD_WRAPPER_FILES.contains(lowerFilename)) {
+                    result.addDangerousFile(relativePath, "Dangerous file extension: " + filename);
+                    return;
+                }
             }
 
             if (isSuspiciousFilename(filename)) {
-                result.addWarning("Suspicious filename: " + filename);
+                result.addWarning("SUSPICIOUS_FILENAME", relativePath, "Suspicious filename: " + filename);
             }
 
-            if (isTextFile(filename)) {
-                String content = Files.readString(filePath);
-                
-                if (containsSecrets(content, filename)) {
-                    result.addWarning("Potential secrets in: " + filename);
+            // Binaries are classified from their first few KB and never read further
+            if (index.isTextFile(filePath)) {
+                byte[] blobId = null;
+                if (knownFileAllowlist.isEnabled()) {
+                    blobId = index.getBlobId(filePath);
+                    if (knownFileAllowlist.contains(blobId)) {
+                        // Well-known vendored content - skip the secret and malicious-code scanners
+                        result.incrementAllowlistedFiles();
+                        result.incrementScannedFiles();
+                        return;
+                    }
+                }
+
+                boolean checkSecrets = !skipSecretScan(filename);
+                EntropySecretDetector detector = checkSecrets && entropyEnabled &&
+                    !ENTROPY_EXCLUDED_FILES.contains(filename.toLowerCase()) ? entropyDetector : null;
+                ContentMatches matches = scanContent(filePath, checkSecrets, detector, buffer, deadline);
+                if (matches == null) {
+                    result.markTimedOut();
+                    return;
+                }
+
+                if (matches.highEntropy) {
+                    result.addWarning("HIGH_ENTROPY_TOKEN", relativePath, "High-entropy token (possible secret) in: " + filename);
+                }
+
+                // Only content that went through every check may be allowlisted, as a hit later skips them all under any name
+                boolean fullyChecked = checkSecrets && (detector != null || !entropyEnabled);
+                if (blobId != null && fullyChecked && !matches.secrets && !matches.malicious && !matches.highEntropy) {
+                    result.addCleanDigest(blobId);
+                }
+
+                if (matches.secrets) {
+                    result.addWarning("POTENTIAL_SECRET", relativePath, "Potential secrets in: " + filename);
                 }
 
-                if (containsMaliciousCode(content, filename)) {
-                    result.addError("Malicious code in: " + filename);
+                if (matches.malicious) {
+                    result.addMaliciousFile(relativePath, "Malicious code in: " + filename);
                 }
             }
 
             result.incrementScannedFiles();
 
         } catch (Exception e) {
-            result.addWarning("Could not scan file: " + filePath + " - " + e.getMessage());
+            result.addWarning("UNREADABLE_FILE", index.relativize(filePath), "Could not scan file: " + filePath + " - " + e.getMessage());
+        }
+    }
+
+    // Returns null when the job's time budget runs out part way through the file.
+    // entropyDetector is null when the file is not checked for high-entropy tokens
+    private ContentMatches scanContent(Path filePath, boolean checkSecrets, EntropySecretDetector entropyDetector,
+                                       ByteBuffer buffer, long deadline) throws IOException {
+        ContentMatches matches = new ContentMatches();
+
+        try (FileChannel channel = FileChannel.open(filePath, StandardOpenOption.READ)) {
+            long size = channel.size();
+            long position = 0;
+            // The classifier takes BOM-marked UTF-16 as text; its chunks are narrowed to one byte per char below
+            ByteOrder utf16 = utf16ByteOrder(channel);
+
+            while (position < size) {
+                if (System.nanoTime() > deadline) {
+                    return null;
+                }
+
+                int length = (int) Math.min(chunkSize, size - position);
+                ByteBuffer chunk;
+                if (size >= mmapThreshold) {
+                    chunk = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+                } else {
+                    buffer.clear();
+                    buffer.limit(length);
+                    // Positional reads never move the channel's own position
+                    while (buffer.hasRemaining()) {
+                        if (channel.read(buffer, position + buffer.position()) < 0) {
+                            break;
+                        }
+                    }
+                    buffer.flip();
+                    chunk = buffer;
+                }
+                if (utf16 != null) {
+                    chunk = narrowUtf16(chunk, utf16);
+                }
+
+                // Bytes are viewed as ISO-8859-1 chars so the regexes run without decoding the chunk
+                CharSequence content = new ByteBufferCharSequence(chunk, 0, chunk.limit());
+                if (checkSecrets && !matches.secrets) {
+                    matches.secrets = containsSecrets(content);
+                }
+                if (!matches.malicious) {
+                    matches.malicious = containsMaliciousCode(content);
+                }
+                if (entropyDetector != null && !matches.highEntropy) {
+                    matches.highEntropy = entropyDetector.containsHighEntropyToken(chunk, 0, chunk.limit());
+                }
+
+                boolean allFound = matches.malicious &&
+                    (matches.secrets || !checkSecrets) &&
+                    (matches.highEntropy || entropyDetector == null);
+                if (position + length >= size || allFound) {
+                    break;
+                }
+                // Consecutive chunks overlap so a match straddling a chunk boundary is still seen whole
+                position += length - CHUNK_OVERLAP;
+            }
+        }
+
+        return matches;
+    }
+
+    // The byte order of a file starting with a UTF-16 byte order mark, otherwise null
+    private static ByteOrder utf16ByteOrder(FileChannel channel) throws IOException {
+        ByteBuffer bom = ByteBuffer.allocate(2);
+        while (bom.hasRemaining()) {
+            if (channel.read(bom, bom.position()) < 0) {
+                return null;
+            }
+        }
+        int mark = bom.getShort(0) & 0xFFFF;
+        return mark == 0xFEFF ? ByteOrder.BIG_ENDIAN : mark == 0xFFFE ? ByteOrder.LITTLE_ENDIAN : null;
+    }
+
+    // One byte per UTF-16 code unit: Latin-1 chars keep their value, anything above becomes '?', which no
+    // secret or malicious-code pattern relies on. Chunks start at even offsets, so code units stay aligned
+    private static ByteBuffer narrowUtf16(ByteBuffer chunk, ByteOrder order) {
+        ByteBuffer units = chunk.duplicate().order(order);
+        ByteBuffer narrow = ByteBuffer.allocate(chunk.limit() / 2);
+        for (int i = 0; i + 1 < chunk.limit(); i += 2) {
+            char c = units.getChar(i);
+            narrow.put(c <= 0xFF ? (byte) c : (byte) '?');
+        }
+        return narrow.flip();
+    }
+
+    // Changes whenever the content rules change, so allowlist entries from older rules are dropped
+    private long rulesFingerprint() {
+        long fingerprint = 17;
+        for (Pattern pattern : SECRET_PATTERNS) {
+            fingerprint = fingerprint * 31 + pattern.pattern().hashCode();
+        }
+        for (Pattern pattern : MALICIOUS_PATTERNS) {
+            fingerprint = fingerprint * 31 + pattern.pattern().hashCode();
+        }
+        if (entropyEnabled) {
+            fingerprint = fingerprint * 31 + EntropySecretDetector.fingerprint();
+        }
+        return fingerprint;
+    }
+
+    @PostConstruct
+    void startScanExecutor() {
+        knownFileAllowlist.open(rulesFingerprint());
+
+        if (scannerThreads <= 0) {
+            scannerThreads = Runtime.getRuntime().availableProcessors();
+        }
+        // Even, so UTF-16 chunks begin on a code unit
+        chunkSize = Math.max(chunkSize, CHUNK_OVERLAP * 2) & ~1;
+
+        AtomicInteger threadCount = new AtomicInteger();
+        scanExecutor = new ThreadPoolExecutor(
+            scannerThreads, scannerThreads,
+            60L, TimeUnit.SECONDS,
+            new ArrayBlockingQueue<>(scannerThreads * 4),
+            runnable -> {
+                Thread thread = new Thread(runnable, "security-scan-" + threadCount.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            },
+            // When every worker is busy the submitting thread scans for itself instead of queueing without bound
+            new ThreadPoolExecutor.CallerRunsPolicy()
+        );
+    }
+
+    @PreDestroy
+    void stopScanExecutor() {
+        scanExecutor.shutdownNow();
+    }
+
+    private static class ContentMatches {
+        boolean secrets;
+        boolean malicious;
+        boolean highEntropy;
+    }
+
+    // Read-only CharSequence over raw bytes, one char per byte, so regexes can run on file chunks without a String copy
+    private static class ByteBufferCharSequence implements CharSequence {
+        private final ByteBuffer buffer;
+        private final int start;
+        private final int end;
+
+        ByteBufferCharSequence(ByteBuffer buffer, int start, int end) {
+            this.buffer = buffer;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        public int length() {
+            return end - start;
+        }
+
+        @Override
+        public char charAt(int index) {
+            return (char) (buffer.get(start + index) & 0xFF);
+        }
+
+        @Override
+        public CharSequence subSequence(int from, int to) {
+            return new ByteBufferCharSequence(buffer, start + from, start + to);
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder builder = new StringBuilder(length());
+            for (int i = start; i < end; i++) {
+                builder.append((char) (buffer.get(i) & 0xFF));
+            }
+            return builder.toString();
         }
     }
 
     public static class SecurityScanResult {
-        private boolean passed = true;
-        private int totalFiles = 0;
-        private int scannedFiles = 0;
-        private java.util.List<String> errors = new java.util.ArrayList<>();
-        private java.util.List<String> warnings = new java.util.ArrayList<>();
+        // Only the first findings are kept in memory; the full list goes to the findings store
+        public static final int MAX_RETAINED_MESSAGES = 200;
+
+        private volatile boolean passed = true;
+        private volatile boolean timedOut = false;
+        private final AtomicInteger totalFiles = new AtomicInteger();
+        private final AtomicInteger scannedFiles = new AtomicInteger();
+        private final AtomicInteger dangerousFiles = new AtomicInteger();
+        private final AtomicInteger maliciousFiles = new AtomicInteger();
+        private final AtomicInteger allowlistedFiles = new AtomicInteger();
+        private final Map<ByteBuffer, byte[]> cleanDigests = new ConcurrentHashMap<>();
+        private final AtomicInteger errorCount = new AtomicInteger();
+        private final AtomicInteger warningCount = new AtomicInteger();
+        private final java.util.List<String> errors = Collections.synchronizedList(new java.util.ArrayList<>());
+        private final java.util.List<String> warnings = Collections.synchronizedList(new java.util.ArrayList<>());
+        private volatile ScanFindingStore.JobWriter findingWriter;
+
+        public void setFindingWriter(ScanFindingStore.JobWriter findingWriter) { this.findingWriter = findingWriter; }
 
         public boolean isPassed() { return passed; }
         public void setPassed(boolean passed) { this.passed = passed; }
 
-        public int getTotalFiles() { return totalFiles; }
-        public void incrementTotalFiles() { this.totalFiles++; }
+        public boolean isTimedOut() { return timedOut; }
+        public void markTimedOut() { this.timedOut = true; }
+
+        public int getTotalFiles() { return totalFiles.get(); }
+        public void incrementTotalFiles() { this.totalFiles.incrementAndGet(); }
+
+        public int getScannedFiles() { return scannedFiles.get(); }
+        public void incrementScannedFiles() { this.scannedFiles.incrementAndGet(); }
+
+        public int getDangerousFiles() { return dangerousFiles.get(); }
+        public void addDangerousFile(String path, String error) {
+            this.dangerousFiles.incrementAndGet();
+            addError("DANGEROUS_EXTENSION", path, error);
+        }
+
+        public int getMaliciousFiles() { return maliciousFiles.get(); }
+        public void addMaliciousFile(String path, String error) {
+            this.maliciousFiles.incrementAndGet();
+            addError("MALICIOUS_CODE", path, error);
+        }
+
+        public int getAllowlistedFiles() { return allowlistedFiles.get(); }
+        public void incrementAllowlistedFiles() { this.allowlistedFiles.incrementAndGet(); }
 
-        public int getScannedFiles() { return scannedFiles; }
-        public void incrementScannedFiles() { this.scannedFiles++; }
+        // Distinct blob ids of text files without findings
+        public Collection<byte[]> getCleanDigests() { return cleanDigests.values(); }
+        public void addCleanDigest(byte[] digest) { this.cleanDigests.putIfAbsent(ByteBuffer.wrap(digest), digest); }
 
+        public int getErrorCount() { return errorCount.get(); }
         public java.util.List<String> getErrors() { return errors; }
-        public void addError(String error) { this.errors.add(error); }
+        public void addError(String error) { addError("SCAN_ERROR", null, error); }
+        public void addError(String type, String path, String error) {
+            record(errors, errorCount, "error", type, path, error);
+        }
 
+        public int getWarningCount() { return warningCount.get(); }
         public java.util.List<String> getWarnings() { return warnings; }
-        public void addWarning(String warning) { this.warnings.add(warning); }
+        public void addWarning(String warning) { addWarning("SCAN_WARNING", null, warning); }
+        public void addWarning(String type, String path, String warning) {
+            record(warnings, warningCount, "warning", type, path, warning);
+        }
+
+        private void record(java.util.List<String> retained, AtomicInteger count, String severity,
+                            String type, String path, String message) {
+            if (count.incrementAndGet() <= MAX_RETAINED_MESSAGES) {
+                retained.add(message);
+            }
+            ScanFindingStore.JobWriter writer = findingWriter;
+            if (writer != null) {
+                writer.append(new ScanFindingStore.ScanFinding("security", severity, type, path, message));
+            }
+        }
     }
 }
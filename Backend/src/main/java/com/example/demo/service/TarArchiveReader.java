@@ -0,0 +1,332 @@
+package com.example.demo.service;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Streaming reader for ustar, GNU and pax tar archives. Entries are read in order; the stream
+ * returned by {@link #getEntryStream()} is only valid until the next call to {@link #next()}.
+ *
+ * Understands GNU long names ('L'), pax extended headers ('x', path/linkpath/size) and base-256
+ * sizes; sparse files and multi-volume archives are not supported.
+ *
+ * Each entry records where its data starts in the (uncompressed) archive, so a tar kept on disk can
+ * be indexed once and its files read later without extracting them.
+ */
+public class TarArchiveReader implements Closeable {
+
+    private static final int BLOCK_SIZE = 512;
+
+    private final CountingInputStream in;
+    private long remaining;
+    private long padding;
+
+    public TarArchiveReader(InputStream in) {
+        this.in = new CountingInputStream(in);
+    }
+
+    // Returns null at the end of the archive
+    public TarEntry next() throws IOException {
+        in.skipNBytes(remaining + padding);
+        remaining = 0;
+        padding = 0;
+
+        String longName = null;
+        String longLinkName = null;
+        Map<String, String> pax = new HashMap<>();
+        while (true) {
+            byte[] header = in.readNBytes(BLOCK_SIZE);
+            if (header.length < BLOCK_SIZE || isZeroBlock(header)) {
+                return null;
+            }
+            verifyChecksum(header);
+
+            char type = (char) header[156];
+            long size = parseNumber(header, 124, 12);
+            switch (type) {
+                case 'L':
+                    longName = readString(size);
+                    continue;
+                case 'K':
+                    longLinkName = readString(size);
+                    continue;
+                case 'x':
+                    pax.putAll(parsePaxHeaders(readData(size)));
+                    continue;
+                case 'g':
+                    // Global pax headers only carry archive-wide defaults we do not use
+                    skipEntry(size);
+                    continue;
+                default:
+                    break;
+            }
+
+            String name = parseString(header, 0, 100);
+            if (isUstar(header)) {
+                String prefix = parseString(header, 345, 155);
+                if (!prefix.isEmpty()) {
+                    name = prefix + "/" + name;
+                }
+            }
+            String linkName = parseString(header, 157, 100);
+
+            if (longName != null) name = longName;
+            if (longLinkName != null) linkName = longLinkName;
+            if (pax.containsKey("path")) name = pax.get("path");
+            if (pax.containsKey("linkpath")) linkName = pax.get("linkpath");
+            if (pax.containsKey("size")) {
+                try {
+                    size = Long.parseLong(pax.get("size"));
+                } catch (NumberFormatException e) {
+                    throw new IOException("Malformed pax size: " + pax.get("size"));
+                }
+            }
+
+            TarEntry entry = new TarEntry(name, type, size, (int) parseNumber(header, 100, 8),
+                parseNumber(header, 136, 12), linkName, in.count);
+            // Only regular files carry data; links and directories have none whatever the header says
+            remaining = entry.isFile() ? size : 0;
+            padding = entry.isFile() ? paddingFor(size) : 0;
+            return entry;
+        }
+    }
+
+    // Content of the entry last returned by next()
+    public InputStream getEntryStream() {
+        return new InputStream() {
+            @Override
+            public int read() throws IOException {
+                if (remaining <= 0) {
+                    return -1;
+                }
+                int b = in.read();
+                if (b < 0) {
+                    throw new EOFException("Truncated tar entry");
+                }
+                remaining--;
+                return b;
+            }
+
+            @Override
+            public int read(byte[] buffer, int offset, int length) throws IOException {
+                if (remaining <= 0) {
+                    return -1;
+                }
+                int read = in.read(buffer, offset, (int) Math.min(length, remaining));
+                if (read < 0) {
+                    throw new EOFException("Truncated tar entry");
+                }
+                remaining -= read;
+                return read;
+            }
+
+            @Override
+            public void close() {
+                // The archive stream stays open for the next entry
+            }
+        };
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    private String readString(long size) throws IOException {
+        byte[] data = readData(size);
+        int end = data.length;
+        while (end > 0 && data[end - 1] == 0) {
+            end--;
+        }
+        return new String(data, 0, end, StandardCharsets.UTF_8);
+    }
+
+    private byte[] readData(long size) throws IOException {
+        if (size > Integer.MAX_VALUE - BLOCK_SIZE) {
+            throw new IOException("Tar header entry too large: " + size);
+        }
+        byte[] data = in.readNBytes((int) size);
+        if (data.length < size) {
+            throw new EOFException("Truncated tar header");
+        }
+        in.skipNBytes(paddingFor(size));
+        return data;
+    }
+
+    private void skipEntry(long size) throws IOException {
+        in.skipNBytes(size + paddingFor(size));
+    }
+
+    // Records are "<length> <key>=<value>\n", where length counts the whole record
+    private static Map<String, String> parsePaxHeaders(byte[] data) throws IOException {
+        Map<String, String> values = new HashMap<>();
+        int position = 0;
+        while (position < data.length) {
+            int space = position;
+            while (space < data.length && data[space] != ' ') {
+                space++;
+            }
+            int length;
+            try {
+                length = Integer.parseInt(new String(data, position, space - position, StandardCharsets.US_ASCII));
+            } catch (NumberFormatException e) {
+                throw new IOException("Malformed pax header");
+            }
+            if (length <= space - position + 1 || position + length > data.length) {
+                throw new IOException("Malformed pax header");
+            }
+            String record = new String(data, space + 1, position + length - space - 2, StandardCharsets.UTF_8);
+            int equals = record.indexOf('=');
+            if (equals > 0) {
+                values.put(record.substring(0, equals), record.substring(equals + 1));
+            }
+            position += length;
+        }
+        return values;
+    }
+
+    private static long paddingFor(long size) {
+        return (BLOCK_SIZE - size % BLOCK_SIZE) % BLOCK_SIZE;
+    }
+
+    private static boolean isZeroBlock(byte[] header) {
+        for (byte b : header) {
+            if (b != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isUstar(byte[] header) {
+        return header[257] == 'u' && header[258] == 's' && header[259] == 't' && header[260] == 'a' && header[261] == 'r';
+    }
+
+    // The checksum field itself is summed as if it were spaces
+    private static void verifyChecksum(byte[] header) throws IOException {
+        long expected = parseNumber(header, 148, 8);
+        long sum = 0;
+        for (int i = 0; i < BLOCK_SIZE; i++) {
+            sum += (i >= 148 && i < 156) ? ' ' : (header[i] & 0xFF);
+        }
+        if (sum != expected) {
+            throw new IOException("Not a tar archive (header checksum mismatch)");
+        }
+    }
+
+    private static String parseString(byte[] header, int offset, int length) {
+        int end = offset;
+        while (end < offset + length && header[end] != 0) {
+            end++;
+        }
+        return new String(header, offset, end - offset, StandardCharsets.UTF_8);
+    }
+
+    // Octal, or GNU base-256 when the high bit of the first byte is set
+    private static long parseNumber(byte[] header, int offset, int length) throws IOException {
+        if ((header[offset] & 0x80) != 0) {
+            long value = header[offset] & 0x7F;
+            for (int i = offset + 1; i < offset + length; i++) {
+                value = (value << 8) | (header[i] & 0xFF);
+            }
+            return value;
+        }
+        int i = offset;
+        int end = offset + length;
+        while (i < end && header[i] == ' ') {
+            i++;
+        }
+        long value = 0;
+        for (; i < end; i++) {
+            byte b = header[i];
+            if (b == 0 || b == ' ') {
+                break;
+            }
+            if (b < '0' || b > '7') {
+                throw new IOException("Invalid number in tar header");
+            }
+            value = (value << 3) + (b - '0');
+        }
+        return value;
+    }
+
+    // Counts every byte taken from the archive, read or skipped
+    private static class CountingInputStream extends InputStream {
+        private final InputStream in;
+        private long count;
+
+        CountingInputStream(InputStream in) {
+            this.in = in;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = in.read();
+            if (b >= 0) {
+                count++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int read = in.read(buffer, offset, length);
+            if (read > 0) {
+                count += read;
+            }
+            return read;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = in.skip(n);
+            count += skipped;
+            return skipped;
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+
+    public static class TarEntry {
+        private final String name;
+        private final char type;
+        private final long size;
+        private final int mode;
+        private final long modifiedSeconds;
+        private final String linkName;
+        private final long dataOffset;
+
+        TarEntry(String name, char type, long size, int mode, long modifiedSeconds, String linkName, long dataOffset) {
+            this.name = name;
+            this.type = type;
+            this.size = size;
+            this.mode = mode;
+            this.modifiedSeconds = modifiedSeconds;
+            this.linkName = linkName;
+            this.dataOffset = dataOffset;
+        }
+
+        public String getName() { return name; }
+        public char getType() { return type; }
+        public long getSize() { return size; }
+        public int getMode() { return mode; }
+        public long getModifiedSeconds() { return modifiedSeconds; }
+        public String getLinkName() { return linkName; }
+        // Byte offset of the entry's content from the start of the archive
+        public long getDataOffset() { return dataOffset; }
+
+        // '0', NUL (old tar) and '7' (contiguous) are all plain files
+        public boolean isFile() { return type == '0' || type == '7' || (type == '\0' && !name.endsWith("/")); }
+        public boolean isDirectory() { return type == '5' || (type == '\0' && name.endsWith("/")); }
+        public boolean isSymbolicLink() { return type == '2'; }
+        public boolean isHardLink() { return type == '1'; }
+    }
+}
@@ -0,0 +1,35 @@
+-- Tables for entities added after the original schema. The deploy profile runs this on every start,
+-- before Hibernate validates the schema, so every statement must be safe to repeat.
+
+-- GitHubResponseCacheEntry: conditional-request cache, only written when app.github.cache.persist is on
+CREATE TABLE IF NOT EXISTS github_response_cache (
+    cache_key VARCHAR(64) NOT NULL,
+    etag VARCHAR(255) NOT NULL,
+    body TEXT NOT NULL,
+    link_header VARCHAR(2048),
+    validated_at TIMESTAMP(6),
+    PRIMARY KEY (cache_key)
+);
+
+-- ProcessingJob: the durable analysis queue; file_id is unique so a project is only ever queued once
+CREATE TABLE IF NOT EXISTS processing_jobs (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY,
+    file_id VARCHAR(255) NOT NULL UNIQUE,
+    user_id VARCHAR(255) NOT NULL,
+    push_backend VARCHAR(255),
+    status VARCHAR(16) NOT NULL CHECK (status IN ('QUEUED', 'RUNNING', 'COMPLETED', 'FAILED')),
+    attempts INTEGER NOT NULL,
+    lease_owner VARCHAR(255),
+    lease_expires_at TIMESTAMP(6),
+    heartbeat_at TIMESTAMP(6),
+    available_at TIMESTAMP(6) NOT NULL,
+    created_at TIMESTAMP(6) NOT NULL,
+    started_at TIMESTAMP(6),
+    finished_at TIMESTAMP(6),
+    last_error TEXT,
+    PRIMARY KEY (id)
+);
+
+-- Claiming due jobs, and finding running jobs whose lease has expired
+CREATE INDEX IF NOT EXISTS idx_processing_jobs_claim ON processing_jobs (status, available_at);
+CREATE INDEX IF NOT EXISTS idx_processing_jobs_lease ON processing_jobs (status, lease_expires_at);
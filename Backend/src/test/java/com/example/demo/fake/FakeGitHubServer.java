@@ -0,0 +1,1058 @@
+package com.example.demo.fake;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Local stand-in for GitHub and Gemini, for benchmarking the upload pipeline end to end without
+ * touching either. It serves what the services call: repository create (REST and GraphQL), topics,
+ * contents, tarballs, pull requests and merges, the user endpoints, git smart HTTP (through
+ * {@code git http-backend}, so pushes land in real bare repositories), Git Data blob creation, the
+ * Git LFS batch, upload and verify endpoints (objects are kept under lfs/ in the root) and Gemini's
+ * generateContent. The rest of the Git Data API is not served; use the CLI push backend against it.
+ *
+ * Latency, injected errors and rate limits are set with system properties (fake.latency-ms,
+ * fake.latency-jitter-ms, fake.gemini-latency-ms, fake.error-rate, fake.secondary-rate-limit-rate,
+ * fake.rate-limit, fake.rate-limit-window-seconds, fake.mergeable-after-ms) and can be changed while
+ * it runs with POST /_fake/config?name=value. GET /_fake/stats returns per-endpoint counters and
+ * the LFS objects stored and verified per repository; POST /_fake/reset clears the counters along
+ * with the rate-limit windows.
+ *
+ * Run from Backend after mvn test-compile:
+ *   mvn -q dependency:build-classpath -Dmdep.outputFile=target/cp.txt
+ *   java -cp target/classes:target/test-classes:$(cat target/cp.txt) com.example.demo.fake.FakeGitHubServer
+ * then start the application with the properties it prints.
+ */
+public class FakeGitHubServer {
+
+    private static final String LOGIN = "fake-user";
+
+    private static final Pattern GIT_PATH = Pattern.compile("^/([^/]+)/([^/]+\\.git)(/.*)$");
+    private static final Pattern REPO_PATH = Pattern.compile("^/repos/([^/]+)/([^/]+)(/.*)?$");
+    private static final Pattern LFS_STORAGE_PATH = Pattern.compile("^/lfs-storage/([^/]+)/([^/]+)/([0-9a-f]{64})$");
+    private static final Pattern LFS_OID = Pattern.compile("[0-9a-f]{64}");
+    private static final String LFS_JSON = "application/vnd.git-lfs+json";
+    private static final Pattern PULL_PATH = Pattern.compile("^/pulls/(\\d+)(/merge)?$");
+    private static final Pattern ALIASED_FIELD = Pattern.compile("(\\w+)\\s*:\\s*(repository|updateTopics)\\s*\\(\\s*(?:name|input)\\s*:\\s*\\$(\\w+)");
+
+    private final int port;
+    private final Path root;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private volatile long latencyMillis = Long.getLong("fake.latency-ms", 50);
+    private volatile long latencyJitterMillis = Long.getLong("fake.latency-jitter-ms", 20);
+    private volatile long geminiLatencyMillis = Long.getLong("fake.gemini-latency-ms", 800);
+    // 5xx from GitHub, 503 from Gemini
+    private volatile double errorRate = Double.parseDouble(System.getProperty("fake.error-rate", "0"));
+    // 403 with Retry-After, as GitHub sends for secondary limits
+    private volatile double secondaryRateLimitRate = Double.parseDouble(System.getProperty("fake.secondary-rate-limit-rate", "0"));
+    // Per token and window, as GitHub's primary limit
+    private volatile int rateLimit = Integer.getInteger("fake.rate-limit", 5000);
+    private volatile long rateLimitWindowSeconds = Long.getLong("fake.rate-limit-window-seconds", 3600);
+    // GitHub reports mergeable as null for a while after a pull request is opened
+    private volatile long mergeableAfterMillis = Long.getLong("fake.mergeable-after-ms", 1500);
+
+    private final Map<String, FakeRepository> repositories = new ConcurrentHashMap<>();
+    private final Map<String, RateWindow> rateWindows = new ConcurrentHashMap<>();
+    private final Map<String, EndpointStats> stats = new ConcurrentHashMap<>();
+    private final AtomicInteger nextRepositoryId = new AtomicInteger(1000);
+
+    public FakeGitHubServer(int port, Path root) {
+        this.port = port;
+        this.root = root;
+    }
+
+    public static void main(String[] args) throws IOException {
+        int port = Integer.getInteger("fake.port", 18080);
+        Path root = Paths.get(System.getProperty("fake.root",
+            Files.createTempDirectory("fake-github").toString()));
+        new FakeGitHubServer(port, root).start(Integer.getInteger("fake.threads", 64));
+
+        String base = "http://localhost:" + port;
+        System.out.println("🧪 FAKE GITHUB + GEMINI listening on " + base + ", repositories in " + root);
+        System.out.println("   github.api.base-url=" + base);
+        System.out.println("   github.lfs.base-url=" + base);
+        System.out.println("   github.personal-access-token=fake");
+        System.out.println("   gemini.api.url=" + base + "/v1beta/models/gemini-pro:generateContent");
+        System.out.println("   gemini.api.key=fake");
+        System.out.println("   app.github.push-backend=cli");
+    }
+
+    public HttpServer start(int threads) throws IOException {
+        Files.createDirectories(root);
+        HttpServer server = HttpServer.create(new InetSocketAddress(port), 512);
+        AtomicInteger threadNumber = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "fake-github-" + threadNumber.incrementAndGet());
+            thread.setDaemon(false);
+            return thread;
+        });
+        server.setExecutor(executor);
+        server.createContext("/", this::handle);
+        server.start();
+        return server;
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        String path = exchange.getRequestURI().getPath();
+        String method = exchange.getRequestMethod();
+        long start = System.nanoTime();
+        String endpoint = method + " " + endpointName(path);
+        EndpointStats endpointStats = stats.computeIfAbsent(endpoint, key -> new EndpointStats());
+        try {
+            if (path.startsWith("/_fake/")) {
+                handleControl(exchange, path);
+                return;
+            }
+            Matcher git = GIT_PATH.matcher(path);
+            if (git.matches() && git.group(3).startsWith("/info/lfs/")) {
+                simulateLatency(latencyMillis);
+                handleLfs(exchange, method, git.group(1), git.group(2), git.group(3));
+                return;
+            }
+            Matcher lfsStorage = LFS_STORAGE_PATH.matcher(path);
+            if (lfsStorage.matches()) {
+                handleLfsStorage(exchange, method, lfsStorage.group(1) + "/" + lfsStorage.group(2), lfsStorage.group(3));
+                return;
+            }
+            if (git.matches()) {
+                // Pushes are neither rate limited nor failed on purpose; git does not retry
+                simulateLatency(latencyMillis);
+                handleGit(exchange, git.group(1), git.group(2), git.group(3));
+                return;
+            }
+            if (path.endsWith(":generateContent")) {
+                simulateLatency(geminiLatencyMillis);
+                if (ThreadLocalRandom.current().nextDouble() < errorRate) {
+                    endpointStats.injected.incrementAndGet();
+                    sendJson(exchange, 503, Map.of("error", Map.of("code", 503, "message", "The model is overloaded.", "status", "UNAVAILABLE")));
+                    return;
+                }
+                handleGenerateContent(exchange);
+                return;
+            }
+
+            simulateLatency(latencyMillis);
+            if (!checkRateLimit(exchange, path.equals("/graphql") ? "graphql" : "core")) {
+                endpointStats.injected.incrementAndGet();
+                return;
+            }
+            double roll = ThreadLocalRandom.current().nextDouble();
+            if (roll < errorRate) {
+                endpointStats.injected.incrementAndGet();
+                sendJson(exchange, 502, Map.of("message", "Server Error"));
+                return;
+            }
+            if (roll < errorRate + secondaryRateLimitRate) {
+                endpointStats.injected.incrementAndGet();
+                exchange.getResponseHeaders().set("Retry-After", "1");
+                sendJson(exchange, 403, Map.of("message", "You have exceeded a secondary rate limit. Please wait a few minutes before you try again."));
+                return;
+            }
+            handleApi(exchange, method, path);
+        } catch (Exception e) {
+            System.err.println("❌ FAKE " + endpoint + ": " + e);
+            try {
+                sendJson(exchange, 500, Map.of("message", String.valueOf(e.getMessage())));
+            } catch (IOException | RuntimeException ignored) {
+                // Response already started
+            }
+        } finally {
+            endpointStats.requests.incrementAndGet();
+            endpointStats.totalNanos.addAndGet(System.nanoTime() - start);
+            exchange.close();
+        }
+    }
+
+    private void handleApi(HttpExchange exchange, String method, String path) throws IOException {
+        if (path.equals("/user") && method.equals("GET")) {
+            Map<String, Object> user = new HashMap<>();
+            user.put("login", LOGIN);
+            user.put("id", 1);
+            user.put("name", "Fake User");
+            user.put("email", "fake-user@example.com");
+            user.put("public_repos", repositories.size());
+            sendJson(exchange, 200, user);
+        } else if (path.equals("/user/repos") && method.equals("GET")) {
+            listRepositories(exchange);
+        } else if (path.equals("/user/repos") && method.equals("POST")) {
+            JsonNode body = readJson(exchange);
+            FakeRepository repository = createRepository(body.path("name").asText(), body.path("description").asText(null),
+                body.path("private").asBoolean(false));
+            if (repository == null) {
+                sendJson(exchange, 422, Map.of("message", "Repository creation failed.",
+                    "errors", List.of(Map.of("resource", "Repository", "code", "custom", "field", "name",
+                        "message", "name already exists on this account"))));
+            } else {
+                sendJson(exchange, 201, repository.toMap(baseUrl(exchange)));
+            }
+        } else if (path.equals("/graphql") && method.equals("POST")) {
+            handleGraphQL(exchange);
+        } else {
+            Matcher repo = REPO_PATH.matcher(path);
+            if (!repo.matches()) {
+                sendJson(exchange, 404, Map.of("message", "Not Found"));
+                return;
+            }
+            FakeRepository repository = repositories.get((repo.group(1) + "/" + repo.group(2)).toLowerCase());
+            if (repository == null) {
+                sendJson(exchange, 404, Map.of("message", "Not Found"));
+                return;
+            }
+            handleRepository(exchange, method, repository, repo.group(3) == null ? "" : repo.group(3));
+        }
+    }
+
+    private void handleRepository(HttpExchange exchange, String method, FakeRepository repository, String rest) throws IOException {
+        Matcher pull = PULL_PATH.matcher(rest);
+        if (rest.isEmpty() && method.equals("GET")) {
+            sendJson(exchange, 200, repository.toMap(baseUrl(exchange)));
+        } else if (rest.equals("/topics") && method.equals("PUT")) {
+            List<String> names = new ArrayList<>();
+            readJson(exchange).path("names").forEach(name -> names.add(name.asText()));
+            repository.topics = names;
+            sendJson(exchange, 200, Map.of("names", names));
+        } else if (rest.equals("/topics") && method.equals("GET")) {
+            sendJson(exchange, 200, Map.of("names", repository.topics));
+        } else if (rest.startsWith("/contents") && method.equals("GET")) {
+            getContents(exchange, repository, rest.substring("/contents".length()));
+        } else if (rest.startsWith("/contents/") && method.equals("PUT")) {
+            putContents(exchange, repository, rest.substring("/contents/".length()));
+        } else if (rest.startsWith("/tarball") && method.equals("GET")) {
+            sendTarball(exchange, repository, rest.length() > "/tarball/".length() ? rest.substring("/tarball/".length()) : "HEAD");
+        } else if (rest.equals("/git/blobs") && method.equals("POST")) {
+            createBlob(exchange, repository);
+        } else if (rest.equals("/pulls") && method.equals("POST")) {
+            createPullRequest(exchange, repository);
+        } else if (pull.matches() && pull.group(2) == null && method.equals("GET")) {
+            PullRequest pullRequest = repository.pulls.get(Integer.parseInt(pull.group(1)));
+            if (pullRequest == null) {
+                sendJson(exchange, 404, Map.of("message", "Not Found"));
+            } else {
+                sendJson(exchange, 200, pullRequest.toMap(repository, baseUrl(exchange)));
+            }
+        } else if (pull.matches() && pull.group(2) != null && method.equals("PUT")) {
+            mergePullRequest(exchange, repository, Integer.parseInt(pull.group(1)));
+        } else {
+            sendJson(exchange, 404, Map.of("message", "Not Found"));
+        }
+    }
+
+    // Null when the name is taken
+    private FakeRepository createRepository(String name, String description, boolean isPrivate) throws IOException {
+        FakeRepository repository = new FakeRepository(nextRepositoryId.incrementAndGet(), name, description, isPrivate);
+        if (repositories.putIfAbsent(repository.fullName().toLowerCase(), repository) != null) {
+            return null;
+        }
+        Path gitDir = root.resolve(LOGIN).resolve(name + ".git");
+        Files.createDirectories(gitDir);
+        git(gitDir, null, "init", "--bare", "-q");
+        git(gitDir, null, "symbolic-ref", "HEAD", "refs/heads/main");
+        repository.gitDir = gitDir;
+        return repository;
+    }
+
+    // Only the blob endpoint of the Git Data API; the blob lands in the bare repository
+    private void createBlob(HttpExchange exchange, FakeRepository repository) throws IOException {
+        JsonNode body = readJson(exchange);
+        String content = body.path("content").asText();
+        byte[] bytes = "base64".equals(body.path("encoding").asText())
+            ? Base64.getMimeDecoder().decode(content) : content.getBytes(StandardCharsets.UTF_8);
+        String sha = gitWithInput(repository.gitDir, bytes, "hash-object", "-w", "--stdin").trim();
+        sendJson(exchange, 201, Map.of("sha", sha, "url", baseUrl(exchange) + "/repos/" + repository.fullName() + "/git/blobs/" + sha));
+    }
+
+    private void listRepositories(HttpExchange exchange) throws IOException {
+        Map<String, String> query = queryParameters(exchange);
+        int perPage = Math.max(1, Math.min(100, Integer.parseInt(query.getOrDefault("per_page", "30"))));
+        int page = Math.max(1, Integer.parseInt(query.getOrDefault("page", "1")));
+        List<FakeRepository> all = new ArrayList<>(repositories.values());
+        all.sort((a, b) -> Long.compare(b.updatedAt, a.updatedAt));
+        int lastPage = Math.max(1, (all.size() + perPage - 1) / perPage);
+
+        List<Map<String, Object>> listed = new ArrayList<>();
+        for (int i = (page - 1) * perPage; i < Math.min(all.size(), page * perPage); i++) {
+            listed.add(all.get(i).toMap(baseUrl(exchange)));
+        }
+        if (page < lastPage) {
+            String url = baseUrl(exchange) + "/user/repos?per_page=" + perPage + "&page=";
+            exchange.getResponseHeaders().set("Link",
+                "<" + url + (page + 1) + ">; rel=\"next\", <" + url + lastPage + ">; rel=\"last\"");
+        }
+        sendJson(exchange, 200, listed);
+    }
+
+    // Name availability for aliased viewer.repository lookups, createRepository and updateTopics
+    private void handleGraphQL(HttpExchange exchange) throws IOException {
+        JsonNode body = readJson(exchange);
+        String query = body.path("query").asText();
+        JsonNode variables = body.path("variables");
+        Map<String, Object> data = new LinkedHashMap<>();
+        List<Map<String, Object>> errors = new ArrayList<>();
+
+        if (query.contains("createRepository")) {
+            JsonNode input = variables.path("input");
+            FakeRepository repository = createRepository(input.path("name").asText(), input.path("description").asText(null),
+                "PRIVATE".equals(input.path("visibility").asText()));
+            if (repository == null) {
+                data.put("createRepository", null);
+                errors.add(Map.of("type", "UNPROCESSABLE", "message", "Name already exists on this account"));
+            } else {
+                Map<String, Object> created = new HashMap<>();
+                created.put("id", repository.nodeId());
+                created.put("name", repository.name);
+                created.put("nameWithOwner", repository.fullName());
+                created.put("url", baseUrl(exchange) + "/" + repository.fullName());
+                created.put("sshUrl", "git@localhost:" + repository.fullName() + ".git");
+                data.put("createRepository", Map.of("repository", created));
+            }
+        } else {
+            Map<String, Object> viewer = new LinkedHashMap<>();
+            viewer.put("login", LOGIN);
+            Matcher field = ALIASED_FIELD.matcher(query);
+            while (field.find()) {
+                String alias = field.group(1);
+                JsonNode argument = variables.path(field.group(3));
+                if (field.group(2).equals("repository")) {
+                    FakeRepository repository = repositories.get((LOGIN + "/" + argument.asText()).toLowerCase());
+                    viewer.put(alias, repository == null ? null : Map.of("id", repository.nodeId()));
+                    if (repository == null) {
+                        errors.add(Map.of("type", "NOT_FOUND", "path", List.of("viewer", alias),
+                            "message", "Could not resolve to a Repository with the name '" + LOGIN + "/" + argument.asText() + "'."));
+                    }
+                } else {
+                    String nodeId = argument.path("repositoryId").asText();
+                    repositories.values().stream().filter(repository -> repository.nodeId().equals(nodeId)).findFirst()
+                        .ifPresent(repository -> {
+                            List<String> names = new ArrayList<>();
+                            argument.path("topicNames").forEach(name -> names.add(name.asText()));
+                            repository.topics = names;
+                        });
+                    data.put(alias, Map.of("invalidTopicNames", List.of()));
+                }
+            }
+            if (query.contains("viewer")) {
+                data.put("viewer", viewer);
+            }
+        }
+
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("data", data);
+        if (!errors.isEmpty()) {
+            response.put("errors", errors);
+        }
+        sendJson(exchange, 200, response);
+    }
+
+    private void getContents(HttpExchange exchange, FakeRepository repository, String rest) throws IOException {
+        String path = rest.startsWith("/") ? rest.substring(1) : rest;
+        String ref = queryParameters(exchange).getOrDefault("ref", "HEAD");
+        GitResult type = gitResult(repository.gitDir, null, "cat-file", "-t", ref + ":" + path);
+        if (!type.success) {
+            sendJson(exchange, 404, Map.of("message", repository.isEmpty() ? "This repository is empty." : "Not Found"));
+            return;
+        }
+
+        String kind = type.output().trim();
+        if (kind.equals("tree")) {
+            List<Map<String, Object>> listing = new ArrayList<>();
+            for (String line : git(repository.gitDir, null, "ls-tree", "-l", ref + ":" + path).split("\n")) {
+                if (line.isEmpty()) {
+                    continue;
+                }
+                // <mode> <type> <sha> <size>\t<name>
+                String[] fields = line.substring(0, line.indexOf('\t')).trim().split("\\s+");
+                String name = line.substring(line.indexOf('\t') + 1);
+                Map<String, Object> item = new HashMap<>();
+                item.put("name", name);
+                item.put("path", path.isEmpty() ? name : path + "/" + name);
+                item.put("sha", fields[2]);
+                item.put("size", fields[3].equals("-") ? 0 : Long.parseLong(fields[3]));
+                item.put("type", fields[1].equals("tree") ? "dir" : fields[1].equals("commit") ? "submodule"
+                    : fields[0].equals("120000") ? "symlink" : "file");
+                listing.add(item);
+            }
+            sendJson(exchange, 200, listing);
+        } else {
+            byte[] content = gitBytes(repository.gitDir, "cat-file", "blob", ref + ":" + path);
+            Map<String, Object> file = new HashMap<>();
+            file.put("type", "file");
+            file.put("name", path.substring(path.lastIndexOf('/') + 1));
+            file.put("path", path);
+            file.put("sha", git(repository.gitDir, null, "rev-parse", ref + ":" + path).trim());
+            file.put("size", content.length);
+            file.put("encoding", "base64");
+            file.put("content", Base64.getEncoder().encodeToString(content));
+            sendJson(exchange, 200, file);
+        }
+    }
+
+    // A commit on the branch that adds or replaces one file, built with a private index
+    private void putContents(HttpExchange exchange, FakeRepository repository, String path) throws IOException {
+        JsonNode body = readJson(exchange);
+        String branch = body.path("branch").asText("main");
+        byte[] content = Base64.getMimeDecoder().decode(body.path("content").asText());
+        synchronized (repository) {
+            GitResult parent = gitResult(repository.gitDir, null, "rev-parse", "--verify", "-q", "refs/heads/" + branch);
+            Path index = Files.createTempFile("fake-index", "");
+            try {
+                Map<String, String> env = Map.of("GIT_INDEX_FILE", index.toString());
+                Files.delete(index);
+                if (parent.success) {
+                    git(repository.gitDir, env, "read-tree", parent.output().trim());
+                }
+                String existed = parent.success
+                    ? gitResult(repository.gitDir, null, "rev-parse", "--verify", "-q", parent.output().trim() + ":" + path).output().trim() : "";
+                String blob = gitWithInput(repository.gitDir, content, "hash-object", "-w", "--stdin").trim();
+                git(repository.gitDir, env, "update-index", "--add", "--cacheinfo", "100644," + blob + "," + path);
+                String tree = git(repository.gitDir, env, "write-tree").trim();
+                List<String> commitTree = new ArrayList<>(List.of("commit-tree", tree, "-m", body.path("message").asText("Update " + path)));
+                if (parent.success) {
+                    commitTree.addAll(List.of("-p", parent.output().trim()));
+                }
+                String commit = git(repository.gitDir, null, commitTree.toArray(new String[0])).trim();
+                git(repository.gitDir, null, "update-ref", "refs/heads/" + branch, commit);
+                repository.updatedAt = System.currentTimeMillis();
+                sendJson(exchange, existed.isEmpty() ? 201 : 200, Map.of(
+                    "content", Map.of("name", path.substring(path.lastIndexOf('/') + 1), "path", path, "sha", blob),
+                    "commit", Map.of("sha", commit)));
+            } finally {
+                Files.deleteIfExists(index);
+            }
+        }
+    }
+
+    // Served directly rather than through a redirect to a codeload host
+    private void sendTarball(HttpExchange exchange, FakeRepository repository, String ref) throws IOException {
+        GitResult commit = gitResult(repository.gitDir, null, "rev-parse", "--verify", "-q", ref + "^{commit}");
+        if (!commit.success) {
+            sendJson(exchange, 404, Map.of("message", "Not Found"));
+            return;
+        }
+        String prefix = LOGIN + "-" + repository.name + "-" + commit.output().trim().substring(0, 7) + "/";
+        Process process = new ProcessBuilder("git", "archive", "--format=tar.gz", "--prefix=" + prefix, commit.output().trim())
+            .directory(repository.gitDir.toFile())
+            .redirectError(ProcessBuilder.Redirect.DISCARD)
+            .start();
+        exchange.getResponseHeaders().set("Content-Type", "application/x-gzip");
+        exchange.sendResponseHeaders(200, 0);
+        try (InputStream in = process.getInputStream(); OutputStream out = exchange.getResponseBody()) {
+            in.transferTo(out);
+        }
+    }
+
+    private void createPullRequest(HttpExchange exchange, FakeRepository repository) throws IOException {
+        JsonNode body = readJson(exchange);
+        String head = body.path("head").asText();
+        String base = body.path("base").asText();
+        GitResult headSha = gitResult(repository.gitDir, null, "rev-parse", "--verify", "-q", "refs/heads/" + head);
+        GitResult baseSha = gitResult(repository.gitDir, null, "rev-parse", "--verify", "-q", "refs/heads/" + base);
+        if (!headSha.success || !baseSha.success) {
+            sendJson(exchange, 422, Map.of("message", "Validation Failed",
+                "errors", List.of(Map.of("resource", "PullRequest", "code", "invalid", "field", headSha.success ? "base" : "head"))));
+            return;
+        }
+        PullRequest pullRequest = new PullRequest(repository.nextPullNumber.incrementAndGet(),
+            body.path("title").asText(), head, base, System.currentTimeMillis());
+        repository.pulls.put(pullRequest.number, pullRequest);
+        sendJson(exchange, 201, pullRequest.toMap(repository, baseUrl(exchange)));
+    }
+
+    // Fast-forwards when it can; otherwise records a merge commit that takes the head's tree
+    private void mergePullRequest(HttpExchange exchange, FakeRepository repository, int number) throws IOException {
+        PullRequest pullRequest = repository.pulls.get(number);
+        if (pullRequest == null) {
+            sendJson(exchange, 404, Map.of("message", "Not Found"));
+            return;
+        }
+        JsonNode body = readJson(exchange);
+        synchronized (repository) {
+            if (pullRequest.merged || !Boolean.TRUE.equals(pullRequest.mergeable())) {
+                sendJson(exchange, 405, Map.of("message", "Pull Request is not mergeable"));
+                return;
+            }
+            String head = git(repository.gitDir, null, "rev-parse", "refs/heads/" + pullRequest.head).trim();
+            String base = git(repository.gitDir, null, "rev-parse", "refs/heads/" + pullRequest.base).trim();
+            String merged = head;
+            if (!gitResult(repository.gitDir, null, "merge-base", "--is-ancestor", base, head).success) {
+                String title = body.path("commit_title").asText("Merge pull request #" + number);
+                merged = git(repository.gitDir, null, "commit-tree", head + "^{tree}", "-p", base, "-p", head,
+                    "-m", title + "\n\n" + body.path("commit_message").asText("")).trim();
+            }
+            git(repository.gitDir, null, "update-ref", "refs/heads/" + pullRequest.base, merged);
+            pullRequest.merged = true;
+            repository.updatedAt = System.currentTimeMillis();
+            sendJson(exchange, 200, Map.of("sha", merged, "merged", true, "message", "Pull Request successfully merged"));
+        }
+    }
+
+    // A canned analysis in the shape ProjectAnalysisService parses: JSON inside the first part's text
+    private void handleGenerateContent(HttpExchange exchange) throws IOException {
+        readJson(exchange);
+        Map<String, Object> analysis = new LinkedHashMap<>();
+        analysis.put("projectType", "Web Application");
+        analysis.put("summary", "Analysis generated by the fake Gemini server");
+        analysis.put("recommendations", List.of("Add a README", "Add tests", "Set up continuous integration"));
+        String text = "```json\n" + objectMapper.writerWithDefaultPrettyPrinter().writeValueAsString(analysis) + "\n```";
+        sendJson(exchange, 200, Map.of(
+            "candidates", List.of(Map.of(
+                "content", Map.of("role", "model", "parts", List.of(Map.of("text", text))),
+                "finishReason", "STOP",
+                "index", 0)),
+            "usageMetadata", Map.of("promptTokenCount", 200, "candidatesTokenCount", 120, "totalTokenCount", 320)));
+    }
+
+    // Runs git http-backend as a CGI program; request and response bodies are streamed
+    private void handleGit(HttpExchange exchange, String owner, String repository, String rest) throws IOException {
+        ProcessBuilder builder = new ProcessBuilder("git", "http-backend");
+        Map<String, String> env = builder.environment();
+        env.put("GIT_PROJECT_ROOT", root.toString());
+        env.put("GIT_HTTP_EXPORT_ALL", "1");
+        env.put("PATH_INFO", "/" + owner + "/" + repository + rest);
+        env.put("REQUEST_METHOD", exchange.getRequestMethod());
+        env.put("QUERY_STRING", exchange.getRequestURI().getRawQuery() == null ? "" : exchange.getRequestURI().getRawQuery());
+        // receive-pack is only enabled for an authenticated user
+        env.put("REMOTE_USER", LOGIN);
+        env.put("REMOTE_ADDR", exchange.getRemoteAddress().getAddress().getHostAddress());
+        putIfPresent(env, "CONTENT_TYPE", exchange.getRequestHeaders().getFirst("Content-Type"));
+        putIfPresent(env, "HTTP_CONTENT_ENCODING", exchange.getRequestHeaders().getFirst("Content-Encoding"));
+        putIfPresent(env, "GIT_PROTOCOL", exchange.getRequestHeaders().getFirst("Git-Protocol"));
+        builder.redirectError(ProcessBuilder.Redirect.DISCARD);
+        Process process = builder.start();
+
+        // Without CONTENT_LENGTH the backend reads the body to EOF, so chunked pushes work as well
+        Thread requestCopier = new Thread(() -> {
+            try (InputStream in = exchange.getRequestBody(); OutputStream out = process.getOutputStream()) {
+                in.transferTo(out);
+            } catch (IOException e) {
+                process.destroy();
+            }
+        }, "fake-git-request");
+        requestCopier.setDaemon(true);
+        requestCopier.start();
+
+        try (InputStream out = process.getInputStream()) {
+            int status = 200;
+            String line;
+            while (!(line = readHeaderLine(out)).isEmpty()) {
+                int colon = line.indexOf(':');
+                String name = line.substring(0, colon).trim();
+                String value = line.substring(colon + 1).trim();
+                if (name.equalsIgnoreCase("Status")) {
+                    status = Integer.parseInt(value.split(" ")[0]);
+                } else {
+                    exchange.getResponseHeaders().add(name, value);
+                }
+            }
+            exchange.sendResponseHeaders(status, 0);
+            try (OutputStream response = exchange.getResponseBody()) {
+                out.transferTo(response);
+            }
+        }
+        if (rest.endsWith("/git-receive-pack")) {
+            FakeRepository pushed = repositories.get((owner + "/" + repository.substring(0, repository.length() - 4)).toLowerCase());
+            if (pushed != null) {
+                pushed.updatedAt = System.currentTimeMillis();
+            }
+        }
+    }
+
+    // The batch and verify endpoints of the Git LFS API, authenticated with basic auth like git itself
+    private void handleLfs(HttpExchange exchange, String method, String owner, String repositoryDir, String rest) throws IOException {
+        FakeRepository repository = repositories.get((owner + "/" + repositoryDir.substring(0, repositoryDir.length() - 4)).toLowerCase());
+        String authorization = exchange.getRequestHeaders().getFirst("Authorization");
+        if (authorization == null || !authorization.startsWith("Basic ")) {
+            sendJson(exchange, 401, Map.of("message", "Credentials needed"), LFS_JSON);
+        } else if (repository == null) {
+            sendJson(exchange, 404, Map.of("message", "Repository not found"), LFS_JSON);
+        } else if (rest.equals("/info/lfs/objects/batch") && method.equals("POST")) {
+            lfsBatch(exchange, repository, authorization);
+        } else if (rest.equals("/info/lfs/verify") && method.equals("POST")) {
+            JsonNode body = readJson(exchange);
+            String oid = body.path("oid").asText();
+            Long stored = repository.lfsObjects.get(oid);
+            if (stored == null || stored != body.path("size").asLong(-1)) {
+                sendJson(exchange, 404, Map.of("message", "Object does not exist"), LFS_JSON);
+            } else {
+                repository.lfsVerified.add(oid);
+                sendJson(exchange, 200, Map.of(), LFS_JSON);
+            }
+        } else {
+            sendJson(exchange, 404, Map.of("message", "Not Found"), LFS_JSON);
+        }
+    }
+
+    // Objects already stored get no actions, as on GitHub; uploads go to the storage endpoint below
+    private void lfsBatch(HttpExchange exchange, FakeRepository repository, String authorization) throws IOException {
+        JsonNode body = readJson(exchange);
+        String operation = body.path("operation").asText();
+        boolean basic = !body.has("transfers");
+        for (JsonNode transfer : body.path("transfers")) {
+            basic |= "basic".equals(transfer.asText());
+        }
+        if (!operation.equals("upload") && !operation.equals("download") || !basic) {
+            sendJson(exchange, 422, Map.of("message", "Unsupported operation or transfer"), LFS_JSON);
+            return;
+        }
+
+        String storageUrl = baseUrl(exchange) + "/lfs-storage/" + repository.fullName() + "/";
+        List<Map<String, Object>> objects = new ArrayList<>();
+        for (JsonNode requested : body.path("objects")) {
+            String oid = requested.path("oid").asText();
+            long size = requested.path("size").asLong(-1);
+            Map<String, Object> object = new LinkedHashMap<>();
+            object.put("oid", oid);
+            object.put("size", size);
+            Long stored = repository.lfsObjects.get(oid);
+            Map<String, Object> storageHeader = Map.of("Authorization", "RemoteAuth fake-" + oid);
+            if (!LFS_OID.matcher(oid).matches() || size < 0) {
+                object.put("error", Map.of("code", 422, "message", "Invalid object"));
+            } else if (operation.equals("download")) {
+                if (stored == null) {
+                    object.put("error", Map.of("code", 404, "message", "Object does not exist"));
+                } else {
+                    object.put("actions", Map.of("download", Map.of("href", storageUrl + oid, "header", storageHeader, "expires_in", 3600)));
+                }
+            } else if (stored == null) {
+                object.put("authenticated", true);
+                object.put("actions", Map.of(
+                    "upload", Map.of("href", storageUrl + oid, "header", storageHeader, "expires_in", 3600),
+                    "verify", Map.of("href", baseUrl(exchange) + "/" + repository.fullName() + ".git/info/lfs/verify",
+                        "header", Map.of("Authorization", authorization), "expires_in", 3600)));
+            }
+            objects.add(object);
+        }
+        sendJson(exchange, 200, Map.of("transfer", "basic", "objects", objects, "hash_algo", "sha256"), LFS_JSON);
+    }
+
+    // Stands in for the storage host the upload and download actions point at
+    private void handleLfsStorage(HttpExchange exchange, String method, String fullName, String oid) throws IOException {
+        FakeRepository repository = repositories.get(fullName.toLowerCase());
+        if (!("RemoteAuth fake-" + oid).equals(exchange.getRequestHeaders().getFirst("Authorization"))) {
+            sendJson(exchange, 401, Map.of("message", "Bad action header"));
+            return;
+        }
+        if (repository == null) {
+            sendJson(exchange, 404, Map.of("message", "Not Found"));
+            return;
+        }
+        Path object = root.resolve("lfs").resolve(repository.fullName()).resolve(oid);
+        if (method.equals("GET")) {
+            if (!Files.exists(object)) {
+                sendJson(exchange, 404, Map.of("message", "Not Found"));
+                return;
+            }
+            exchange.sendResponseHeaders(200, Files.size(object));
+            try (OutputStream out = exchange.getResponseBody()) {
+                Files.copy(object, out);
+            }
+        } else if (method.equals("PUT")) {
+            Files.createDirectories(object.getParent());
+            Path temp = Files.createTempFile(object.getParent(), oid, ".tmp");
+            MessageDigest sha256;
+            try {
+                sha256 = MessageDigest.getInstance("SHA-256");
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException(e);
+            }
+            long size;
+            try (InputStream in = new DigestInputStream(exchange.getRequestBody(), sha256)) {
+                size = Files.copy(in, temp, StandardCopyOption.REPLACE_EXISTING);
+            }
+            if (!HexFormat.of().formatHex(sha256.digest()).equals(oid)) {
+                Files.delete(temp);
+                sendJson(exchange, 422, Map.of("message", "Content does not match oid " + oid));
+                return;
+            }
+            Files.move(temp, object, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            repository.lfsObjects.put(oid, size);
+            exchange.sendResponseHeaders(200, -1);
+        } else {
+            sendJson(exchange, 405, Map.of("message", "Method Not Allowed"));
+        }
+    }
+
+    private void handleControl(HttpExchange exchange, String path) throws IOException {
+        if (path.equals("/_fake/stats")) {
+            Map<String, Object> endpoints = new HashMap<>();
+            stats.forEach((endpoint, endpointStats) -> endpoints.put(endpoint, endpointStats.toMap()));
+            Map<String, Object> lfs = new HashMap<>();
+            repositories.values().stream()
+                .filter(repository -> !repository.lfsObjects.isEmpty())
+                .forEach(repository -> lfs.put(repository.fullName(),
+                    Map.of("stored", repository.lfsObjects.size(), "verified", repository.lfsVerified.size())));
+            sendJson(exchange, 200, Map.of("endpoints", endpoints, "repositories", repositories.size(), "lfs", lfs, "config", config()));
+        } else if (path.equals("/_fake/reset") && exchange.getRequestMethod().equals("POST")) {
+            stats.clear();
+            rateWindows.clear();
+            sendJson(exchange, 200, Map.of("reset", true));
+        } else if (path.equals("/_fake/config") && exchange.getRequestMethod().equals("POST")) {
+            queryParameters(exchange).forEach(this::configure);
+            sendJson(exchange, 200, config());
+        } else {
+            sendJson(exchange, 404, Map.of("message", "Not Found"));
+        }
+    }
+
+    private void configure(String name, String value) {
+        switch (name) {
+            case "latency-ms" -> latencyMillis = Long.parseLong(value);
+            case "latency-jitter-ms" -> latencyJitterMillis = Long.parseLong(value);
+            case "gemini-latency-ms" -> geminiLatencyMillis = Long.parseLong(value);
+            case "error-rate" -> errorRate = Double.parseDouble(value);
+            case "secondary-rate-limit-rate" -> secondaryRateLimitRate = Double.parseDouble(value);
+            case "rate-limit" -> rateLimit = Integer.parseInt(value);
+            case "rate-limit-window-seconds" -> rateLimitWindowSeconds = Long.parseLong(value);
+            case "mergeable-after-ms" -> mergeableAfterMillis = Long.parseLong(value);
+            default -> throw new IllegalArgumentException("Unknown setting: " + name);
+        }
+    }
+
+    private Map<String, Object> config() {
+        Map<String, Object> config = new LinkedHashMap<>();
+        config.put("latency-ms", latencyMillis);
+        config.put("latency-jitter-ms", latencyJitterMillis);
+        config.put("gemini-latency-ms", geminiLatencyMillis);
+        config.put("error-rate", errorRate);
+        config.put("secondary-rate-limit-rate", secondaryRateLimitRate);
+        config.put("rate-limit", rateLimit);
+        config.put("rate-limit-window-seconds", rateLimitWindowSeconds);
+        config.put("mergeable-after-ms", mergeableAfterMillis);
+        return config;
+    }
+
+    // Sets GitHub's X-RateLimit headers; false (with the 403 sent) once the window is used up
+    private boolean checkRateLimit(HttpExchange exchange, String resource) throws IOException {
+        String key = exchange.getRequestHeaders().getFirst("Authorization") + "\n" + resource;
+        RateWindow window = rateWindows.computeIfAbsent(key, k -> new RateWindow());
+        long remaining;
+        long resetEpochSeconds;
+        boolean allowed;
+        synchronized (window) {
+            long now = System.currentTimeMillis();
+            if (now >= window.resetAtMillis) {
+                window.resetAtMillis = now + rateLimitWindowSeconds * 1000;
+                window.used = 0;
+            }
+            allowed = window.used < rateLimit;
+            if (allowed) {
+                window.used++;
+            }
+            remaining = Math.max(0, rateLimit - window.used);
+            resetEpochSeconds = window.resetAtMillis / 1000;
+        }
+        exchange.getResponseHeaders().set("X-RateLimit-Limit", String.valueOf(rateLimit));
+        exchange.getResponseHeaders().set("X-RateLimit-Remaining", String.valueOf(remaining));
+        exchange.getResponseHeaders().set("X-RateLimit-Reset", String.valueOf(resetEpochSeconds));
+        exchange.getResponseHeaders().set("X-RateLimit-Resource", resource);
+        if (!allowed) {
+            sendJson(exchange, 403, Map.of("message", "API rate limit exceeded for " + LOGIN + "."));
+            return false;
+        }
+        return true;
+    }
+
+    private void simulateLatency(long meanMillis) {
+        long jitter = latencyJitterMillis;
+        long delay = Math.max(0, meanMillis + (jitter > 0 ? ThreadLocalRandom.current().nextLong(-jitter, jitter + 1) : 0));
+        if (delay > 0) {
+            try {
+                Thread.sleep(delay);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    // Groups requests by route, with names and numbers replaced, for the stats
+    private static String endpointName(String path) {
+        if (GIT_PATH.matcher(path).matches()) {
+            return "/{owner}/{repo}.git" + path.substring(path.indexOf(".git/") + 4);
+        }
+        if (path.endsWith(":generateContent")) {
+            return "/{model}:generateContent";
+        }
+        if (LFS_STORAGE_PATH.matcher(path).matches()) {
+            return "/lfs-storage/{owner}/{repo}/{oid}";
+        }
+        Matcher repo = REPO_PATH.matcher(path);
+        if (repo.matches()) {
+            String rest = repo.group(3) == null ? "" : repo.group(3);
+            rest = rest.replaceAll("^/contents/.*", "/contents/{path}").replaceAll("/\\d+", "/{number}");
+            return "/repos/{owner}/{repo}" + rest;
+        }
+        return path;
+    }
+
+    private JsonNode readJson(HttpExchange exchange) throws IOException {
+        try (InputStream in = exchange.getRequestBody()) {
+            byte[] body = in.readAllBytes();
+            return body.length == 0 ? objectMapper.createObjectNode() : objectMapper.readTree(body);
+        }
+    }
+
+    private void sendJson(HttpExchange exchange, int status, Object body) throws IOException {
+        sendJson(exchange, status, body, "application/json; charset=utf-8");
+    }
+
+    private void sendJson(HttpExchange exchange, int status, Object body, String contentType) throws IOException {
+        byte[] bytes = objectMapper.writeValueAsBytes(body);
+        exchange.getResponseHeaders().set("Content-Type", contentType);
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private static Map<String, String> queryParameters(HttpExchange exchange) {
+        Map<String, String> parameters = new HashMap<>();
+        String query = exchange.getRequestURI().getQuery();
+        if (query != null) {
+            for (String pair : query.split("&")) {
+                int equals = pair.indexOf('=');
+                if (equals > 0) {
+                    parameters.put(pair.substring(0, equals), pair.substring(equals + 1));
+                }
+            }
+        }
+        return parameters;
+    }
+
+    private String baseUrl(HttpExchange exchange) {
+        String host = exchange.getRequestHeaders().getFirst("Host");
+        return "http://" + (host == null ? "localhost:" + port : host);
+    }
+
+    private static void putIfPresent(Map<String, String> env, String name, String value) {
+        if (value != null) {
+            env.put(name, value);
+        }
+    }
+
+    // One CGI header line, without its CRLF or LF
+    private static String readHeaderLine(InputStream in) throws IOException {
+        ByteArrayOutputStream line = new ByteArrayOutputStream();
+        int b;
+        while ((b = in.read()) >= 0 && b != '\n') {
+            if (b != '\r') {
+                line.write(b);
+            }
+        }
+        return line.toString(StandardCharsets.UTF_8);
+    }
+
+    private static String git(Path gitDir, Map<String, String> env, String... args) throws IOException {
+        GitResult result = gitResult(gitDir, env, args);
+        if (!result.success) {
+            throw new IOException("git " + String.join(" ", args) + " failed: " + result.output());
+        }
+        return result.output();
+    }
+
+    private static String gitWithInput(Path gitDir, byte[] input, String... args) throws IOException {
+        return new String(runGit(gitDir, null, input, args).output, StandardCharsets.UTF_8);
+    }
+
+    private static byte[] gitBytes(Path gitDir, String... args) throws IOException {
+        return runGit(gitDir, null, null, args).output;
+    }
+
+    private static GitResult gitResult(Path gitDir, Map<String, String> env, String... args) throws IOException {
+        try {
+            return runGit(gitDir, env, null, args);
+        } catch (GitFailure e) {
+            return e.result;
+        }
+    }
+
+    private static GitResult runGit(Path gitDir, Map<String, String> env, byte[] input, String... args) throws IOException {
+        List<String> command = new ArrayList<>();
+        command.add("git");
+        command.addAll(List.of(args));
+        ProcessBuilder builder = new ProcessBuilder(command).directory(gitDir.toFile()).redirectErrorStream(true);
+        builder.environment().put("GIT_AUTHOR_NAME", "Fake GitHub");
+        builder.environment().put("GIT_AUTHOR_EMAIL", "noreply@localhost");
+        builder.environment().put("GIT_COMMITTER_NAME", "Fake GitHub");
+        builder.environment().put("GIT_COMMITTER_EMAIL", "noreply@localhost");
+        if (env != null) {
+            builder.environment().putAll(env);
+        }
+        if (input == null) {
+            builder.redirectInput(ProcessBuilder.Redirect.from(new File("/dev/null")));
+        }
+        Process process = builder.start();
+        if (input != null) {
+            try (OutputStream out = process.getOutputStream()) {
+                out.write(input);
+            }
+        }
+        byte[] output = process.getInputStream().readAllBytes();
+        try {
+            GitResult result = new GitResult(process.waitFor() == 0, output);
+            if (!result.success) {
+                throw new GitFailure(result);
+            }
+            return result;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted running git", e);
+        }
+    }
+
+    private static class GitResult {
+        private final boolean success;
+        private final byte[] output;
+
+        GitResult(boolean success, byte[] output) {
+            this.success = success;
+            this.output = output;
+        }
+
+        String output() { return new String(output, StandardCharsets.UTF_8); }
+    }
+
+    private static class GitFailure extends IOException {
+        private final GitResult result;
+
+        GitFailure(GitResult result) {
+            super(result.output());
+            this.result = result;
+        }
+    }
+
+    private static class FakeRepository {
+        private final int id;
+        private final String name;
+        private final String description;
+        private final boolean isPrivate;
+        private final Map<Integer, PullRequest> pulls = new ConcurrentHashMap<>();
+        private final AtomicInteger nextPullNumber = new AtomicInteger();
+        private volatile List<String> topics = List.of();
+        private volatile long updatedAt = System.currentTimeMillis();
+        private Path gitDir;
+        // LFS oid to size, once uploaded
+        private final Map<String, Long> lfsObjects = new ConcurrentHashMap<>();
+        private final Set<String> lfsVerified = ConcurrentHashMap.newKeySet();
+
+        FakeRepository(int id, String name, String description, boolean isPrivate) {
+            this.id = id;
+            this.name = name;
+            this.description = description;
+            this.isPrivate = isPrivate;
+        }
+
+        String fullName() { return LOGIN + "/" + name; }
+        String nodeId() { return "R_fake" + id; }
+
+        boolean isEmpty() throws IOException {
+            return !gitResult(gitDir, null, "rev-parse", "--verify", "-q", "HEAD").success;
+        }
+
+        Map<String, Object> toMap(String baseUrl) {
+            Map<String, Object> map = new HashMap<>();
+            map.put("id", id);
+            map.put("node_id", nodeId());
+            map.put("name", name);
+            map.put("full_name", fullName());
+            map.put("owner", Map.of("login", LOGIN));
+            map.put("private", isPrivate);
+            map.put("description", description);
+            map.put("html_url", baseUrl + "/" + fullName());
+            map.put("clone_url", baseUrl + "/" + fullName() + ".git");
+            map.put("ssh_url", "git@localhost:" + fullName() + ".git");
+            map.put("default_branch", "main");
+            map.put("topics", topics);
+            map.put("updated_at", Instant.ofEpochMilli(updatedAt).toString());
+            return map;
+        }
+    }
+
+    private class PullRequest {
+        private final int number;
+        private final String title;
+        private final String head;
+        private final String base;
+        private final long createdAt;
+        private volatile boolean merged;
+
+        PullRequest(int number, String title, String head, String base, long createdAt) {
+            this.number = number;
+            this.title = title;
+            this.head = head;
+            this.base = base;
+            this.createdAt = createdAt;
+        }
+
+        // Null while "GitHub" is still computing it
+        Boolean mergeable() {
+            return System.currentTimeMillis() - createdAt < mergeableAfterMillis ? null : Boolean.TRUE;
+        }
+
+        Map<String, Object> toMap(FakeRepository repository, String baseUrl) {
+            Map<String, Object> map = new HashMap<>();
+            map.put("number", number);
+            map.put("title", title);
+            map.put("state", merged ? "closed" : "open");
+            map.put("merged", merged);
+            map.put("mergeable", merged ? null : mergeable());
+            map.put("html_url", baseUrl + "/" + repository.fullName() + "/pull/" + number);
+            map.put("head", Map.of("ref", head));
+            map.put("base", Map.of("ref", base));
+            return map;
+        }
+    }
+
+    private static class RateWindow {
+        private long resetAtMillis;
+        private int used;
+    }
+
+    private static class EndpointStats {
+        private final AtomicLong requests = new AtomicLong();
+        private final AtomicLong injected = new AtomicLong();
+        private final AtomicLong totalNanos = new AtomicLong();
+
+        Map<String, Long> toMap() {
+            long count = requests.get();
+            Map<String, Long> map = new HashMap<>();
+            map.put("requests", count);
+            map.put("injectedFailures", injected.get());
+            map.put("averageMillis", count == 0 ? 0 : totalNanos.get() / count / 1_000_000);
+            return map;
+        }
+    }
+}
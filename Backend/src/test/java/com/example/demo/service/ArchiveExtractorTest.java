@@ -0,0 +1,69 @@
+package com.example.demo.service;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+class ArchiveExtractorTest {
+
+    @TempDir
+    Path temp;
+
+    @Test
+    void ignoredEntriesAreExtractedButNeverStored() throws IOException {
+        Map<String, String> entries = new LinkedHashMap<>();
+        entries.put("src/App.java", "class App {}\n");
+        entries.put("node_modules/react/index.js", "module.exports = {};\n");
+        entries.put("web/node_modules/left-pad/index.js", "module.exports = 1;\n");
+        entries.put(".DS_Store", "\0\0\0\1Bud1");
+        entries.put("__MACOSX/src/._App.java", "\0\5\26\7");
+        Path archive = temp.resolve("project.zip");
+        try (ZipOutputStream zip = new ZipOutputStream(Files.newOutputStream(archive))) {
+            for (Map.Entry<String, String> entry : entries.entrySet()) {
+                zip.putNextEntry(new ZipEntry(entry.getKey()));
+                zip.write(entry.getValue().getBytes(StandardCharsets.UTF_8));
+                zip.closeEntry();
+            }
+        }
+
+        ArchiveExtractor extractor = new ArchiveExtractor();
+        ReflectionTestUtils.setField(extractor, "writeObjects", true);
+        Path target = temp.resolve("extracted");
+        ProjectFileIndex index = new ProjectFileIndex(target, new FileTypeClassifier());
+        Path gitDir = temp.resolve("branches/.git");
+        ArchiveExtractor.ExtractionStats stats = extractor.extract(archive, "project.zip", target, index, gitDir,
+            "node_modules/\n.DS_Store\n__MACOSX\n");
+
+        assertEquals(5, stats.getFiles());
+        assertEquals(4, stats.getIgnoredFiles());
+        long ignoredBytes = entries.entrySet().stream().filter(entry -> !entry.getKey().equals("src/App.java"))
+            .mapToLong(entry -> entry.getValue().getBytes(StandardCharsets.UTF_8).length).sum();
+        assertEquals(ignoredBytes, stats.getIgnoredBytes());
+        // Only App.java was hashed and stored
+        assertEquals(1, stats.getObjectsWritten());
+        for (String name : entries.keySet()) {
+            assertTrue(Files.isRegularFile(target.resolve(name)), name);
+        }
+        byte[] appId = GitBlobHasher.hashFile(target.resolve("src/App.java"));
+        assertArrayEquals(appId, index.getEntry(target.resolve("src/App.java")).getBlobId());
+        assertTrue(GitObjectWriter.openObjectStore(gitDir).hasObject(appId));
+        // An ignored file is hashed only if something asks for its id
+        Path ignored = target.resolve("node_modules/react/index.js");
+        assertEquals(null, index.getEntry(ignored).getBlobId());
+        assertArrayEquals(GitBlobHasher.hashFile(ignored), index.getBlobId(ignored));
+    }
+}
@@ -0,0 +1,198 @@
+package com.example.demo.service;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.io.IOException;
+import java.net.http.HttpClient;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.client.RestTemplate;
+
+import com.example.demo.config.GitHubRateLimiter;
+import com.example.demo.config.HttpHostLimiter;
+import com.example.demo.fake.FakeGitHubServer;
+import com.sun.net.httpserver.HttpServer;
+
+// Runs the Git Data API and LFS uploads against FakeGitHubServer, which keeps what it receives on disk
+class GitHubIntegrationServiceTest {
+
+    @TempDir
+    Path temp;
+
+    private HttpServer server;
+    private String base;
+    private GitHubIntegrationService service;
+
+    @BeforeAll
+    static void requireGit() {
+        try {
+            assumeTrue(new ProcessBuilder("git", "--version").start().waitFor() == 0, "git is not installed");
+        } catch (IOException | InterruptedException e) {
+            assumeTrue(false, "git is not installed");
+        }
+    }
+
+    @BeforeEach
+    void startFake() throws IOException {
+        server = new FakeGitHubServer(0, temp.resolve("fake")).start(4);
+        base = "http://localhost:" + server.getAddress().getPort();
+        new RestTemplate().postForObject(base + "/_fake/config?latency-ms=0&latency-jitter-ms=0", null, String.class);
+
+        HttpClient httpClient = HttpClient.newHttpClient();
+        HttpHostLimiter hostLimiter = new HttpHostLimiter(4);
+        GitHubRateLimiter rateLimiter = new GitHubRateLimiter("localhost", 100, 100, 0.2, 0, 2, 10, 100);
+        RestTemplate restTemplate = new RestTemplate(hostLimiter.wrap(new JdkClientHttpRequestFactory(httpClient)));
+        restTemplate.getInterceptors().add(rateLimiter);
+
+        service = new GitHubIntegrationService();
+        ReflectionTestUtils.setField(service, "githubToken", "fake");
+        ReflectionTestUtils.setField(service, "githubApiBase", base);
+        ReflectionTestUtils.setField(service, "githubLfsBase", base);
+        ReflectionTestUtils.setField(service, "restTemplate", restTemplate);
+        ReflectionTestUtils.setField(service, "transferRestTemplate", new RestTemplate(hostLimiter.wrap(new JdkClientHttpRequestFactory(httpClient))));
+        ReflectionTestUtils.setField(service, "gitHubRateLimiter", rateLimiter);
+        ReflectionTestUtils.setField(service, "uploadThreads", 2);
+        ReflectionTestUtils.setField(service, "streamThresholdBytes", 1024L * 1024);
+        ReflectionTestUtils.setField(service, "maxBufferedBytes", 4L * 1024 * 1024);
+        service.startUploadExecutor();
+    }
+
+    @AfterEach
+    void stopFake() {
+        service.stopUploadExecutor();
+        server.stop(0);
+    }
+
+    @Test
+    void largeBlobsAreStreamedAndSmallOnesPostedAsJson() throws Exception {
+        new RestTemplate().postForObject(base + "/user/repos", Map.of("name", "demo"), String.class);
+        // Not a multiple of three, so the streamed base64 needs padding
+        byte[] large = new byte[3 * 1024 * 1024 + 1];
+        for (int i = 0; i < large.length; i++) {
+            large[i] = (byte) (i * 31 + (i >> 12));
+        }
+        byte[] small = "hello world\n".getBytes(StandardCharsets.UTF_8);
+        GitObjectWriter writer = GitObjectWriter.init(temp.resolve("branches/.git"), "main");
+        String largeId = GitBlobHasher.toHex(writer.writeBlob(large));
+        String smallId = GitBlobHasher.toHex(writer.writeBlob(small));
+
+        ReflectionTestUtils.invokeMethod(service, "uploadBlobs", base + "/repos/fake-user/demo",
+            new GitObjectReader(writer.getGitDir()), List.of(largeId, smallId), null);
+
+        Path remote = temp.resolve("fake/fake-user/demo.git");
+        assertArrayEquals(large, catFile(remote, largeId));
+        assertArrayEquals(small, catFile(remote, smallId));
+        // Both went through the blob endpoint, neither was retried
+        assertEquals(2L, stats().get("POST /repos/{owner}/{repo}/git/blobs").get("requests"));
+    }
+
+    @Test
+    void largeFilesAreCommittedAsPointersAndUploadedThroughLfs() throws Exception {
+        new RestTemplate().postForObject(base + "/user/repos", Map.of("name", "demo"), String.class);
+        // A space and a glob character, which .gitattributes must escape to match only this file
+        String largePath = "assets/big file[1].bin";
+        byte[] large = new byte[1024 * 1024 + 7];
+        for (int i = 0; i < large.length; i++) {
+            large[i] = (byte) (i * 17);
+        }
+        Path extracted = temp.resolve("upload/extracted");
+        Files.createDirectories(extracted.resolve("assets"));
+        Files.write(extracted.resolve(largePath), large);
+        Files.writeString(extracted.resolve("assets/big file1.bin"), "small neighbour\n");
+
+        Map<String, Object> branches = branchService().createBranchStructure(extracted.toString(),
+            Map.of("suggestedBranches", List.of("main")));
+
+        @SuppressWarnings("unchecked")
+        Map<String, LfsObject> lfsObjects = (Map<String, LfsObject>) branches.get("lfsObjects");
+        assertEquals(1, lfsObjects.size());
+        LfsObject lfsObject = lfsObjects.values().iterator().next();
+        assertEquals(large.length, lfsObject.getSize());
+
+        Path gitDir = Path.of((String) branches.get("branchesPath"), ".git");
+        assertEquals("version https://git-lfs.github.com/spec/v1\n" +
+            "oid sha256:" + lfsObject.getOid() + "\n" +
+            "size " + large.length + "\n", git(gitDir, "cat-file", "blob", "main:" + largePath));
+        assertEquals("small neighbour\n", git(gitDir, "cat-file", "blob", "main:assets/big file1.bin"));
+
+        // git itself must read the committed .gitattributes as tracking exactly the large file
+        Path checkout = temp.resolve("checkout");
+        Files.createDirectories(checkout);
+        Files.writeString(checkout.resolve(".gitattributes"), git(gitDir, "cat-file", "blob", "main:.gitattributes"));
+        assertEquals(largePath + ": filter: lfs\n",
+            git(gitDir, "--work-tree=" + checkout, "check-attr", "filter", "--", largePath));
+        assertEquals("assets/big file1.bin: filter: unspecified\n",
+            git(gitDir, "--work-tree=" + checkout, "check-attr", "filter", "--", "assets/big file1.bin"));
+
+        Map<String, Object> upload = service.uploadLfsObjects("fake-user/demo", lfsObjects.values());
+        assertEquals(true, upload.get("success"), String.valueOf(upload.get("error")));
+        assertEquals(1, upload.get("uploadedObjects"));
+        assertArrayEquals(large, Files.readAllBytes(temp.resolve("fake/lfs/fake-user/demo/" + lfsObject.getOid())));
+        assertEquals(Map.of("stored", 1, "verified", 1), lfsStats().get("fake-user/demo"));
+
+        // The batch answer for an object the server has carries no upload action
+        Map<String, Object> again = service.uploadLfsObjects("fake-user/demo", lfsObjects.values());
+        assertEquals(0, again.get("uploadedObjects"));
+        assertEquals(1, again.get("skippedObjects"));
+        Map<String, Map<String, Object>> endpoints = stats();
+        assertEquals(2L, endpoints.get("POST /{owner}/{repo}.git/info/lfs/objects/batch").get("requests"));
+        assertEquals(1L, endpoints.get("PUT /lfs-storage/{owner}/{repo}/{oid}").get("requests"));
+        assertEquals(1L, endpoints.get("POST /{owner}/{repo}.git/info/lfs/verify").get("requests"));
+    }
+
+    private GitBranchService branchService() {
+        FileMaterializer materializer = new FileMaterializer();
+        ReflectionTestUtils.setField(materializer, "materializeMode", "copy");
+        FileIndexService fileIndexService = new FileIndexService();
+        ReflectionTestUtils.setField(fileIndexService, "fileTypeClassifier", new FileTypeClassifier());
+        GitBranchService branchService = new GitBranchService();
+        ReflectionTestUtils.setField(branchService, "fileMaterializer", materializer);
+        ReflectionTestUtils.setField(branchService, "fileIndexService", fileIndexService);
+        ReflectionTestUtils.setField(branchService, "lfsEnabled", true);
+        ReflectionTestUtils.setField(branchService, "lfsThresholdMb", 1L);
+        return branchService;
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, Map<String, Object>> stats() {
+        Map<String, Object> stats = new RestTemplate().getForObject(base + "/_fake/stats", Map.class);
+        Map<String, Map<String, Object>> endpoints = (Map<String, Map<String, Object>>) stats.get("endpoints");
+        endpoints.values().forEach(endpoint -> endpoint.replaceAll((name, value) -> ((Number) value).longValue()));
+        return endpoints;
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, Object> lfsStats() {
+        return (Map<String, Object>) new RestTemplate().getForObject(base + "/_fake/stats", Map.class).get("lfs");
+    }
+
+    private static String git(Path gitDir, String... args) throws IOException, InterruptedException {
+        List<String> command = new ArrayList<>(List.of("git", "--git-dir=" + gitDir));
+        command.addAll(List.of(args));
+        Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+        String output = new String(process.getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+        assertEquals(0, process.waitFor(), String.join(" ", args) + ": " + output);
+        return output;
+    }
+
+    private static byte[] catFile(Path gitDir, String id) throws IOException, InterruptedException {
+        Process process = new ProcessBuilder("git", "--git-dir=" + gitDir, "cat-file", "blob", id).start();
+        byte[] content = process.getInputStream().readAllBytes();
+        assertEquals(0, process.waitFor(), "git cat-file blob " + id);
+        return content;
+    }
+}
@@ -0,0 +1,160 @@
+package com.example.demo.service;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+// Checks the hand-written object encoding against the git command line
+class GitObjectWriterTest {
+
+    @TempDir
+    Path temp;
+
+    @BeforeAll
+    static void requireGit() {
+        try {
+            assumeTrue(new ProcessBuilder("git", "--version").start().waitFor() == 0, "git is not installed");
+        } catch (IOException | InterruptedException e) {
+            assumeTrue(false, "git is not installed");
+        }
+    }
+
+    @Test
+    void blobIdsMatchGitHashObject() throws Exception {
+        Path file = temp.resolve("hello.txt");
+        Files.writeString(file, "hello world\n");
+        GitObjectWriter writer = GitObjectWriter.init(temp.resolve("repo.git"), "main");
+
+        byte[] fromFile = writer.writeBlob(file, null);
+        byte[] fromBytes = writer.writeBlob("hello world\n".getBytes(StandardCharsets.UTF_8));
+        byte[] empty = writer.writeBlob(new byte[0]);
+
+        assertEquals(git(temp, "hash-object", file.toString()), GitBlobHasher.toHex(fromFile));
+        assertArrayEquals(fromFile, fromBytes);
+        assertEquals("e69de29bb2d1d6434b8b29ae775ad8c2e48c5391", GitBlobHasher.toHex(empty));
+        assertTrue(writer.hasObject(fromFile));
+        assertEquals("hello world\n", git(temp, "--git-dir=" + writer.getGitDir(), "cat-file", "blob", GitBlobHasher.toHex(fromFile)) + "\n");
+    }
+
+    @Test
+    void streamedBlobMatchesWholeBlob() throws Exception {
+        byte[] content = new byte[200_000];
+        for (int i = 0; i < content.length; i++) {
+            content[i] = (byte) (i * 31);
+        }
+        GitObjectWriter writer = GitObjectWriter.init(temp.resolve("repo.git"), "main");
+
+        GitObjectWriter.BlobOutput blob = writer.openBlob(content.length);
+        for (int offset = 0; offset < content.length; offset += 7_000) {
+            blob.write(content, offset, Math.min(7_000, content.length - offset));
+        }
+        byte[] streamed = blob.finish();
+
+        assertArrayEquals(writer.writeBlob(content), streamed);
+        GitObjectReader reader = new GitObjectReader(writer.getGitDir());
+        assertArrayEquals(content, reader.read(streamed).getContent());
+        assertEquals(content.length, reader.size(streamed));
+        try (GitObjectReader.ObjectStream object = reader.open(streamed)) {
+            assertEquals("blob", object.getType());
+            assertArrayEquals(content, object.getContent().readAllBytes());
+        }
+    }
+
+    @Test
+    void treeAndCommitMatchGitAndPassFsck() throws Exception {
+        // Names chosen so byte order differs from git's tree order ("a" directory sorts as "a/")
+        Map<String, String> files = new LinkedHashMap<>();
+        files.put("README.md", "# demo\n");
+        files.put("a.txt", "top-level a\n");
+        files.put("a-b", "dash\n");
+        files.put("a/nested.txt", "nested\n");
+        files.put("a/deeper/leaf.java", "class Leaf {}\n");
+        files.put("src/main/App.java", "class App {}\n");
+        files.put("gradlew", "#!/bin/sh\nexec java \"$@\"\n");
+
+        Path work = temp.resolve("work");
+        for (Map.Entry<String, String> file : files.entrySet()) {
+            Path path = work.resolve(file.getKey());
+            Files.createDirectories(path.getParent());
+            Files.writeString(path, file.getValue());
+        }
+        Files.setPosixFilePermissions(work.resolve("gradlew"), PosixFilePermissions.fromString("rwxr-xr-x"));
+
+        Path gitDir = temp.resolve("repo.git");
+        GitObjectWriter writer = GitObjectWriter.init(gitDir, "main");
+        GitObjectWriter.TreeBuilder tree = new GitObjectWriter.TreeBuilder();
+        for (String path : files.keySet()) {
+            String mode = path.equals("gradlew") ? GitObjectWriter.EXECUTABLE_MODE : GitObjectWriter.FILE_MODE;
+            tree.add(path, mode, writer.writeBlob(work.resolve(path), null));
+        }
+        byte[] treeId = tree.write(writer);
+        byte[] first = writer.writeCommit(treeId, List.of(), "GitGenei <bot@gitgenei.dev>", "Initial commit");
+        byte[] second = writer.writeCommit(treeId, List.of(first), "GitGenei <bot@gitgenei.dev>", "Second commit");
+        writer.updateRef("refs/heads/main", second);
+
+        // The same files staged by git itself give the same tree
+        git(work, "init", "-q");
+        git(work, "add", "-A");
+        assertEquals(git(work, "write-tree"), GitBlobHasher.toHex(treeId));
+
+        // Commit ids are the hash of exactly what git reads back
+        String raw = git(temp, "--git-dir=" + gitDir, "cat-file", "commit", GitBlobHasher.toHex(second));
+        assertEquals(GitBlobHasher.toHex(second), gitWithInput(temp, raw + "\n", "hash-object", "-t", "commit", "--stdin"));
+
+        git(temp, "--git-dir=" + gitDir, "fsck", "--strict", "--no-dangling");
+        assertEquals("Second commit\nInitial commit",
+            git(temp, "--git-dir=" + gitDir, "log", "--format=%s", "main"));
+        assertEquals("class Leaf {}", git(temp, "--git-dir=" + gitDir, "show", "main:a/deeper/leaf.java"));
+
+        GitObjectReader reader = new GitObjectReader(gitDir);
+        GitObjectReader.CommitInfo commit = reader.readCommit(second);
+        assertArrayEquals(treeId, commit.getTreeId());
+        assertArrayEquals(first, commit.getParentIds().get(0));
+        assertEquals("Second commit\n", commit.getMessage());
+
+        List<String> names = new ArrayList<>();
+        for (GitObjectReader.TreeItem item : reader.readTree(treeId)) {
+            names.add(item.getName() + (item.isTree() ? "/" : "") + " " + item.getMode());
+        }
+        assertEquals(List.of("README.md 100644", "a-b 100644", "a.txt 100644", "a/ 40000", "gradlew 100755", "src/ 40000"), names);
+    }
+
+    private static String git(Path directory, String... args) throws IOException, InterruptedException {
+        return gitWithInput(directory, null, args);
+    }
+
+    private static String gitWithInput(Path directory, String input, String... args) throws IOException, InterruptedException {
+        List<String> command = new ArrayList<>();
+        command.add("git");
+        command.addAll(List.of(args));
+        Process process = new ProcessBuilder(command).directory(directory.toFile()).redirectErrorStream(true).start();
+        if (input != null) {
+            process.getOutputStream().write(input.getBytes(StandardCharsets.UTF_8));
+        }
+        process.getOutputStream().close();
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        try (InputStream in = process.getInputStream()) {
+            in.transferTo(output);
+        }
+        String text = output.toString(StandardCharsets.UTF_8).trim();
+        assertTrue(process.waitFor() == 0, "git " + String.join(" ", args) + " failed: " + text);
+        return text;
+    }
+}
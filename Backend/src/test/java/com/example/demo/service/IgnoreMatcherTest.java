@@ -0,0 +1,159 @@
+package com.example.demo.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+// Cases follow the PATTERN FORMAT section and examples of git's gitignore documentation
+class IgnoreMatcherTest {
+
+    @TempDir
+    Path root;
+
+    static Stream<Arguments> rules() {
+        return Stream.of(
+            // No slash: matches at any level
+            Arguments.of("hello.*", "hello.txt", true),
+            Arguments.of("hello.*", "src/hello.java", true),
+            Arguments.of("hello.*", "src/hello.d/world.c", true),
+            Arguments.of("hello.*", "helloworld", false),
+            Arguments.of("*.log", "logs/debug.log", true),
+            Arguments.of("*.log", "debug.log.txt", false),
+
+            // A leading or middle slash anchors to the .gitignore's directory
+            Arguments.of("/*.c", "cat-file.c", true),
+            Arguments.of("/*.c", "mozilla-sha1/sha1.c", false),
+            Arguments.of("doc/frotz", "doc/frotz", true),
+            Arguments.of("doc/frotz", "a/doc/frotz", false),
+            Arguments.of("/build", "build/out.o", true),
+            Arguments.of("/build", "src/build/out.o", false),
+
+            // A trailing slash only matches directories
+            Arguments.of("foo/", "foo/bar.txt", true),
+            Arguments.of("foo/", "foo", false),
+            Arguments.of("frotz/", "a/frotz/x", true),
+            Arguments.of("doc/frotz/", "doc/frotz/x", true),
+            Arguments.of("doc/frotz/", "a/doc/frotz/x", false),
+
+            // "*" and "?" never cross a slash
+            Arguments.of("foo/*", "foo/test.json", true),
+            Arguments.of("foo/*", "foo/bar/hello.c", true),
+            Arguments.of("src/*.js", "src/lib/a.js", false),
+            Arguments.of("file?.txt", "file1.txt", true),
+            Arguments.of("file?.txt", "file10.txt", false),
+            Arguments.of("a?b", "a/b", false),
+
+            // "**"
+            Arguments.of("**/foo", "foo", true),
+            Arguments.of("**/foo", "x/y/foo", true),
+            Arguments.of("**/foo/bar", "foo/bar", true),
+            Arguments.of("**/foo/bar", "x/foo/bar", true),
+            Arguments.of("**/foo/bar", "x/foo/baz", false),
+            Arguments.of("abc/**", "abc/x", true),
+            Arguments.of("abc/**", "abc/x/y/z", true),
+            Arguments.of("abc/**", "x/abc/y", false),
+            Arguments.of("a/**/b", "a/b", true),
+            Arguments.of("a/**/b", "a/x/b", true),
+            Arguments.of("a/**/b", "a/x/y/b", true),
+            Arguments.of("a/**/b", "a/xb", false),
+            Arguments.of("**.txt", "notes.txt", true),
+
+            // Bracket expressions, including negated ones, which never match a slash
+            Arguments.of("[a-c]at.txt", "bat.txt", true),
+            Arguments.of("[a-c]at.txt", "dat.txt", false),
+            Arguments.of("a[!b]c", "axc", true),
+            Arguments.of("a[!b]c", "abc", false),
+            Arguments.of("a[!b]c", "a/c", false),
+            Arguments.of("a[^b]c", "axc", true),
+            Arguments.of("[]]x", "]x", true),
+
+            // Escapes, comments and trailing spaces
+            Arguments.of("\\!important!.txt", "!important!.txt", true),
+            Arguments.of("\\#file", "#file", true),
+            Arguments.of("#file", "#file", false),
+            Arguments.of("trailing.txt   ", "trailing.txt", true),
+            Arguments.of("space\\ ", "space ", true),
+            Arguments.of("a+b.(c)", "a+b.(c)", true),
+
+            // The last matching rule wins
+            Arguments.of("*.html\n!foo.html", "foo.html", false),
+            Arguments.of("*.html\n!foo.html", "bar.html", true),
+            Arguments.of("!foo.html\n*.html", "foo.html", true),
+            Arguments.of("/*\n!/foo\n/foo/*\n!/foo/bar", "foo/bar", false),
+            Arguments.of("/*\n!/foo\n/foo/*\n!/foo/bar", "foo/baz", true),
+            Arguments.of("/*\n!/foo\n/foo/*\n!/foo/bar", "other.txt", true),
+
+            // Nothing inside an excluded directory can be re-included
+            Arguments.of("build/\n!build/keep.txt", "build/keep.txt", true),
+            Arguments.of("build\n!build/keep.txt", "build/keep.txt", true),
+            Arguments.of("build/*\n!build/keep.txt", "build/keep.txt", false)
+        );
+    }
+
+    @ParameterizedTest(name = "{0} -> {1}")
+    @MethodSource("rules")
+    void matchesLikeGit(String rules, String path, boolean ignored) {
+        assertEquals(ignored, new IgnoreMatcher(root, rules).isIgnored(path));
+    }
+
+    @Test
+    void nestedIgnoreFilesApplyBelowTheirDirectoryAndOverrideParents() throws IOException {
+        write(".gitignore", "*.html\n*.log\n");
+        write("docs/.gitignore", "!index.html\n/tmp\n");
+        write("vendor/.gitignore", "*\n!.gitignore\n");
+
+        IgnoreMatcher matcher = new IgnoreMatcher(root, "");
+        assertEquals(true, matcher.isIgnored("page.html"));
+        assertEquals(false, matcher.isIgnored("docs/index.html"));
+        assertEquals(true, matcher.isIgnored("docs/other.html"));
+        assertEquals(true, matcher.isIgnored("docs/debug.log"));
+        // "/tmp" in docs/.gitignore is anchored to docs
+        assertEquals(true, matcher.isIgnored("docs/tmp/a.txt"));
+        assertEquals(false, matcher.isIgnored("tmp/a.txt"));
+        assertEquals(false, matcher.isIgnored("docs/api/tmp/a.txt"));
+        assertEquals(true, matcher.isIgnored("vendor/lib.js"));
+        assertEquals(false, matcher.isIgnored("vendor/.gitignore"));
+        // A nested rule never reaches above its own directory
+        assertEquals(false, matcher.isIgnored("index.txt"));
+    }
+
+    @Test
+    void projectRulesOverrideBaseRules() throws IOException {
+        write(".gitignore", "!dist/\n");
+
+        IgnoreMatcher matcher = new IgnoreMatcher(root, "dist/\nnode_modules/\n");
+        assertEquals(false, matcher.isIgnored("dist/app.js"));
+        assertEquals(true, matcher.isIgnored("node_modules/react/index.js"));
+    }
+
+    @Test
+    void listFilesSkipsIgnoredDirectoriesWithoutReincluding() throws IOException {
+        write(".gitignore", "build/\n!build/keep.txt\n*.tmp\n");
+        write("build/keep.txt", "kept?");
+        write("build/out/classes.bin", "12345");
+        write("src/App.java", "class App {}");
+        write("src/scratch.tmp", "tmp");
+
+        IgnoreMatcher.Selection selection = new IgnoreMatcher(root, "").listFiles();
+        assertEquals(List.of(".gitignore", "src/App.java"), selection.getFiles().stream().map(path -> path.replace('\\', '/')).sorted().toList());
+        assertEquals(3, selection.getIgnoredFiles());
+        assertEquals(5 + 5 + 3, selection.getIgnoredBytes());
+    }
+
+    private void write(String path, String content) throws IOException {
+        Path file = root.resolve(path);
+        Files.createDirectories(file.getParent());
+        Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+    }
+}
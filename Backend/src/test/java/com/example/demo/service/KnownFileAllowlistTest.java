@@ -0,0 +1,60 @@
+package com.example.demo.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+class KnownFileAllowlistTest {
+
+    private static final byte[] DIGEST = GitBlobHasher.hashBytes("vendored library\n".getBytes());
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void candidatesSurviveARestartUnderTheSameRules() throws Exception {
+        allowlist(1L).recordCleanFiles(List.of(DIGEST));
+
+        KnownFileAllowlist reopened = allowlist(1L);
+        assertEquals(1, reopened.rebuild().get("promoted"));
+        assertTrue(reopened.contains(DIGEST));
+    }
+
+    @Test
+    void candidatesFromOtherRulesAreDiscardedWithoutAnIndex() throws Exception {
+        allowlist(1L).recordCleanFiles(List.of(DIGEST));
+        assertFalse(Files.exists(dir.resolve("known-files.idx")));
+
+        KnownFileAllowlist reopened = allowlist(2L);
+        assertFalse(Files.exists(dir.resolve("known-files.candidates")));
+        assertEquals(0, reopened.rebuild().get("promoted"));
+        assertFalse(reopened.contains(DIGEST));
+    }
+
+    @Test
+    void candidatesWithoutAFingerprintAreDiscarded() throws Exception {
+        Files.write(dir.resolve("known-files.candidates"), DIGEST);
+
+        KnownFileAllowlist reopened = allowlist(1L);
+        assertEquals(0, reopened.rebuild().get("promoted"));
+        assertFalse(reopened.contains(DIGEST));
+    }
+
+    private KnownFileAllowlist allowlist(long rulesFingerprint) {
+        KnownFileAllowlist allowlist = new KnownFileAllowlist();
+        ReflectionTestUtils.setField(allowlist, "enabled", true);
+        ReflectionTestUtils.setField(allowlist, "allowlistDir", dir.toString());
+        ReflectionTestUtils.setField(allowlist, "minOccurrences", 1);
+        ReflectionTestUtils.setField(allowlist, "rebuildThreshold", 1000);
+        allowlist.open(rulesFingerprint);
+        return allowlist;
+    }
+}
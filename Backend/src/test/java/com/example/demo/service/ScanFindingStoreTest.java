@@ -0,0 +1,60 @@
+package com.example.demo.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+class ScanFindingStoreTest {
+
+    @TempDir
+    Path uploadDir;
+
+    private ScanFindingStore store;
+
+    @BeforeEach
+    void setUp() {
+        store = new ScanFindingStore();
+        ReflectionTestUtils.setField(store, "uploadDir", uploadDir.toString());
+    }
+
+    @Test
+    void replacingWriterDropsOnlyEarlierFindingsOfItsSource() throws IOException {
+        try (ScanFindingStore.JobWriter writer = store.openWriter("job-1", true)) {
+            writer.append(new ScanFindingStore.ScanFinding("scan", "error", "SECRET", "a.env", "secret"));
+        }
+        for (int run = 0; run < 3; run++) {
+            try (ScanFindingStore.JobWriter writer = store.openReplacingWriter("job-1", "conflicts")) {
+                writer.append(new ScanFindingStore.ScanFinding("conflicts", "warning", "LARGE_FILE", "big.bin", "run " + run));
+                writer.append(new ScanFindingStore.ScanFinding("conflicts", "warning", "CASE_CONFLICT", null, "run " + run));
+            }
+        }
+
+        List<Map<String, Object>> findings = findings(store.readPage("job-1", 0, 100, null));
+        assertEquals(3, findings.size());
+        assertEquals("scan", findings.get(0).get("source"));
+        assertEquals("run 2", findings.get(1).get("message"));
+        assertEquals("run 2", findings.get(2).get("message"));
+    }
+
+    @Test
+    void replacingWriterStartsAMissingFile() throws IOException {
+        try (ScanFindingStore.JobWriter writer = store.openReplacingWriter("job-2", "conflicts")) {
+            writer.append(new ScanFindingStore.ScanFinding("conflicts", "warning", "LARGE_FILE", "big.bin", "only"));
+        }
+
+        assertEquals(1, findings(store.readPage("job-2", 0, 100, "conflicts")).size());
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Map<String, Object>> findings(Map<String, Object> page) {
+        return (List<Map<String, Object>>) page.get("findings");
+    }
+}
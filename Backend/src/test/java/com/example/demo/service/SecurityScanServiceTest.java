@@ -0,0 +1,122 @@
+package com.example.demo.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+class SecurityScanServiceTest {
+
+    @TempDir
+    Path project;
+
+    private SecurityScanService scanner;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        FileIndexService fileIndexService = new FileIndexService();
+        ReflectionTestUtils.setField(fileIndexService, "fileTypeClassifier", new FileTypeClassifier());
+
+        // The allowlist stays disabled, so nothing is read from or written to disk
+        scanner = new SecurityScanService();
+        ReflectionTestUtils.setField(scanner, "fileIndexService", fileIndexService);
+        ReflectionTestUtils.setField(scanner, "knownFileAllowlist", new KnownFileAllowlist());
+        ReflectionTestUtils.setField(scanner, "scanFindingStore", new ScanFindingStore());
+        ReflectionTestUtils.setField(scanner, "allowDevFiles", true);
+        ReflectionTestUtils.setField(scanner, "deepScanEnabled", true);
+        ReflectionTestUtils.setField(scanner, "scannerThreads", 2);
+        ReflectionTestUtils.setField(scanner, "chunkSize", 1024 * 1024);
+        ReflectionTestUtils.setField(scanner, "mmapThreshold", 8L * 1024 * 1024);
+        ReflectionTestUtils.setField(scanner, "timeBudgetMs", 30_000L);
+        ReflectionTestUtils.setField(scanner, "entropyEnabled", true);
+        scanner.startScanExecutor();
+
+        write("build.gradle", "plugins { id 'java' }\n");
+        write("src/main/java/App.java", "public class App { public static void main(String[] args) {} }\n");
+    }
+
+    @AfterEach
+    void tearDown() {
+        scanner.stopScanExecutor();
+    }
+
+    @Test
+    void buildWrappersPass() throws IOException {
+        write("gradlew.bat", "@rem Gradle startup script for Windows\n@if \"%DEBUG%\"==\"\" @echo off\n" +
+            "set DIRNAME=%~dp0\n\"%JAVA_EXE%\" %DEFAULT_JVM_OPTS% -classpath \"%CLASSPATH%\" org.gradle.wrapper.GradleWrapperMain %*\n");
+        write("mvnw.cmd", "@REM Maven Wrapper startup batch script\n@echo off\n");
+
+        assertTrue(scanner.performDeepScan(project.toString()));
+        SecurityScanService.SecurityScanResult result = scanner.generateScanReport(project.toString());
+        assertEquals(0, result.getDangerousFiles());
+    }
+
+    @Test
+    void vendoredNativeLibrariesAreWarnings() throws IOException {
+        Files.createDirectories(project.resolve("libs"));
+        Files.write(project.resolve("libs/libsqlite.so"), new byte[] {0x7F, 'E', 'L', 'F', 2, 1, 1, 0});
+
+        SecurityScanService.SecurityScanResult result = scanner.generateScanReport(project.toString());
+        assertEquals(0, result.getDangerousFiles());
+        assertTrue(result.getWarnings().stream().anyMatch(warning -> warning.contains("libsqlite.so")));
+        assertTrue(scanner.performDeepScan(project.toString()));
+    }
+
+    @Test
+    void devFilesFailWhenNotAllowed() throws IOException {
+        ReflectionTestUtils.setField(scanner, "allowDevFiles", false);
+        write("gradlew.bat", "@rem Gradle startup script for Windows\n");
+
+        assertFalse(scanner.performDeepScan(project.toString()));
+    }
+
+    @Test
+    void otherExecutablesStillFail() throws IOException {
+        write("tools/setup.bat", "@echo off\n");
+
+        assertFalse(scanner.performDeepScan(project.toString()));
+    }
+
+    @Test
+    void secretsInUtf16FilesAreFound() throws IOException {
+        String config = "# settings\napi_key = \"AKxY7pQ2mN4vR8sT1wZ6bC3d\"\n";
+        write("config/settings.le.properties", utf16(config, StandardCharsets.UTF_16LE, 0xFF, 0xFE));
+        write("config/settings.be.properties", utf16(config, StandardCharsets.UTF_16BE, 0xFE, 0xFF));
+
+        SecurityScanService.SecurityScanResult result = scanner.generateScanReport(project.toString());
+        assertTrue(result.getWarnings().stream().anyMatch(warning -> warning.contains("Potential secrets in: settings.le.properties")));
+        assertTrue(result.getWarnings().stream().anyMatch(warning -> warning.contains("Potential secrets in: settings.be.properties")));
+    }
+
+    private static byte[] utf16(String content, Charset charset, int bom0, int bom1) {
+        byte[] encoded = content.getBytes(charset);
+        byte[] withBom = new byte[encoded.length + 2];
+        withBom[0] = (byte) bom0;
+        withBom[1] = (byte) bom1;
+        System.arraycopy(encoded, 0, withBom, 2, encoded.length);
+        return withBom;
+    }
+
+    private void write(String path, byte[] content) throws IOException {
+        Path file = project.resolve(path);
+        Files.createDirectories(file.getParent());
+        Files.write(file, content);
+    }
+
+    private void write(String path, String content) throws IOException {
+        Path file = project.resolve(path);
+        Files.createDirectories(file.getParent());
+        Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+    }
+}
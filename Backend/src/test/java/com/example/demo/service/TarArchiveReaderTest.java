@@ -0,0 +1,172 @@
+package com.example.demo.service;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+class TarArchiveReaderTest {
+
+    // Over the 100 bytes of the ustar name field, and over the 155-byte prefix as well
+    private static final String LONG_NAME = "deep/" + "nested-directory-name/".repeat(8) + "a-file-name-well-past-one-hundred-characters.txt";
+
+    @TempDir
+    Path temp;
+
+    @ParameterizedTest
+    @ValueSource(strings = {"gnu", "pax"})
+    void readsArchivesWrittenByTar(String format) throws Exception {
+        Map<String, byte[]> files = new LinkedHashMap<>();
+        files.put("empty.txt", new byte[0]);
+        files.put("exact-block.bin", filled(512));
+        files.put("one-past-block.bin", filled(513));
+        files.put("short.txt", "hello\n".getBytes(StandardCharsets.UTF_8));
+        files.put(LONG_NAME, filled(1000));
+
+        Path source = temp.resolve("source");
+        for (Map.Entry<String, byte[]> file : files.entrySet()) {
+            Path path = source.resolve(file.getKey());
+            Files.createDirectories(path.getParent());
+            Files.write(path, file.getValue());
+        }
+        Files.createSymbolicLink(source.resolve("link"), Path.of("short.txt"));
+
+        Path archive = temp.resolve("archive-" + format + ".tar");
+        List<String> roots = new ArrayList<>();
+        try (var children = Files.list(source)) {
+            children.map(path -> path.getFileName().toString()).sorted().forEach(roots::add);
+        }
+        List<String> command = new ArrayList<>(List.of("tar", "--format=" + format, "--sort=name", "-cf", archive.toString(), "-C", source.toString()));
+        command.addAll(roots);
+        runTar(command);
+        byte[] raw = Files.readAllBytes(archive);
+
+        Map<String, TarArchiveReader.TarEntry> entries = new LinkedHashMap<>();
+        try (TarArchiveReader reader = new TarArchiveReader(Files.newInputStream(archive))) {
+            TarArchiveReader.TarEntry entry;
+            while ((entry = reader.next()) != null) {
+                entries.put(entry.getName(), entry);
+                if (entry.isFile()) {
+                    byte[] expected = files.get(entry.getName());
+                    assertArrayEquals(expected, reader.getEntryStream().readAllBytes(), entry.getName());
+                }
+            }
+        }
+
+        for (Map.Entry<String, byte[]> file : files.entrySet()) {
+            TarArchiveReader.TarEntry entry = entries.get(file.getKey());
+            assertTrue(entry != null && entry.isFile(), "missing " + file.getKey() + " in " + entries.keySet());
+            assertEquals(file.getValue().length, entry.getSize(), file.getKey());
+            // Data offsets point at the file's bytes in the archive itself, which is what snapshots read from
+            assertEquals(0, entry.getDataOffset() % 512, file.getKey());
+            byte[] atOffset = Arrays.copyOfRange(raw, (int) entry.getDataOffset(), (int) entry.getDataOffset() + file.getValue().length);
+            assertArrayEquals(file.getValue(), atOffset, file.getKey());
+        }
+        assertTrue(entries.get("deep/").isDirectory());
+        assertTrue(entries.get("link").isSymbolicLink());
+        assertEquals("short.txt", entries.get("link").getLinkName());
+    }
+
+    @Test
+    void skipsUnreadEntries() throws Exception {
+        Path source = temp.resolve("source");
+        Files.createDirectories(source);
+        Files.write(source.resolve("a.bin"), filled(5000));
+        Files.write(source.resolve("b.txt"), "second\n".getBytes(StandardCharsets.UTF_8));
+        Path archive = temp.resolve("archive.tar");
+        runTar(List.of("tar", "--format=gnu", "--sort=name", "-cf", archive.toString(), "-C", source.toString(), "a.bin", "b.txt"));
+
+        try (TarArchiveReader reader = new TarArchiveReader(Files.newInputStream(archive))) {
+            assertEquals("a.bin", reader.next().getName());
+            // Part of the first entry is read, the rest skipped by next()
+            assertEquals(100, reader.getEntryStream().readNBytes(100).length);
+            TarArchiveReader.TarEntry second = reader.next();
+            assertEquals("b.txt", second.getName());
+            assertEquals("second\n", new String(reader.getEntryStream().readAllBytes(), StandardCharsets.UTF_8));
+            assertNull(reader.next());
+        }
+    }
+
+    @Test
+    void readsBase256Sizes() throws Exception {
+        // tar only switches to base-256 past 8 GiB, so the header is built by hand
+        byte[] content = "base-256 sized\n".getBytes(StandardCharsets.UTF_8);
+        byte[] header = new byte[512];
+        put(header, 0, "big.bin");
+        put(header, 100, "0000644\0");
+        put(header, 108, "0000000\0");
+        put(header, 116, "0000000\0");
+        header[124] = (byte) 0x80;
+        header[135] = (byte) content.length;
+        put(header, 136, "00000000000\0");
+        header[156] = '0';
+        put(header, 257, "ustar  \0");
+        long sum = 0;
+        for (int i = 0; i < 512; i++) {
+            sum += (i >= 148 && i < 156) ? ' ' : (header[i] & 0xFF);
+        }
+        put(header, 148, String.format("%06o\0 ", sum));
+
+        byte[] archive = new byte[512 + 512 + 1024];
+        System.arraycopy(header, 0, archive, 0, 512);
+        System.arraycopy(content, 0, archive, 512, content.length);
+
+        try (TarArchiveReader reader = new TarArchiveReader(new ByteArrayInputStream(archive))) {
+            TarArchiveReader.TarEntry entry = reader.next();
+            assertEquals("big.bin", entry.getName());
+            assertEquals(content.length, entry.getSize());
+            assertEquals(512, entry.getDataOffset());
+            assertArrayEquals(content, reader.getEntryStream().readAllBytes());
+            assertNull(reader.next());
+        }
+    }
+
+    private static byte[] filled(int length) {
+        byte[] data = new byte[length];
+        for (int i = 0; i < length; i++) {
+            data[i] = (byte) ('a' + i % 26);
+        }
+        return data;
+    }
+
+    private static void put(byte[] header, int offset, String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.US_ASCII);
+        System.arraycopy(bytes, 0, header, offset, bytes.length);
+    }
+
+    private static void runTar(List<String> command) throws IOException, InterruptedException {
+        Process process;
+        try {
+            process = new ProcessBuilder(command).redirectErrorStream(true).start();
+        } catch (IOException e) {
+            assumeTrue(false, "tar is not installed");
+            return;
+        }
+        String output;
+        try (InputStream in = process.getInputStream()) {
+            output = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+        int exit = process.waitFor();
+        // --sort=name needs GNU tar
+        assumeTrue(exit == 0 || !output.contains("sort"), "GNU tar is not installed");
+        assertEquals(0, exit, output);
+    }
+}